@@ -249,6 +249,22 @@ def render(pathIn, outDir):
     plot_graphs(graphs, outDir)
 
 
+def serve(requests, responses):
+    # Render one linegraph file per line read from requests and answer each request with a single
+    # line "OK" or "ERROR <reason>" on responses. This keeps the interpreter and all imported
+    # modules warm across many files. The output directory of each file is its parent directory.
+    for request in requests:
+        infile = request.rstrip("\r\n")
+        if not infile:
+            continue
+        try:
+            render(infile, os.path.dirname(infile))
+            responses.write("OK\n")
+        except Exception as e:
+            responses.write("ERROR " + repr(e).replace("\n", " ") + "\n")
+        responses.flush()
+
+
 def getAllFilesInDirectoryRecusivelyThat(dirname, condition):
     # Get the list of all files in directory tree at given path
     listOfFiles = list()
@@ -258,7 +274,7 @@ def getAllFilesInDirectoryRecusivelyThat(dirname, condition):
 
 if __name__ == "__main__":
     argparser = argparse.ArgumentParser(description="Render VariationDiffs specified in linegraph files (.lg).")
-    argparser.add_argument('infile')
+    argparser.add_argument('infile', nargs='?')
     argparser.add_argument('--nodesize', nargs='?', default=700, type=int)
     argparser.add_argument('--edgesize', nargs='?', default=1.0, type=float)
     argparser.add_argument('--arrowsize', nargs='?', default=10, type=int)
@@ -271,6 +287,8 @@ if __name__ == "__main__":
 #     argparser.add_argument('--pattern', action='store_const', const=True, default=False)
     argparser.add_argument('--format', nargs='?', default="default", type=str)
     argparser.add_argument('--startlineno', nargs='?', default=LINE_NO_OFFSET, type=int)
+    argparser.add_argument('--server', action='store_const', const=True, default=False,
+                           help="Read the paths of linegraph files to render from stdin, one per line, and answer each with OK or ERROR on stdout.")
     args = argparser.parse_args()
 
     infile = args.infile
@@ -292,7 +310,14 @@ if __name__ == "__main__":
     elif args.format == "patternsrelease":
         NODE_PARSER = g.parseNodeReleaseAtomics
 
-    if os.path.isfile(infile):
+    if args.server:
+        # Any other output would corrupt the protocol, so it is redirected to stderr.
+        responses = sys.stdout
+        sys.stdout = sys.stderr
+        serve(sys.stdin, responses)
+    elif infile is None:
+        argparser.error("infile is required unless --server is given")
+    elif os.path.isfile(infile):
         print("Render file", infile)
         outdir = os.path.dirname(infile)
         render(infile, outdir)
@@ -1,32 +1,43 @@
 package org.variantsync.diffdetective.analysis;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
 import org.apache.commons.lang3.function.FailableBiConsumer;
 import org.apache.commons.lang3.function.FailableBiFunction;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.tinylog.Logger;
 import org.variantsync.diffdetective.analysis.AnalysisResult.ResultKey;
+import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.analysis.monitoring.StageTimings;
 import org.variantsync.diffdetective.analysis.monitoring.TaskCompletionMonitor;
 import org.variantsync.diffdetective.datasets.Repository;
 import org.variantsync.diffdetective.diff.git.CommitDiff;
 import org.variantsync.diffdetective.diff.git.GitDiffer;
 import org.variantsync.diffdetective.diff.git.PatchDiff;
+import org.variantsync.diffdetective.diff.git.VariationDiffCache;
 import org.variantsync.diffdetective.diff.result.CommitDiffResult;
+import org.variantsync.diffdetective.diff.result.DiffError;
+import org.variantsync.diffdetective.feature.PreprocessorAnnotationParser;
 import org.variantsync.diffdetective.metadata.Metadata;
-import org.variantsync.diffdetective.parallel.ScheduledTasksIterator;
+import org.variantsync.diffdetective.parallel.AdaptiveBatchIterator;
+import org.variantsync.diffdetective.parallel.BoundedTasksIterator;
+import org.variantsync.diffdetective.parallel.OrderedChunkProcessor;
 import org.variantsync.diffdetective.util.*;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
 import org.variantsync.diffdetective.variation.diff.Time;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
-import org.variantsync.functjonal.iteration.ClusteredIterator;
 import org.variantsync.functjonal.iteration.MappedIterator;
 
 /**
@@ -51,11 +62,36 @@ public class Analysis {
      * File name that is used to store the analysis results for each repository.
      */
     public static final String TOTAL_RESULTS_FILE_NAME = "totalresult" + EXTENSION;
+    /**
+     * File extension that is used when writing AnalysisResults to disk in their
+     * {@link Metadata#writeBinary binary format}.
+     */
+    public static final String BINARY_EXTENSION = ".metadata.bin";
+    /**
+     * File name that is used to store the analysis results for each repository in their binary format.
+     */
+    public static final String TOTAL_RESULTS_BINARY_FILE_NAME = "totalresult" + BINARY_EXTENSION;
     /**
      * Default value for <code>commitsToProcessPerThread</code>
      * @see #forEachCommit(Supplier, int, int)
      */
     public static final int COMMITS_TO_PROCESS_PER_THREAD_DEFAULT = 1000;
+    /**
+     * Default value for <code>minCommitsToProcessPerThread</code>
+     * @see #forEachCommit(Supplier, int, int, long, int)
+     */
+    public static final int MIN_COMMITS_TO_PROCESS_PER_THREAD_DEFAULT = 20;
+    /**
+     * Default value for <code>targetSecondsPerBatch</code>
+     * @see #forEachCommit(Supplier, int, int, long, int)
+     */
+    public static final long TARGET_SECONDS_PER_BATCH_DEFAULT = 60;
+    /**
+     * Value for <code>minPatchesForParallelProcessing</code> which disables the parallel processing
+     * of the patches of a single commit.
+     * @see #setMinPatchesForParallelProcessing
+     */
+    public static final int NO_PARALLEL_PATCH_PROCESSING = GitDiffer.NO_PARALLEL_PARSING;
 
     protected final List<Hooks> hooks;
     protected final Repository repository;
@@ -70,6 +106,14 @@ public class Analysis {
     protected Path outputFile;
     protected final AnalysisResult result;
 
+    /**
+     * Creates the analysis state of the tasks processing patches in parallel.
+     * Only available if this analysis was created by {@link #forEachCommit}.
+     */
+    protected Supplier<Analysis> analysisFactory;
+    protected int minPatchesForParallelProcessing = NO_PARALLEL_PATCH_PROCESSING;
+    protected boolean parsePatchesLazily = false;
+
     /**
      * The total number of commits in the observed history of the given repository.
      */
@@ -242,6 +286,8 @@ public class Analysis {
         /**
          * Signals a parsing failure of some patch in the current commit.
          * Called at most once during the commit phase.
+         * Not called if the patches are {@link Analysis#setParsePatchesLazily parsed lazily}
+         * because parsing failures are only detected during the patch phase in that case.
          */
         default void onFailedParse(Analysis analysis) throws Exception {}
         /**
@@ -258,13 +304,29 @@ public class Analysis {
         default void endPatch(Analysis analysis) throws Exception {}
         default void endCommit(Analysis analysis) throws Exception {}
         default void endBatch(Analysis analysis) throws Exception {}
+
+        /**
+         * Whether the patch phase of these hooks can run in parallel to the patch phase of other
+         * patches of the same commit (see {@link Analysis#setMinPatchesForParallelProcessing}).
+         *
+         * <p>In this case, the patches of a commit are split into chunks and each chunk is
+         * processed by a separate {@link Analysis} instance, including separate {@code Hooks}
+         * instances, created by the factory passed to {@link Analysis#forEachCommit}. Hence,
+         * {@link #beginPatch}, {@link #analyzeVariationDiff} and {@link #endPatch} must not rely
+         * on any state of this instance set up during the outer phases (e.g., a file opened in
+         * {@link #beginCommit}) and must not pass state to the outer phases except via the
+         * {@link Analysis#getResult result}. The results of all chunks are appended to the result
+         * of the commit in the order of the patches before {@link #endCommit} is called.
+         */
+        default boolean supportsParallelPatches() { return false; }
     }
 
     /**
      * Runs {@code analyzeRepository} on each repository, skipping repositories where an analysis
      * was already run. This skipping mechanism doesn't distinguish between different analyses as it
      * only checks for the existence of {@link #TOTAL_RESULTS_FILE_NAME}. Delete this file to rerun
-     * the analysis.
+     * the analysis. Repositories whose analysis was interrupted are resumed by
+     * {@link #forEachCommit} if the analysis uses it.
      * <p>
      * For each repository a directory in {@code outputDir} is passed to {@code analyzeRepository}
      * where the results of the given repository should be written.
@@ -340,6 +402,8 @@ public class Analysis {
      * The Hooks will be manipulated in that a new hook for patch filtering will be inserted as the first hook
      * for as long as the analysis runs. This hook will be removed afterwards. It is assumed that this hook
      * remains at the same place and is not manipulated by the user.
+     * Patches are {@link #setParsePatchesLazily parsed lazily} for as long as the analysis runs
+     * such that only the requested patch is parsed. The previous setting is restored afterwards.
      *
      * @param commitHash the commit to analyze relative to its first parent
      * @param fileName the name of the file that was edited in the given commit
@@ -356,14 +420,21 @@ public class Analysis {
             }
         };
 
-        // Add a hook that skips all patches unequal to the requested one.
+        // Add a hook that skips all patches unequal to the requested one
+        // and avoid parsing the skipped patches.
         analysis.hooks.add(0, filterPatchHook);
-        forSingleCommit(commitHash, analysis);
+        final boolean parsePatchesLazily = analysis.parsePatchesLazily;
+        analysis.setParsePatchesLazily(true);
+        try {
+            forSingleCommit(commitHash, analysis);
+        } finally {
+            analysis.setParsePatchesLazily(parsePatchesLazily);
 
-        // Assert that our hook is still in place after the analysis ...
-        Assert.assertTrue(analysis.hooks.isEmpty() || analysis.hooks.get(0) == filterPatchHook);
-        // ... and remove it.
-        analysis.hooks.remove(0);
+            // Assert that our hook is still in place after the analysis ...
+            Assert.assertTrue(analysis.hooks.isEmpty() || analysis.hooks.get(0) == filterPatchHook);
+            // ... and remove it.
+            analysis.hooks.remove(0);
+        }
     }
 
     /**
@@ -380,21 +451,64 @@ public class Analysis {
     }
 
     /**
-     * Runs the analysis for the repository given in {@link Analysis#Analysis}. The repository
-     * history is processed in batches of {@code commitsToProcessPerThread} on {@code nThreads} in
-     * parallel. {@link Hooks} passed to {@link Analysis#Analysis} are the main customization point
-     * for executing different analyses. By default only the total number of commits and the total
-     * runtime with multithreading of the {@link VariationDiff} parsing is recorded.
+     * Same as {@link #forEachCommit(Supplier, int, int, long, int)}.
+     * Defaults to {@link #MIN_COMMITS_TO_PROCESS_PER_THREAD_DEFAULT} (or less if
+     * {@code commitsToProcessPerThread} is smaller) and {@link #TARGET_SECONDS_PER_BATCH_DEFAULT}.
      *
      * @param analysisFactory creates independent (at least thread safe) instances the analysis
      * state
-     * @param commitsToProcessPerThread the commit batch size
+     * @param commitsToProcessPerThread the maximal commit batch size
      * @param nThreads the number of parallel processed commit batches
      */
     public static AnalysisResult forEachCommit(
         Supplier<Analysis> analysisFactory,
         final int commitsToProcessPerThread,
         final int nThreads
+    ) {
+        return forEachCommit(
+            analysisFactory,
+            Math.min(MIN_COMMITS_TO_PROCESS_PER_THREAD_DEFAULT, commitsToProcessPerThread),
+            commitsToProcessPerThread,
+            TARGET_SECONDS_PER_BATCH_DEFAULT,
+            nThreads
+        );
+    }
+
+    /**
+     * Runs the analysis for the repository given in {@link Analysis#Analysis}. The repository
+     * history is processed in batches on {@code nThreads} in parallel. {@link Hooks} passed to
+     * {@link Analysis#Analysis} are the main customization point for executing different analyses.
+     * By default only the total number of commits and the total runtime with multithreading of the
+     * {@link VariationDiff} parsing is recorded.
+     *
+     * <p>Commits are retrieved lazily and only a bounded number of batches (twice the number of
+     * threads) is scheduled at any time, so memory usage does not grow with the size of the
+     * history. The size of each batch is adapted between {@code minCommitsToProcessPerThread} and
+     * {@code maxCommitsToProcessPerThread} such that processing a batch takes about
+     * {@code targetSecondsPerBatch} (see {@link AdaptiveBatchIterator}). The results of the batches
+     * are merged in the order in which the batches are completed.
+     *
+     * <p>Completed batches are recorded in a {@link CheckpointJournal} in the output directory. If
+     * the analysis is interrupted, running it again restores the results of all completed batches
+     * and only processes the remaining commits. The journal is deleted after the total result was
+     * exported.
+     *
+     * <p>If {@link StageTimings} are enabled, the time spent in each stage of the analysis (e.g.,
+     * parsing and each hook) is added to the result of each batch.
+     *
+     * @param analysisFactory creates independent (at least thread safe) instances the analysis
+     * state
+     * @param minCommitsToProcessPerThread the minimal commit batch size
+     * @param maxCommitsToProcessPerThread the maximal commit batch size
+     * @param targetSecondsPerBatch the desired time it takes a thread to process one batch
+     * @param nThreads the number of parallel processed commit batches
+     */
+    public static AnalysisResult forEachCommit(
+        Supplier<Analysis> analysisFactory,
+        final int minCommitsToProcessPerThread,
+        final int maxCommitsToProcessPerThread,
+        final long targetSecondsPerBatch,
+        final int nThreads
     ) {
         var analysis = analysisFactory.get();
         analysis.differ = new GitDiffer(analysis.getRepository());
@@ -406,50 +520,117 @@ public class Analysis {
         Logger.info(">>> Scheduling asynchronous analysis on {} threads.", nThreads);
         clock.start();
         final InvocationCounter<RevCommit, RevCommit> numberOfTotalCommits = InvocationCounter.justCount();
-        final Iterator<Callable<AnalysisResult>> tasks = new MappedIterator<>(
-                /// 1.) Retrieve COMMITS_TO_PROCESS_PER_THREAD commits from the differ and cluster them into one list.
-                new ClusteredIterator<>(
-                        analysis.differ.yieldRevCommitsAfter(numberOfTotalCommits),
-                        commitsToProcessPerThread
-                ),
-                /// 2.) Create a MiningTask for the list of commits. This task will then be processed by one
-                ///     particular thread.
-                commitList -> () -> {
-                    Analysis thisThreadsAnalysis = analysisFactory.get();
-                    thisThreadsAnalysis.differ = analysis.differ;
-                    thisThreadsAnalysis.processCommitBatch(commitList);
-                    return thisThreadsAnalysis.getResult();
+        /// 0.) Restore the results of batches completed by a previous, interrupted run.
+        // The journal is closed even if the analysis fails, so the completed batches are recorded.
+        try (final CheckpointJournal checkpointJournal = openCheckpointJournal(analysis)) {
+            Iterator<RevCommit> commits = analysis.differ.yieldRevCommitsAfter(numberOfTotalCommits);
+            if (checkpointJournal != null) {
+                checkpointJournal.restoreResults(analysis.getResult(), () -> analysisFactory.get().getResult());
+                commits = checkpointJournal.skipCompletedBatches(commits);
+            }
+            /// 1.) Lazily retrieve commits from the differ and cluster them into batches whose size
+            ///     adapts to the time needed for previous batches.
+            final AdaptiveBatchIterator<RevCommit> commitBatches = new AdaptiveBatchIterator<>(
+                    commits,
+                    minCommitsToProcessPerThread,
+                    maxCommitsToProcessPerThread,
+                    TimeUnit.SECONDS.toNanos(targetSecondsPerBatch)
+            );
+            final Iterator<Callable<AnalysisResult>> tasks = new MappedIterator<>(
+                    commitBatches,
+                    /// 2.) Create a MiningTask for the list of commits. This task will then be processed by one
+                    ///     particular thread.
+                    commitList -> () -> {
+                        final long start = System.nanoTime();
+                        Analysis thisThreadsAnalysis = analysisFactory.get();
+                        thisThreadsAnalysis.differ = analysis.differ;
+                        thisThreadsAnalysis.analysisFactory = analysisFactory;
+                        thisThreadsAnalysis.processCommitBatch(commitList);
+                        if (checkpointJournal != null) {
+                            checkpointJournal.recordCompletedBatch(
+                                    commitList,
+                                    FileUtils.addExtension(thisThreadsAnalysis.outputFile, BINARY_EXTENSION));
+                        }
+                        commitBatches.reportProcessedBatch(commitList.size(), System.nanoTime() - start);
+                        return thisThreadsAnalysis.getResult();
+                    }
+            );
+            Logger.info("<<< done in {}", clock.printPassedSeconds());
+
+            // The annotation parser may be shared by multiple analyses so only the difference is attributed to this analysis.
+            final var formulaCacheStatisticsBefore = getFormulaCacheStatistics(analysis);
+
+            final TaskCompletionMonitor commitSpeedMonitor = new TaskCompletionMonitor(0, TaskCompletionMonitor.LogProgress("commits"));
+            Logger.info(">>> Run Analysis");
+            clock.start();
+            commitSpeedMonitor.start();
+            try (final BoundedTasksIterator<AnalysisResult> threads = new BoundedTasksIterator<>(tasks, nThreads)) {
+                while (threads.hasNext()) {
+                    final AnalysisResult threadsResult = threads.next();
+                    analysis.getResult().append(threadsResult);
+
+                    var statistics = threadsResult.get(StatisticsAnalysis.RESULT);
+                    if (statistics != null) {
+                        commitSpeedMonitor.addFinishedTasks(statistics.processedCommits);
+                    }
                 }
-        );
-        Logger.info("<<< done in {}", clock.printPassedSeconds());
+            } catch (Exception e) {
+                Logger.error(e, "Failed to run all mining task");
+                System.exit(1);
+            }
 
-        final TaskCompletionMonitor commitSpeedMonitor = new TaskCompletionMonitor(0, TaskCompletionMonitor.LogProgress("commits"));
-        Logger.info(">>> Run Analysis");
-        clock.start();
-        commitSpeedMonitor.start();
-        try (final ScheduledTasksIterator<AnalysisResult> threads = new ScheduledTasksIterator<>(tasks, nThreads)) {
-            while (threads.hasNext()) {
-                final AnalysisResult threadsResult = threads.next();
-                analysis.getResult().append(threadsResult);
-
-                var statistics = threadsResult.get(StatisticsAnalysis.RESULT);
-                if (statistics != null) {
-                    commitSpeedMonitor.addFinishedTasks(statistics.processedCommits);
+            final double runtime = clock.getPassedSeconds();
+            Logger.info("<<< done in {}", Clock.printPassedSeconds(runtime));
+
+            analysis.getResult().get(RuntimeWithMultithreadingResult.KEY).value = runtime;
+            formulaCacheStatisticsBefore.ifPresent(before -> {
+                final var statistics = getFormulaCacheStatistics(analysis).orElseThrow();
+                statistics.hits -= before.hits;
+                statistics.misses -= before.misses;
+                analysis.append(PreprocessorAnnotationParser.FormulaCacheStatistics.KEY, statistics);
+            });
+//            analysis.getResult().get(TotalNumberOfCommitsResult.KEY).value = numberOfTotalCommits.invocationCount().get();
+
+            exportMetadata(analysis.getOutputDir(), analysis.getResult());
+            if (checkpointJournal != null) {
+                try {
+                    checkpointJournal.delete();
+                } catch (IOException e) {
+                    Logger.warn(e, "Could not delete the checkpoint journal in {}", analysis.getOutputDir());
                 }
             }
-        } catch (Exception e) {
-            Logger.error(e, "Failed to run all mining task");
-            System.exit(1);
+            return analysis.getResult();
+        } catch (IOException e) {
+            Logger.warn(e, "Could not close the checkpoint journal in {}", analysis.getOutputDir());
+            return analysis.getResult();
         }
+    }
 
-        final double runtime = clock.getPassedSeconds();
-        Logger.info("<<< done in {}", Clock.printPassedSeconds(runtime));
-
-        analysis.getResult().get(RuntimeWithMultithreadingResult.KEY).value = runtime;
-//        analysis.getResult().get(TotalNumberOfCommitsResult.KEY).value = numberOfTotalCommits.invocationCount().get();
+    /**
+     * Opens the {@link CheckpointJournal} in the output directory of {@code analysis}.
+     * Returns {@code null} if the journal can't be opened, in which case the analysis is run
+     * without checkpoints.
+     */
+    private static CheckpointJournal openCheckpointJournal(final Analysis analysis) {
+        try {
+            final ObjectId head = analysis.differ.getJGitRepo().getRepository().resolve(Constants.HEAD);
+            return CheckpointJournal.open(analysis.getOutputDir(), analysis.getResult().taskName, head);
+        } catch (IOException e) {
+            Logger.warn(e, "Could not open the checkpoint journal in {}. Running without checkpoints.", analysis.getOutputDir());
+            return null;
+        }
+    }
 
-        exportMetadata(analysis.getOutputDir(), analysis.getResult());
-        return analysis.getResult();
+    /**
+     * Returns the current formula cache statistics of the annotation parser used by {@code analysis}
+     * if it is a {@link PreprocessorAnnotationParser}.
+     */
+    private static Optional<PreprocessorAnnotationParser.FormulaCacheStatistics> getFormulaCacheStatistics(final Analysis analysis) {
+        if (analysis.getRepository().getParseOptions().variationDiffParseOptions().annotationParser()
+                instanceof PreprocessorAnnotationParser annotationParser) {
+            return Optional.of(annotationParser.getFormulaCacheStatistics());
+        }
+        return Optional.empty();
     }
 
     /**
@@ -478,6 +659,54 @@ public class Analysis {
         }
     }
 
+    /**
+     * Enables the parallel processing of commits with at least
+     * {@code minPatchesForParallelProcessing} patches. The patches of such commits are parsed in
+     * parallel (see {@link GitDiffer#createCommitDiff(RevCommit, int)}) and their patch
+     * {@link Hooks phases} are run in chunks on the fork-join pool of the current thread. Each
+     * chunk is processed by an independent {@code Analysis} instance whose result is appended to
+     * the result of this analysis in the order of the patches. Hence, a single huge commit doesn't
+     * stall the batch it belongs to.
+     *
+     * <p>The patch phases are only run in parallel if this analysis is run by {@link
+     * #forEachCommit} and all hooks {@link Hooks#supportsParallelPatches support} it. Otherwise,
+     * only the parsing is parallelized.
+     *
+     * @param minPatchesForParallelProcessing the minimal number of patches of a commit to
+     * process it in parallel, {@link #NO_PARALLEL_PATCH_PROCESSING} (the default) to disable
+     * the parallel processing
+     * @return this analysis
+     */
+    public Analysis setMinPatchesForParallelProcessing(int minPatchesForParallelProcessing) {
+        if (minPatchesForParallelProcessing < 1) {
+            throw new IllegalArgumentException("The minimal number of patches has to be positive but got " + minPatchesForParallelProcessing);
+        }
+        this.minPatchesForParallelProcessing = minPatchesForParallelProcessing;
+        return this;
+    }
+
+    /**
+     * Enables the lazy parsing of patches (see {@link GitDiffer#createLazyCommitDiff(RevCommit)}).
+     * If enabled, the VariationDiff of a patch is only parsed if all hooks accept the patch in
+     * {@link Hooks#beginPatch} and it is released after {@link Hooks#endPatch}. Hence, hooks
+     * filtering patches in {@link Hooks#beginPatch} avoid the parsing of irrelevant patches and
+     * the memory used by a commit is bounded by its largest patch instead of all its patches.
+     *
+     * <p>Parsing failures are reported to the {@link #getResult result} in the patch phase of the
+     * failing patch, so {@link Hooks#onFailedParse} is not called. Moreover, the patches of a
+     * {@link #getCurrentCommitDiff commit diff} include the patches which couldn't be parsed and
+     * the VariationDiff of a patch is only available during its patch phase. Afterwards (e.g., in
+     * {@link Hooks#endCommit}), accessing the diff or VariationDiff of a patch throws an
+     * {@link IllegalStateException} (see {@link PatchDiff#release}).
+     *
+     * @param parsePatchesLazily whether to parse patches on demand (disabled by default)
+     * @return this analysis
+     */
+    public Analysis setParsePatchesLazily(boolean parsePatchesLazily) {
+        this.parsePatchesLazily = parsePatchesLazily;
+        return this;
+    }
+
     /**
      * Sequential analysis of all {@code commits} as one batch.
      *
@@ -511,15 +740,20 @@ public class Analysis {
             }
         } finally {
             runReverseHook(batchHook, Hooks::endBatch);
+            StageTimings.takeCurrentThreadsTimings().ifPresent(timings -> append(StageTimings.KEY, timings));
+            SAT.takeCurrentThreadsStatistics().ifPresent(statistics -> append(SAT.Statistics.KEY, statistics));
 
             // export the thread's result
             getResult().exportTo(FileUtils.addExtension(outputFile, Analysis.EXTENSION));
+            getResult().exportBinaryTo(FileUtils.addExtension(outputFile, Analysis.BINARY_EXTENSION));
         }
     }
 
     protected void processCommit() throws Exception {
         // parse the commit
-        final CommitDiffResult commitDiffResult = differ.createCommitDiff(currentCommit);
+        final CommitDiffResult commitDiffResult = parsePatchesLazily
+                ? differ.createLazyCommitDiff(currentCommit)
+                : differ.createCommitDiff(currentCommit, minPatchesForParallelProcessing);
 
         // report any errors that occurred and exit in case no VariationDiff could be parsed.
         getResult().reportDiffErrors(commitDiffResult.errors());
@@ -537,37 +771,114 @@ public class Analysis {
 
         // extract the produced commit diff and inform the strategy
         currentCommitDiff = commitDiffResult.diff().get();
-        if (!runFilterHook(hooks.listIterator(), Hooks::onParsedCommit)) {
-            return;
+        try {
+            if (!runFilterHook(hooks.listIterator(), Hooks::onParsedCommit)) {
+                return;
+            }
+
+            // inspect every patch
+            final List<PatchDiff> patches = currentCommitDiff.getPatchDiffs();
+            if (patches.size() >= minPatchesForParallelProcessing
+                    && analysisFactory != null
+                    && hooks.stream().allMatch(Hooks::supportsParallelPatches)) {
+                processPatchesInParallel(patches);
+            } else {
+                for (final PatchDiff finalPatch : patches) {
+                    processPatchPhase(finalPatch);
+                }
+            }
+
+            getResult().get(TotalNumberOfCommitsResult.KEY).value++;
+        } finally {
+            // Lazily parsed patches look up the cache during the patch phase.
+            appendCacheStatistics(currentCommitDiff);
         }
+    }
 
-        // inspect every patch
-        for (final PatchDiff finalPatch : currentCommitDiff.getPatchDiffs()) {
-            currentPatch = finalPatch;
+    private void appendCacheStatistics(CommitDiff commitDiff) {
+        if (commitDiff.getCacheHits() + commitDiff.getCacheMisses() > 0) {
+            final var cacheStatistics = new VariationDiffCache.Statistics();
+            cacheStatistics.hits = commitDiff.getCacheHits();
+            cacheStatistics.misses = commitDiff.getCacheMisses();
+            append(VariationDiffCache.Statistics.KEY, cacheStatistics);
+        }
+    }
 
-            ListIterator<Hooks> patchHook = hooks.listIterator();
+    /**
+     * Runs the patch phase of all {@code patches} in chunks on independent {@code Analysis}
+     * instances and appends their results to the result of this analysis in order.
+     *
+     * @see #setMinPatchesForParallelProcessing
+     */
+    protected void processPatchesInParallel(List<PatchDiff> patches) throws Exception {
+        final List<AnalysisResult> chunkResults = OrderedChunkProcessor.map(patches, chunk -> {
+            final Analysis chunkAnalysis = analysisFactory.get();
+            chunkAnalysis.differ = differ;
+            chunkAnalysis.outputFile = outputFile;
+            chunkAnalysis.currentCommit = currentCommit;
+            chunkAnalysis.currentCommitDiff = currentCommitDiff;
+
+            // Joining a chunk may run it on a thread which is currently processing another batch
+            // or chunk, so the statistics this thread collected so far are set aside.
+            final Optional<StageTimings> enclosingTimings = StageTimings.takeCurrentThreadsTimings();
+            final Optional<SAT.Statistics> enclosingStatistics = SAT.takeCurrentThreadsStatistics();
             try {
-                if (!runFilterHook(patchHook, Hooks::beginPatch)) {
-                    continue;
+                for (final PatchDiff patch : chunk) {
+                    chunkAnalysis.processPatchPhase(patch);
                 }
-
-                processPatch();
-            } catch (Throwable t) {
-                Logger.error("error during {} {}", currentPatch.getFileName(Time.AFTER), currentPatch.getCommitHash());
-                throw t;
             } finally {
-                runReverseHook(patchHook, Hooks::endPatch);
+                StageTimings.takeCurrentThreadsTimings().ifPresent(timings -> chunkAnalysis.append(StageTimings.KEY, timings));
+                SAT.takeCurrentThreadsStatistics().ifPresent(statistics -> chunkAnalysis.append(SAT.Statistics.KEY, statistics));
+                enclosingTimings.ifPresent(StageTimings::addToCurrentThreadsTimings);
+                enclosingStatistics.ifPresent(SAT::addToCurrentThreadsStatistics);
+            }
+            return chunkAnalysis.getResult();
+        });
+
+        for (final AnalysisResult chunkResult : chunkResults) {
+            getResult().append(chunkResult);
+        }
+    }
+
+    /**
+     * Runs the patch {@link Hooks phase} for {@code patch}.
+     */
+    protected void processPatchPhase(PatchDiff patch) throws Exception {
+        currentPatch = patch;
+
+        ListIterator<Hooks> patchHook = hooks.listIterator();
+        try {
+            if (!runFilterHook(patchHook, Hooks::beginPatch)) {
+                return;
+            }
+
+            processPatch();
+        } catch (Throwable t) {
+            Logger.error("error during {} {}", currentPatch.getFileName(Time.AFTER), currentPatch.getCommitHash());
+            throw t;
+        } finally {
+            runReverseHook(patchHook, Hooks::endPatch);
+            if (patch.isLazy()) {
+                patch.release();
+                currentVariationDiff = null;
             }
         }
-        
-        getResult().get(TotalNumberOfCommitsResult.KEY).value++;
     }
 
     protected void processPatch() throws Exception {
+        // Only lazily parsed patches can fail at this point.
+        final List<DiffError> parseErrors = currentPatch.parse();
+        if (!parseErrors.isEmpty()) {
+            Logger.debug("found patch {} which could not be parsed because:\n{}", currentPatch, parseErrors);
+            getResult().reportDiffErrors(parseErrors);
+        }
+
         if (currentPatch.isValid()) {
             // generate TreeDiff
             currentVariationDiff = currentPatch.getVariationDiff();
+            final long consistencyCheckStart = StageTimings.start();
             currentVariationDiff.assertConsistency();
+            StageTimings.stop(StageTimings.CONSISTENCY_CHECK, consistencyCheckStart);
 
             runFilterHook(hooks.listIterator(), Hooks::analyzeVariationDiff);
         }
@@ -575,13 +886,20 @@ public class Analysis {
 
     protected <Hook> void runHook(ListIterator<Hook> hook, FailableBiConsumer<Hook, Analysis, Exception> callHook) throws Exception {
         while (hook.hasNext()) {
-            callHook.accept(hook.next(), this);
+            final Hook nextHook = hook.next();
+            final long start = StageTimings.start();
+            callHook.accept(nextHook, this);
+            StageTimings.stopHook(nextHook, start);
         }
     }
 
     protected <Hook> boolean runFilterHook(ListIterator<Hook> hook, FailableBiFunction<Hook, Analysis, Boolean, Exception> callHook) throws Exception {
         while (hook.hasNext()) {
-            if (!callHook.apply(hook.next(), this)) {
+            final Hook nextHook = hook.next();
+            final long start = StageTimings.start();
+            final boolean keep = callHook.apply(nextHook, this);
+            StageTimings.stopHook(nextHook, start);
+            if (!keep) {
                 return false;
             }
         }
@@ -592,8 +910,11 @@ public class Analysis {
     protected <Hook> void runReverseHook(ListIterator<Hook> hook, FailableBiConsumer<Hook, Analysis, Exception> callHook) throws Exception {
         Exception catchedException = null;
         while (hook.hasPrevious()) {
+            final Hook previousHook = hook.previous();
+            final long start = StageTimings.start();
             try {
-                callHook.accept(hook.previous(), this);
+                callHook.accept(previousHook, this);
+                StageTimings.stopHook(previousHook, start);
             } catch (Exception e) {
                 Logger.error(e, "An exception thrown in an end hooks of Analysis will be rethrown later");
                 if (catchedException == null) {
@@ -612,12 +933,14 @@ public class Analysis {
     /**
      * Exports the given metadata object to a file named according
      * {@link #TOTAL_RESULTS_FILE_NAME} in the given directory.
+     * Additionally, the binary format is written to {@link #TOTAL_RESULTS_BINARY_FILE_NAME}.
      * @param outputDir The directory into which the metadata object file should be written.
      * @param metadata The metadata to serialize
      * @param <T> Type of the metadata.
      */
     public static <T> void exportMetadata(final Path outputDir, final Metadata<T> metadata) {
         exportMetadataToFile(outputDir.resolve(TOTAL_RESULTS_FILE_NAME), metadata);
+        metadata.exportBinaryTo(outputDir.resolve(TOTAL_RESULTS_BINARY_FILE_NAME));
     }
 
     /**
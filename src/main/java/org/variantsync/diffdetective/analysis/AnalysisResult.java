@@ -1,6 +1,13 @@
 package org.variantsync.diffdetective.analysis;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -8,9 +15,14 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.tinylog.Logger;
+import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.analysis.monitoring.StageTimings;
+import org.variantsync.diffdetective.diff.git.VariationDiffCache;
 import org.variantsync.diffdetective.diff.result.DiffError;
+import org.variantsync.diffdetective.feature.PreprocessorAnnotationParser;
 import org.variantsync.diffdetective.metadata.Metadata;
 import org.variantsync.functjonal.Cast;
 import org.variantsync.functjonal.Functjonal;
@@ -33,6 +45,15 @@ public final class AnalysisResult implements Metadata<AnalysisResult> {
     private final static String ERROR_BEGIN = "#Error[";
     private final static String ERROR_END = "]";
 
+    /**
+     * Identifies files written by {@link #writeBinary} ("DDAR" in ASCII).
+     */
+    private final static int BINARY_MAGIC = 0x44444152;
+    /**
+     * Version of the binary format. It is incremented whenever the format changes incompatibly.
+     */
+    public final static int BINARY_VERSION = 3;
+
     /**
      * The repo from which the results where collected.
      */
@@ -42,6 +63,19 @@ public final class AnalysisResult implements Metadata<AnalysisResult> {
 
     private final Map<String, Metadata<?>> results = new HashMap<>();
 
+    /**
+     * Results which are appended by {@link Analysis} itself instead of by its {@link Analysis.Hooks
+     * hooks}. They are only appended if they are non-empty, so {@link #readBinary} has to be able
+     * to create them even if they weren't {@link #append appended} before reading.
+     */
+    private static final Map<String, Supplier<Metadata<?>>> analysisResults = Map.of(
+            StageTimings.KEY.key(), StageTimings::new,
+            SAT.Statistics.KEY.key(), SAT.Statistics::new,
+            VariationDiffCache.Statistics.KEY.key(), VariationDiffCache.Statistics::new,
+            PreprocessorAnnotationParser.FormulaCacheStatistics.KEY.key(), PreprocessorAnnotationParser.FormulaCacheStatistics::new,
+            Analysis.RuntimeWithMultithreadingResult.KEY.key(), Analysis.RuntimeWithMultithreadingResult::new
+    );
+
     /**
      * Type proxy and runtime key for the type of a {@code Metadata} subclass.
      * There should be no two {@code ResultKey} instances with the same {@code key} but different
@@ -197,4 +231,99 @@ public final class AnalysisResult implements Metadata<AnalysisResult> {
 
         setFromSnapshot(snapshot);
     }
+
+    /**
+     * Writes this result in a compact binary format.
+     * Each result is written by its {@link Metadata#writeBinary} method and prefixed by its key and
+     * length, so results whose keys are unknown to the reader can be skipped.
+     */
+    @Override
+    public void writeBinary(DataOutput output) throws IOException {
+        output.writeInt(BINARY_MAGIC);
+        output.writeInt(BINARY_VERSION);
+        // Like in the text format, the repository and task names are optional.
+        output.writeBoolean(repoName != null);
+        if (repoName != null) {
+            Metadata.writeString(output, repoName);
+        }
+        output.writeBoolean(taskName != null);
+        if (taskName != null) {
+            Metadata.writeString(output, taskName);
+        }
+
+        output.writeInt(diffErrors.size());
+        for (var error : diffErrors.entrySet()) {
+            Metadata.writeString(output, error.getKey().name());
+            output.writeInt(error.getValue());
+        }
+
+        final var buffer = new ByteArrayOutputStream();
+        output.writeInt(results.size());
+        for (var result : results.entrySet()) {
+            buffer.reset();
+            result.getValue().writeBinary(new DataOutputStream(buffer));
+
+            Metadata.writeString(output, result.getKey());
+            output.writeInt(buffer.size());
+            output.write(buffer.toByteArray());
+        }
+    }
+
+    /**
+     * Sets this result to the values written by {@link #writeBinary}.
+     * Analogous to {@link #setFromSnapshot}, only results which were {@link #append appended}
+     * before are read. The only exception are the results appended by {@link Analysis} itself
+     * (e.g., {@link StageTimings}), which are always read. All other results are skipped.
+     */
+    @Override
+    public void readBinary(DataInput input) throws IOException {
+        if (input.readInt() != BINARY_MAGIC) {
+            throw new IOException("Not a binary analysis result");
+        }
+        final int version = input.readInt();
+        if (version != BINARY_VERSION) {
+            throw new IOException("Unsupported binary analysis result version " + version);
+        }
+
+        repoName = input.readBoolean() ? Metadata.readString(input) : null;
+        taskName = input.readBoolean() ? Metadata.readString(input) : null;
+
+        final int numberOfErrors = input.readInt();
+        for (int i = 0; i < numberOfErrors; ++i) {
+            final String errorName = Metadata.readString(input);
+            final DiffError error;
+            try {
+                error = DiffError.valueOf(errorName);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid error id " + errorName, e);
+            }
+            diffErrors.put(error, input.readInt());
+        }
+
+        final int numberOfResults = input.readInt();
+        for (int i = 0; i < numberOfResults; ++i) {
+            final String key = Metadata.readString(input);
+            final byte[] bytes = new byte[input.readInt()];
+            input.readFully(bytes);
+
+            Metadata<?> result = results.get(key);
+            if (result == null && analysisResults.containsKey(key)) {
+                result = analysisResults.get(key).get();
+                results.put(key, result);
+            }
+            if (result != null) {
+                result.readBinary(new DataInputStream(new ByteArrayInputStream(bytes)));
+            }
+        }
+    }
+
+    /**
+     * Reads a result written by {@link Metadata#exportBinaryTo}.
+     * @see #readBinary
+     */
+    public void setFromBinary(final Path path) throws IOException {
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            readBinary(input);
+        }
+    }
 }
@@ -0,0 +1,264 @@
+package org.variantsync.diffdetective.analysis;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.tinylog.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Journal of the commit batches completed by {@link Analysis#forEachCommit}, used to resume an
+ * interrupted analysis.
+ *
+ * <p>Each completed batch is recorded by its first and last commit, its size and the file
+ * containing its {@link Analysis#BINARY_EXTENSION binary result}. Entries are only recorded after
+ * the result of a batch was written completely and are flushed right away, so a crash loses at
+ * most the batches that were running at that time. When the analysis is restarted, the results of
+ * all completed batches are {@link #restoreResults restored} and their commits are
+ * {@link #skipCompletedBatches skipped}.
+ *
+ * <p>Batches are identified by their position in the commit history. Hence, a journal is only
+ * valid for the same task, the same {@code HEAD} and the same commit filter. A journal recorded
+ * for another task or {@code HEAD} is discarded when it is {@link #open opened}.
+ */
+public class CheckpointJournal implements Closeable {
+    /**
+     * Name of the journal file in the output directory of an analysis.
+     */
+    public static final String FILE_NAME = "checkpoint.journal";
+
+    private static final String HEAD_PREFIX = "head ";
+    private static final String TASK_PREFIX = "task ";
+
+    /**
+     * A completed batch of commits.
+     *
+     * @param firstCommit the hash of the first commit of the batch
+     * @param lastCommit the hash of the last commit of the batch
+     * @param size the number of commits in the batch
+     * @param resultFile the file containing the result of the batch, relative to the output directory
+     */
+    public record Batch(String firstCommit, String lastCommit, int size, String resultFile) {
+        /**
+         * Parses an entry of the journal.
+         * @return the parsed batch or nothing if the entry is incomplete
+         */
+        private static Optional<Batch> parse(final String line) {
+            final String[] fields = line.split(" ", 4);
+            if (fields.length != 4) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(new Batch(fields[0], fields[1], Integer.parseInt(fields[2]), fields[3]));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return firstCommit + " " + lastCommit + " " + size + " " + resultFile;
+        }
+    }
+
+    private final Path file;
+    private final Path outputDir;
+    private final BufferedWriter writer;
+    /** Completed batches indexed by their first commit. */
+    private final Map<String, Batch> completedBatches;
+
+    private CheckpointJournal(final Path file, final Path outputDir, final BufferedWriter writer, final Map<String, Batch> completedBatches) {
+        this.file = file;
+        this.outputDir = outputDir;
+        this.writer = writer;
+        this.completedBatches = completedBatches;
+    }
+
+    /**
+     * Opens the journal in {@code outputDir} or creates a new one if there is none yet or if the
+     * existing journal was recorded for another task or {@code HEAD}.
+     *
+     * @param outputDir the output directory of the analysis
+     * @param taskName the name of the analysis task
+     * @param head the commit from which the history is analyzed
+     */
+    public static CheckpointJournal open(final Path outputDir, final String taskName, final ObjectId head) throws IOException {
+        final Path file = outputDir.resolve(FILE_NAME);
+        final String headLine = HEAD_PREFIX + (head == null ? "" : head.getName());
+        final String taskLine = TASK_PREFIX + taskName;
+
+        final Map<String, Batch> completedBatches = new HashMap<>();
+        boolean valid = false;
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file)) {
+                valid = headLine.equals(reader.readLine()) && taskLine.equals(reader.readLine());
+                String nextLine;
+                while (valid && (nextLine = reader.readLine()) != null) {
+                    final String line = nextLine;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    // A crash may leave an incomplete entry. Its batch is just processed again.
+                    Batch.parse(line).ifPresentOrElse(
+                            batch -> completedBatches.put(batch.firstCommit(), batch),
+                            () -> Logger.warn("Ignoring incomplete checkpoint journal entry: {}", line));
+                }
+            } catch (IOException e) {
+                Logger.warn(e, "Could not read checkpoint journal {}. Recording a new one.", file);
+                valid = false;
+                completedBatches.clear();
+            }
+
+            if (!valid) {
+                Logger.info("Discarding checkpoint journal {} because it was recorded for another task or HEAD.", file);
+            }
+        }
+
+        Files.createDirectories(outputDir);
+        final BufferedWriter writer;
+        if (valid) {
+            writer = Files.newBufferedWriter(file, StandardOpenOption.APPEND);
+            // Terminate a potentially incomplete last line.
+            writer.newLine();
+        } else {
+            writer = Files.newBufferedWriter(file);
+            writer.write(headLine);
+            writer.newLine();
+            writer.write(taskLine);
+            writer.newLine();
+        }
+        writer.flush();
+
+        return new CheckpointJournal(file, outputDir, writer, completedBatches);
+    }
+
+    /**
+     * Returns all batches which were completed before this journal was opened.
+     */
+    public List<Batch> getCompletedBatches() {
+        return new ArrayList<>(completedBatches.values());
+    }
+
+    /**
+     * Reads the results of all completed batches and appends them to {@code target}.
+     * Batches whose result can't be read are removed from this journal, so they are processed again.
+     *
+     * @param target the result to which all restored results are appended
+     * @param emptyResult creates a result which is able to read the result files, usually the
+     * result of a new {@link Analysis} of the same task
+     */
+    public void restoreResults(final AnalysisResult target, final Supplier<AnalysisResult> emptyResult) {
+        final Iterator<Batch> batches = completedBatches.values().iterator();
+        while (batches.hasNext()) {
+            final Batch batch = batches.next();
+            final AnalysisResult batchResult = emptyResult.get();
+            try {
+                batchResult.setFromBinary(outputDir.resolve(batch.resultFile()));
+            } catch (IOException e) {
+                Logger.warn(e, "Could not restore the result of batch {}. It will be processed again.", batch);
+                batches.remove();
+                continue;
+            }
+            target.append(batchResult);
+        }
+    }
+
+    /**
+     * Returns an iterator over all {@code commits} which are not part of a completed batch.
+     * The commits have to be in the same order as when the batches were recorded.
+     *
+     * @throws IllegalStateException during iteration if the commits of a completed batch differ
+     * from the recorded commits
+     */
+    public Iterator<RevCommit> skipCompletedBatches(final Iterator<RevCommit> commits) {
+        return new Iterator<>() {
+            private RevCommit next = null;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && commits.hasNext()) {
+                    final RevCommit commit = commits.next();
+                    final Batch batch = completedBatches.get(commit.getId().getName());
+                    if (batch == null) {
+                        next = commit;
+                    } else {
+                        skip(batch, commit, commits);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public RevCommit next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final RevCommit result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    private void skip(final Batch batch, final RevCommit first, final Iterator<RevCommit> commits) {
+        RevCommit last = first;
+        for (int i = 1; i < batch.size(); ++i) {
+            if (!commits.hasNext()) {
+                throw new IllegalStateException("The history ended within the completed batch " + batch
+                        + ". Delete " + file + " to restart the analysis.");
+            }
+            last = commits.next();
+        }
+
+        if (!last.getId().getName().equals(batch.lastCommit())) {
+            throw new IllegalStateException("The commits of the completed batch " + batch
+                    + " changed. Delete " + file + " to restart the analysis.");
+        }
+    }
+
+    /**
+     * Records that all {@code commits} were processed and their result was written to {@code resultFile}.
+     * This method is thread safe.
+     *
+     * @param commits the processed batch in the order of the commit history
+     * @param resultFile the file containing the result of the batch
+     */
+    public synchronized void recordCompletedBatch(final List<RevCommit> commits, final Path resultFile) throws IOException {
+        final Batch batch = new Batch(
+                commits.get(0).getId().getName(),
+                commits.get(commits.size() - 1).getId().getName(),
+                commits.size(),
+                outputDir.relativize(resultFile).toString()
+        );
+        writer.write(batch.toString());
+        writer.newLine();
+        writer.flush();
+    }
+
+    /**
+     * Closes and deletes this journal. Intended to be called after the analysis completed.
+     */
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
@@ -50,17 +50,13 @@ public class EditClassOccurenceAnalysis implements Analysis.Hooks {
         var editClassCounts = new LinkedHashMap<EditClass, Integer>();
         ProposedEditClasses.Instance.all().forEach(e -> editClassCounts.put(e, 0));
 
-        analysis.getCurrentVariationDiff().forAll(node -> {
-            if (node.isArtifact()) {
-                final EditClass editClass = ProposedEditClasses.Instance.match(node);
+        ProposedEditClasses.Instance.matchAll(analysis.getCurrentVariationDiff(), (node, editClass) -> {
+            analysis.get(EditClassCount.KEY).reportOccurrenceFor(
+                    editClass,
+                    analysis.getCurrentCommitDiff()
+            );
 
-                analysis.get(EditClassCount.KEY).reportOccurrenceFor(
-                        editClass,
-                        analysis.getCurrentCommitDiff()
-                );
-
-                editClassCounts.computeIfPresent(editClass, (p, i) -> i + 1);
-            }
+            editClassCounts.computeIfPresent(editClass, (p, i) -> i + 1);
         });
 
         output.write(
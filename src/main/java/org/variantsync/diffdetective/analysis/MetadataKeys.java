@@ -34,4 +34,14 @@ public final class MetadataKeys {
     public final static String EXPORTED_TREES = "exported trees";
 
     public final static String EDIT_CLASS_MOVEMENT = "edit class movement";
+
+    public final static String VARIATION_DIFF_CACHE_HITS = "variation diff cache hits";
+    public final static String VARIATION_DIFF_CACHE_MISSES = "variation diff cache misses";
+    public final static String FORMULA_CACHE_HITS = "formula cache hits";
+    public final static String FORMULA_CACHE_MISSES = "formula cache misses";
+    public final static String SAT_CACHE_HITS = "sat cache hits";
+    public final static String SAT_CACHE_MISSES = "sat cache misses";
+    public final static String SAT_SOLVER_CALLS = "sat solver calls";
+    public final static String SAT_SOLVER_NANOSECONDS = "sat solver time in nanoseconds";
+    public final static String STAGE_TIMINGS = "nanoseconds in stage ";
 }
@@ -24,4 +24,9 @@ public class PreprocessingAnalysis implements Analysis.Hooks {
         analysis.getCurrentVariationDiff().assertConsistency();
         return true;
     }
+
+    @Override
+    public boolean supportsParallelPatches() {
+        return true;
+    }
 }
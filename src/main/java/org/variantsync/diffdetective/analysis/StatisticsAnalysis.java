@@ -1,5 +1,7 @@
 package org.variantsync.diffdetective.analysis;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -113,6 +115,30 @@ public class StatisticsAnalysis implements Analysis.Hooks {
             }
             runtimeInSeconds = Double.parseDouble(runtime);
         }
+
+        @Override
+        public void writeBinary(DataOutput output) throws IOException {
+            output.writeInt(failedCommits);
+            output.writeInt(emptyCommits);
+            output.writeInt(processedCommits);
+            output.writeInt(totalPatches);
+            output.writeInt(processedPatches);
+            Metadata.writeString(output, min.toString());
+            Metadata.writeString(output, max.toString());
+            output.writeDouble(runtimeInSeconds);
+        }
+
+        @Override
+        public void readBinary(DataInput input) throws IOException {
+            failedCommits = input.readInt();
+            emptyCommits = input.readInt();
+            processedCommits = input.readInt();
+            totalPatches = input.readInt();
+            processedPatches = input.readInt();
+            min.set(CommitProcessTime.fromString(Metadata.readString(input)));
+            max.set(CommitProcessTime.fromString(Metadata.readString(input)));
+            runtimeInSeconds = input.readDouble();
+        }
     }
 
     // List to store the process time of each commit.
@@ -120,7 +146,8 @@ public class StatisticsAnalysis implements Analysis.Hooks {
     // Clock for runtime measurement.
     private final Clock totalTime = new Clock();
     private final Clock commitProcessTimer = new Clock();
-    private int numVariationDiffs = 0;
+    // Number of processed patches before the current commit.
+    private int processedPatchesBeforeCommit = 0;
 
     @Override
     public void initializeResults(Analysis analysis) {
@@ -135,7 +162,7 @@ public class StatisticsAnalysis implements Analysis.Hooks {
     @Override
     public boolean beginCommit(Analysis analysis) {
         commitProcessTimer.start();
-        numVariationDiffs = 0;
+        processedPatchesBeforeCommit = analysis.get(RESULT).processedPatches;
         return true;
     }
 
@@ -152,13 +179,14 @@ public class StatisticsAnalysis implements Analysis.Hooks {
 
     @Override
     public boolean analyzeVariationDiff(Analysis analysis) {
-        ++numVariationDiffs;
+        // Count in the result so that patches processed in parallel are counted, too.
+        ++analysis.get(RESULT).processedPatches;
         return true;
     }
 
     @Override
     public void endCommit(Analysis analysis) {
-        analysis.get(RESULT).processedPatches += numVariationDiffs;
+        final int numVariationDiffs = analysis.get(RESULT).processedPatches - processedPatchesBeforeCommit;
 
         // Report the commit process time if the commit is not empty.
         if (numVariationDiffs > 0) {
@@ -179,6 +207,11 @@ public class StatisticsAnalysis implements Analysis.Hooks {
         }
     }
 
+    @Override
+    public boolean supportsParallelPatches() {
+        return true;
+    }
+
     @Override
     public void endBatch(Analysis analysis) throws IOException {
         // shutdown; report total time; export results
@@ -0,0 +1,169 @@
+package org.variantsync.diffdetective.analysis.logic;
+
+import org.prop4j.And;
+import org.prop4j.Literal;
+import org.prop4j.Node;
+import org.prop4j.Or;
+import org.prop4j.explain.solvers.MutableSatSolver;
+import org.prop4j.explain.solvers.SatSolverFactory;
+import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+import org.variantsync.diffdetective.util.fide.FormulaUtils;
+
+import java.util.Map;
+
+import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
+
+/**
+ * A SAT solver for a family of queries that share a common base formula.
+ * <p>
+ * The base formula is added to a single solver only once. Each query is added as clauses which
+ * are guarded by a fresh activation variable and is checked by assuming that activation variable.
+ * Afterwards, the activation variable is disabled permanently, so the clauses of a query (and all
+ * clauses learned from them) never influence later queries. Hence, the solver can reuse everything
+ * it learned about the base formula for all queries.
+ * <p>
+ * In contrast to {@link SAT}, results are not cached. Instances are not thread safe.
+ */
+public class IncrementalSAT {
+    private static final String BASE_HELPER_VARIABLE_PREFIX = "$b";
+    private static final String QUERY_HELPER_VARIABLE_PREFIX = "$q";
+    private static final String ACTIVATION_VARIABLE_PREFIX = "$a";
+
+    private final MutableSatSolver solver;
+    /** If the base formula is a contradiction, all queries are unsatisfiable. */
+    private final boolean baseIsFalse;
+    private int nextActivationVariable = 0;
+
+    /**
+     * Creates a new solver for queries conjoined with {@code base}.
+     * @param base the formula shared by all queries, remains unaltered
+     */
+    public IncrementalSAT(final Node base) {
+        this.solver = SatSolverFactory.getDefault().getMutableSatSolver();
+
+        final FixTrueFalse.Formula formula = FixTrueFalse.EliminateTrueAndFalse(base);
+        this.baseIsFalse = formula.isFalseConstant();
+        if (!formula.isTrueConstant() && !baseIsFalse) {
+            solver.addFormula(toCNF(formula.get(), BASE_HELPER_VARIABLE_PREFIX));
+        }
+    }
+
+    /**
+     * Checks whether the base formula is satisfiable.
+     */
+    public boolean isSatisfiable() {
+        return isSatisfiableUnder(Map.of());
+    }
+
+    /**
+     * Checks whether the base formula is satisfiable if the given variables have the given values.
+     * @param assumptions values of some variables of the base formula
+     */
+    public boolean isSatisfiableUnder(final Map<Object, Boolean> assumptions) {
+        if (baseIsFalse) {
+            return false;
+        }
+
+        return solveUnder(assumptions);
+    }
+
+    /**
+     * Checks whether the conjunction of the base formula and {@code formula} is satisfiable.
+     * @param formula the query, remains unaltered
+     */
+    public boolean isSatisfiableWith(final Node formula) {
+        if (baseIsFalse) {
+            return false;
+        }
+
+        final FixTrueFalse.Formula query = FixTrueFalse.EliminateTrueAndFalse(formula);
+        if (query.isTrueConstant()) {
+            return isSatisfiable();
+        } else if (query.isFalseConstant()) {
+            return false;
+        }
+
+        final Object activation = addActivatable(query.get());
+        try {
+            return solveUnder(Map.of(activation, true));
+        } finally {
+            deactivate(activation);
+        }
+    }
+
+    /**
+     * Adds {@code formula} to the solver such that it is only conjoined with the base formula if
+     * the returned activation variable is assumed to be {@code true} (see
+     * {@link #isSatisfiableUnder}). In contrast to {@link #isSatisfiableWith}, the formula remains
+     * in the solver until it is {@link #deactivate deactivated}. Hence, many formulas can be added
+     * once and checked in arbitrary combinations by assuming their activation variables.
+     *
+     * @param formula the formula to add, remains unaltered
+     * @return the activation variable of {@code formula}
+     */
+    public Object addActivatable(final Node formula) {
+        final int id = nextActivationVariable++;
+        final Literal activation = new Literal(ACTIVATION_VARIABLE_PREFIX + id + "$", true);
+
+        final FixTrueFalse.Formula f = FixTrueFalse.EliminateTrueAndFalse(formula);
+        if (f.isFalseConstant()) {
+            deactivate(activation.var);
+        } else if (!f.isTrueConstant()) {
+            // Formulas may be active at the same time, so their helper variables have to be distinct.
+            final Literal deactivated = negate(activation);
+            final Node cnf = toCNF(f.get(), QUERY_HELPER_VARIABLE_PREFIX + id + "$").toRegularCNF();
+            for (final Node clause : cnf.getChildren()) {
+                final Node[] literals = clause.getChildren();
+                final Node[] guardedLiterals = new Node[literals.length + 1];
+                guardedLiterals[0] = deactivated;
+                System.arraycopy(literals, 0, guardedLiterals, 1, literals.length);
+                solver.addFormula(new And(new Or(guardedLiterals)));
+            }
+        }
+
+        return activation.var;
+    }
+
+    /**
+     * Disables the formula of the given activation variable permanently. Assuming the activation
+     * variable afterwards makes all checks unsatisfiable.
+     * @param activationVariable a variable returned by {@link #addActivatable}
+     */
+    public void deactivate(final Object activationVariable) {
+        // Disabling the formula permanently satisfies all of its clauses.
+        solver.addFormula(new And(new Or(new Literal(activationVariable, false))));
+    }
+
+    /**
+     * Checks whether the base formula implies {@code formula} for all assignments.
+     * @param formula the right-hand side of the implication, remains unaltered
+     */
+    public boolean implies(final Node formula) {
+        return !isSatisfiableWith(negate(formula));
+    }
+
+    private boolean solveUnder(final Map<Object, Boolean> assumptions) {
+        // The assumptions of a scope are discarded when it is popped. No clauses are added in
+        // this scope, so none are removed.
+        solver.push();
+        solver.addAssumptions(assumptions);
+        final long start = System.nanoTime();
+        try {
+            return solver.isSatisfiable();
+        } finally {
+            SAT.recordSolverCall(start);
+            solver.pop();
+        }
+    }
+
+    /**
+     * Uses the Tseytin transformation for large formulas to avoid an exponential blowup when
+     * converting them to CNF (see {@link SAT#isSatisfiable(FixTrueFalse.Formula)}).
+     */
+    private static Node toCNF(final Node formula, final String helperVariablePrefix) {
+        if (FormulaUtils.numberOfLiterals(formula) > 40) {
+            return Tseytin.toEquivalentCNF(formula, helperVariablePrefix);
+        }
+        return formula;
+    }
+}
@@ -3,20 +3,126 @@ package org.variantsync.diffdetective.analysis.logic;
 import org.prop4j.*;
 import org.prop4j.explain.solvers.SatSolver;
 import org.prop4j.explain.solvers.SatSolverFactory;
+import org.variantsync.diffdetective.analysis.AnalysisResult.ResultKey;
+import org.variantsync.diffdetective.analysis.MetadataKeys;
+import org.variantsync.diffdetective.metadata.Metadata;
+import org.variantsync.diffdetective.util.BoundedConcurrentCache;
 import org.variantsync.diffdetective.util.fide.FixTrueFalse;
 import org.variantsync.diffdetective.util.fide.FormulaUtils;
+import org.variantsync.functjonal.category.InplaceSemigroup;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Optional;
 
 import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
 
 /**
  * Class with static functions for satisfiability solving, potentially with some optimizations.
+ * <p>
+ * The results of {@link #isSatisfiable(FixTrueFalse.Formula)} (and hence of all checks built upon
+ * it) are cached in a bounded, thread safe cache. The cache is keyed by the
+ * {@link FormulaUtils#canonicalKey canonical key} of the checked formula, so formulas that only
+ * differ in the order of operands share their result. Families of queries that share a large
+ * common formula should use an {@link IncrementalSAT} solver instead.
  * @author Paul Bittner
  */
 public final class SAT {
+    /**
+     * Maximum number of satisfiability results that are cached.
+     */
+    public static final int RESULT_CACHE_SIZE = 1 << 16;
+
+    private static final BoundedConcurrentCache<String, Boolean> resultCache = new BoundedConcurrentCache<>(RESULT_CACHE_SIZE);
+    private static final ThreadLocal<Statistics> currentThreadsStatistics = ThreadLocal.withInitial(Statistics::new);
+
+    /**
+     * Statistics about the usage of the result cache and the time spent in solvers.
+     * The counters are recorded separately for each thread, so analyses running concurrently
+     * don't count each other's queries (see {@link #takeCurrentThreadsStatistics}).
+     */
+    public static final class Statistics implements Metadata<Statistics> {
+        public static final ResultKey<Statistics> KEY = new ResultKey<>(Statistics.class.getName());
+
+        public long cacheHits = 0;
+        public long cacheMisses = 0;
+        public long solverCalls = 0;
+        public long solverNanoseconds = 0;
+
+        public static final InplaceSemigroup<Statistics> ISEMIGROUP = (a, b) -> {
+            a.cacheHits += b.cacheHits;
+            a.cacheMisses += b.cacheMisses;
+            a.solverCalls += b.solverCalls;
+            a.solverNanoseconds += b.solverNanoseconds;
+        };
+
+        @Override
+        public InplaceSemigroup<Statistics> semigroup() {
+            return ISEMIGROUP;
+        }
+
+        @Override
+        public LinkedHashMap<String, Object> snapshot() {
+            LinkedHashMap<String, Object> snap = new LinkedHashMap<>();
+            snap.put(MetadataKeys.SAT_CACHE_HITS, cacheHits);
+            snap.put(MetadataKeys.SAT_CACHE_MISSES, cacheMisses);
+            snap.put(MetadataKeys.SAT_SOLVER_CALLS, solverCalls);
+            snap.put(MetadataKeys.SAT_SOLVER_NANOSECONDS, solverNanoseconds);
+            return snap;
+        }
+
+        @Override
+        public void setFromSnapshot(LinkedHashMap<String, String> snap) {
+            cacheHits = Long.parseLong(snap.get(MetadataKeys.SAT_CACHE_HITS));
+            cacheMisses = Long.parseLong(snap.get(MetadataKeys.SAT_CACHE_MISSES));
+            solverCalls = Long.parseLong(snap.get(MetadataKeys.SAT_SOLVER_CALLS));
+            solverNanoseconds = Long.parseLong(snap.get(MetadataKeys.SAT_SOLVER_NANOSECONDS));
+        }
+    }
+
     private SAT() {}
 
+    /**
+     * Returns the statistics recorded by the current thread since the last call of this method on
+     * this thread and resets them.
+     *
+     * @return the statistics of the current thread or nothing if it didn't check any formula
+     */
+    public static Optional<Statistics> takeCurrentThreadsStatistics() {
+        final Statistics statistics = currentThreadsStatistics.get();
+        currentThreadsStatistics.remove();
+        if (statistics.cacheHits + statistics.cacheMisses + statistics.solverCalls == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(statistics);
+    }
+
+    /**
+     * Adds {@code statistics} to the statistics recorded on the current thread.
+     * Used to restore statistics {@link #takeCurrentThreadsStatistics taken} before running a
+     * nested task on the same thread, so the nested task doesn't take the statistics of its caller.
+     */
+    public static void addToCurrentThreadsStatistics(final Statistics statistics) {
+        currentThreadsStatistics.get().append(statistics);
+    }
+
+    /**
+     * Removes all cached satisfiability results. The statistics are not reset.
+     */
+    public static void clearCache() {
+        resultCache.clear();
+    }
+
+    /**
+     * Records a solver call in the {@link #takeCurrentThreadsStatistics statistics} of the current thread.
+     * @param startNanoseconds the value of {@link System#nanoTime} before the solver was invoked
+     */
+    static void recordSolverCall(final long startNanoseconds) {
+        final Statistics statistics = currentThreadsStatistics.get();
+        statistics.solverNanoseconds += System.nanoTime() - startNanoseconds;
+        ++statistics.solverCalls;
+    }
+
     public static boolean checkSATviaDNF(final FixTrueFalse.Formula formula) {
         if (formula.isTrueConstant()) {
             return true;
@@ -68,16 +174,57 @@ public final class SAT {
      * Checks whether the given formula is satisfiable.
      * This method uses the Tseytin transformation for formulas with more than 40 literals as a heuristic to optimize
      * SAT solving times for larger formulas.
+     * Results are cached (see {@link SAT}).
      * @param formula Formula to check for being satisfiable.
      * @return True iff the given formula is a satisfiable.
      */
-    public static boolean isSatisfiable(FixTrueFalse.Formula formula) {
+    public static boolean isSatisfiable(final FixTrueFalse.Formula formula) {
         if (formula.isTrueConstant()) {
             return true;
         } else if (formula.isFalseConstant()) {
             return false;
         }
 
+        final Optional<String> key = FormulaUtils.canonicalKey(formula.get());
+        if (key.isEmpty()) {
+            return solve(formula);
+        }
+
+        final Statistics statistics = currentThreadsStatistics.get();
+        final long missesBefore = statistics.cacheMisses;
+        final boolean satisfiable = resultCache.computeIfAbsent(key.get(), k -> {
+            ++statistics.cacheMisses;
+            return solve(formula);
+        });
+        if (statistics.cacheMisses == missesBefore) {
+            ++statistics.cacheHits;
+        }
+        return satisfiable;
+    }
+
+    /**
+     * Returns whether {@code left} and {@code right} are syntactically equal up to the operand
+     * order of commutative operators. {@link Node#equals} can't be used for this because it
+     * ignores the bounds of cardinality constraints such as {@link AtMost}.
+     */
+    private static boolean haveSameCanonicalKey(final Node left, final Node right) {
+        final Optional<String> leftKey = FormulaUtils.canonicalKey(left);
+        return leftKey.isPresent() && leftKey.equals(FormulaUtils.canonicalKey(right));
+    }
+
+    /**
+     * Checks whether the given non-constant formula is satisfiable without using the cache.
+     */
+    private static boolean solve(FixTrueFalse.Formula formula) {
+        final long start = System.nanoTime();
+        try {
+            return solveWithHeuristics(formula);
+        } finally {
+            recordSolverCall(start);
+        }
+    }
+
+    private static boolean solveWithHeuristics(FixTrueFalse.Formula formula) {
         final int numLiterals = FormulaUtils.numberOfLiterals(formula.get());
 
         if (numLiterals < 15) {
@@ -119,6 +266,10 @@ public final class SAT {
      * @return True iff <code>left</code> =&gt; <code>right</code> is a tautology.
      */
     public static boolean implies(final Node left, final Node right) {
+        if (haveSameCanonicalKey(left, right)) {
+            return true;
+        }
+
         ///   TAUT(left => right)
         /// = TAUT(!left || right)
         /// = !SAT(!(!left || right))
@@ -134,6 +285,9 @@ public final class SAT {
      * @return True iff <code>left</code> &lt;=&gt; <code>right</code> is a tautology.
      */
     public static boolean equivalent(final Node left, final Node right) {
+        if (haveSameCanonicalKey(left, right)) {
+            return true;
+        }
         return isTautology(new Equals(left, right));
     }
 }
\ No newline at end of file
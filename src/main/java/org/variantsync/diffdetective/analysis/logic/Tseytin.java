@@ -14,6 +14,11 @@ import java.util.function.BiFunction;
  * @author Chico Sundermann, Paul Bittner
  */
 public final class Tseytin {
+    /**
+     * Prefix of the names of helper variables introduced by the conversion.
+     */
+    public static final String DEFAULT_HELPER_VARIABLE_PREFIX = "$t";
+
     private Tseytin() {}
 
     /**
@@ -27,19 +32,24 @@ public final class Tseytin {
 //        private final List<String> helperVariables;
 
         private final BiFunction<Node, Node, Node> eq;
+        private final String helperVariablePrefix;
 
         /**
          * Convertes the given formula with the given equivalence function.
          * @param formula Formula to tseytin convert.
          * @param eq Function that models the equivelency relationship between two given nodes. Typically, this
          *           function produces a propositional "iff" (&lt;=&gt;).
+         * @param helperVariablePrefix Prefix of the names of all introduced helper variables.
          */
-        private Convert(final Node formula, final BiFunction<Node, Node, Node> eq) {
+        private Convert(final Node formula, final BiFunction<Node, Node, Node> eq, final String helperVariablePrefix) {
             this.eq = eq;
-            formula.simplifyTree();
+            this.helperVariablePrefix = helperVariablePrefix;
+            // simplifyTree works inplace but formulas (e.g., of parsed annotations) may be shared
+            final Node simplified = formula.clone();
+            simplified.simplifyTree();
 //            helperVariables = new ArrayList<>();
             newSubFormulas = new ArrayList<>();
-            newSubFormulas.add(tseytin(formula
+            newSubFormulas.add(tseytin(simplified
 //                    , true
             ));
         }
@@ -88,19 +98,28 @@ public final class Tseytin {
         }
 
         private String getNextVariableName() {
-            return "$t" + currentIndex++ + "$";
+            return helperVariablePrefix + currentIndex++ + "$";
         }
     }
 
-    private static Node convert(final Node formula, final BiFunction<Node, Node, Node> eq) {
-        return new And(new Convert(formula, eq).newSubFormulas);
+    private static Node convert(final Node formula, final BiFunction<Node, Node, Node> eq, final String helperVariablePrefix) {
+        return new And(new Convert(formula, eq, helperVariablePrefix).newSubFormulas);
     }
 
     public static Node toEquisatisfiableCNF(final Node formula) {
-        return convert(formula, Implies::new);
+        return convert(formula, Implies::new, DEFAULT_HELPER_VARIABLE_PREFIX);
     }
 
     public static Node toEquivalentCNF(final Node formula) {
-        return convert(formula, Equals::new);
+        return toEquivalentCNF(formula, DEFAULT_HELPER_VARIABLE_PREFIX);
+    }
+
+    /**
+     * Same as {@link #toEquivalentCNF(Node)} but the names of all helper variables start with
+     * {@code helperVariablePrefix}. Distinct prefixes are required when the results of multiple
+     * conversions are conjoined, for example in the same incremental solver.
+     */
+    public static Node toEquivalentCNF(final Node formula, final String helperVariablePrefix) {
+        return convert(formula, Equals::new, helperVariablePrefix);
     }
 }
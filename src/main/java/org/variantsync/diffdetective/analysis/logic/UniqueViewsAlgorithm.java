@@ -37,7 +37,8 @@ public class UniqueViewsAlgorithm {
                 a.getDiffType().forAllTimesOfExistence(t -> {
                     Node deselectedPC = a.getPresenceCondition(t);
 
-                    deselectedPC = FixTrueFalse.EliminateTrueAndFalseInplace(deselectedPC).get(); // must
+                    // The presence condition is shared with the node so it must not be modified in-place.
+                    deselectedPC = FixTrueFalse.EliminateTrueAndFalse(deselectedPC).get(); // must
                     deselectedPC = negate(deselectedPC); // must
                     deselectedPC = deselectedPC.toRegularCNF(simplify); // optimization
                     FormulaUtils.sortRegularCNF(deselectedPC); // optimization
@@ -0,0 +1,343 @@
+package org.variantsync.diffdetective.analysis.monitoring;
+
+import org.variantsync.diffdetective.analysis.Analysis;
+import org.variantsync.diffdetective.analysis.AnalysisResult.ResultKey;
+import org.variantsync.diffdetective.analysis.MetadataKeys;
+import org.variantsync.diffdetective.metadata.Metadata;
+import org.variantsync.functjonal.category.InplaceSemigroup;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Histograms of the time spent in the individual stages of an {@link Analysis}.
+ * <p>
+ * Stages are timed by surrounding them with {@link #start()} and {@link #stop(String, long)}.
+ * Measurements are recorded in a histogram of the current thread, so timing a stage requires no
+ * synchronization. {@link Analysis#forEachCommit} {@link #takeCurrentThreadsTimings takes} the
+ * histograms of a thread at the end of each batch and merges them into the result of that batch.
+ * Stages that run in parallel on other threads (e.g., when parsing the patches of huge commits in
+ * parallel) are attributed to the next batch completed on those threads.
+ * <p>
+ * Timing is disabled by default, in which case {@link #start()} and {@link #stop} only check a
+ * single flag. It can be enabled with {@link #setEnabled} or the system property
+ * {@value #ENABLED_PROPERTY}. Stages may be nested, so the times of different stages don't add
+ * up to the total runtime.
+ */
+public final class StageTimings implements Metadata<StageTimings> {
+    public static final ResultKey<StageTimings> KEY = new ResultKey<>(StageTimings.class.getName());
+
+    /**
+     * System property which enables timing when set to {@code true} at startup.
+     */
+    public static final String ENABLED_PROPERTY = "diffdetective.stageTimings";
+
+    /** Creating a {@link org.variantsync.diffdetective.diff.git.CommitDiff} including all of its stages. */
+    public static final String COMMIT_DIFF = "commit diff";
+    /** Finding the changed files of a commit. */
+    public static final String TREE_DIFF = "tree diff";
+    /** Loading the blobs of a changed file and computing their line diff. */
+    public static final String LINE_DIFF = "line diff";
+    /** Reconstructing a full diff from a textual diff and the file before the change. */
+    public static final String FULL_DIFF_RECONSTRUCTION = "full diff reconstruction";
+    /** Parsing a line diff into a variation diff, including the parsing of formulas. */
+    public static final String VARIATION_DIFF_PARSING = "variation diff parsing";
+    /** Extracting and parsing a formula of an annotation which was not cached. */
+    public static final String FORMULA_PARSING = "formula parsing";
+    /** Checking the consistency of a parsed variation diff. */
+    public static final String CONSISTENCY_CHECK = "consistency check";
+
+    /**
+     * Value returned by {@link #start()} if timing is disabled.
+     */
+    private static final long DISABLED = Long.MIN_VALUE;
+
+    private static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+    private static final ThreadLocal<StageTimings> currentThreadsTimings = ThreadLocal.withInitial(StageTimings::new);
+    private static final ClassValue<String> hookStages = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            final String name = type.getSimpleName();
+            return "hook " + (name.isEmpty() ? type.getName() : name);
+        }
+    };
+
+    public static final InplaceSemigroup<StageTimings> ISEMIGROUP = (a, b) -> {
+        for (final var stage : b.stages.entrySet()) {
+            a.histogram(stage.getKey()).append(stage.getValue());
+        }
+    };
+
+    /**
+     * Histogram of the durations of a single stage. The durations are counted in buckets whose
+     * bounds are powers of two, so {@link #percentile percentiles} are exact up to a factor of two.
+     */
+    public static final class Histogram {
+        private static final int BUCKETS = Long.SIZE;
+
+        private long count = 0;
+        private long totalNanoseconds = 0;
+        private long maxNanoseconds = 0;
+        /** Bucket {@code i} counts durations {@code d} with {@code 2^(i-1) <= d < 2^i}. */
+        private final long[] buckets = new long[BUCKETS];
+
+        private void record(final long nanoseconds) {
+            final long duration = Math.max(0, nanoseconds);
+            ++count;
+            totalNanoseconds += duration;
+            maxNanoseconds = Math.max(maxNanoseconds, duration);
+            ++buckets[BUCKETS - Long.numberOfLeadingZeros(duration)];
+        }
+
+        private void append(final Histogram other) {
+            count += other.count;
+            totalNanoseconds += other.totalNanoseconds;
+            maxNanoseconds = Math.max(maxNanoseconds, other.maxNanoseconds);
+            for (int i = 0; i < BUCKETS; ++i) {
+                buckets[i] += other.buckets[i];
+            }
+        }
+
+        /**
+         * Returns the number of times the stage was timed.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the total time spent in the stage.
+         */
+        public long getTotalNanoseconds() {
+            return totalNanoseconds;
+        }
+
+        /**
+         * Returns the longest time spent in a single execution of the stage.
+         */
+        public long getMaxNanoseconds() {
+            return maxNanoseconds;
+        }
+
+        /**
+         * Returns an upper bound of the given percentile of all durations, which is at most twice
+         * as large as the actual percentile.
+         *
+         * @param percentile a number between {@code 0} and {@code 100}
+         */
+        public long percentile(final double percentile) {
+            final long rank = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; ++i) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(maxNanoseconds, i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Exports this histogram as {@code count;total;max;buckets} where {@code buckets} is a
+         * comma separated list of all non-empty buckets in the form {@code index:count}.
+         */
+        @Override
+        public String toString() {
+            final StringBuilder result = new StringBuilder();
+            result.append(count).append(';').append(totalNanoseconds).append(';').append(maxNanoseconds).append(';');
+            boolean first = true;
+            for (int i = 0; i < BUCKETS; ++i) {
+                if (buckets[i] != 0) {
+                    if (!first) {
+                        result.append(',');
+                    }
+                    first = false;
+                    result.append(i).append(':').append(buckets[i]);
+                }
+            }
+            return result.toString();
+        }
+
+        /**
+         * Parses the output of {@link #toString()}.
+         */
+        private static Histogram parse(final String text) {
+            final String[] fields = text.split(";", -1);
+            final Histogram histogram = new Histogram();
+            histogram.count = Long.parseLong(fields[0]);
+            histogram.totalNanoseconds = Long.parseLong(fields[1]);
+            histogram.maxNanoseconds = Long.parseLong(fields[2]);
+            if (!fields[3].isEmpty()) {
+                for (final String bucket : fields[3].split(",")) {
+                    final int separator = bucket.indexOf(':');
+                    histogram.buckets[Integer.parseInt(bucket.substring(0, separator))] = Long.parseLong(bucket.substring(separator + 1));
+                }
+            }
+            return histogram;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Histogram other = (Histogram) o;
+            return count == other.count
+                    && totalNanoseconds == other.totalNanoseconds
+                    && maxNanoseconds == other.maxNanoseconds
+                    && Arrays.equals(buckets, other.buckets);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(count) ^ Long.hashCode(totalNanoseconds) ^ Arrays.hashCode(buckets);
+        }
+    }
+
+    /** Histograms sorted by stage names so the export is deterministic. */
+    private final TreeMap<String, Histogram> stages = new TreeMap<>();
+
+    /**
+     * Enables or disables timing for all threads.
+     * Stages which were started while timing was disabled are not recorded.
+     */
+    public static void setEnabled(final boolean enabled) {
+        StageTimings.enabled = enabled;
+    }
+
+    /**
+     * Returns whether timing is enabled.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts timing a stage on the current thread.
+     * @return the value which has to be passed to {@link #stop} when the stage is finished
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : DISABLED;
+    }
+
+    /**
+     * Records the time passed since {@code start} for {@code stage} on the current thread.
+     * Does nothing if timing was disabled when the stage was {@link #start() started}.
+     *
+     * @param stage the name of the timed stage, usually one of the constants of this class
+     * @param start the value returned by {@link #start()} at the beginning of the stage
+     */
+    public static void stop(final String stage, final long start) {
+        if (start != DISABLED) {
+            currentThreadsTimings.get().record(stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the time passed since {@code start} for an invocation of {@code hook}. All hooks of
+     * the same class are recorded as one stage.
+     *
+     * @see #stop
+     */
+    public static void stopHook(final Object hook, final long start) {
+        if (start != DISABLED) {
+            stop(hookStages.get(hook.getClass()), start);
+        }
+    }
+
+    /**
+     * Removes and returns all timings recorded on the current thread.
+     * @return the recorded timings or nothing if no stage was recorded since the last call
+     */
+    public static Optional<StageTimings> takeCurrentThreadsTimings() {
+        final StageTimings timings = currentThreadsTimings.get();
+        currentThreadsTimings.remove();
+        return timings.stages.isEmpty() ? Optional.empty() : Optional.of(timings);
+    }
+
+    /**
+     * Adds {@code timings} to the timings recorded on the current thread.
+     * Used to restore timings {@link #takeCurrentThreadsTimings taken} before running a nested
+     * task on the same thread, so the nested task doesn't take the timings of its caller.
+     */
+    public static void addToCurrentThreadsTimings(final StageTimings timings) {
+        currentThreadsTimings.get().append(timings);
+    }
+
+    private Histogram histogram(final String stage) {
+        return stages.computeIfAbsent(stage, s -> new Histogram());
+    }
+
+    /**
+     * Records a single execution of {@code stage} which took {@code nanoseconds}.
+     */
+    public void record(final String stage, final long nanoseconds) {
+        histogram(stage).record(nanoseconds);
+    }
+
+    /**
+     * Returns the histograms of all recorded stages indexed by their names.
+     */
+    public Map<String, Histogram> getStages() {
+        return stages;
+    }
+
+    @Override
+    public LinkedHashMap<String, Object> snapshot() {
+        final LinkedHashMap<String, Object> snap = new LinkedHashMap<>();
+        for (final var stage : stages.entrySet()) {
+            snap.put(MetadataKeys.STAGE_TIMINGS + stage.getKey(), stage.getValue());
+        }
+        return snap;
+    }
+
+    @Override
+    public void setFromSnapshot(LinkedHashMap<String, String> snap) {
+        for (final var entry : snap.entrySet()) {
+            if (entry.getKey().startsWith(MetadataKeys.STAGE_TIMINGS)) {
+                stages.put(entry.getKey().substring(MetadataKeys.STAGE_TIMINGS.length()), Histogram.parse(entry.getValue()));
+            }
+        }
+    }
+
+    @Override
+    public void writeBinary(DataOutput output) throws IOException {
+        output.writeInt(stages.size());
+        for (final var stage : stages.entrySet()) {
+            final Histogram histogram = stage.getValue();
+            Metadata.writeString(output, stage.getKey());
+            output.writeLong(histogram.count);
+            output.writeLong(histogram.totalNanoseconds);
+            output.writeLong(histogram.maxNanoseconds);
+            for (final long bucket : histogram.buckets) {
+                output.writeLong(bucket);
+            }
+        }
+    }
+
+    @Override
+    public void readBinary(DataInput input) throws IOException {
+        final int size = input.readInt();
+        for (int i = 0; i < size; ++i) {
+            final String stage = Metadata.readString(input);
+            final Histogram histogram = new Histogram();
+            histogram.count = input.readLong();
+            histogram.totalNanoseconds = input.readLong();
+            histogram.maxNanoseconds = input.readLong();
+            for (int j = 0; j < Histogram.BUCKETS; ++j) {
+                histogram.buckets[j] = input.readLong();
+            }
+            stages.put(stage, histogram);
+        }
+    }
+
+    @Override
+    public InplaceSemigroup<StageTimings> semigroup() {
+        return ISEMIGROUP;
+    }
+}
@@ -3,6 +3,7 @@ package org.variantsync.diffdetective.datasets;
 import org.eclipse.jgit.api.Git;
 import org.tinylog.Logger;
 import org.variantsync.diffdetective.diff.git.DiffFilter;
+import org.variantsync.diffdetective.diff.git.VariationDiffCache;
 import org.variantsync.diffdetective.load.GitLoader;
 import org.variantsync.diffdetective.util.IO;
 import org.variantsync.functjonal.Lazy;
@@ -49,6 +50,11 @@ public class Repository {
      */
 	private PatchDiffParseOptions parseOptions;
 
+	/**
+	 * Persistent cache of parsed variation diffs. May be <code>null</code> if no cache should be used.
+	 */
+	private VariationDiffCache variationDiffCache = null;
+
 	private final Lazy<Git> git = Lazy.of(this::load);
 	
 	/**
@@ -220,6 +226,25 @@ public class Repository {
 		return parseOptions;
 	}
 
+	/**
+	 * Set a persistent cache for the variation diffs parsed from this repository's evolution history.
+	 * Caching is disabled by default.
+	 * @param cache Cache to use for parsing or <code>null</code> to disable caching.
+	 * @return this
+	 * @see VariationDiffCache
+	 */
+	public Repository setVariationDiffCache(final VariationDiffCache cache) {
+		this.variationDiffCache = cache;
+		return this;
+	}
+
+	/**
+	 * The persistent cache for the variation diffs parsed from this repository's evolution history, if any.
+	 */
+	public Optional<VariationDiffCache> getVariationDiffCache() {
+		return Optional.ofNullable(variationDiffCache);
+	}
+
 	/**
 	 * Returns the internal jgit representation of this repository that allows to inspect the repositories history and content.
 	 */
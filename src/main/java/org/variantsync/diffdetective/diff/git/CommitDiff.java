@@ -35,6 +35,13 @@ public class CommitDiff {
     
     final boolean merge;
 
+    /**
+     * The number of patches whose {@link org.variantsync.diffdetective.variation.diff.VariationDiff}
+     * was found in or missing from a {@link VariationDiffCache}.
+     */
+    private int cacheHits = 0;
+    private int cacheMisses = 0;
+
     /**
      * Creates a new diff for the following two commits.
      * The resulting CommitDiff is empty meaning that it does not contain any PatchDiffs.
@@ -77,6 +84,38 @@ public class CommitDiff {
         return patchDiffs.size();
     }
 
+    /**
+     * Records whether the {@link org.variantsync.diffdetective.variation.diff.VariationDiff} of a
+     * patch of this commit was found in a {@link VariationDiffCache}.
+     *
+     * May be called concurrently while the patches of a
+     * {@link GitDiffer#createLazyCommitDiff(RevCommit) lazy} commit diff are parsed.
+     *
+     * @param hit {@code true} iff the variation diff was taken from the cache
+     */
+    public synchronized void reportCacheLookup(boolean hit) {
+        if (hit) {
+            ++cacheHits;
+        } else {
+            ++cacheMisses;
+        }
+    }
+
+    /**
+     * Returns the number of patches whose variation diff was taken from a {@link VariationDiffCache}.
+     */
+    public synchronized int getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Returns the number of patches whose variation diff was not found in a {@link VariationDiffCache}
+     * and had to be parsed.
+     */
+    public synchronized int getCacheMisses() {
+        return cacheMisses;
+    }
+
     /**
      * Returns true iff this commit is a merge commit.
      */
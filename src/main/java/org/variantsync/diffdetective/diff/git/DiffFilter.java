@@ -3,11 +3,15 @@ package org.variantsync.diffdetective.diff.git;
 import org.apache.commons.io.FilenameUtils;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.variantsync.diffdetective.variation.diff.Time;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * A filter for commits and patches.
@@ -67,6 +71,13 @@ public class DiffFilter {
      */
     private final boolean allowCommitsWithoutParents;
 
+    /** {@link #allowedPaths} compiled once instead of for every path. */
+    private final List<Pattern> allowedPathPatterns;
+    /** {@link #blockedPaths} compiled once instead of for every path. */
+    private final List<Pattern> blockedPathPatterns;
+    /** @see #getTreeFilter() */
+    private final TreeFilter treeFilter;
+
     /**
      * Builder for a DiffFilter.
      * <p>
@@ -233,6 +244,13 @@ public class DiffFilter {
         this.blockedPaths = builder.blockedPaths;
         this.allowMerge = builder.allowMerge;
         this.allowCommitsWithoutParents = builder.allowCommitsWithoutParents;
+        this.allowedPathPatterns = compile(allowedPaths);
+        this.blockedPathPatterns = compile(blockedPaths);
+        this.treeFilter = createTreeFilter();
+    }
+
+    private static List<Pattern> compile(final List<String> regexes) {
+        return regexes.stream().map(Pattern::compile).toList();
     }
 
     /**
@@ -317,12 +335,103 @@ public class DiffFilter {
                 ;
     }
 
+    /**
+     * Returns a filter for the files compared by a {@link org.eclipse.jgit.diff.DiffFormatter}
+     * (see {@link org.eclipse.jgit.diff.DiffFormatter#setPathFilter}).
+     * <p>
+     * It excludes all files whose path or file extension alone causes {@link #filter(DiffEntry)} to
+     * reject their changes, and all directories which can't contain a file with an allowed path.
+     * Hence, such files are neither diffed nor considered by rename detection, which is
+     * considerably faster if only a few files in a repository are relevant. {@link #filter(DiffEntry)}
+     * still has to be applied to the resulting {@link DiffEntry}s.
+     * <p>
+     * Pre-filtering changes how renames and copies are detected (e.g., a file renamed to an excluded
+     * path would be reported as deleted). Hence, paths are only pre-filtered if only
+     * {@link DiffEntry.ChangeType#MODIFY modifications} are allowed, which is the case for all
+     * predefined datasets. Otherwise, {@link TreeFilter#ALL} is returned.
+     */
+    public TreeFilter getTreeFilter() {
+        return treeFilter;
+    }
+
+    private TreeFilter createTreeFilter() {
+        if (allowedChangeTypes.isEmpty()
+                || allowedChangeTypes.contains(DiffEntry.ChangeType.ADD)
+                || allowedChangeTypes.contains(DiffEntry.ChangeType.DELETE)
+                || allowedChangeTypes.contains(DiffEntry.ChangeType.RENAME)
+                || allowedChangeTypes.contains(DiffEntry.ChangeType.COPY)) {
+            return TreeFilter.ALL;
+        }
+
+        final boolean filterAllowedPaths = !allowedPaths.isEmpty();
+        final boolean filterAllowedExtensions = !allowedFileExtensions.isEmpty();
+        if (!filterAllowedPaths && !filterAllowedExtensions && blockedPaths.isEmpty() && blockedFileExtensions.isEmpty()) {
+            return TreeFilter.ALL;
+        }
+
+        return new TreeFilter() {
+            @Override
+            public boolean include(final TreeWalk walker) {
+                final String path = walker.getPathString();
+                if (walker.isSubtree()) {
+                    return !filterAllowedPaths || mayContainAllowedPath(path);
+                }
+
+                return (!filterAllowedPaths || isAllowedPath(path))
+                        && (!filterAllowedExtensions || hasAllowedExtension(path))
+                        && !isBlockedPath(path)
+                        && !hasBlockedExtension(path);
+            }
+
+            @Override
+            public boolean shouldBeRecursive() {
+                return true;
+            }
+
+            @Override
+            public TreeFilter clone() {
+                // This filter is stateless.
+                return this;
+            }
+
+            @Override
+            public String toString() {
+                return "DiffFilter.TreeFilter";
+            }
+        };
+    }
+
     private boolean isAllowedPath(String filename) {
-        return allowedPaths.stream().anyMatch(filename::matches);
+        return matchesAny(allowedPathPatterns, filename);
     }
 
     private boolean isBlockedPath(String filename) {
-        return blockedPaths.stream().anyMatch(filename::matches);
+        return matchesAny(blockedPathPatterns, filename);
+    }
+
+    private static boolean matchesAny(final List<Pattern> patterns, final String filename) {
+        for (final Pattern pattern : patterns) {
+            if (pattern.matcher(filename).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code false} if no path within the given directory can be an allowed path.
+     * If a pattern doesn't match the directory prefix without reaching its end, no continuation
+     * of that prefix can match either.
+     */
+    private boolean mayContainAllowedPath(final String directory) {
+        final String prefix = directory + "/";
+        for (final Pattern pattern : allowedPathPatterns) {
+            final Matcher matcher = pattern.matcher(prefix);
+            if (matcher.matches() || matcher.hitEnd()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private boolean hasAllowedExtension(String filename) {
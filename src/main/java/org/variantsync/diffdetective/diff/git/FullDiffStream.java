@@ -0,0 +1,186 @@
+package org.variantsync.diffdetective.diff.git;
+
+import org.apache.commons.lang3.function.FailableSupplier;
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.tinylog.Logger;
+import org.variantsync.diffdetective.variation.diff.DiffType;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParser.DiffLine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Supplies the lines of the full diff of a patch without creating the textual diff.
+ * <p>
+ * The full diff is created by merging the file before the change with the edits computed by JGit.
+ * In contrast to formatting a git diff, stripping its headers and merging it with the file before
+ * the change ({@link GitDiffer#getFullDiff}), no intermediate strings are created. Each
+ * {@link DiffLine} is decoded directly from the blob contents when it is requested.
+ * <p>
+ * The supplied lines are equal to the lines of the full diff created by {@link GitDiffer} for the
+ * same patch. Files for which this equivalence can't be guaranteed cheaply (binary files, files
+ * containing carriage returns or byte order marks and very large files) are not supported (see
+ * {@link #of}).
+ */
+public class FullDiffStream implements FailableSupplier<DiffLine, IOException> {
+    /**
+     * Files larger than this number of bytes are considered binary by
+     * {@link org.eclipse.jgit.diff.DiffFormatter} by default.
+     */
+    public static final int BINARY_FILE_THRESHOLD = 50 * 1024 * 1024;
+
+    private final RawText before;
+    private final RawText after;
+    private final EditList edits;
+    /**
+     * Whether an empty, unchanged line has to be supplied after the last line of the full diff.
+     * The textual full diff of {@link GitDiffer} contains such a line in some cases.
+     */
+    private boolean trailingEmptyLine;
+
+    private int editIndex = 0;
+    private int beforeLine = 0;
+    private int afterLine = 0;
+
+    private FullDiffStream(final RawText before, final RawText after, final EditList edits, final boolean trailingEmptyLine) {
+        this.before = before;
+        this.after = after;
+        this.edits = edits;
+        this.trailingEmptyLine = trailingEmptyLine;
+    }
+
+    /**
+     * Creates the full diff of the patch described by {@code diffEntry}.
+     *
+     * @param reader the reader used to load the blobs of {@code diffEntry}
+     * @param diffEntry the patch whose full diff is requested
+     * @param diffAlgorithm the algorithm used to compute the edits between both versions of the file
+     * @return the full diff or nothing if the file isn't supported by this class or couldn't be loaded
+     */
+    public static Optional<FullDiffStream> of(final ObjectReader reader, final DiffEntry diffEntry, final DiffAlgorithm diffAlgorithm) {
+        final Optional<RawText> before;
+        final Optional<RawText> after;
+        try {
+            before = load(reader, diffEntry, DiffEntry.Side.OLD);
+            after = load(reader, diffEntry, DiffEntry.Side.NEW);
+        } catch (IOException e) {
+            Logger.debug(e, "Could not load the blobs of {} -> {}", diffEntry.getOldPath(), diffEntry.getNewPath());
+            return Optional.empty();
+        }
+
+        if (before.isEmpty() || after.isEmpty()) {
+            return Optional.empty();
+        }
+
+        final EditList edits = diffAlgorithm.diff(RawTextComparator.DEFAULT, before.get(), after.get());
+
+        final boolean trailingEmptyLine = switch (diffEntry.getChangeType()) {
+            // The textual diff of added and removed files ends with a line break, which results in
+            // an empty line unless there is no newline at the end of the file.
+            case ADD -> after.get().size() == 0 || !after.get().isMissingNewlineAtEnd();
+            case DELETE -> before.get().size() == 0 || !before.get().isMissingNewlineAtEnd();
+            // The full diff of all other changes is joined without a trailing line break, which
+            // results in a single empty line for an empty diff.
+            case MODIFY, RENAME, COPY -> before.get().size() == 0 && after.get().size() == 0;
+        };
+
+        return Optional.of(new FullDiffStream(before.get(), after.get(), edits, trailingEmptyLine));
+    }
+
+    /**
+     * Loads the blob at {@code side} of {@code diffEntry}.
+     *
+     * @return the loaded text or nothing if the blob is not supported by this class
+     */
+    private static Optional<RawText> load(final ObjectReader reader, final DiffEntry diffEntry, final DiffEntry.Side side) throws IOException {
+        final FileMode mode = diffEntry.getMode(side);
+        if (mode == FileMode.MISSING) {
+            return Optional.of(RawText.EMPTY_TEXT);
+        }
+        if (mode == FileMode.GITLINK || !diffEntry.getId(side).isComplete()) {
+            return Optional.empty();
+        }
+
+        final ObjectLoader loader = reader.open(diffEntry.getId(side).toObjectId(), Constants.OBJ_BLOB);
+        if (loader.getSize() > BINARY_FILE_THRESHOLD) {
+            return Optional.empty();
+        }
+
+        final byte[] content = loader.getCachedBytes(BINARY_FILE_THRESHOLD);
+        if (!isSupported(content)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new RawText(content));
+    }
+
+    /**
+     * Returns {@code true} iff {@code content} contains neither null bytes (binary files),
+     * carriage returns (which are treated differently by JGit and {@link java.io.BufferedReader})
+     * nor UTF-8 byte order marks (which are removed from textual full diffs).
+     */
+    private static boolean isSupported(final byte[] content) {
+        for (int i = 0; i < content.length; ++i) {
+            final byte b = content[i];
+            if (b == '\0' || b == '\r') {
+                return false;
+            }
+            if (b == (byte) 0xEF
+                    && i + 2 < content.length
+                    && content[i + 1] == (byte) 0xBB
+                    && content[i + 2] == (byte) 0xBF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static DiffLine line(final DiffType diffType, final RawText text, final int line) {
+        final ByteBuffer content = text.getRawString(line);
+        return new DiffLine(
+                diffType,
+                new String(content.array(), content.position(), content.remaining(), StandardCharsets.UTF_8)
+        );
+    }
+
+    @Override
+    public DiffLine get() {
+        while (editIndex < edits.size()) {
+            final Edit edit = edits.get(editIndex);
+            if (beforeLine < edit.getBeginA()) {
+                ++afterLine;
+                return line(DiffType.NON, before, beforeLine++);
+            }
+            if (beforeLine < edit.getEndA()) {
+                return line(DiffType.REM, before, beforeLine++);
+            }
+            if (afterLine < edit.getEndB()) {
+                return line(DiffType.ADD, after, afterLine++);
+            }
+            ++editIndex;
+        }
+
+        if (beforeLine < before.size()) {
+            ++afterLine;
+            return line(DiffType.NON, before, beforeLine++);
+        }
+
+        if (trailingEmptyLine) {
+            trailingEmptyLine = false;
+            return new DiffLine(DiffType.NON, "");
+        }
+
+        return null;
+    }
+}
@@ -2,8 +2,10 @@ package org.variantsync.diffdetective.diff.git;
 
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffAlgorithm;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.ConfigConstants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
@@ -13,11 +15,13 @@ import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.*;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
 import org.tinylog.Logger;
+import org.variantsync.diffdetective.analysis.monitoring.StageTimings;
 import org.variantsync.diffdetective.datasets.PatchDiffParseOptions;
 import org.variantsync.diffdetective.datasets.Repository;
 import org.variantsync.diffdetective.diff.result.CommitDiffResult;
 import org.variantsync.diffdetective.diff.result.DiffError;
 import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.parallel.OrderedChunkProcessor;
 import org.variantsync.diffdetective.util.Assert;
 import org.variantsync.diffdetective.util.StringUtils;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
@@ -55,10 +59,16 @@ public class GitDiffer {
     private static final Pattern DIFF_HEADER_PATTERN = Pattern.compile( "^\\+\\+\\+.*$", Pattern.MULTILINE);
     private static final Pattern NO_NEWLINE_PATTERN = Pattern.compile(
             "(" + StringUtils.LINEBREAK_REGEX.pattern() + ")(?m)\\\\ No newline at end of file$");
+    /**
+     * Value for <code>minPatchesForParallelParsing</code> which disables parsing patches in parallel.
+     * @see GitDiffer#createCommitDiff(RevCommit, int)
+     */
+    public static final int NO_PARALLEL_PARSING = Integer.MAX_VALUE;
 
     private final Git git;
     private final DiffFilter diffFilter;
     private final PatchDiffParseOptions parseOptions;
+    private final VariationDiffCache cache;
 
     /**
      * Create a differ operating on the given repository.
@@ -68,6 +78,7 @@ public class GitDiffer {
         this.git = repository.getGitRepo().run();
         this.diffFilter = repository.getDiffFilter();
         this.parseOptions = repository.getParseOptions();
+        this.cache = repository.getVariationDiffCache().orElse(null);
     }
 
     /**
@@ -140,7 +151,51 @@ public class GitDiffer {
     }
 
     public CommitDiffResult createCommitDiff(final RevCommit revCommit) {
-        return createCommitDiffFromFirstParent(git, diffFilter, revCommit, parseOptions);
+        return createCommitDiff(revCommit, NO_PARALLEL_PARSING);
+    }
+
+    /**
+     * The same as {@link GitDiffer#createCommitDiff(RevCommit)} but parses the patches of commits
+     * with many patches in parallel. The patches are split into chunks which are parsed on the
+     * fork-join pool of the calling thread (or the common pool), so a single huge commit doesn't
+     * occupy only one thread. The resulting {@link CommitDiff} is the same as with sequential
+     * parsing.
+     *
+     * @param revCommit the commit to parse relative to its first parent
+     * @param minPatchesForParallelParsing the minimal number of patches for which the patches
+     * are parsed in parallel, {@link #NO_PARALLEL_PARSING} to always parse sequentially
+     * @see OrderedChunkProcessor
+     */
+    public CommitDiffResult createCommitDiff(final RevCommit revCommit, final int minPatchesForParallelParsing) {
+        final long start = StageTimings.start();
+        try {
+            return createCommitDiffFromFirstParent(git, diffFilter, revCommit, parseOptions, cache, minPatchesForParallelParsing);
+        } finally {
+            StageTimings.stop(StageTimings.COMMIT_DIFF, start);
+        }
+    }
+
+    /**
+     * The same as {@link GitDiffer#createCommitDiff(RevCommit)} but only determines the changed
+     * files up front. The diff and {@link VariationDiff} of each {@link PatchDiff} are parsed when
+     * they are requested first (see {@link PatchDiff#parse}) and can be
+     * {@link PatchDiff#release released} afterwards. Hence, the diffs of patches which are never
+     * inspected are never loaded and the diffs of all patches of a huge commit need not be kept in
+     * memory simultaneously.
+     *
+     * <p>In contrast to {@link GitDiffer#createCommitDiff(RevCommit)}, the returned commit diff also
+     * contains the patches which can't be parsed. Their errors are returned by
+     * {@link PatchDiff#parse} instead of being part of the returned result.
+     *
+     * @param revCommit the commit to parse relative to its first parent
+     */
+    public CommitDiffResult createLazyCommitDiff(final RevCommit revCommit) {
+        final long start = StageTimings.start();
+        try {
+            return createCommitDiffFromFirstParent(git, diffFilter, revCommit, parseOptions, cache, NO_PARALLEL_PARSING, true);
+        } finally {
+            StageTimings.stop(StageTimings.COMMIT_DIFF, start);
+        }
     }
 
     /**
@@ -158,6 +213,50 @@ public class GitDiffer {
             DiffFilter diffFilter,
             RevCommit currentCommit,
             final PatchDiffParseOptions parseOptions) {
+        return createCommitDiffFromFirstParent(git, diffFilter, currentCommit, parseOptions, null);
+    }
+
+    /**
+     * The same as {@link GitDiffer#createCommitDiffFromFirstParent(Git, DiffFilter, RevCommit, PatchDiffParseOptions)}
+     * but reuses the variation diffs stored in the given cache.
+     *
+     * @param cache The cache to look up and store parsed variation diffs or <code>null</code> to disable caching.
+     * @see VariationDiffCache
+     */
+    public static CommitDiffResult createCommitDiffFromFirstParent(
+            Git git,
+            DiffFilter diffFilter,
+            RevCommit currentCommit,
+            final PatchDiffParseOptions parseOptions,
+            final VariationDiffCache cache) {
+        return createCommitDiffFromFirstParent(git, diffFilter, currentCommit, parseOptions, cache, NO_PARALLEL_PARSING);
+    }
+
+    /**
+     * The same as {@link GitDiffer#createCommitDiffFromFirstParent(Git, DiffFilter, RevCommit, PatchDiffParseOptions, VariationDiffCache)}
+     * but parses the patches of commits with many patches in parallel.
+     *
+     * @param minPatchesForParallelParsing The minimal number of patches for which the patches are parsed in parallel.
+     * @see GitDiffer#createCommitDiff(RevCommit, int)
+     */
+    public static CommitDiffResult createCommitDiffFromFirstParent(
+            Git git,
+            DiffFilter diffFilter,
+            RevCommit currentCommit,
+            final PatchDiffParseOptions parseOptions,
+            final VariationDiffCache cache,
+            final int minPatchesForParallelParsing) {
+        return createCommitDiffFromFirstParent(git, diffFilter, currentCommit, parseOptions, cache, minPatchesForParallelParsing, false);
+    }
+
+    private static CommitDiffResult createCommitDiffFromFirstParent(
+            Git git,
+            DiffFilter diffFilter,
+            RevCommit currentCommit,
+            final PatchDiffParseOptions parseOptions,
+            final VariationDiffCache cache,
+            final int minPatchesForParallelParsing,
+            final boolean lazy) {
         final RevCommit parent;
         if (currentCommit.getParentCount() > 0) {
             try (var revWalk = new RevWalk(git.getRepository())) {
@@ -169,7 +268,7 @@ public class GitDiffer {
             parent = null;
         }
 
-        return createCommitDiff(git, diffFilter, parent, currentCommit, parseOptions);
+        return createCommitDiff(git, diffFilter, parent, currentCommit, parseOptions, cache, minPatchesForParallelParsing, lazy);
     }
 
     /**
@@ -185,6 +284,69 @@ public class GitDiffer {
             RevCommit parentCommit,
             RevCommit childCommit,
             final PatchDiffParseOptions parseOptions) {
+        return createCommitDiff(git, diffFilter, parentCommit, childCommit, parseOptions, null);
+    }
+
+    /**
+     * The same as {@link GitDiffer#createCommitDiff(Git, DiffFilter, RevCommit, RevCommit, PatchDiffParseOptions)}
+     * but reuses the variation diffs stored in the given cache.
+     *
+     * @param cache The cache to look up and store parsed variation diffs or <code>null</code> to disable caching.
+     * @see VariationDiffCache
+     */
+    public static CommitDiffResult createCommitDiff(
+            Git git,
+            DiffFilter diffFilter,
+            RevCommit parentCommit,
+            RevCommit childCommit,
+            final PatchDiffParseOptions parseOptions,
+            final VariationDiffCache cache) {
+        return createCommitDiff(git, diffFilter, parentCommit, childCommit, parseOptions, cache, NO_PARALLEL_PARSING);
+    }
+
+    /**
+     * The same as {@link GitDiffer#createCommitDiff(Git, DiffFilter, RevCommit, RevCommit, PatchDiffParseOptions, VariationDiffCache)}
+     * but parses the patches of commits with many patches in parallel.
+     *
+     * @param minPatchesForParallelParsing The minimal number of patches for which the patches are parsed in parallel.
+     * @see GitDiffer#createCommitDiff(RevCommit, int)
+     */
+    public static CommitDiffResult createCommitDiff(
+            Git git,
+            DiffFilter diffFilter,
+            RevCommit parentCommit,
+            RevCommit childCommit,
+            final PatchDiffParseOptions parseOptions,
+            final VariationDiffCache cache,
+            final int minPatchesForParallelParsing) {
+        return createCommitDiff(git, diffFilter, parentCommit, childCommit, parseOptions, cache, minPatchesForParallelParsing, false);
+    }
+
+    /**
+     * The same as {@link GitDiffer#createCommitDiff(Git, DiffFilter, RevCommit, RevCommit, PatchDiffParseOptions, VariationDiffCache)}
+     * but parses each patch only when it is requested first.
+     *
+     * @see GitDiffer#createLazyCommitDiff(RevCommit)
+     */
+    public static CommitDiffResult createLazyCommitDiff(
+            Git git,
+            DiffFilter diffFilter,
+            RevCommit parentCommit,
+            RevCommit childCommit,
+            final PatchDiffParseOptions parseOptions,
+            final VariationDiffCache cache) {
+        return createCommitDiff(git, diffFilter, parentCommit, childCommit, parseOptions, cache, NO_PARALLEL_PARSING, true);
+    }
+
+    private static CommitDiffResult createCommitDiff(
+            Git git,
+            DiffFilter diffFilter,
+            RevCommit parentCommit,
+            RevCommit childCommit,
+            final PatchDiffParseOptions parseOptions,
+            final VariationDiffCache cache,
+            final int minPatchesForParallelParsing,
+            final boolean lazy) {
         if (childCommit.getTree() == null) {
             return CommitDiffResult.Failure(DiffError.JGIT_ERROR, "Could not obtain RevTree from child commit " + childCommit.getId());
         }
@@ -220,7 +382,10 @@ public class GitDiffer {
                 parentTreeIterator,
                 currentTreeParser,
                 parentCommit,
-                childCommit
+                childCommit,
+                cache,
+                minPatchesForParallelParsing,
+                lazy
         );
     }
 
@@ -253,7 +418,7 @@ public class GitDiffer {
             return CommitDiffResult.Failure(DiffError.JGIT_ERROR, e.toString());
         }
 
-        return getPatchDiffs(git, diffFilter, parseOptions, prevTreeIterator, workingTreeIterator, commit, commit);
+        return getPatchDiffs(git, diffFilter, parseOptions, prevTreeIterator, workingTreeIterator, commit, commit, null, NO_PARALLEL_PARSING, false);
     }
     
     /**
@@ -266,6 +431,9 @@ public class GitDiffer {
      * @param currentTreeParser The tree parser for childCommit or the working tree
      * @param parentCommit The {@link RevCommit} for the parent commit
      * @param childCommit The {@link RevCommit} for the child commit (equal to parentCommit if working tree is requested)
+     * @param cache The {@link VariationDiffCache} to use or <code>null</code> to disable caching
+     * @param minPatchesForParallelParsing The minimal number of patches for which the patches are parsed in parallel
+     * @param lazy Whether the patches are parsed on demand instead of immediately (not supported for working trees)
      * @return {@link CommitDiffResult}
      */
     private static CommitDiffResult getPatchDiffs(
@@ -275,132 +443,357 @@ public class GitDiffer {
     		AbstractTreeIterator prevTreeParser,
     		AbstractTreeIterator currentTreeParser,
     		RevCommit parentCommit,
-    		RevCommit childCommit) {
+    		RevCommit childCommit,
+    		VariationDiffCache cache,
+    		int minPatchesForParallelParsing,
+    		boolean lazy) {
     	final CommitDiff commitDiff = new CommitDiff(childCommit, parentCommit);
         final List<DiffError> errors = new ArrayList<>();
 
+        // Full diffs can be streamed directly from the blobs if the textual diffs don't have to be
+        // remembered. This is not possible for working trees, whose files are not stored as blobs.
+        final boolean streamFullDiffs =
+                parseOptions.diffStoragePolicy() == PatchDiffParseOptions.DiffStoragePolicy.DO_NOT_REMEMBER
+                && !(currentTreeParser instanceof WorkingTreeIterator);
+        // Files of the working tree are not stored in the object database and, hence, can only be
+        // formatted by the DiffFormatter which scanned them.
+        final boolean parseInParallel = !(currentTreeParser instanceof WorkingTreeIterator);
+
         // get PatchDiffs
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-             DiffFormatter diffFormatter = new DiffFormatter(outputStream))
-        {
-            diffFormatter.setRepository(git.getRepository());
-            diffFormatter.setDetectRenames(true);
-            diffFormatter.getRenameDetector().setRenameScore(50);
+        try (PatchParser patchParser = new PatchParser(git, parseOptions, parentCommit, childCommit, cache, streamFullDiffs)) {
+            patchParser.diffFormatter.setDetectRenames(true);
+            patchParser.diffFormatter.getRenameDetector().setRenameScore(50);
+            // Skip irrelevant files during the tree walk already, so they are neither diffed nor
+            // considered for rename detection.
+            patchParser.diffFormatter.setPathFilter(diffFilter.getTreeFilter());
+
+            final long treeDiffStart = StageTimings.start();
+            final List<DiffEntry> entries = new ArrayList<>();
+            for (DiffEntry diffEntry : patchParser.diffFormatter.scan(prevTreeParser, currentTreeParser)) {
+                if (diffFilter.filter(diffEntry)) {
+                    entries.add(diffEntry);
+                }
+            }
+            StageTimings.stop(StageTimings.TREE_DIFF, treeDiffStart);
 
-            List<DiffEntry> entries = diffFormatter.scan(prevTreeParser, currentTreeParser);
-            for (DiffEntry diffEntry : entries) {
-                if (!diffFilter.filter(diffEntry)) {
-                    continue;
+            if (lazy) {
+                for (final DiffEntry diffEntry : entries) {
+                    commitDiff.addPatchDiff(new PatchDiff(commitDiff, diffEntry, patchErrors ->
+                            parseLazily(git, parseOptions, parentCommit, childCommit, cache, streamFullDiffs, commitDiff, diffEntry, patchErrors)
+                    ));
                 }
+                return new CommitDiffResult(Optional.of(commitDiff), errors);
+            }
 
-                diffFormatter.format(diffEntry);
-                final String gitDiff = outputStream.toString(StandardCharsets.UTF_8);
-                final String filename = diffEntry.getOldPath();
+            final List<ParsedPatches> chunks;
+            if (parseInParallel && entries.size() >= minPatchesForParallelParsing) {
+                // Each chunk uses its own formatter and reader because they are not thread safe.
+                chunks = OrderedChunkProcessor.map(entries, chunk -> {
+                    try (PatchParser chunkParser = new PatchParser(git, parseOptions, parentCommit, childCommit, cache, streamFullDiffs)) {
+                        return chunkParser.parse(commitDiff, chunk);
+                    }
+                });
+            } else {
+                chunks = List.of(patchParser.parse(commitDiff, entries));
+            }
 
-                final Matcher matcher = DIFF_HEADER_PATTERN.matcher(gitDiff);
-                final String strippedDiff;
-                if (matcher.find()) {
-                    strippedDiff = gitDiff.substring(matcher.end() + 1);
-                } else if (GIT_HEADER_PATTERN.matcher(gitDiff).find()) {
-                    // Check whether it is a diff returned by `git diff` and not one created by some other means
-                    strippedDiff = "";
-                } else {
-                    // It is a diff from another source (e.g., manually created or copy-pasted from GitHub)
-                    strippedDiff = gitDiff;
+            for (final ParsedPatches chunk : chunks) {
+                chunk.patchDiffs.forEach(commitDiff::addPatchDiff);
+                chunk.cacheLookups.forEach(commitDiff::reportCacheLookup);
+                errors.addAll(chunk.errors);
+            }
+        } catch (IOException e) {
+            return CommitDiffResult.Failure(DiffError.JGIT_ERROR, e.toString());
+        }
+
+        return new CommitDiffResult(Optional.of(commitDiff), errors);
+    }
+
+    /**
+     * Parses a single {@code diffEntry} of a lazy {@link CommitDiff}.
+     * Each invocation uses its own {@link PatchParser}, so patches of the same commit can be parsed
+     * concurrently and no resources have to be kept open between the parsing of patches.
+     *
+     * @see PatchDiff.Parser
+     */
+    private static PatchDiff parseLazily(
+            Git git,
+            PatchDiffParseOptions parseOptions,
+            RevCommit parentCommit,
+            RevCommit childCommit,
+            VariationDiffCache cache,
+            boolean streamFullDiffs,
+            CommitDiff commitDiff,
+            DiffEntry diffEntry,
+            List<DiffError> errors) {
+        try (PatchParser patchParser = new PatchParser(git, parseOptions, parentCommit, childCommit, cache, streamFullDiffs)) {
+            final ParsedPatches parsed = patchParser.parse(commitDiff, List.of(diffEntry));
+            parsed.cacheLookups.forEach(commitDiff::reportCacheLookup);
+            errors.addAll(parsed.errors);
+            return parsed.patchDiffs.isEmpty() ? null : parsed.patchDiffs.get(0);
+        } catch (IOException e) {
+            Logger.debug(e, "Could not format patch " + diffEntry.getNewPath() + " of commit " + childCommit.getName() + "!");
+            errors.add(DiffError.JGIT_ERROR);
+            return null;
+        }
+    }
+
+    /**
+     * The patches and errors which resulted from parsing a sequence of {@link DiffEntry}s, in the
+     * order of the {@link DiffEntry}s.
+     */
+    private static final class ParsedPatches {
+        final List<PatchDiff> patchDiffs = new ArrayList<>();
+        final List<DiffError> errors = new ArrayList<>();
+        /**
+         * Whether the variation diff of each looked up patch was found in the cache.
+         * @see CommitDiff#reportCacheLookup
+         */
+        final List<Boolean> cacheLookups = new ArrayList<>();
+    }
+
+    /**
+     * Parses {@link DiffEntry}s of a single commit to {@link PatchDiff}s.
+     * Instances are not thread safe but multiple instances can be used concurrently.
+     */
+    private static final class PatchParser implements AutoCloseable {
+        private final Git git;
+        private final PatchDiffParseOptions parseOptions;
+        private final RevCommit parentCommit;
+        private final RevCommit childCommit;
+        private final VariationDiffCache cache;
+        private final boolean streamFullDiffs;
+
+        private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        private final DiffFormatter diffFormatter = new DiffFormatter(outputStream);
+        private final ObjectReader reader;
+        private final DiffAlgorithm diffAlgorithm;
+
+        PatchParser(
+                Git git,
+                PatchDiffParseOptions parseOptions,
+                RevCommit parentCommit,
+                RevCommit childCommit,
+                VariationDiffCache cache,
+                boolean streamFullDiffs) {
+            this.git = git;
+            this.parseOptions = parseOptions;
+            this.parentCommit = parentCommit;
+            this.childCommit = childCommit;
+            this.cache = cache;
+            this.streamFullDiffs = streamFullDiffs;
+
+            diffFormatter.setRepository(git.getRepository());
+            reader = git.getRepository().newObjectReader();
+            // Use the same algorithm as diffFormatter.
+            diffAlgorithm = DiffAlgorithm.getAlgorithm(git.getRepository().getConfig().getEnum(
+                    ConfigConstants.CONFIG_DIFF_SECTION,
+                    null,
+                    ConfigConstants.CONFIG_KEY_ALGORITHM,
+                    DiffAlgorithm.SupportedAlgorithm.HISTOGRAM));
+        }
+
+        /**
+         * Parses all {@code entries} in order.
+         *
+         * @param commitDiff the commit the parsed patches belong to, which is not modified
+         * @throws IOException if JGit fails to format some entry
+         */
+        ParsedPatches parse(final CommitDiff commitDiff, final List<DiffEntry> entries) throws IOException {
+            final ParsedPatches result = new ParsedPatches();
+            for (DiffEntry diffEntry : entries) {
+                parse(commitDiff, diffEntry, result);
+            }
+            return result;
+        }
+
+        private void parse(final CommitDiff commitDiff, final DiffEntry diffEntry, final ParsedPatches result) throws IOException {
+            final VariationDiffCache.Key cacheKey = getCacheKey(cache, diffEntry, parseOptions);
+            if (cacheKey != null) {
+                final Optional<VariationDiff<DiffLinesLabel>> cached = cache.get(
+                        cacheKey,
+                        parseOptions.variationDiffParseOptions().compactLabels()
+                );
+                result.cacheLookups.add(cached.isPresent());
+                if (cached.isPresent()) {
+                    result.patchDiffs.add(new PatchDiff(commitDiff, diffEntry, "", cached.get()));
+                    return;
                 }
+            }
 
+            final String filename = diffEntry.getOldPath();
 
+            final long lineDiffStart = StageTimings.start();
+            final Optional<FullDiffStream> fullDiffStream = streamFullDiffs
+                    ? FullDiffStream.of(reader, diffEntry, diffAlgorithm)
+                    : Optional.empty();
+            if (fullDiffStream.isPresent()) {
+                StageTimings.stop(StageTimings.LINE_DIFF, lineDiffStart);
+            }
+            if (fullDiffStream.isPresent()) {
                 try {
-                    String fullDiff = switch (diffEntry.getChangeType()) {
-                        case ADD, DELETE -> {
-                            if (strippedDiff.isEmpty()) {
-                                // Addition or deletion of an empty file
-                                yield "";
-                            }
-                            // The first lines contains meta information "@@ ... " that we want to skip.
-                            final String[] hunkBeginAndRest = StringUtils.LINEBREAK_REGEX.split(strippedDiff, 2);
-                            Assert.assertTrue(hunkBeginAndRest.length == 2, "Hunk is only one line. Is it a hunk? Hunk: " + strippedDiff);
-                            yield hunkBeginAndRest[1];
-                        }
-                        case RENAME, COPY, MODIFY -> {
-                            final BufferedReader beforeFullFile = getBeforeFullFile(git, parentCommit, filename);
-                            yield getFullDiff(beforeFullFile, new BufferedReader(new StringReader(strippedDiff)));
-                        }
-                    };
-
-                    // Iff a file does not end with a newline character, git adds a meta-line to the diff, which states
-                    // the absence of the newline. If this is the case, we remove the meta-line, in order not to
-                    // parse it as artifact line. If the meta-line does not exist, we add a newline, which adds an empty
-                    // line to the end of the diff. Without this empty line, we would loose the information about the
-                    // newline during the next parse step, which splits the text into lines and removes all newline
-                    // characters.
-                    // TODO: In future versions, we might want to track the newline more explicitly
-                    final Matcher newlineMatcher = NO_NEWLINE_PATTERN.matcher(fullDiff);
-                    if (newlineMatcher.find()) {
-                        fullDiff = newlineMatcher.replaceAll("");
-                    } else {
-                        fullDiff += StringUtils.LINEBREAK;
-                    }
-
                     final VariationDiff<DiffLinesLabel> variationDiff = VariationDiffParser.createVariationDiff(
-                            fullDiff,
+                            fullDiffStream.get(),
                             parseOptions.variationDiffParseOptions()
                     );
 
-                    // not storing the full diff reduces memory usage by around 40-50%
-                    final String diffToRemember = switch (parseOptions.diffStoragePolicy()) {
-                        case DO_NOT_REMEMBER -> "";
-                        case REMEMBER_DIFF -> gitDiff;
-                        case REMEMBER_FULL_DIFF -> fullDiff;
-                        case REMEMBER_STRIPPED_DIFF -> strippedDiff;
-                    };
-
-                    commitDiff.addPatchDiff(new PatchDiff(
-                            commitDiff,
-                            diffEntry,
-                            diffToRemember,
-                            variationDiff
-                    ));
+                    result.patchDiffs.add(new PatchDiff(commitDiff, diffEntry, "", variationDiff));
+                    if (cacheKey != null) {
+                        cache.put(cacheKey, variationDiff);
+                    }
                 } catch (IOException e) {
                     Logger.debug(e, "Could not obtain full diff of file " + filename + " before commit " + parentCommit + "!");
-                    errors.add(DiffError.COULD_NOT_OBTAIN_FULLDIFF);
+                    result.errors.add(DiffError.COULD_NOT_OBTAIN_FULLDIFF);
                 } catch (DiffParseException e) {
-                    StringBuilder logMessage = new StringBuilder();
-                    logMessage
-                            .append("parse exception for commit ")
-                            .append(childCommit.getName())
-                            .append(" in line ")
-                            .append(e.getLineNumber())
-                            .append(" of patch ")
-                            .append(diffEntry.getOldPath())
-                            .append(" -> ")
-                            .append(diffEntry.getNewPath())
-                            .append("\n");
-                    logMessage
-                            .append(e)
-                            .append("\n");
-                    if (e.getMessage() != null) {
-                        logMessage
-                                .append("error message: ")
-                                .append(e.getMessage())
-                                .append("\n");
+                    logParseException(e, childCommit, diffEntry);
+                    result.errors.add(e.getError());
+                }
+                return;
+            }
+
+            diffFormatter.format(diffEntry);
+            final String gitDiff = outputStream.toString(StandardCharsets.UTF_8);
+            outputStream.reset();
+            StageTimings.stop(StageTimings.LINE_DIFF, lineDiffStart);
+
+            final Matcher matcher = DIFF_HEADER_PATTERN.matcher(gitDiff);
+            final String strippedDiff;
+            if (matcher.find()) {
+                strippedDiff = gitDiff.substring(matcher.end() + 1);
+            } else if (GIT_HEADER_PATTERN.matcher(gitDiff).find()) {
+                // Check whether it is a diff returned by `git diff` and not one created by some other means
+                strippedDiff = "";
+            } else {
+                // It is a diff from another source (e.g., manually created or copy-pasted from GitHub)
+                strippedDiff = gitDiff;
+            }
+
+
+            try {
+                final long fullDiffStart = StageTimings.start();
+                String fullDiff = switch (diffEntry.getChangeType()) {
+                    case ADD, DELETE -> {
+                        if (strippedDiff.isEmpty()) {
+                            // Addition or deletion of an empty file
+                            yield "";
+                        }
+                        // The first lines contains meta information "@@ ... " that we want to skip.
+                        final String[] hunkBeginAndRest = StringUtils.LINEBREAK_REGEX.split(strippedDiff, 2);
+                        Assert.assertTrue(hunkBeginAndRest.length == 2, "Hunk is only one line. Is it a hunk? Hunk: " + strippedDiff);
+                        yield hunkBeginAndRest[1];
                     }
-                    if (e.getCause() != null) {
-                        logMessage
-                                .append("cause: ")
-                                .append(e.getCause());
+                    case RENAME, COPY, MODIFY -> {
+                        final BufferedReader beforeFullFile = getBeforeFullFile(git, parentCommit, filename);
+                        yield getFullDiff(beforeFullFile, new BufferedReader(new StringReader(strippedDiff)));
                     }
-                    Logger.debug(logMessage);
-                    errors.add(e.getError());
+                };
+
+                // Iff a file does not end with a newline character, git adds a meta-line to the diff, which states
+                // the absence of the newline. If this is the case, we remove the meta-line, in order not to
+                // parse it as artifact line. If the meta-line does not exist, we add a newline, which adds an empty
+                // line to the end of the diff. Without this empty line, we would loose the information about the
+                // newline during the next parse step, which splits the text into lines and removes all newline
+                // characters.
+                // TODO: In future versions, we might want to track the newline more explicitly
+                final Matcher newlineMatcher = NO_NEWLINE_PATTERN.matcher(fullDiff);
+                if (newlineMatcher.find()) {
+                    fullDiff = newlineMatcher.replaceAll("");
+                } else {
+                    fullDiff += StringUtils.LINEBREAK;
                 }
-
-                outputStream.reset();
+                StageTimings.stop(StageTimings.FULL_DIFF_RECONSTRUCTION, fullDiffStart);
+
+                final VariationDiff<DiffLinesLabel> variationDiff = VariationDiffParser.createVariationDiff(
+                        fullDiff,
+                        parseOptions.variationDiffParseOptions()
+                );
+
+                // not storing the full diff reduces memory usage by around 40-50%
+                final String diffToRemember = switch (parseOptions.diffStoragePolicy()) {
+                    case DO_NOT_REMEMBER -> "";
+                    case REMEMBER_DIFF -> gitDiff;
+                    case REMEMBER_FULL_DIFF -> fullDiff;
+                    case REMEMBER_STRIPPED_DIFF -> strippedDiff;
+                };
+
+                result.patchDiffs.add(new PatchDiff(
+                        commitDiff,
+                        diffEntry,
+                        diffToRemember,
+                        variationDiff
+                ));
+
+                if (cacheKey != null) {
+                    cache.put(cacheKey, variationDiff);
+                }
+            } catch (IOException e) {
+                Logger.debug(e, "Could not obtain full diff of file " + filename + " before commit " + parentCommit + "!");
+                result.errors.add(DiffError.COULD_NOT_OBTAIN_FULLDIFF);
+            } catch (DiffParseException e) {
+                logParseException(e, childCommit, diffEntry);
+                result.errors.add(e.getError());
             }
-        } catch (IOException e) {
-            return CommitDiffResult.Failure(DiffError.JGIT_ERROR, e.toString());
         }
 
-        return new CommitDiffResult(Optional.of(commitDiff), errors);
+        @Override
+        public void close() {
+            diffFormatter.close();
+            reader.close();
+        }
+    }
+
+    private static void logParseException(final DiffParseException e, final RevCommit childCommit, final DiffEntry diffEntry) {
+        StringBuilder logMessage = new StringBuilder();
+        logMessage
+                .append("parse exception for commit ")
+                .append(childCommit.getName())
+                .append(" in line ")
+                .append(e.getLineNumber())
+                .append(" of patch ")
+                .append(diffEntry.getOldPath())
+                .append(" -> ")
+                .append(diffEntry.getNewPath())
+                .append("\n");
+        logMessage
+                .append(e)
+                .append("\n");
+        if (e.getMessage() != null) {
+            logMessage
+                    .append("error message: ")
+                    .append(e.getMessage())
+                    .append("\n");
+        }
+        if (e.getCause() != null) {
+            logMessage
+                    .append("cause: ")
+                    .append(e.getCause());
+        }
+        Logger.debug(logMessage);
+    }
+
+    /**
+     * Determines the key of the variation diff of {@code diffEntry} in {@code cache}.
+     * Only variation diffs whose full diff does not have to be remembered are cached because
+     * the cache does not store any diffs.
+     *
+     * @return the cache key or <code>null</code> if the variation diff of {@code diffEntry} should not be cached
+     */
+    private static VariationDiffCache.Key getCacheKey(
+            final VariationDiffCache cache,
+            final DiffEntry diffEntry,
+            final PatchDiffParseOptions parseOptions) {
+        if (cache == null
+                || parseOptions.diffStoragePolicy() != PatchDiffParseOptions.DiffStoragePolicy.DO_NOT_REMEMBER
+                || !diffEntry.getOldId().isComplete()
+                || !diffEntry.getNewId().isComplete()) {
+            return null;
+        }
+
+        return new VariationDiffCache.Key(
+                diffEntry.getOldId().toObjectId(),
+                diffEntry.getNewId().toObjectId(),
+                parseOptions.variationDiffParseOptions()
+        );
     }
 
     /**
@@ -2,20 +2,40 @@ package org.variantsync.diffdetective.diff.git;
 
 import org.apache.commons.io.FilenameUtils;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.variantsync.diffdetective.diff.result.DiffError;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
 import org.variantsync.diffdetective.variation.diff.Time;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Data class containing information about a single patch (i.e., the differences in a single file).
  *
  * Contains a VariationDiff of the patch.
+ * The VariationDiff of patches created by {@link GitDiffer#createLazyCommitDiff(RevCommit)} is
+ * only {@link #parse parsed} when it is requested first and can be {@link #release released}
+ * afterwards. Released patches are not parsed again, so their diff and VariationDiff can't be
+ * accessed anymore. Such patches are not thread safe.
  *
  * @author Sören Viegener, Paul Bittner
  */
 public class PatchDiff implements GitPatch {
-    private final String fullDiff;
-    private final VariationDiff<DiffLinesLabel> variationDiff;
+    private String fullDiff;
+    private VariationDiff<DiffLinesLabel> variationDiff;
+
+    /**
+     * Parses this patch on demand or <code>null</code> if this patch was parsed on creation.
+     */
+    private final Parser parser;
+    private boolean parsed;
+    private boolean released = false;
+    private List<DiffError> parseErrors = List.of();
 
     /**
      * The commit the patch belongs to.
@@ -35,6 +55,14 @@ public class PatchDiff implements GitPatch {
      * Path of the file after modification.
      */
     private final String newPath;
+    /**
+     * Blob of the file before modification.
+     */
+    private final AbbreviatedObjectId oldId;
+    /**
+     * Blob of the file after modification.
+     */
+    private final AbbreviatedObjectId newId;
 
     /**
      * Creates a new PatchDiff.
@@ -49,11 +77,115 @@ public class PatchDiff implements GitPatch {
         this.changeType = diffEntry.getChangeType();
         this.oldPath = diffEntry.getOldPath();
         this.newPath = diffEntry.getNewPath();
+        this.oldId = diffEntry.getOldId();
+        this.newId = diffEntry.getNewId();
         this.fullDiff = fullDiff;
         this.variationDiff = variationDiff;
         if (this.variationDiff != null) {
             this.variationDiff.setSource(this);
         }
+        this.parser = null;
+        this.parsed = true;
+    }
+
+    /**
+     * Creates a new PatchDiff whose diff and {@link VariationDiff} are created by {@code parser}
+     * when they are requested first.
+     * @param commitDiff The changes of a commit this patch belongs to.
+     * @param diffEntry The diff entry from jgit from which this PatchDiff is produced.
+     * @param parser Parses {@code diffEntry}.
+     */
+    PatchDiff(CommitDiff commitDiff, DiffEntry diffEntry, Parser parser) {
+        this.commitDiff = commitDiff;
+        this.changeType = diffEntry.getChangeType();
+        this.oldPath = diffEntry.getOldPath();
+        this.newPath = diffEntry.getNewPath();
+        this.oldId = diffEntry.getOldId();
+        this.newId = diffEntry.getNewId();
+        this.fullDiff = "";
+        this.variationDiff = null;
+        this.parser = parser;
+        this.parsed = false;
+    }
+
+    /**
+     * Parses the diff entry of a lazily parsed {@link PatchDiff}.
+     */
+    @FunctionalInterface
+    interface Parser {
+        /**
+         * Parses the diff entry of a {@link PatchDiff}.
+         * @param errors Receives the errors which prevented parsing.
+         * @return an eagerly parsed patch of the same diff entry or <code>null</code> if parsing failed
+         */
+        PatchDiff parse(List<DiffError> errors);
+    }
+
+    /**
+     * Parses this patch unless it is already parsed.
+     * Patches which are not {@link #isLazy lazy} are always parsed.
+     *
+     * @return the errors which prevented parsing this patch, empty if this patch is {@link #isValid valid}
+     * @throws IllegalStateException if this patch was {@link #release released}
+     */
+    public List<DiffError> parse() {
+        if (released) {
+            throw new IllegalStateException("The patch " + this + " was released and can't be parsed again");
+        }
+        if (!parsed) {
+            final List<DiffError> errors = new ArrayList<>();
+            final PatchDiff parsedPatch = parser.parse(errors);
+            if (parsedPatch != null) {
+                fullDiff = parsedPatch.fullDiff;
+                variationDiff = parsedPatch.variationDiff;
+                if (variationDiff != null) {
+                    variationDiff.setSource(this);
+                }
+            }
+            parseErrors = errors;
+            parsed = true;
+        }
+        return parseErrors;
+    }
+
+    /**
+     * Returns whether the diff and {@link VariationDiff} of this patch are currently available
+     * without parsing.
+     */
+    public boolean isParsed() {
+        return parsed;
+    }
+
+    /**
+     * Returns whether this patch is parsed on demand.
+     * @see GitDiffer#createLazyCommitDiff(RevCommit)
+     */
+    public boolean isLazy() {
+        return parser != null;
+    }
+
+    /**
+     * Returns whether the diff and {@link VariationDiff} of this patch were {@link #release released}.
+     */
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Drops the diff and {@link VariationDiff} of a {@link #isLazy lazy} patch so their memory
+     * can be reclaimed. Afterwards, {@link #parse}, {@link #getDiff}, {@link #getVariationDiff}
+     * and {@link #isValid} throw an {@link IllegalStateException} instead of silently parsing
+     * this patch again.
+     * Does nothing for patches which are not lazy.
+     */
+    public void release() {
+        if (isLazy()) {
+            fullDiff = "";
+            variationDiff = null;
+            parseErrors = List.of();
+            parsed = false;
+            released = true;
+        }
     }
 
     /**
@@ -84,6 +216,20 @@ public class PatchDiff implements GitPatch {
         }
     }
 
+    /**
+     * Returns the id of the git blob containing the file at the given time.
+     *
+     * @return the blob id or nothing if the file does not exist at the given time (e.g., before
+     * it was added) or if the id is unknown
+     */
+    public Optional<ObjectId> getBlobId(Time time) {
+        final AbbreviatedObjectId id = time == Time.BEFORE ? oldId : newId;
+        if (id == null || !id.isComplete() || ObjectId.zeroId().equals(id.toObjectId())) {
+            return Optional.empty();
+        }
+        return Optional.of(id.toObjectId());
+    }
+
     @Override
     public String getCommitHash() {
         return commitDiff.getCommitHash();
@@ -96,21 +242,26 @@ public class PatchDiff implements GitPatch {
 
     @Override
     public String getDiff() {
+        parse();
         return fullDiff;
     }
 
     /**
      * Returns the VariationDiff for this patch.
+     * @throws IllegalStateException if this patch was {@link #release released}
      */
     public VariationDiff<DiffLinesLabel> getVariationDiff() {
+        parse();
         return variationDiff;
     }
 
     /**
      * Returns whether this PatchDiff is a valid patch.
      * A patch is valid if it has a VariationDiff.
+     * @throws IllegalStateException if this patch was {@link #release released}
      */
     public boolean isValid() {
+        parse();
         return variationDiff != null;
     }
 
@@ -0,0 +1,338 @@
+package org.variantsync.diffdetective.diff.git;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.tinylog.Logger;
+import org.variantsync.diffdetective.analysis.AnalysisResult.ResultKey;
+import org.variantsync.diffdetective.analysis.MetadataKeys;
+import org.variantsync.diffdetective.metadata.Metadata;
+import org.variantsync.diffdetective.variation.CompactDiffLinesLabel;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.diff.serialize.BinaryVariationDiffCodec;
+import org.variantsync.functjonal.category.InplaceSemigroup;
+
+/**
+ * A persistent, content-addressed cache of parsed {@link VariationDiff}s.
+ *
+ * <p>The {@link VariationDiff} of a patch only depends on the content of the file before and after
+ * the patch and the {@link VariationDiffParseOptions} used for parsing. Hence, a
+ * {@link VariationDiff} is identified by the git blob ids of both file versions and a
+ * {@link VariationDiffParseOptions#getFingerprint fingerprint} of the parse options. Rerunning an
+ * analysis on the same history (e.g., with different {@link
+ * org.variantsync.diffdetective.analysis.Analysis.Hooks}) can thus skip loading blobs, reconstructing
+ * full diffs and parsing for all previously seen patches.
+ *
+ * <p>Each entry is stored as a separate file (using the {@link BinaryVariationDiffCodec}) below the
+ * cache directory. The total size of all entries is bounded. If it is exceeded, the least recently
+ * used entries are deleted. The recency of entries is persisted using the modification time of the
+ * entry files, so the eviction order survives restarts.
+ *
+ * <p>This class is thread safe. Multiple instances must not share the same directory.
+ *
+ * @see GitDiffer
+ */
+public class VariationDiffCache {
+    /**
+     * File extension of cache entries.
+     */
+    public static final String EXTENSION = ".vdiff";
+    /**
+     * Default upper bound of the total size of all cache entries in bytes.
+     */
+    public static final long DEFAULT_MAX_SIZE_IN_BYTES = 4L * 1024 * 1024 * 1024;
+
+    private final Path directory;
+    private final long maxSizeInBytes;
+    /**
+     * Maps each file in the cache to its size in access order.
+     */
+    private final LinkedHashMap<Path, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeInBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Number of cache hits and misses while parsing patches.
+     */
+    public static final class Statistics implements Metadata<Statistics> {
+        public static final ResultKey<Statistics> KEY = new ResultKey<>(Statistics.class.getName());
+
+        public long hits = 0;
+        public long misses = 0;
+
+        public static final InplaceSemigroup<Statistics> ISEMIGROUP = (a, b) -> {
+            a.hits += b.hits;
+            a.misses += b.misses;
+        };
+
+        @Override
+        public InplaceSemigroup<Statistics> semigroup() {
+            return ISEMIGROUP;
+        }
+
+        @Override
+        public LinkedHashMap<String, Object> snapshot() {
+            LinkedHashMap<String, Object> snap = new LinkedHashMap<>();
+            snap.put(MetadataKeys.VARIATION_DIFF_CACHE_HITS, hits);
+            snap.put(MetadataKeys.VARIATION_DIFF_CACHE_MISSES, misses);
+            return snap;
+        }
+
+        @Override
+        public void setFromSnapshot(LinkedHashMap<String, String> snap) {
+            hits = Long.parseLong(snap.get(MetadataKeys.VARIATION_DIFF_CACHE_HITS));
+            misses = Long.parseLong(snap.get(MetadataKeys.VARIATION_DIFF_CACHE_MISSES));
+        }
+    }
+
+    /**
+     * Identifies a parsed {@link VariationDiff}.
+     *
+     * @param before the blob of the file before the change ({@link ObjectId#zeroId()} if the file was added)
+     * @param after the blob of the file after the change ({@link ObjectId#zeroId()} if the file was deleted)
+     * @param parseOptionsFingerprint the {@link VariationDiffParseOptions#getFingerprint fingerprint} of
+     * the parse options used to create the {@link VariationDiff}
+     */
+    public record Key(ObjectId before, ObjectId after, String parseOptionsFingerprint) {
+        public Key(ObjectId before, ObjectId after, VariationDiffParseOptions parseOptions) {
+            this(before, after, parseOptions.getFingerprint());
+        }
+
+        /**
+         * Returns a file name which uniquely identifies this key.
+         */
+        String toFileName() {
+            try {
+                final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+                digest.update(before.name().getBytes(StandardCharsets.US_ASCII));
+                digest.update(after.name().getBytes(StandardCharsets.US_ASCII));
+                digest.update(parseOptionsFingerprint.getBytes(StandardCharsets.UTF_8));
+                digest.update(Integer.toString(BinaryVariationDiffCodec.VERSION).getBytes(StandardCharsets.US_ASCII));
+                return HexFormat.of().formatHex(digest.digest());
+            } catch (NoSuchAlgorithmException e) {
+                throw new AssertionError("Every Java platform is required to support SHA-1", e);
+            }
+        }
+    }
+
+    /**
+     * Creates a cache with a maximum size of {@link #DEFAULT_MAX_SIZE_IN_BYTES}.
+     * @see #VariationDiffCache(Path, long)
+     */
+    public VariationDiffCache(final Path directory) throws IOException {
+        this(directory, DEFAULT_MAX_SIZE_IN_BYTES);
+    }
+
+    /**
+     * Opens the cache stored in {@code directory} or creates a new, empty cache if
+     * {@code directory} does not exist.
+     *
+     * @param directory the directory where cache entries are stored
+     * @param maxSizeInBytes the upper bound of the total size of all cache entries
+     * @throws IOException if the existing cache entries can't be listed
+     */
+    public VariationDiffCache(final Path directory, long maxSizeInBytes) throws IOException {
+        this.directory = directory;
+        this.maxSizeInBytes = maxSizeInBytes;
+
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.walk(directory)) {
+            files
+                .filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+                .map(file -> {
+                    try {
+                        return Map.entry(file, Files.readAttributes(file, BasicFileAttributes.class));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .sorted(Map.Entry.comparingByValue((a, b) -> a.lastModifiedTime().compareTo(b.lastModifiedTime())))
+                .forEachOrdered(entry -> {
+                    entries.put(entry.getKey(), entry.getValue().size());
+                    sizeInBytes += entry.getValue().size();
+                });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        Logger.info("Opened variation diff cache at {} with {} entries ({} bytes)", directory, entries.size(), sizeInBytes);
+        evict();
+    }
+
+    private Path fileOf(final Key key) {
+        final String name = key.toFileName();
+        // Use the first two characters as sub directory to avoid huge directories.
+        return directory.resolve(name.substring(0, 2)).resolve(name.substring(2) + EXTENSION);
+    }
+
+    /**
+     * Looks up the {@link VariationDiff} identified by {@code key}.
+     * Each invocation is recorded as cache hit or miss.
+     *
+     * @param key the identifier of the requested {@link VariationDiff}
+     * @return a fresh copy of the cached {@link VariationDiff} or nothing if there is no entry for {@code key}
+     */
+    public Optional<VariationDiff<DiffLinesLabel>> get(final Key key) {
+        return get(key, false);
+    }
+
+    /**
+     * Same as {@link #get(Key)} but the labels of the returned {@link VariationDiff} are
+     * {@link CompactDiffLinesLabel}s sharing a single buffer iff {@code compactLabels} is
+     * {@code true}. {@link VariationDiffParseOptions#compactLabels()} isn't part of the
+     * {@link Key}, so entries are shared by both label representations.
+     *
+     * @param key the identifier of the requested {@link VariationDiff}
+     * @param compactLabels whether the labels should be {@link CompactDiffLinesLabel}s
+     * @return a fresh copy of the cached {@link VariationDiff} or nothing if there is no entry for {@code key}
+     */
+    public Optional<VariationDiff<DiffLinesLabel>> get(final Key key, final boolean compactLabels) {
+        final Path file = fileOf(key);
+
+        synchronized (this) {
+            // Marks the entry as recently used.
+            if (entries.get(file) == null) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+        }
+
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            final VariationDiff<DiffLinesLabel> variationDiff;
+            if (compactLabels) {
+                final var buffer = new CompactDiffLinesLabel.Buffer();
+                variationDiff = BinaryVariationDiffCodec.decode(input, lines -> new CompactDiffLinesLabel(buffer, lines));
+                buffer.trimToSize();
+            } else {
+                variationDiff = BinaryVariationDiffCodec.decode(input);
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return Optional.of(variationDiff);
+        } catch (NoSuchFileException e) {
+            // The entry was evicted concurrently.
+        } catch (IOException e) {
+            Logger.warn(e, "Removing corrupted variation diff cache entry {}", file);
+            remove(file);
+        }
+
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Stores {@code variationDiff} for {@code key}. Existing entries are replaced.
+     * If the maximum size of this cache is exceeded, the least recently used entries are evicted.
+     * Errors are logged but not propagated because a failure to cache a result doesn't affect
+     * the correctness of an analysis.
+     *
+     * @param key the identifier of {@code variationDiff}
+     * @param variationDiff the value to cache
+     */
+    public void put(final Key key, final VariationDiff<? extends DiffLinesLabel> variationDiff) {
+        final Path file = fileOf(key);
+        try {
+            Files.createDirectories(file.getParent());
+            final Path temporaryFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                    BinaryVariationDiffCodec.encode(variationDiff, output);
+                }
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+
+            final long size = Files.size(file);
+            synchronized (this) {
+                final Long oldSize = entries.put(file, size);
+                sizeInBytes += size - (oldSize == null ? 0 : oldSize);
+                evict();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            Logger.warn(e, "Could not cache variation diff in {}", file);
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the size bound is satisfied.
+     */
+    private synchronized void evict() {
+        final Iterator<Map.Entry<Path, Long>> leastRecentlyUsed = entries.entrySet().iterator();
+        while (sizeInBytes > maxSizeInBytes && leastRecentlyUsed.hasNext()) {
+            final Map.Entry<Path, Long> entry = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            sizeInBytes -= entry.getValue();
+            try {
+                Files.deleteIfExists(entry.getKey());
+            } catch (IOException e) {
+                Logger.warn(e, "Could not evict variation diff cache entry {}", entry.getKey());
+            }
+        }
+    }
+
+    private synchronized void remove(final Path file) {
+        final Long size = entries.remove(file);
+        if (size != null) {
+            sizeInBytes -= size;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            Logger.warn(e, "Could not remove variation diff cache entry {}", file);
+        }
+    }
+
+    /**
+     * Returns the number of {@link #get lookups} that found an entry since this cache was opened.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of {@link #get lookups} that did not find an entry since this cache was opened.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the total size of all entries in bytes.
+     */
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    /**
+     * Returns the directory where the cache entries are stored.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+}
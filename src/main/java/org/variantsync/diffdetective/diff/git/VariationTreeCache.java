@@ -0,0 +1,143 @@
+package org.variantsync.diffdetective.diff.git;
+
+import org.apache.commons.io.input.CharacterFilterReader;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.util.BoundedConcurrentCache;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.tree.VariationTree;
+import org.variantsync.diffdetective.variation.tree.source.VariationTreeSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A bounded, in-memory cache of {@link VariationTree}s parsed from git blobs.
+ *
+ * <p>The {@link VariationTree} of a file version only depends on its content and the
+ * {@link VariationDiffParseOptions} used for parsing. Hence, it is identified by the id of the
+ * git blob storing the content and a {@link VariationDiffParseOptions#getFingerprint fingerprint}
+ * of the parse options. A file version which is changed by a commit is usually changed again
+ * later on, so its tree after the first commit is found in this cache when it is needed as the
+ * tree before the second commit.
+ *
+ * <p>The cached trees are never handed out. Instead, each lookup returns a {@link
+ * VariationTree#deepCopy copy}, which may be modified freely. Copying a tree is much cheaper than
+ * loading its blob and parsing it again. Because the same blob may be part of many commits and
+ * files, the returned trees have an {@link VariationTreeSource#Unknown unknown source}.
+ *
+ * <p>This class is thread safe.
+ *
+ * @see VariationDiffCache
+ */
+public class VariationTreeCache {
+    /**
+     * Default maximum number of cached trees.
+     */
+    public static final int DEFAULT_SIZE = 1 << 10;
+
+    /**
+     * Identifies a parsed {@link VariationTree}.
+     *
+     * @param blob the git blob containing the parsed file
+     * @param parseOptionsFingerprint the {@link VariationDiffParseOptions#getFingerprint fingerprint}
+     * of the parse options used to create the {@link VariationTree}
+     */
+    public record Key(ObjectId blob, String parseOptionsFingerprint) {
+        public Key(ObjectId blob, VariationDiffParseOptions parseOptions) {
+            this(blob, parseOptions.getFingerprint());
+        }
+    }
+
+    private final BoundedConcurrentCache<Key, VariationTree<DiffLinesLabel>> trees;
+
+    /**
+     * Creates a cache with a maximum size of {@link #DEFAULT_SIZE}.
+     */
+    public VariationTreeCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxSize the maximum number of cached trees, has to be at least two
+     */
+    public VariationTreeCache(final int maxSize) {
+        this.trees = new BoundedConcurrentCache<>(maxSize);
+    }
+
+    /**
+     * Returns the {@link VariationTree} of the file stored in {@code blob}.
+     * The blob is only loaded and parsed if its tree is not cached yet.
+     *
+     * @param git the repository containing {@code blob}
+     * @param blob the id of the blob to parse
+     * @param parseOptions the options used for parsing the blob
+     * @return a new copy of the tree, which may be modified by the caller
+     * @throws IOException if {@code blob} can't be read from {@code git}
+     * @throws DiffParseException if the file stored in {@code blob} can't be parsed
+     */
+    public VariationTree<DiffLinesLabel> get(
+            final Git git,
+            final ObjectId blob,
+            final VariationDiffParseOptions parseOptions
+    ) throws IOException, DiffParseException {
+        final VariationTree<DiffLinesLabel> tree;
+        try {
+            tree = trees.computeIfAbsent(new Key(blob, parseOptions), key -> parse(git, key.blob(), parseOptions));
+        } catch (IOException | DiffParseException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new AssertionError("Parsing a blob only throws IOExceptions and DiffParseExceptions", e);
+        }
+        return tree.deepCopy();
+    }
+
+    private static VariationTree<DiffLinesLabel> parse(
+            final Git git,
+            final ObjectId blob,
+            final VariationDiffParseOptions parseOptions
+    ) throws IOException, DiffParseException {
+        try (BufferedReader file =
+            new BufferedReader(
+                /*
+                 * JGit may insert a BOM (byte order mask, a Unicode feature) at unfortunate places.
+                 * Hence, BOMs need to be removed, similar to GitDiffer#getFullDiff.
+                 */
+                new CharacterFilterReader(
+                    new InputStreamReader(
+                        git.getRepository().open(blob, Constants.OBJ_BLOB).openStream(),
+                        StandardCharsets.UTF_8),
+                    0xfeff)) // BOM, same as GitDiffer.BOM_PATTERN
+        ) {
+            return VariationTree.fromFile(file, VariationTreeSource.Unknown, parseOptions);
+        }
+    }
+
+    /**
+     * Removes all cached trees. The statistics are not reset.
+     */
+    public void clear() {
+        trees.clear();
+    }
+
+    /**
+     * Returns the number of {@link #get lookups} that found a cached tree.
+     */
+    public long getHits() {
+        return trees.getHits();
+    }
+
+    /**
+     * Returns the number of {@link #get lookups} that had to parse a blob.
+     */
+    public long getMisses() {
+        return trees.getMisses();
+    }
+}
@@ -1,10 +1,13 @@
 package org.variantsync.diffdetective.editclass;
 
+import org.variantsync.diffdetective.variation.Label;
 import org.variantsync.diffdetective.variation.diff.DiffNode;
 import org.variantsync.diffdetective.variation.diff.DiffType;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * Interface for custom catalogs of edit classes.
@@ -58,4 +61,22 @@ public interface EditClassCatalogue {
 
         return match;
     }
+
+    /**
+     * Matches all artifact nodes of the given variation diff.
+     * The edit class of each node is the same as the one returned by {@link #match}. Catalogues
+     * may override this method to share work between the nodes of a variation diff.
+     *
+     * @param variationDiff The variation diff whose artifact nodes should be classified.
+     * @param action Invoked with each artifact node and its edit class in the order of
+     * {@link VariationDiff#forAll}.
+     * @param <L> The type of labels of the given variation diff.
+     */
+    default <L extends Label> void matchAll(VariationDiff<L> variationDiff, BiConsumer<DiffNode<L>, EditClass> action) {
+        variationDiff.forAll(node -> {
+            if (node.isArtifact()) {
+                action.accept(node, match(node));
+            }
+        });
+    }
 }
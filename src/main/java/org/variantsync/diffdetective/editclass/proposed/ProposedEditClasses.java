@@ -5,10 +5,13 @@ import org.variantsync.diffdetective.analysis.logic.SAT;
 import org.variantsync.diffdetective.editclass.EditClass;
 import org.variantsync.diffdetective.editclass.EditClassCatalogue;
 import org.variantsync.diffdetective.util.Assert;
+import org.variantsync.diffdetective.variation.Label;
 import org.variantsync.diffdetective.variation.diff.DiffNode;
 import org.variantsync.diffdetective.variation.diff.DiffType;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 
 import static org.variantsync.diffdetective.variation.diff.Time.AFTER;
 import static org.variantsync.diffdetective.variation.diff.Time.BEFORE;
@@ -135,6 +138,40 @@ public class ProposedEditClasses implements EditClassCatalogue {
         }
     }
 
+    /**
+     * The parents of an artifact node.
+     * {@link DiffNode} does not override {@link Object#equals}, so parents are compared by identity.
+     */
+    private record Parents(DiffNode<?> before, DiffNode<?> after) {}
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The presence conditions of an artifact node are the presence conditions of its parents.
+     * Hence, the edit class of a non-edited artifact only depends on its parents. Sibling
+     * artifacts are thus classified only once, which saves most of the SAT calls of
+     * {@link #match}.
+     */
+    @Override
+    public <L extends Label> void matchAll(VariationDiff<L> variationDiff, BiConsumer<DiffNode<L>, EditClass> action) {
+        final Map<Parents, EditClass> editClassesOfNonArtifacts = new HashMap<>();
+        variationDiff.forAll(node -> {
+            if (!node.isArtifact()) {
+                return;
+            }
+
+            final EditClass editClass;
+            if (node.isNon()) {
+                editClass = editClassesOfNonArtifacts.computeIfAbsent(
+                        new Parents(node.getParent(BEFORE), node.getParent(AFTER)),
+                        parents -> match(node));
+            } else {
+                editClass = match(node);
+            }
+            action.accept(node, editClass);
+        });
+    }
+
     /**
      * Returns the edit class that has the given name.
      * Returns empty of no edit class has the given name.
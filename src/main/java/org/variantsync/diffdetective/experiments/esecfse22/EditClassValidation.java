@@ -118,14 +118,12 @@ public class EditClassValidation implements Analysis.Hooks {
 
     @Override
     public boolean analyzeVariationDiff(Analysis analysis) {
-        analysis.getCurrentVariationDiff().forAll(node -> {
-            if (node.isArtifact()) {
-                analysis.get(EditClassCount.KEY).reportOccurrenceFor(
-                    ProposedEditClasses.Instance.match(node),
-                    analysis.getCurrentCommitDiff()
-                );
-            }
-        });
+        ProposedEditClasses.Instance.matchAll(analysis.getCurrentVariationDiff(), (node, editClass) ->
+            analysis.get(EditClassCount.KEY).reportOccurrenceFor(
+                editClass,
+                analysis.getCurrentCommitDiff()
+            )
+        );
 
         return true;
     }
@@ -1,7 +1,7 @@
 package org.variantsync.diffdetective.experiments.thesis_bm;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
@@ -12,9 +12,8 @@ import java.util.List;
 import java.util.Set;
 import java.util.function.BiConsumer;
 
-import org.apache.commons.io.input.CharacterFilterReader;
 import org.apache.commons.lang3.NotImplementedException;
-import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.lib.ObjectId;
 import org.tinylog.Logger;
 import org.variantsync.diffdetective.AnalysisRunner;
 import org.variantsync.diffdetective.analysis.Analysis;
@@ -22,7 +21,8 @@ import org.variantsync.diffdetective.analysis.AnalysisResult.ResultKey;
 import org.variantsync.diffdetective.analysis.FilterAnalysis;
 import org.variantsync.diffdetective.analysis.MetadataKeys;
 import org.variantsync.diffdetective.analysis.StatisticsAnalysis;
-import org.variantsync.diffdetective.diff.git.GitDiffer;
+import org.variantsync.diffdetective.diff.git.PatchDiff;
+import org.variantsync.diffdetective.diff.git.VariationTreeCache;
 import org.variantsync.diffdetective.diff.result.DiffParseException;
 import org.variantsync.diffdetective.editclass.EditClass;
 import org.variantsync.diffdetective.editclass.EditClassCatalogue;
@@ -42,6 +42,7 @@ import org.variantsync.diffdetective.variation.diff.Projection;
 import org.variantsync.diffdetective.variation.diff.Time;
 import org.variantsync.diffdetective.variation.diff.filter.VariationDiffFilter;
 import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParser;
+import org.variantsync.diffdetective.variation.tree.VariationTree;
 import org.variantsync.functjonal.category.InplaceSemigroup;
 import org.variantsync.functjonal.map.MergeMap;
 
@@ -254,6 +255,11 @@ public class ConstructionValidation implements Analysis.Hooks {
         destination.write(CSV.DEFAULT_CSV_DELIMITER);
     }
 
+    /**
+     * Variation trees shared by all threads and commits.
+     */
+    private static final VariationTreeCache VARIATION_TREES = new VariationTreeCache();
+
     private final Matcher matcher;
     private final EditClassCatalogue editClasses;
     private BufferedWriter destination;
@@ -283,17 +289,17 @@ public class ConstructionValidation implements Analysis.Hooks {
             statistics.variationDiff[0].constructionDuration = 0;
 
             Clock clock = new Clock();
-            final VariationDiff<DiffLinesLabel> beforeVariationTree = parseVariationTree(analysis, analysis.getCurrentCommit().getParent(0));
-            final VariationDiff<DiffLinesLabel> afterVariationTree = parseVariationTree(analysis, analysis.getCurrentCommit());
+            final VariationTree<DiffLinesLabel> beforeVariationTree = parseVariationTree(analysis, BEFORE);
+            final VariationTree<DiffLinesLabel> afterVariationTree = parseVariationTree(analysis, AFTER);
             statistics.variationTreeParseDuration += clock.getPassedMilliseconds();
 
-            beforeVariationTree.assertConsistency();
-            afterVariationTree.assertConsistency();
+            beforeVariationTree.root().assertConsistency();
+            afterVariationTree.root().assertConsistency();
 
             clock.start();
             final DiffNode<DiffLinesLabel> newVariationDiffRoot = GumTreeDiff.diffUsingMatching(
-                beforeVariationTree.getRoot().projection(BEFORE),
-                afterVariationTree.getRoot().projection(AFTER),
+                beforeVariationTree.root(),
+                afterVariationTree.root(),
                 augmentedMatcher(statistics.variationDiff[1])
             );
             final var newVariationDiff = new VariationDiff<DiffLinesLabel>(newVariationDiffRoot);
@@ -374,23 +380,20 @@ public class ConstructionValidation implements Analysis.Hooks {
         statistics.metricDuration += clock.getPassedMilliseconds();
     }
 
-    private VariationDiff<DiffLinesLabel> parseVariationTree(Analysis analysis, RevCommit commit) throws IOException, DiffParseException {
-        try (BufferedReader afterFile =
-            new BufferedReader(
-                /*
-                 * JGit may insert a BOM (byte order mask, a Unicode feature) at unfortunate places
-                 * (e.g. at the start of a diff, right before a {@code +}, {@code -} or space.
-                 * Hence, BOMs need to be removed. A similar heuristic is implemented in {@link GitDiffer#getFullDiff()}.
-                 */
-                new CharacterFilterReader(
-                    GitDiffer.getBeforeFullFile(
-                        analysis.getRepository().getGitRepo().run(),
-                        commit,
-                        analysis.getCurrentPatch().getFileName(AFTER)),
-                    0xfeff)) // BOM, same as GitDiffer.BOM_PATTERN
-        ) {
-            return VariationDiffParser.createVariationTree(afterFile, analysis.getRepository().getParseOptions().variationDiffParseOptions());
-        }
+    /**
+     * Parses the variation tree of the current patch of {@code analysis} at the given time.
+     * The after tree of a patch is usually the before tree of a later patch, so the trees are
+     * looked up in {@link #VARIATION_TREES}.
+     */
+    private VariationTree<DiffLinesLabel> parseVariationTree(Analysis analysis, Time time) throws IOException, DiffParseException {
+        final PatchDiff patch = analysis.getCurrentPatch();
+        final ObjectId blob = patch.getBlobId(time).orElseThrow(() ->
+            new FileNotFoundException("Couldn't find " + patch.getFileName(time) + " " + time + " commit " + patch.getCommitHash()));
+
+        return VARIATION_TREES.get(
+            analysis.getRepository().getGitRepo().run(),
+            blob,
+            analysis.getRepository().getParseOptions().variationDiffParseOptions());
     }
 
     private <L extends Label> ComparisonResult compare(VariationDiff<L> a, VariationDiff<L> b) {
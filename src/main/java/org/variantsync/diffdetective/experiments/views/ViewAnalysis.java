@@ -13,6 +13,7 @@ import org.variantsync.diffdetective.variation.diff.Projection;
 import org.variantsync.diffdetective.variation.diff.Time;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
 import org.variantsync.diffdetective.variation.diff.view.DiffView;
+import org.variantsync.diffdetective.variation.diff.view.VariationDiffIndex;
 import org.variantsync.diffdetective.variation.tree.view.relevance.Configure;
 import org.variantsync.diffdetective.variation.tree.view.relevance.Relevance;
 import org.variantsync.diffdetective.variation.tree.view.relevance.Search;
@@ -67,17 +68,18 @@ public class ViewAnalysis implements Analysis.Hooks {
      * {@link ViewEvaluation} in this objects {@link #csv} field.
      * @param analysis The current instance of the analysis that is run.
      *                 Used to access metadata of the current commit that is processed.
-     * @param d The variation diff to benchmark view generation on.
+     * @param index An index of the variation diff to benchmark view generation on.
      * @param rho A relevance predicate that determines which nodes should be contained in the view.
      */
-    private void runRelevanceExperiment(Analysis analysis, final VariationDiff<DiffLinesLabel> d, final Relevance rho) {
+    private void runRelevanceExperiment(Analysis analysis, final VariationDiffIndex<DiffLinesLabel> index, final Relevance rho) {
+        final VariationDiff<DiffLinesLabel> d = index.getVariationDiff();
         final long preprocessingTime, naiveTime, optimizedTime;
 
         //Show.diff(d, "D").showAndAwait();
 
         final Clock c = new Clock();
 
-        final BiPredicate<Time, Projection<DiffLinesLabel>> inV = DiffView.computeWhenNodesAreRelevant(d, rho);
+        final BiPredicate<Time, Projection<DiffLinesLabel>> inV = DiffView.computeWhenNodesAreRelevant(index, rho);
 
         preprocessingTime = c.getPassedMilliseconds();
 
@@ -117,7 +119,7 @@ public class ViewAnalysis implements Analysis.Hooks {
     /**
      * Runs the feasibility study on the current variation diff.
      * Creates random relevance predicates as explained in Section 6 of our paper.
-     * Then runs {@link #runRelevanceExperiment(Analysis, VariationDiff, Relevance)} for each relevance on the
+     * Then runs {@link #runRelevanceExperiment(Analysis, VariationDiffIndex, Relevance)} for each relevance on the
      * current variation diff.
      * @param analysis The current instance of the analysis that is run.
      *                 Used to access metadata of the current commit that is processed.
@@ -128,9 +130,10 @@ public class ViewAnalysis implements Analysis.Hooks {
     public boolean analyzeVariationDiff(Analysis analysis) throws Exception {
         final VariationDiff<DiffLinesLabel> d = analysis.getCurrentVariationDiff();
         final Collection<Relevance> queries = generateRandomRelevances(d);
+        final VariationDiffIndex<DiffLinesLabel> index = new VariationDiffIndex<>(d);
 
         for (final Relevance r : queries) {
-            runRelevanceExperiment(analysis, d, r);
+            runRelevanceExperiment(analysis, index, r);
         }
 
         return Analysis.Hooks.super.analyzeVariationDiff(analysis);
@@ -141,10 +144,11 @@ public class ViewAnalysis implements Analysis.Hooks {
      * the given variation diff d, as explained in Section 6.1 in our paper.
      * If possible, this method will generate one relevance of each type of
      * {@link Configure}, {@link Trace}, and {@link Search}.
+     * The presence conditions of the nodes in {@code d} are not modified.
      * @param d The variation diff to generate relevance predicates for.
      * @return A list of three random relevance predicates.
      */
-    private List<Relevance> generateRandomRelevances(final VariationDiff<DiffLinesLabel> d) {
+    public List<Relevance> generateRandomRelevances(final VariationDiff<DiffLinesLabel> d) {
         final List<Node>  deselectedPCs = new ArrayList<>();
         final Set<String> features      = new HashSet<>();
         final Set<String> artifacts     = new HashSet<>();
@@ -246,7 +250,8 @@ public class ViewAnalysis implements Analysis.Hooks {
          */
         final List<Configure> all = new ArrayList<>();
         for (final Node deselectedPC : deselectedPCs) {
-            final FixTrueFalse.Formula p = FixTrueFalse.EliminateTrueAndFalseInplace(deselectedPC);
+            // The presence conditions are shared with the nodes, so they must not be modified in-place.
+            final FixTrueFalse.Formula p = FixTrueFalse.EliminateTrueAndFalse(deselectedPC);
             if (SAT.isSatisfiable(p)) {
                 all.add(new Configure(p));
             }
@@ -283,7 +288,7 @@ public class ViewAnalysis implements Analysis.Hooks {
         FixTrueFalse.Formula winner = null;
         while (winner == null && !deselectedPCs.isEmpty()) {
             final Node candidate = deselectedPCs.get(random.nextInt(deselectedPCs.size()));
-            final FixTrueFalse.Formula fixedCandidate = FixTrueFalse.EliminateTrueAndFalseInplace(candidate);
+            final FixTrueFalse.Formula fixedCandidate = FixTrueFalse.EliminateTrueAndFalse(candidate);
             if (SAT.isSatisfiable(fixedCandidate)) {
                 winner = fixedCandidate;
             } else {
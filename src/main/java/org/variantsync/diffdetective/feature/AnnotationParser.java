@@ -28,4 +28,35 @@ public interface AnnotationParser {
      * @throws UnparseableFormulaException if there is an error while parsing.
      */
     Node parseAnnotation(String text) throws UnparseableFormulaException;
+
+    /**
+     * Returns a character that occurs in every text for which {@link #determineAnnotationType}
+     * doesn't return {@link AnnotationType#None}, or {@code '\0'} if there is no such character.
+     * Parsers may skip {@link #determineAnnotationType} for texts without this character, which is
+     * considerably cheaper for the vast majority of lines that are not annotations.
+     * <p>
+     * The default implementation returns {@code '\0'}, so no text is skipped.
+     * </p>
+     *
+     * @return A character contained in all annotations or {@code '\0'}.
+     */
+    default char getAnnotationMarker() {
+        return '\0';
+    }
+
+    /**
+     * Returns a textual identification of the behaviour of this parser.
+     * Two parsers with the same fingerprint have to produce the same results for all inputs, also
+     * across different runs of the JVM. Fingerprints are used to key persistent caches of parse
+     * results.
+     * <p>
+     * The default implementation returns the name of the class of this parser. Implementations
+     * with configurable behaviour should override this method.
+     * </p>
+     *
+     * @return A string identifying the behaviour of this parser.
+     */
+    default String getFingerprint() {
+        return getClass().getName();
+    }
 }
@@ -1,10 +1,17 @@
 package org.variantsync.diffdetective.feature;
 
 import org.prop4j.Node;
+import org.variantsync.diffdetective.analysis.AnalysisResult.ResultKey;
+import org.variantsync.diffdetective.analysis.MetadataKeys;
+import org.variantsync.diffdetective.analysis.monitoring.StageTimings;
 import org.variantsync.diffdetective.error.UnparseableFormulaException;
 import org.variantsync.diffdetective.feature.cpp.CPPDiffLineFormulaExtractor;
 import org.variantsync.diffdetective.feature.jpp.JPPDiffLineFormulaExtractor;
+import org.variantsync.diffdetective.metadata.Metadata;
+import org.variantsync.diffdetective.util.BoundedConcurrentCache;
+import org.variantsync.functjonal.category.InplaceSemigroup;
 
+import java.util.LinkedHashMap;
 import java.util.regex.Pattern;
 
 /**
@@ -46,10 +53,55 @@ public class PreprocessorAnnotationParser implements AnnotationParser {
     public static final PreprocessorAnnotationParser JPPAnnotationParser =
             new PreprocessorAnnotationParser(JPP_PATTERN, PropositionalFormulaParser.Default, new JPPDiffLineFormulaExtractor());
 
+    /**
+     * The default maximum number of parsed formulas cached by a parser.
+     * @see #PreprocessorAnnotationParser(Pattern, PropositionalFormulaParser, DiffLineFormulaExtractor, int)
+     */
+    public static final int DEFAULT_FORMULA_CACHE_SIZE = 1 << 16;
+
     // Pattern that is used to identify the AnnotationType of a given annotation.
     private final Pattern annotationPattern;
+    // How the AnnotationType is determined without regex if annotationPattern is a known pattern.
+    private final DirectiveSyntax directiveSyntax;
     private final PropositionalFormulaParser formulaParser;
     private final DiffLineFormulaExtractor extractor;
+    // Maps normalized annotations to their formula. Null if caching is disabled.
+    private final BoundedConcurrentCache<String, Node> formulaCache;
+
+    /**
+     * Number of annotations whose formula was found in or missing from the formula cache of a
+     * {@link PreprocessorAnnotationParser}.
+     */
+    public static final class FormulaCacheStatistics implements Metadata<FormulaCacheStatistics> {
+        public static final ResultKey<FormulaCacheStatistics> KEY = new ResultKey<>(FormulaCacheStatistics.class.getName());
+
+        public long hits = 0;
+        public long misses = 0;
+
+        public static final InplaceSemigroup<FormulaCacheStatistics> ISEMIGROUP = (a, b) -> {
+            a.hits += b.hits;
+            a.misses += b.misses;
+        };
+
+        @Override
+        public InplaceSemigroup<FormulaCacheStatistics> semigroup() {
+            return ISEMIGROUP;
+        }
+
+        @Override
+        public LinkedHashMap<String, Object> snapshot() {
+            LinkedHashMap<String, Object> snap = new LinkedHashMap<>();
+            snap.put(MetadataKeys.FORMULA_CACHE_HITS, hits);
+            snap.put(MetadataKeys.FORMULA_CACHE_MISSES, misses);
+            return snap;
+        }
+
+        @Override
+        public void setFromSnapshot(LinkedHashMap<String, String> snap) {
+            hits = Long.parseLong(snap.get(MetadataKeys.FORMULA_CACHE_HITS));
+            misses = Long.parseLong(snap.get(MetadataKeys.FORMULA_CACHE_MISSES));
+        }
+    }
 
     /**
      * Invokes {@link #PreprocessorAnnotationParser(Pattern, PropositionalFormulaParser, DiffLineFormulaExtractor)} with
@@ -62,16 +114,34 @@ public class PreprocessorAnnotationParser implements AnnotationParser {
     }
 
     /**
-     * Creates a new preprocessor annotation parser.
+     * Creates a new preprocessor annotation parser which caches up to {@link #DEFAULT_FORMULA_CACHE_SIZE} formulas.
      *
      * @param annotationPattern Pattern that is used to identify the AnnotationType of a given annotation; {@link #CPP_PATTERN} provides an example
      * @param formulaParser     Parser that is used to parse propositional formulas in conditional annotations (e.g., the formula <code>f</code> in <code>#if f</code>).
      * @param formulaExtractor  An extractor that extracts the formula part of a preprocessor annotation that is then given to the formulaParser.
      */
     public PreprocessorAnnotationParser(final Pattern annotationPattern, final PropositionalFormulaParser formulaParser, DiffLineFormulaExtractor formulaExtractor) {
+        this(annotationPattern, formulaParser, formulaExtractor, DEFAULT_FORMULA_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new preprocessor annotation parser.
+     * <p>
+     * In real-world projects, the same annotations occur over and over again. Hence, parsed
+     * formulas are cached (see {@link #parseAnnotation}). Both, the formula parser and the formula
+     * extractor have to be deterministic for caching to be correct.
+     *
+     * @param annotationPattern Pattern that is used to identify the AnnotationType of a given annotation; {@link #CPP_PATTERN} provides an example
+     * @param formulaParser     Parser that is used to parse propositional formulas in conditional annotations (e.g., the formula <code>f</code> in <code>#if f</code>).
+     * @param formulaExtractor  An extractor that extracts the formula part of a preprocessor annotation that is then given to the formulaParser.
+     * @param formulaCacheSize  The maximum number of cached formulas or <code>0</code> to disable caching.
+     */
+    public PreprocessorAnnotationParser(final Pattern annotationPattern, final PropositionalFormulaParser formulaParser, DiffLineFormulaExtractor formulaExtractor, int formulaCacheSize) {
         this.annotationPattern = annotationPattern;
+        this.directiveSyntax = DirectiveSyntax.of(annotationPattern);
         this.formulaParser = formulaParser;
         this.extractor = formulaExtractor;
+        this.formulaCache = formulaCacheSize == 0 ? null : new BoundedConcurrentCache<>(formulaCacheSize);
     }
 
     /**
@@ -96,6 +166,11 @@ public class PreprocessorAnnotationParser implements AnnotationParser {
 
     /**
      * Parses the condition of the given line of source code that contains a preprocessor macro (i.e., IF, IFDEF, ELIF).
+     * <p>
+     * Unless caching is disabled, the formulas of recently parsed annotations are cached. Annotations
+     * are looked up in the cache without their leading diff symbol and whitespace. Formulas
+     * returned from the cache are shared between all occurrences of an annotation, so
+     * <b>returned formulas must not be mutated</b> (clone them first if necessary).
      *
      * @param line The line of code of a preprocessor annotation.
      * @return The formula of the macro in the given line.
@@ -103,11 +178,79 @@ public class PreprocessorAnnotationParser implements AnnotationParser {
      * @throws UnparseableFormulaException when {@link DiffLineFormulaExtractor#extractFormula(String)} throws.
      */
     public Node parseAnnotation(String line) throws UnparseableFormulaException {
-        return this.formulaParser.parse(extractor.extractFormula(line));
+        if (formulaCache == null) {
+            return parseUncached(line);
+        }
+
+        return formulaCache.computeIfAbsent(normalize(line), this::parseUncached);
+    }
+
+    private Node parseUncached(String line) throws UnparseableFormulaException {
+        final long start = StageTimings.start();
+        try {
+            return this.formulaParser.parse(extractor.extractFormula(line));
+        } finally {
+            StageTimings.stop(StageTimings.FORMULA_PARSING, start);
+        }
+    }
+
+    /**
+     * Removes the leading diff symbol and whitespace of {@code line}.
+     * Both are ignored by the annotation patterns so they don't affect the parsed formula.
+     */
+    private static String normalize(String line) {
+        int begin = 0;
+        if (begin < line.length() && (line.charAt(begin) == '+' || line.charAt(begin) == '-')) {
+            ++begin;
+        }
+        while (begin < line.length() && Character.isWhitespace(line.charAt(begin))) {
+            ++begin;
+        }
+        return line.substring(begin);
+    }
+
+    /**
+     * Returns the number of formula cache hits and misses since this parser was created.
+     * If caching is disabled, both are zero.
+     */
+    public FormulaCacheStatistics getFormulaCacheStatistics() {
+        final var statistics = new FormulaCacheStatistics();
+        if (formulaCache != null) {
+            statistics.hits = formulaCache.getHits();
+            statistics.misses = formulaCache.getMisses();
+        }
+        return statistics;
     }
 
+    /**
+     * Identifies this parser by its annotation pattern, formula parser and formula extractor.
+     * Formula parsers and extractors are identified by their class names, except for
+     * {@link PropositionalFormulaParser#Default}, whose (lambda) class name isn't stable across runs.
+     */
+    @Override
+    public String getFingerprint() {
+        final String formulaParserName = formulaParser == PropositionalFormulaParser.Default
+                ? "PropositionalFormulaParser.Default"
+                : formulaParser.getClass().getName();
+        return getClass().getName()
+                + "[" + annotationPattern.pattern()
+                + ", " + formulaParserName
+                + ", " + extractor.getClass().getName()
+                + "]";
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * For {@link #CPP_PATTERN} and {@link #JPP_PATTERN}, the type is determined by the
+     * {@link PreprocessorDirectiveLexer} instead of a regex.
+     */
     @Override
     public AnnotationType determineAnnotationType(String text) {
+        if (directiveSyntax != DirectiveSyntax.CUSTOM) {
+            return PreprocessorDirectiveLexer.annotationType(text, directiveSyntax == DirectiveSyntax.JPP);
+        }
+
         var matcher = annotationPattern.matcher(text);
         int nameId = 1;
         if (matcher.find()) {
@@ -116,4 +259,29 @@ public class PreprocessorAnnotationParser implements AnnotationParser {
             return AnnotationType.None;
         }
     }
+
+    /**
+     * Both, {@link #CPP_PATTERN} and {@link #JPP_PATTERN}, only match texts containing a {@code #}.
+     */
+    @Override
+    public char getAnnotationMarker() {
+        return directiveSyntax == DirectiveSyntax.CUSTOM ? AnnotationParser.super.getAnnotationMarker() : '#';
+    }
+
+    private enum DirectiveSyntax {
+        CPP,
+        JPP,
+        CUSTOM;
+
+        static DirectiveSyntax of(final Pattern annotationPattern) {
+            if (annotationPattern.flags() == 0) {
+                if (annotationPattern.pattern().equals(CPP_PATTERN.pattern())) {
+                    return CPP;
+                } else if (annotationPattern.pattern().equals(JPP_PATTERN.pattern())) {
+                    return JPP;
+                }
+            }
+            return CUSTOM;
+        }
+    }
 }
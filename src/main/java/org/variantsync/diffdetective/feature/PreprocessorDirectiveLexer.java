@@ -0,0 +1,88 @@
+package org.variantsync.diffdetective.feature;
+
+/**
+ * A hand-written scanner for the beginning of preprocessor directives in (diff) lines.
+ * <p>
+ * It recognizes exactly the same lines as {@link PreprocessorAnnotationParser#CPP_PATTERN} and
+ * {@link PreprocessorAnnotationParser#JPP_PATTERN} but without regular expressions. Most lines of
+ * source code are not preprocessor directives and are rejected after inspecting their first
+ * non-whitespace character.
+ */
+public final class PreprocessorDirectiveLexer {
+    private PreprocessorDirectiveLexer() {
+    }
+
+    /**
+     * Returns {@code true} iff {@code c} is matched by the regex {@code \s}.
+     * This is not the same as {@link Character#isWhitespace}.
+     */
+    public static boolean isRegexWhitespace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static int skipWhitespace(final String text, int i) {
+        while (i < text.length() && isRegexWhitespace(text.charAt(i))) {
+            ++i;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the index of the directive name in {@code text}.
+     * For C preprocessor directives ({@code javaPreprocessor == false}), {@code text} has to match
+     * {@code ^[+-]?\s*#\s*}. Java preprocessor directives additionally require {@code //} and
+     * optional whitespace before the {@code #}. The returned index is the end of that match.
+     *
+     * @param text a line of source code, possibly prefixed by a diff symbol
+     * @param javaPreprocessor whether the directive is prefixed by a line comment
+     * @return the index of the directive name or {@code -1} if {@code text} is not a directive
+     */
+    public static int directiveNameStart(final String text, final boolean javaPreprocessor) {
+        int i = 0;
+        if (i < text.length() && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+            ++i;
+        }
+        i = skipWhitespace(text, i);
+
+        if (javaPreprocessor) {
+            if (!text.startsWith("//", i)) {
+                return -1;
+            }
+            i = skipWhitespace(text, i + 2);
+        }
+
+        if (i >= text.length() || text.charAt(i) != '#') {
+            return -1;
+        }
+        return skipWhitespace(text, i + 1);
+    }
+
+    /**
+     * Determines the type of the conditional directive in {@code text}.
+     * Only a prefix of the directive name is checked, so {@code #ifdef} is an {@link AnnotationType#If}.
+     *
+     * @param text a line of source code, possibly prefixed by a diff symbol
+     * @param javaPreprocessor whether the directive is prefixed by a line comment
+     * @return the same type as {@link PreprocessorAnnotationParser#determineAnnotationType} with the
+     * {@link PreprocessorAnnotationParser#CPP_PATTERN CPP} or
+     * {@link PreprocessorAnnotationParser#JPP_PATTERN JPP} pattern
+     */
+    public static AnnotationType annotationType(final String text, final boolean javaPreprocessor) {
+        final int name = directiveNameStart(text, javaPreprocessor);
+        if (name < 0) {
+            return AnnotationType.None;
+        }
+
+        // The order of the checks is the same as the order of the alternatives in the patterns.
+        if (text.startsWith("if", name)) {
+            return AnnotationType.If;
+        } else if (text.startsWith("elif", name)) {
+            return AnnotationType.Elif;
+        } else if (text.startsWith("else", name)) {
+            return AnnotationType.Else;
+        } else if (text.startsWith("endif", name)) {
+            return AnnotationType.Endif;
+        }
+        return AnnotationType.None;
+    }
+}
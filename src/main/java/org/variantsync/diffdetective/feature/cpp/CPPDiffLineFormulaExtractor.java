@@ -5,10 +5,10 @@ import org.antlr.v4.runtime.CommonTokenStream;
 import org.variantsync.diffdetective.error.UnparseableFormulaException;
 import org.variantsync.diffdetective.feature.AbstractingFormulaExtractor;
 import org.variantsync.diffdetective.feature.ParseErrorListener;
+import org.variantsync.diffdetective.feature.PreprocessorDirectiveLexer;
 import org.variantsync.diffdetective.feature.antlr.CExpressionLexer;
 import org.variantsync.diffdetective.feature.antlr.CExpressionParser;
 
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -41,8 +41,9 @@ public class CPPDiffLineFormulaExtractor extends AbstractingFormulaExtractor {
         String fm = super.extractFormula(line);
 
         // negate for ifndef
-        final Matcher matcher = CPP_ANNOTATION_PATTERN.matcher(line);
-        if (matcher.find() && "ifndef".equals(matcher.group(1))) {
+        // The pattern matched above, so checking the directive name suffices.
+        final int name = PreprocessorDirectiveLexer.directiveNameStart(line, false);
+        if (name >= 0 && line.startsWith("ifndef", name)) {
             fm = "!(" + fm + ")";
         }
 
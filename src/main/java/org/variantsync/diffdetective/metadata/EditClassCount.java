@@ -12,6 +12,9 @@ import org.variantsync.functjonal.Functjonal;
 import org.variantsync.functjonal.category.InplaceSemigroup;
 import org.variantsync.functjonal.map.MergeMap;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -197,6 +200,43 @@ public class EditClassCount implements Metadata<EditClassCount> {
         }
     }
 
+    /**
+     * Writes the occurrences of all edit classes. In contrast to the {@link #snapshot()}, the
+     * hashes of the unique commits are preserved, so merging read counts is exact.
+     */
+    @Override
+    public void writeBinary(DataOutput output) throws IOException {
+        output.writeInt(occurrences.size());
+        for (var occurrence : occurrences.entrySet()) {
+            Metadata.writeString(output, occurrence.getKey().getName());
+            output.writeInt(occurrence.getValue().totalAmount);
+            output.writeInt(occurrence.getValue().uniqueCommits.size());
+            for (final String commit : occurrence.getValue().uniqueCommits) {
+                Metadata.writeString(output, commit);
+            }
+        }
+    }
+
+    @Override
+    public void readBinary(DataInput input) throws IOException {
+        final int size = input.readInt();
+        for (int i = 0; i < size; ++i) {
+            final String name = Metadata.readString(input);
+            final EditClass editClass = occurrences.keySet().stream()
+                    .filter(e -> e.getName().equals(name))
+                    .findAny()
+                    .orElseThrow(() -> new IOException("Unknown edit class " + name));
+
+            final Occurrences occurrence = new Occurrences();
+            occurrence.totalAmount = input.readInt();
+            final int commits = input.readInt();
+            for (int j = 0; j < commits; ++j) {
+                occurrence.uniqueCommits.add(Metadata.readString(input));
+            }
+            occurrences.put(editClass, occurrence);
+        }
+    }
+
     /**
      * Mutates and returns first element.
      */
@@ -6,6 +6,9 @@ import org.variantsync.functjonal.Functjonal;
 import org.variantsync.functjonal.category.InplaceSemigroup;
 import org.variantsync.functjonal.map.MergeMap;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -110,6 +113,24 @@ public class ExplainedFilterSummary implements Metadata<ExplainedFilterSummary>
         }
     }
 
+    @Override
+    public void writeBinary(DataOutput output) throws IOException {
+        output.writeInt(explanations.size());
+        for (final ExplainedFilter.Explanation explanation : explanations.values()) {
+            Metadata.writeString(output, explanation.getName());
+            output.writeInt(explanation.getFilterCount());
+        }
+    }
+
+    @Override
+    public void readBinary(DataInput input) throws IOException {
+        final int size = input.readInt();
+        for (int i = 0; i < size; ++i) {
+            final String name = Metadata.readString(input);
+            explanations.put(name, new ExplainedFilter.Explanation(input.readInt(), name));
+        }
+    }
+
     @Override
     public InplaceSemigroup<ExplainedFilterSummary> semigroup() {
         return ISEMIGROUP;
@@ -6,7 +6,14 @@ import org.variantsync.diffdetective.util.IO;
 import org.variantsync.functjonal.Cast;
 import org.variantsync.functjonal.category.InplaceSemigroup;
 
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -26,6 +33,70 @@ public interface Metadata<T> {
 
     void setFromSnapshot(LinkedHashMap<String, String> snapshot);
 
+    /**
+     * Writes this metadata in a compact binary format that can be read by {@link #readBinary}.
+     * The default implementation writes the {@link #snapshot()} as a sequence of strings.
+     * Implementations with many values or values that are lossy in their snapshot representation
+     * should override this method and {@link #readBinary} to write their fields directly.
+     * @param output The output to write to.
+     * @throws IOException if writing to {@code output} fails
+     */
+    default void writeBinary(final DataOutput output) throws IOException {
+        final LinkedHashMap<String, ?> snapshot = snapshot();
+        output.writeInt(snapshot.size());
+        for (final Map.Entry<String, ?> entry : snapshot.entrySet()) {
+            writeString(output, entry.getKey());
+            writeString(output, String.valueOf(entry.getValue()));
+        }
+    }
+
+    /**
+     * Sets this metadata to the values written by {@link #writeBinary}.
+     * Analogous to {@link #setFromSnapshot}, values are overwritten and not appended.
+     * @param input The input to read from.
+     * @throws IOException if reading from {@code input} fails or the input is malformed
+     */
+    default void readBinary(final DataInput input) throws IOException {
+        final int size = input.readInt();
+        final LinkedHashMap<String, String> snapshot = new LinkedHashMap<>();
+        for (int i = 0; i < size; ++i) {
+            final String key = readString(input);
+            snapshot.put(key, readString(input));
+        }
+        setFromSnapshot(snapshot);
+    }
+
+    /**
+     * Writes {@code value} as its length followed by its UTF-8 encoding.
+     * In contrast to {@link DataOutput#writeUTF}, strings longer than 64 KiB are supported, which
+     * can occur in snapshots (e.g., a list of all processed commits).
+     * @param output The output to write to.
+     * @param value The string to write.
+     * @throws IOException if writing to {@code output} fails
+     * @see #readString
+     */
+    static void writeString(final DataOutput output, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     * @param input The input to read from.
+     * @return The read string.
+     * @throws IOException if reading from {@code input} fails or the input is malformed
+     */
+    static String readString(final DataInput input) throws IOException {
+        final int length = input.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
     /**
      * Metadata should be composable.
      * Composition should be inplace to optimize performance.
@@ -141,4 +212,17 @@ public interface Metadata<T> {
             return "";
         }
     }
+
+    /**
+     * Export this metadata in its {@link #writeBinary binary format} to the given file.
+     * @param file File to write.
+     * @throws UncheckedIOException if writing {@code file} fails
+     */
+    default void exportBinaryTo(final Path file) {
+        try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            writeBinary(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not export " + file, e);
+        }
+    }
 }
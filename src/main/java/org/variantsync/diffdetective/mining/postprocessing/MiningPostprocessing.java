@@ -2,6 +2,7 @@ package org.variantsync.diffdetective.mining.postprocessing;
 
 import org.tinylog.Logger;
 import org.variantsync.diffdetective.mining.VariationDiffMiner;
+import org.variantsync.diffdetective.util.Diagnostics;
 import org.variantsync.diffdetective.util.FileUtils;
 import org.variantsync.diffdetective.util.IO;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
@@ -15,10 +16,14 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Performs a postprocessing on mined frequent subgraphs in edits to find edit classes.
@@ -61,14 +66,18 @@ public class MiningPostprocessing {
             throw new IllegalArgumentException("Expected path to an empty output directory as second argument but got a path that is not a directory or not empty, namely \"" + outputPath + "\"!");
         }
 
-        postprocessAndInterpretResults(
-                parseFrequentSubgraphsIn(inputPath),
-                Postprocessor.Default(),
-                System.out::println,
-                DefaultRenderer,
-                DefaultRenderOptions,
-                outputPath
-        );
+        try (Stream<VariationDiff<DiffLinesLabel>> frequentSubgraphs = streamFrequentSubgraphsIn(inputPath)) {
+            postprocessAndInterpretResults(
+                    frequentSubgraphs,
+                    Postprocessor.Default(),
+                    System.out::println,
+                    DefaultRenderer,
+                    DefaultRenderOptions,
+                    outputPath
+            );
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
 
 //        for (Map.Entry<NodeType, Integer> entry : LineGraphImport.countRootTypes.entrySet()) {
 //            System.out.println(entry);
@@ -83,26 +92,38 @@ public class MiningPostprocessing {
      * @throws IOException If the directory could not be accessed ({@link Files#list}).
      */
     public static List<VariationDiff<DiffLinesLabel>> parseFrequentSubgraphsIn(final Path path) throws IOException {
+        try (Stream<VariationDiff<DiffLinesLabel>> frequentSubgraphs = streamFrequentSubgraphsIn(path)) {
+            return frequentSubgraphs.collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Same as {@link #parseFrequentSubgraphsIn} but parses the linegraph files lazily while the
+     * returned stream is consumed. Hence, the parsed diffgraphs don't have to fit into memory
+     * at once. The returned stream has to be closed.
+     * @param path A path to a linegraph file or a directory containing linegraph files.
+     * @return A stream of all diffgraphs parsed from linegraph files in the given directory.
+     *         Errors while reading the linegraph files are reported as {@link UncheckedIOException}s.
+     * @throws IOException If the directory or file could not be accessed.
+     */
+    public static Stream<VariationDiff<DiffLinesLabel>> streamFrequentSubgraphsIn(final Path path) throws IOException {
         if (Files.isDirectory(path)) {
-            try {
-                return Files.list(path)
-                        .filter(FileUtils::isLineGraph)
-                        .flatMap(file -> {
-                            try {
-                                return LineGraphImport.fromFile(file, IMPORT_OPTIONS).stream();
-                            } catch (IOException e) {
-                                // Checked exceptions can't be propagated because {@code flatMap}
-                                // needs a {@code Function} which does not throw any checked
-                                // exceptions.
-                                throw new UncheckedIOException(e);
-                            }
-                        })
-                        .collect(Collectors.toList());
-            } catch (UncheckedIOException e) {
-                throw e.getCause();
-            }
+            return Files.list(path)
+                    .filter(FileUtils::isLineGraph)
+                    .flatMap(file -> {
+                        try {
+                            return LineGraphImport.streamFile(file, IMPORT_OPTIONS);
+                        } catch (IOException e) {
+                            // Checked exceptions can't be propagated because {@code flatMap}
+                            // needs a {@code Function} which does not throw any checked
+                            // exceptions.
+                            throw new UncheckedIOException(e);
+                        }
+                    });
         } else {
-            return LineGraphImport.fromFile(path, IMPORT_OPTIONS);
+            return LineGraphImport.streamFile(path, IMPORT_OPTIONS);
         }
     }
 
@@ -114,10 +135,28 @@ public class MiningPostprocessing {
             RenderOptions<? super DiffLinesLabel> renderOptions,
             final Path outputDir)
     {
-        final Postprocessor.Result<DiffLinesLabel> result = postprocessor.postprocess(frequentSubgraphs);
+        postprocessAndInterpretResults(frequentSubgraphs.stream(), postprocessor, printer, renderer, renderOptions, outputDir);
+    }
+
+    /**
+     * Same as {@link #postprocessAndInterpretResults(List, Postprocessor, Consumer, VariationDiffRenderer, RenderOptions, Path)}
+     * but consumes the mined subgraphs lazily.
+     */
+    public static void postprocessAndInterpretResults(
+            final Stream<VariationDiff<DiffLinesLabel>> frequentSubgraphs,
+            final Postprocessor<DiffLinesLabel> postprocessor,
+            final Consumer<String> printer,
+            final VariationDiffRenderer renderer,
+            RenderOptions<? super DiffLinesLabel> renderOptions,
+            final Path outputDir)
+    {
+        final AtomicInteger numberOfFrequentSubgraphs = new AtomicInteger();
+        final Postprocessor.Result<DiffLinesLabel> result = postprocessor.postprocess(
+                frequentSubgraphs.peek(subgraph -> numberOfFrequentSubgraphs.incrementAndGet())
+        );
         final List<VariationDiff<DiffLinesLabel>> semanticPatterns = result.processedTrees();
 
-        printer.accept("Of " + frequentSubgraphs.size() + " mined subgraphs "
+        printer.accept("Of " + numberOfFrequentSubgraphs.get() + " mined subgraphs "
                 + semanticPatterns.size() + " are candidates for semantic patterns.");
         printer.accept("Subgraphs were discarded for the following reasons:");
         for (Map.Entry<String, Integer> nameAndCount : result.filterCounts().entrySet()) {
@@ -131,10 +170,18 @@ public class MiningPostprocessing {
             }
 
             printer.accept("Exporting and rendering semantic patterns to " + outputDir);
-            int patternNo = 0;
-            for (final VariationDiff<DiffLinesLabel> semanticPattern : semanticPatterns) {
-                renderer.render(semanticPattern, "SemanticPatternCandidate_" + patternNo, outputDir, renderOptions);
-                ++patternNo;
+            final List<CompletableFuture<Boolean>> rendered = new ArrayList<>(semanticPatterns.size());
+            try (var batch = renderer.<DiffLinesLabel>batch(renderOptions, Diagnostics.INSTANCE.run().getNumberOfAvailableProcessors())) {
+                int patternNo = 0;
+                for (final VariationDiff<DiffLinesLabel> semanticPattern : semanticPatterns) {
+                    rendered.add(batch.render(semanticPattern, "SemanticPatternCandidate_" + patternNo, outputDir));
+                    ++patternNo;
+                }
+            }
+
+            final long failures = rendered.stream().filter(success -> !success.join()).count();
+            if (failures > 0) {
+                printer.accept("Could not render " + failures + " of " + rendered.size() + " semantic patterns.");
             }
         } else {
             Path destinationPath = outputDir.resolve("candidates.lg");
@@ -11,6 +11,7 @@ import org.variantsync.diffdetective.variation.diff.transform.VariationDiffTrans
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Generic Postprocessor for mined patterns.
@@ -64,7 +65,18 @@ public class Postprocessor<L extends Label> {
      * @return The processed variation diffs as well as some metadata.
      */
     public Result<L> postprocess(final List<VariationDiff<L>> frequentSubgraphs) {
-        final List<VariationDiff<L>> processedTrees = frequentSubgraphs.stream()
+        return postprocess(frequentSubgraphs.stream());
+    }
+
+    /**
+     * Same as {@link #postprocess(List)} but consumes the subgraphs lazily.
+     * Subgraphs that are filtered out can be garbage collected right away, so only the processed
+     * variation diffs have to fit into memory.
+     * @param frequentSubgraphs A stream of subgraphs to which to apply the postprocessing.
+     * @return The processed variation diffs as well as some metadata.
+     */
+    public Result<L> postprocess(final Stream<VariationDiff<L>> frequentSubgraphs) {
+        final List<VariationDiff<L>> processedTrees = frequentSubgraphs
                 .filter(filters)
                 .peek(tree -> VariationDiffTransformer.apply(transformers, tree))
                 .toList();
@@ -0,0 +1,115 @@
+package org.variantsync.diffdetective.parallel;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Clusters the elements of an iterator into batches whose size adapts to the observed processing
+ * cost of previous batches.
+ *
+ * <p>Processing costs can differ by orders of magnitude between elements (e.g., a commit editing
+ * a single file versus a tree-wide refactoring). Batches of a fixed size thus lead to a bad load
+ * balancing, in particular at the end of a parallel computation where one huge batch may run long
+ * after all other threads became idle. To mitigate this, the processing time of each batch should
+ * be {@link #reportProcessedBatch reported}. New batches are then sized such that their
+ * processing takes roughly {@code targetNanosPerBatch} based on an exponential moving average of
+ * the time per element. Until the first report, batches of {@code minBatchSize} are produced such
+ * that a first estimate becomes available quickly.
+ *
+ * <p>Elements are retrieved lazily from the underlying iterator. Only the elements of the batch
+ * which is returned by {@link next} are retrieved.
+ *
+ * <p>{@link next} and {@link hasNext} have to be called from a single thread whereas
+ * {@link reportProcessedBatch} is thread safe.
+ *
+ * @param <T> the type of the clustered elements
+ */
+public class AdaptiveBatchIterator<T> implements Iterator<List<T>> {
+    /**
+     * Weight of a new measurement in the exponential moving average of the time per element.
+     */
+    private static final double SMOOTHING_FACTOR = 0.25;
+
+    private final Iterator<T> source;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long targetNanosPerBatch;
+    /**
+     * Estimated time needed to process a single element or a negative value if no batch has been
+     * reported yet.
+     */
+    private double nanosPerElement = -1;
+
+    /**
+     * Creates a new iterator over batches of the elements of {@code source}.
+     *
+     * @param source the elements to cluster into batches
+     * @param minBatchSize the minimal number of elements per batch (except for the last batch)
+     * @param maxBatchSize the maximal number of elements per batch
+     * @param targetNanosPerBatch the desired processing time of a single batch in nanoseconds
+     */
+    public AdaptiveBatchIterator(final Iterator<T> source, int minBatchSize, int maxBatchSize, long targetNanosPerBatch) {
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("Invalid batch size bounds [" + minBatchSize + ", " + maxBatchSize + "]");
+        }
+
+        this.source = source;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.targetNanosPerBatch = targetNanosPerBatch;
+    }
+
+    /**
+     * Informs this iterator that a batch of {@code batchSize} elements was processed in
+     * {@code nanos} nanoseconds. The sizes of future batches are adapted accordingly.
+     *
+     * @param batchSize the number of elements in the processed batch
+     * @param nanos the time it took to process the batch
+     */
+    public synchronized void reportProcessedBatch(int batchSize, long nanos) {
+        if (batchSize <= 0) {
+            return;
+        }
+
+        final double measurement = (double) nanos / batchSize;
+        if (nanosPerElement < 0) {
+            nanosPerElement = measurement;
+        } else {
+            nanosPerElement = SMOOTHING_FACTOR * measurement + (1 - SMOOTHING_FACTOR) * nanosPerElement;
+        }
+    }
+
+    /**
+     * Returns the size of the next batch according to the current estimate of the processing
+     * time per element.
+     */
+    public synchronized int getNextBatchSize() {
+        if (nanosPerElement < 0) {
+            return minBatchSize;
+        }
+
+        final double optimalSize = targetNanosPerBatch / Math.max(nanosPerElement, 1.0);
+        return (int) Math.max(minBatchSize, Math.min(maxBatchSize, Math.round(optimalSize)));
+    }
+
+    @Override
+    public boolean hasNext() {
+        return source.hasNext();
+    }
+
+    @Override
+    public List<T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final int batchSize = getNextBatchSize();
+        final List<T> batch = new ArrayList<>(batchSize);
+        while (batch.size() < batchSize && source.hasNext()) {
+            batch.add(source.next());
+        }
+        return batch;
+    }
+}
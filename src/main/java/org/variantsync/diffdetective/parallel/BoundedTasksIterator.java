@@ -0,0 +1,112 @@
+package org.variantsync.diffdetective.parallel;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+
+/**
+ * An iterator over the results of computations run in other threads.
+ * In contrast to {@link ScheduledTasksIterator}, tasks are pulled lazily from the given task
+ * iterator and at most {@code maxTasksInFlight} tasks are scheduled or running at any time.
+ * Hence, neither the full list of tasks nor all of their futures have to be kept in memory.
+ *
+ * <p>Results are returned in the order in which the tasks complete, not in the order in which
+ * they were provided. Consequently, a single slow task does not stall the consumption of results
+ * of tasks which were scheduled later. Consumers have to merge the results in an order
+ * independent way (e.g., by using a commutative semigroup).
+ *
+ * <p>The tasks are executed on a work-stealing pool such that tasks which fork subtasks
+ * themselves keep all threads busy.
+ *
+ * @param <T> the result type of the tasks
+ */
+public class BoundedTasksIterator<T> implements Iterator<T>, AutoCloseable {
+    private final Iterator<? extends Callable<T>> remainingTasks;
+    private final ExecutorService threadPool;
+    private final CompletionService<T> completionService;
+    private final int maxTasksInFlight;
+    private int tasksInFlight;
+
+    /**
+     * Starts scheduling {@code tasks} in {@code nThreads} other threads.
+     * At most {@code maxTasksInFlight} tasks are retrieved from {@code tasks} before their
+     * results are consumed using {@link next}.
+     *
+     * @param tasks the tasks which will be executed in other threads
+     * @param nThreads the number of threads which work on {@code tasks} in parallel
+     * @param maxTasksInFlight the maximum number of scheduled tasks whose results were not
+     * retrieved yet, has to be at least {@code nThreads} to keep all threads busy
+     */
+    public BoundedTasksIterator(final Iterator<? extends Callable<T>> tasks, final int nThreads, final int maxTasksInFlight) {
+        if (nThreads < 1) {
+            throw new IllegalArgumentException("At least one thread is required but got " + nThreads);
+        }
+        if (maxTasksInFlight < 1) {
+            throw new IllegalArgumentException("At least one task has to be in flight but got " + maxTasksInFlight);
+        }
+
+        this.remainingTasks = tasks;
+        this.threadPool = Executors.newWorkStealingPool(nThreads);
+        this.completionService = new ExecutorCompletionService<>(threadPool);
+        this.maxTasksInFlight = maxTasksInFlight;
+        this.tasksInFlight = 0;
+        fillWindow();
+    }
+
+    /**
+     * Same as {@link #BoundedTasksIterator(Iterator, int, int)} with twice as many tasks in flight
+     * as there are threads. This keeps all threads busy while the results are consumed.
+     *
+     * @param tasks the tasks which will be executed in other threads
+     * @param nThreads the number of threads which work on {@code tasks} in parallel
+     */
+    public BoundedTasksIterator(final Iterator<? extends Callable<T>> tasks, final int nThreads) {
+        this(tasks, nThreads, 2 * nThreads);
+    }
+
+    /**
+     * Schedules new tasks until the maximum number of tasks in flight is reached or no more tasks
+     * are remaining.
+     */
+    private void fillWindow() {
+        while (tasksInFlight < maxTasksInFlight && remainingTasks.hasNext()) {
+            completionService.submit(remainingTasks.next());
+            ++tasksInFlight;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return tasksInFlight > 0;
+    }
+
+    /**
+     * Waits for the next completed task and retrieves its result.
+     * The order of the results corresponds to the order in which the tasks completed. Each call to
+     * {@code next} schedules new tasks if any task is remaining.
+     *
+     * @return the result of a completed task given in {@link BoundedTasksIterator}
+     * @throws RuntimeException if a thread is interrupted or a task couldn't be executed
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            final Future<T> completed = completionService.take();
+            --tasksInFlight;
+            fillWindow();
+            return completed.get();
+        } catch (final InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Stops all scheduled tasks and releases the used thread resources. */
+    @Override
+    public void close() {
+        threadPool.shutdown();
+    }
+}
@@ -0,0 +1,114 @@
+package org.variantsync.diffdetective.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.apache.commons.lang3.function.FailableFunction;
+
+/**
+ * Processes a list in contiguous chunks on a fork-join pool and returns the results of all chunks
+ * in the order of the chunks.
+ *
+ * <p>Chunks are {@link ForkJoinTask#fork forked}, so they are executed on the pool of the calling
+ * thread if it is a worker of a {@link ForkJoinPool} (e.g., the threads of a
+ * {@link BoundedTasksIterator}) and on the {@link ForkJoinPool#commonPool common pool} otherwise.
+ * Hence, a task which is already run in parallel to other tasks doesn't oversubscribe the
+ * machine but idle workers of its pool can steal its chunks.
+ *
+ * <p>As the results are returned in the order of the chunks, merging them sequentially yields the
+ * same result as processing the whole list sequentially, as long as each chunk is processed
+ * independently.
+ */
+public final class OrderedChunkProcessor {
+    /**
+     * Number of chunks created for each thread of the pool. Having more chunks than threads
+     * balances the load if some chunks take considerably longer than others.
+     */
+    public static final int CHUNKS_PER_THREAD = 4;
+
+    private OrderedChunkProcessor() {}
+
+    /**
+     * Returns the number of threads available to tasks forked by the calling thread.
+     */
+    public static int getParallelism() {
+        final ForkJoinPool pool = ForkJoinTask.getPool();
+        return pool == null ? ForkJoinPool.getCommonPoolParallelism() : pool.getParallelism();
+    }
+
+    /**
+     * Splits {@code elements} into at most {@link #CHUNKS_PER_THREAD} chunks per {@link
+     * #getParallelism thread}, applies {@code processChunk} to each chunk in parallel and waits
+     * for all chunks to complete.
+     *
+     * <p>All chunks are processed even if some of them fail. In this case, the exception of the
+     * first failed chunk is thrown with the exceptions of the following failed chunks attached as
+     * {@link Throwable#addSuppressed suppressed} exceptions.
+     *
+     * @param elements the elements to process
+     * @param processChunk processes a contiguous sub list of {@code elements}, has to be thread
+     * safe
+     * @return the results of {@code processChunk} in the order of the chunks in {@code elements}
+     * @throws E the first exception thrown by {@code processChunk}
+     */
+    public static <T, R, E extends Exception> List<R> map(
+            final List<T> elements,
+            final FailableFunction<List<T>, R, E> processChunk
+    ) throws E {
+        final int numberOfChunks = Math.max(1, Math.min(elements.size(), CHUNKS_PER_THREAD * getParallelism()));
+        final List<R> results = new ArrayList<>(numberOfChunks);
+        final List<Exception> failures = new ArrayList<>(numberOfChunks);
+        final List<ForkJoinTask<?>> tasks = new ArrayList<>(numberOfChunks);
+
+        for (int i = 0; i < numberOfChunks; ++i) {
+            final int chunkIndex = i;
+            final List<T> chunk = elements.subList(
+                    (int) ((long) elements.size() * i / numberOfChunks),
+                    (int) ((long) elements.size() * (i + 1) / numberOfChunks));
+
+            results.add(null);
+            failures.add(null);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                try {
+                    results.set(chunkIndex, processChunk.apply(chunk));
+                } catch (Exception e) {
+                    failures.set(chunkIndex, e);
+                }
+            }).fork());
+        }
+
+        // Joining establishes a happens-before relation with the writes of each task.
+        Exception failure = null;
+        for (int i = 0; i < numberOfChunks; ++i) {
+            tasks.get(i).join();
+
+            final Exception e = failures.get(i);
+            if (e != null) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            if (failure instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw OrderedChunkProcessor.<E>uncheckedCast(failure);
+        }
+
+        return results;
+    }
+
+    /**
+     * Casts a checked exception thrown by a chunk back to the exception type of the chunks.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E extends Exception> E uncheckedCast(final Exception e) {
+        return (E) e;
+    }
+}
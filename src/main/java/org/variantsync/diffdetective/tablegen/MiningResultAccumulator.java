@@ -1,6 +1,7 @@
 package org.variantsync.diffdetective.tablegen;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.ParseException;
@@ -30,38 +31,103 @@ import org.variantsync.diffdetective.util.IO;
 
 /** Accumulates multiple {@link AnalysisResult}s of several datasets. */
 public class MiningResultAccumulator {
+    /**
+     * Finds all files containing a total {@code AnalysisResult} in {@code folderPath} recursively.
+     * All files having a {@link Analysis#TOTAL_RESULTS_FILE_NAME} filename ending are associated
+     * with the name of their parent directory. If a {@link Analysis#TOTAL_RESULTS_BINARY_FILE_NAME}
+     * exists next to such a file, the binary file is returned instead.
+     *
+     * @param folderPath the folder which is scanned for analysis results recursively
+     * @return an association between the names of the directories and the files of their results
+     */
+    public static Map<String, Path> getAllTotalResultFilesIn(final Path folderPath) throws IOException {
+        // get all files in the directory which are outputs of VariationDiffMiningResult
+        final List<Path> paths;
+        try (var files = Files.walk(folderPath)) {
+            paths = files
+                    .filter(Files::isRegularFile)
+                    .filter(p -> p.toString().endsWith(Analysis.TOTAL_RESULTS_FILE_NAME))
+                    .peek(path -> Logger.info("Processing file {}", path))
+                    .toList();
+        }
+
+        final Map<String, Path> results = new HashMap<>();
+        for (final Path p : paths) {
+            final Path binary = p.resolveSibling(Analysis.TOTAL_RESULTS_BINARY_FILE_NAME);
+            results.put(p.getParent().getFileName().toString(), Files.exists(binary) ? binary : p);
+        }
+        return results;
+    }
+
     /**
      * Finds all {@code AnalysisResult}s in {@code folderPath} recursively.
-     * All files having a {@link Analysis#TOTAL_RESULTS_FILE_NAME} filename ending are
-     * parsed and associated with their filename.
+     * All files found by {@link #getAllTotalResultFilesIn} are parsed and associated with the name
+     * of their parent directory.
      *
      * @param folderPath the folder which is scanned for analysis results recursively
      * @return an association between the parsed filenames and their parsed content
      */
     public static Map<String, AnalysisResult> getAllTotalResultsIn(final Path folderPath) throws IOException {
-        // get all files in the directory which are outputs of VariationDiffMiningResult
-        final List<Path> paths = Files.walk(folderPath)
-                .filter(Files::isRegularFile)
-                .filter(p -> p.toString().endsWith(Analysis.TOTAL_RESULTS_FILE_NAME))
-                .peek(path -> Logger.info("Processing file {}", path))
-                .toList();
-
         final Map<String, AnalysisResult> results = new HashMap<>();
-        for (final Path p : paths) {
-            var result = new AnalysisResult();
+        for (final Map.Entry<String, Path> file : getAllTotalResultFilesIn(folderPath).entrySet()) {
+            results.put(file.getKey(), read(file.getValue()));
+        }
+        return results;
+    }
 
-            // FIXME: Here, we actually have to use the Analysis::initializeResult method on all Hooks of the Analysis
-            //        that produced the results we accumulate. Maybe Java reflection can help?
-            result.append(StatisticsAnalysis.RESULT, new StatisticsAnalysis.Result());
-            result.append(ExplainedFilterSummary.KEY, new ExplainedFilterSummary());
-//            result.append(EditClassCount.KEY, new EditClassCount(ProposedEditClasses.Instance));
+    /**
+     * Creates an empty {@link AnalysisResult} that is able to read all results accumulated by this class.
+     */
+    private static AnalysisResult emptyResult() {
+        var result = new AnalysisResult();
+
+        // FIXME: Here, we actually have to use the Analysis::initializeResult method on all Hooks of the Analysis
+        //        that produced the results we accumulate. Maybe Java reflection can help?
+        result.append(StatisticsAnalysis.RESULT, new StatisticsAnalysis.Result());
+        result.append(ExplainedFilterSummary.KEY, new ExplainedFilterSummary());
+//        result.append(EditClassCount.KEY, new EditClassCount(ProposedEditClasses.Instance));
+
+        return result;
+    }
 
-            result.setFrom(p);
-            results.put(p.getParent().getFileName().toString(), result);
+    /**
+     * Reads the {@link AnalysisResult} stored in {@code path}. Files ending with
+     * {@link Analysis#BINARY_EXTENSION} are read in the binary format and all other files in the
+     * text format.
+     */
+    private static AnalysisResult read(final Path path) throws IOException {
+        final AnalysisResult result = emptyResult();
+        if (path.toString().endsWith(Analysis.BINARY_EXTENSION)) {
+            result.setFromBinary(path);
+        } else {
+            result.setFrom(path);
         }
-        return results;
+        return result;
     }
 
+    /**
+     * Folds the {@link AnalysisResult}s stored in the given files into a single result.
+     * The files are read in parallel and each read result is appended to a partial result by
+     * {@link AnalysisResult#ISEMIGROUP} right away, so only one result per thread is kept in
+     * memory. Files in the binary format should be preferred as they are read considerably
+     * faster than files in the text format.
+     *
+     * @param files the files to merge, see {@link #read}
+     * @return the total {@link AnalysisResult} of all {@code files}
+     * @throws UncheckedIOException if any file can't be read
+     */
+    public static AnalysisResult merge(final Collection<Path> files) {
+        return files
+                .parallelStream()
+                .map(path -> {
+                    try {
+                        return read(path);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not read analysis result " + path, e);
+                    }
+                })
+                .collect(AnalysisResult.IMONOID);
+    }
 
     /**
      * Computes a total {@link AnalysisResult} from multiple metadata outputs.
@@ -99,8 +165,8 @@ public class MiningResultAccumulator {
      *   the variability is included.
      * </ul>
      *
-     * @see getAllTotalResultsIn
-     * @see computeTotalMetadataResult
+     * @see getAllTotalResultFilesIn
+     * @see merge
      * @see FindMedianCommitTime#getResultOfDirectory
      * @see TableGenerator
      */
@@ -118,14 +184,16 @@ public class MiningResultAccumulator {
         // TODO: Implement argument parser
         final boolean exportESECFSETables = false;
 
-        final Map<String, AnalysisResult> allResults = getAllTotalResultsIn(inputPath);
-        final AnalysisResult ultimateResult = computeTotalMetadataResult(allResults.values());
+        // Read and merge the results in parallel without keeping all of them in memory.
+        final AnalysisResult ultimateResult = merge(getAllTotalResultFilesIn(inputPath).values());
         Analysis.exportMetadataToFile(inputPath.resolve("ultimateresult" + Analysis.EXTENSION), ultimateResult);
 
         if (!exportESECFSETables) {
             return;
         }
 
+        final Map<String, AnalysisResult> allResults = getAllTotalResultsIn(inputPath);
+
         final Map<String, DatasetDescription> datasetByName;
         try {
             datasetByName = DatasetDescription.fromMarkdown(DefaultDatasets.DEFAULT_DATASETS_FILE).stream().collect(Collectors.toMap(
@@ -0,0 +1,117 @@
+package org.variantsync.diffdetective.util;
+
+import org.apache.commons.lang3.function.FailableFunction;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread safe cache whose number of entries is bounded.
+ *
+ * <p>Eviction is approximately least recently used: Entries are kept in two generations, each
+ * holding at most half of the maximum number of entries. New entries and entries which are hit in
+ * the old generation are put into the young generation. When the young generation is full, it
+ * becomes the old generation and the previous old generation is dropped. Hence, lookups don't
+ * need any locking and no bookkeeping of access orders is required.
+ *
+ * <p>Values are computed outside of any lock. If two threads miss the same key concurrently, the
+ * value may be computed twice but both threads (and all later lookups) receive the same instance
+ * in most cases, so this cache can be used to intern values.
+ *
+ * @param <K> the type of the keys, which have to implement {@link Object#equals} and {@link Object#hashCode}
+ * @param <V> the type of the cached values, {@code null} is not supported
+ */
+public class BoundedConcurrentCache<K, V> {
+    private final int maxGenerationSize;
+    private volatile ConcurrentHashMap<K, V> young = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<K, V> old = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxSize the maximum number of cached entries, has to be at least two
+     */
+    public BoundedConcurrentCache(int maxSize) {
+        if (maxSize < 2) {
+            throw new IllegalArgumentException("The cache size has to be at least 2 but got " + maxSize);
+        }
+        this.maxGenerationSize = maxSize / 2;
+    }
+
+    /**
+     * Returns the value cached for {@code key} or computes, caches and returns it if there is no
+     * such value. Each invocation is recorded as either a hit or a miss.
+     *
+     * @param key the key of the requested value
+     * @param compute computes the value of {@code key} on a cache miss, must not return {@code null}
+     * @return the value of {@code key}
+     * @throws E if {@code compute} throws, in which case nothing is cached
+     */
+    public <E extends Throwable> V computeIfAbsent(final K key, final FailableFunction<? super K, ? extends V, E> compute) throws E {
+        V value = young.get(key);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+
+        value = old.get(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            value = compute.apply(key);
+        }
+        return put(key, value);
+    }
+
+    /**
+     * Inserts {@code value} into the young generation if there is no value for {@code key} yet.
+     *
+     * @return the value which is cached for {@code key} after this call
+     */
+    private V put(final K key, final V value) {
+        final ConcurrentHashMap<K, V> generation = young;
+        final V existing = generation.putIfAbsent(key, value);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (generation.size() > maxGenerationSize) {
+            rotate(generation);
+        }
+        return value;
+    }
+
+    private synchronized void rotate(final ConcurrentHashMap<K, V> fullGeneration) {
+        // Another thread might have rotated already.
+        if (young == fullGeneration) {
+            old = fullGeneration;
+            young = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Removes all entries. The hit and miss counters are not reset.
+     */
+    public synchronized void clear() {
+        young = new ConcurrentHashMap<>();
+        old = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the number of lookups that found a cached value.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that had to compute the requested value.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+}
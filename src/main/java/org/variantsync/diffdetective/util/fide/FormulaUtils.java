@@ -1,9 +1,12 @@
 package org.variantsync.diffdetective.util.fide;
 
 import org.prop4j.And;
+import org.prop4j.Equals;
+import org.prop4j.Implies;
 import org.prop4j.Literal;
 import org.prop4j.Node;
 import org.prop4j.Not;
+import org.prop4j.Or;
 import org.variantsync.diffdetective.analysis.logic.SAT;
 import org.variantsync.diffdetective.util.Assert;
 import org.variantsync.functjonal.Cast;
@@ -59,6 +62,102 @@ public class FormulaUtils {
     }
 
 
+    /**
+     * Computes a canonical textual representation of {@code formula}.
+     * Formulas which differ only in the order or duplication of the operands of {@link And},
+     * {@link Or} and {@link Equals} have the same key. Hence, two formulas with equal keys are
+     * equivalent but equivalent formulas may have different keys.
+     * <p>
+     * In contrast to {@link Node#equals}, which ignores the order of all operands and the
+     * parameters of cardinality constraints, equal keys are a sound criterion for equivalence. Such
+     * keys are used to cache results of formula analyses (e.g., {@link SAT}).
+     *
+     * @param formula the formula to canonicalize, remains unaltered
+     * @return the canonical key or nothing if {@code formula} contains operators other than
+     * {@link Literal}, {@link Not}, {@link And}, {@link Or}, {@link Implies} and {@link Equals}
+     */
+    public static Optional<String> canonicalKey(final Node formula) {
+        final var key = new StringBuilder();
+        if (appendCanonicalKey(formula, key)) {
+            return Optional.of(key.toString());
+        }
+        return Optional.empty();
+    }
+
+    private static boolean appendCanonicalKey(final Node formula, final StringBuilder key) {
+        if (formula instanceof Literal l) {
+            // The length prefix keeps keys unambiguous for arbitrary variable names.
+            final String name = String.valueOf(l.var);
+            key.append(l.positive ? '+' : '-').append(name.length()).append(':').append(name);
+            return true;
+        }
+
+        final char operator;
+        final boolean commutative;
+        final boolean idempotent;
+        if (formula instanceof Not) {
+            operator = '!';
+            commutative = false;
+            idempotent = false;
+        } else if (formula instanceof Implies) {
+            operator = '>';
+            commutative = false;
+            idempotent = false;
+        } else if (formula instanceof And) {
+            operator = '&';
+            commutative = true;
+            idempotent = true;
+        } else if (formula instanceof Or) {
+            operator = '|';
+            commutative = true;
+            idempotent = true;
+        } else if (formula instanceof Equals) {
+            operator = '=';
+            commutative = true;
+            idempotent = false;
+        } else {
+            return false;
+        }
+
+        key.append(operator).append('(');
+        if (commutative) {
+            final List<String> operands = new ArrayList<>(formula.getChildren().length);
+            for (final Node child : formula.getChildren()) {
+                final var childKey = new StringBuilder();
+                if (!appendCanonicalKey(child, childKey)) {
+                    return false;
+                }
+                operands.add(childKey.toString());
+            }
+            Collections.sort(operands);
+
+            String previous = null;
+            for (final String operand : operands) {
+                if (idempotent && operand.equals(previous)) {
+                    continue;
+                }
+                if (previous != null) {
+                    key.append(',');
+                }
+                key.append(operand);
+                previous = operand;
+            }
+        } else {
+            boolean first = true;
+            for (final Node child : formula.getChildren()) {
+                if (!first) {
+                    key.append(',');
+                }
+                first = false;
+                if (!appendCanonicalKey(child, key)) {
+                    return false;
+                }
+            }
+        }
+        key.append(')');
+        return true;
+    }
+
     public static void sortRegularCNF(final Node rcnf) {
         Assert.assertTrue(rcnf instanceof And);
 
@@ -86,24 +185,131 @@ public class FormulaUtils {
                 .sum();
     }
 
+    /**
+     * Removes formulas from {@code formulas} until no two formulas are {@link SAT#equivalent
+     * equivalent}.
+     * <p>
+     * The result is the same as comparing each formula with all succeeding formulas and removing
+     * it, by swapping in the last formula, if it has an equivalent successor. However, instead of
+     * a quadratic number of solver calls, formulas are first bucketed by their
+     * {@link #truthTableFingerprint fingerprint}. Equivalent formulas have the same fingerprint,
+     * so the solver is only invoked for formulas within the same bucket.
+     */
     public static void removeSemanticDuplicates(final List<Node> formulas) {
-        int len = formulas.size();
-        for (int i = 0; i < len; ++i) {
-            final Node ci = formulas.get(i);
-
-            for (int j = i + 1; j < len; ++j) {
-                final Node cj = formulas.get(j);
-                if (SAT.equivalent(cj, ci)) {
-                    // remove ci
-                    // We do this by swapping it with the last element of the list, then reducing the list length by 1
-                    // and then continue inspection of the newly swapped in element (thus --i).
-                    Collections.swap(formulas, i, len - 1);
-                    --i;
-                    --len;
+        final int n = formulas.size();
+
+        // Partition the formulas into equivalence classes.
+        final List<Node> representatives = new ArrayList<>();
+        final Map<Long, List<Integer>> classesByFingerprint = new HashMap<>();
+        // Formulas without fingerprint have to be compared with all other formulas.
+        final List<Integer> classesWithoutFingerprint = new ArrayList<>();
+        final Map<Object, Long> assignment = new HashMap<>();
+        final int[] classOf = new int[n];
+        for (int i = 0; i < n; ++i) {
+            final Node formula = formulas.get(i);
+            final OptionalLong fingerprint = truthTableFingerprint(formula, assignment);
+
+            final List<Integer> bucket;
+            final List<Integer> candidates = new ArrayList<>();
+            if (fingerprint.isPresent()) {
+                bucket = classesByFingerprint.computeIfAbsent(fingerprint.getAsLong(), f -> new ArrayList<>());
+                candidates.addAll(bucket);
+                candidates.addAll(classesWithoutFingerprint);
+            } else {
+                bucket = classesWithoutFingerprint;
+                for (int c = 0; c < representatives.size(); ++c) {
+                    candidates.add(c);
+                }
+            }
+
+            classOf[i] = -1;
+            for (final int c : candidates) {
+                if (SAT.equivalent(formula, representatives.get(c))) {
+                    classOf[i] = c;
                     break;
                 }
             }
+            if (classOf[i] == -1) {
+                classOf[i] = representatives.size();
+                representatives.add(formula);
+                bucket.add(classOf[i]);
+            }
+        }
+
+        // Replay the removal order of the pairwise algorithm. A formula has an equivalent
+        // successor iff more than one formula of its class remains.
+        final int[] remaining = new int[representatives.size()];
+        for (final int c : classOf) {
+            ++remaining[c];
+        }
+        int len = n;
+        int i = 0;
+        while (i < len) {
+            final int c = classOf[i];
+            --remaining[c];
+            if (remaining[c] > 0) {
+                // Remove the formula at i by swapping it with the last formula, which is inspected next.
+                Collections.swap(formulas, i, len - 1);
+                classOf[i] = classOf[len - 1];
+                --len;
+            } else {
+                ++i;
+            }
         }
         formulas.subList(len, formulas.size()).clear();
     }
+
+    /**
+     * Evaluates {@code formula} for 64 pseudo-random assignments at once, one per bit.
+     * The assignment of each variable only depends on the variable, so equivalent formulas have
+     * equal fingerprints.
+     *
+     * @param assignment cache of the values of variables, reused across formulas
+     * @return the fingerprint or nothing if {@code formula} contains operators other than
+     * {@link Literal}, {@link Not}, {@link And}, {@link Or}, {@link Implies} and {@link Equals}
+     */
+    private static OptionalLong truthTableFingerprint(final Node formula, final Map<Object, Long> assignment) {
+        if (formula instanceof Literal l) {
+            final long value;
+            if (FixTrueFalse.isTrueLiteral(l)) {
+                value = -1L;
+            } else if (FixTrueFalse.isFalseLiteral(l)) {
+                value = 0L;
+            } else {
+                value = assignment.computeIfAbsent(l.var, v -> new SplittableRandom(v.hashCode()).nextLong());
+            }
+            return OptionalLong.of(l.positive ? value : ~value);
+        }
+
+        final Node[] children = formula.getChildren();
+        final long[] values = new long[children.length];
+        for (int i = 0; i < children.length; ++i) {
+            final OptionalLong value = truthTableFingerprint(children[i], assignment);
+            if (value.isEmpty()) {
+                return value;
+            }
+            values[i] = value.getAsLong();
+        }
+
+        if (formula instanceof Not && values.length == 1) {
+            return OptionalLong.of(~values[0]);
+        } else if (formula instanceof Implies && values.length == 2) {
+            return OptionalLong.of(~values[0] | values[1]);
+        } else if (formula instanceof Equals && values.length == 2) {
+            return OptionalLong.of(~(values[0] ^ values[1]));
+        } else if (formula instanceof And) {
+            long result = -1L;
+            for (final long value : values) {
+                result &= value;
+            }
+            return OptionalLong.of(result);
+        } else if (formula instanceof Or) {
+            long result = 0L;
+            for (final long value : values) {
+                result |= value;
+            }
+            return OptionalLong.of(result);
+        }
+        return OptionalLong.empty();
+    }
 }
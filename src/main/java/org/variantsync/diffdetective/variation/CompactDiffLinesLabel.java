@@ -0,0 +1,156 @@
+package org.variantsync.diffdetective.variation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.variantsync.diffdetective.diff.text.DiffLineNumber;
+import org.variantsync.diffdetective.util.StringUtils;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions; // For Javadoc
+
+/**
+ * A {@link DiffLinesLabel} which stores the contents of its lines in a {@link Buffer} shared with
+ * other labels instead of separate {@link String}s.
+ * <p>
+ * Each line is encoded by five integers: its offset and length in the shared buffer and the three
+ * components of its {@link DiffLineNumber}. {@link String}s and {@link DiffLinesLabel.Line}s are
+ * only created on demand (e.g., by {@link #getLines()} or {@link #getDiffLines()}) and are not
+ * retained. Hence, a variation diff whose labels share a single buffer retains only one object
+ * for all of its lines, which is considerably smaller than one {@link String} and two records per
+ * line.
+ * <p>
+ * In contrast to {@link DiffLinesLabel}, the list returned by {@link #getDiffLines()} is a copy.
+ * Use {@link #addDiffLine} or {@link #addDiffLines} to modify this label.
+ *
+ * @see VariationDiffParseOptions#compactLabels()
+ */
+public class CompactDiffLinesLabel extends DiffLinesLabel {
+    /**
+     * Text storage shared by multiple {@link CompactDiffLinesLabel}s.
+     * Text is only ever appended, so existing offsets stay valid.
+     * This class is thread safe.
+     */
+    public static final class Buffer {
+        private final StringBuilder text = new StringBuilder();
+
+        /**
+         * Appends {@code content} to this buffer.
+         * @return the offset of {@code content} in this buffer
+         */
+        synchronized int append(final String content) {
+            final int offset = text.length();
+            text.append(content);
+            return offset;
+        }
+
+        synchronized String substring(final int offset, final int length) {
+            return text.substring(offset, offset + length);
+        }
+
+        /**
+         * Releases unused capacity. Should be called when no more text is expected to be appended.
+         */
+        public synchronized void trimToSize() {
+            text.trimToSize();
+        }
+    }
+
+    private static final int OFFSET = 0;
+    private static final int LENGTH = 1;
+    private static final int IN_DIFF = 2;
+    private static final int BEFORE_EDIT = 3;
+    private static final int AFTER_EDIT = 4;
+    private static final int FIELDS_PER_LINE = 5;
+
+    private final Buffer buffer;
+    private int[] lines;
+    private int lineCount;
+
+    /**
+     * Creates an empty label whose lines will be stored in {@code buffer}.
+     */
+    public CompactDiffLinesLabel(final Buffer buffer) {
+        this(buffer, new int[0], 0);
+    }
+
+    /**
+     * Creates a label containing {@code lines} whose contents are stored in {@code buffer}.
+     */
+    public CompactDiffLinesLabel(final Buffer buffer, final List<Line> lines) {
+        this(buffer, new int[FIELDS_PER_LINE * lines.size()], 0);
+        addDiffLines(lines);
+    }
+
+    private CompactDiffLinesLabel(final Buffer buffer, final int[] lines, final int lineCount) {
+        // The list of the super class is unused.
+        super(Collections.emptyList());
+        this.buffer = buffer;
+        this.lines = lines;
+        this.lineCount = lineCount;
+    }
+
+    @Override
+    public void addDiffLine(final Line newLine) {
+        if (FIELDS_PER_LINE * (lineCount + 1) > lines.length) {
+            lines = Arrays.copyOf(lines, Math.max(FIELDS_PER_LINE * (lineCount + 1), 2 * lines.length));
+        }
+
+        final int base = FIELDS_PER_LINE * lineCount;
+        final DiffLineNumber lineNumber = newLine.lineNumber();
+        lines[base + OFFSET] = buffer.append(newLine.content());
+        lines[base + LENGTH] = newLine.content().length();
+        lines[base + IN_DIFF] = lineNumber.inDiff();
+        lines[base + BEFORE_EDIT] = lineNumber.beforeEdit();
+        lines[base + AFTER_EDIT] = lineNumber.afterEdit();
+        ++lineCount;
+    }
+
+    @Override
+    public void addDiffLines(final List<Line> newLines) {
+        for (final Line line : newLines) {
+            addDiffLine(line);
+        }
+    }
+
+    private String getContent(final int line) {
+        final int base = FIELDS_PER_LINE * line;
+        return buffer.substring(lines[base + OFFSET], lines[base + LENGTH]);
+    }
+
+    private DiffLineNumber getLineNumber(final int line) {
+        final int base = FIELDS_PER_LINE * line;
+        return new DiffLineNumber(lines[base + IN_DIFF], lines[base + BEFORE_EDIT], lines[base + AFTER_EDIT]);
+    }
+
+    @Override
+    public List<Line> getDiffLines() {
+        final List<Line> result = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; ++i) {
+            result.add(new Line(getContent(i), getLineNumber(i)));
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> getLines() {
+        final List<String> result = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; ++i) {
+            result.add(getContent(i));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(StringUtils.LINEBREAK, getLines());
+    }
+
+    /**
+     * Returns a copy of this label which shares the {@link Buffer} of this label.
+     */
+    @Override
+    public CompactDiffLinesLabel clone() {
+        return new CompactDiffLinesLabel(buffer, Arrays.copyOf(lines, FIELDS_PER_LINE * lineCount), lineCount);
+    }
+}
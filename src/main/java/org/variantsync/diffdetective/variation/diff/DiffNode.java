@@ -184,7 +184,13 @@ public class DiffNode<L extends Label> implements HasNodeType {
      * Returns the number of unique child nodes.
      */
     public int getTotalNumberOfChildren() {
-        return (int) getAllChildrenStream().count();
+        int count = children[BEFORE.ordinal()].size();
+        for (final DiffNode<L> child : children[AFTER.ordinal()]) {
+            if (child.getParent(BEFORE) != this) {
+                ++count;
+            }
+        }
+        return count;
     }
 
     /**
@@ -266,6 +272,7 @@ public class DiffNode<L extends Label> implements HasNodeType {
 
         children[time.ordinal()].add(index, child);
         child.parents[time.ordinal()] = this;
+        child.forgetMemoizedFormulas(time);
     }
 
     /**
@@ -279,6 +286,7 @@ public class DiffNode<L extends Label> implements HasNodeType {
 
         children[time.ordinal()].add(child);
         child.parents[time.ordinal()] = this;
+        child.forgetMemoizedFormulas(time);
     }
 
     /**
@@ -303,6 +311,7 @@ public class DiffNode<L extends Label> implements HasNodeType {
 
         child.parents[time.ordinal()] = null;
         children[time.ordinal()].remove(child);
+        child.forgetMemoizedFormulas(time);
     }
 
     /**
@@ -329,6 +338,7 @@ public class DiffNode<L extends Label> implements HasNodeType {
     public List<DiffNode<L>> removeChildren(Time time) {
         for (var child : children[time.ordinal()]) {
             child.parents[time.ordinal()] = null;
+            child.forgetMemoizedFormulas(time);
         }
 
         final List<DiffNode<L>> orphans = children[time.ordinal()];
@@ -424,6 +434,24 @@ public class DiffNode<L extends Label> implements HasNodeType {
         );
 
         this.featureMapping = featureMapping;
+        Time.forAll(this::forgetMemoizedFormulas);
+    }
+
+    /**
+     * Drops the memoized formulas (e.g., the presence condition) of the projections of this
+     * subtree at {@code time}. Has to be called whenever the formula or the parent of this node at
+     * {@code time} changes.
+     *
+     * @see VariationNode#forgetMemoizedFormulas
+     */
+    private void forgetMemoizedFormulas(Time time) {
+        final Projection<L> projection = projections[time.ordinal()];
+        // If the projection has no memoized formulas, neither has any projection of its subtree.
+        if (projection != null && projection.forgetMemoizedFormulas()) {
+            for (var child : children[time.ordinal()]) {
+                child.forgetMemoizedFormulas(time);
+            }
+        }
     }
 
     /**
@@ -0,0 +1,338 @@
+package org.variantsync.diffdetective.variation.diff;
+
+import org.prop4j.Node;
+import org.variantsync.diffdetective.diff.text.DiffLineNumber;
+import org.variantsync.diffdetective.util.LineRange;
+import org.variantsync.diffdetective.variation.Label;
+import org.variantsync.diffdetective.variation.NodeType;
+import org.variantsync.diffdetective.variation.diff.source.VariationDiffSource;
+import org.variantsync.functjonal.Cast;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * An immutable, compact representation of a {@link VariationDiff} for analyses that only read
+ * variation diffs.
+ * <p>
+ * Instead of a graph of {@link DiffNode} objects, a frozen variation diff stores all nodes in
+ * parallel arrays (struct of arrays). Each node is identified by an index between {@code 0}
+ * (inclusive) and {@link #size()} (exclusive). Parents are stored as node indices per
+ * {@link Time} and the children of all nodes are stored in one array per {@link Time}, in which
+ * the children of each node are a consecutive range. Hence, traversals need neither recursion
+ * nor any allocations.
+ * <p>
+ * Nodes are indexed in the order in which {@link VariationDiff#forAll} visits them. Hence, the
+ * {@link #ROOT root} has index {@code 0} and each node except the root has at least one parent
+ * with a smaller index.
+ * <p>
+ * Formulas and labels are shared with the frozen {@link VariationDiff} and must not be modified.
+ * Use {@link #toVariationDiff()} to obtain a mutable copy.
+ *
+ * @param <L> The type of label stored in this variation diff.
+ */
+public class FrozenVariationDiff<L extends Label> {
+    /**
+     * The index of the root node.
+     */
+    public static final int ROOT = 0;
+
+    /**
+     * The index returned by {@link #getParent} for nodes without a parent.
+     */
+    public static final int NO_PARENT = -1;
+
+    private static final NodeType[] NODE_TYPES = NodeType.values();
+    private static final DiffType[] DIFF_TYPES = DiffType.values();
+
+    private final VariationDiffSource source;
+    private final int size;
+
+    private final byte[] nodeTypes;
+    private final byte[] diffTypes;
+    /**
+     * The {@link DiffNode#getFromLine() from} and {@link DiffNode#getToLine() to} line numbers
+     * of all nodes. The line numbers of node {@code i} start at index {@code 6 * i} and are
+     * ordered as {@code from.inDiff, from.beforeEdit, from.afterEdit, to.inDiff, to.beforeEdit,
+     * to.afterEdit}.
+     */
+    private final int[] lineNumbers;
+    private static final int LINE_NUMBER_COMPONENTS = 6;
+    private final Node[] formulas;
+    private final L[] labels;
+
+    /** Indexed by {@code Time.ordinal()} and then by node index. */
+    private final int[][] parents;
+    /**
+     * Indexed by {@code Time.ordinal()}. The children of node {@code i} at time {@code t} are
+     * {@code children[t][childOffsets[t][i]]} to {@code children[t][childOffsets[t][i + 1] - 1]}.
+     */
+    private final int[][] childOffsets;
+    private final int[][] children;
+
+    private FrozenVariationDiff(final VariationDiff<L> d) {
+        final List<DiffNode<L>> nodes = d.computeAllNodes();
+        final Map<DiffNode<L>, Integer> indices = new HashMap<>(2 * nodes.size());
+        for (int i = 0; i < nodes.size(); ++i) {
+            indices.put(nodes.get(i), i);
+        }
+
+        this.source = d.getSource();
+        this.size = nodes.size();
+        this.nodeTypes = new byte[size];
+        this.diffTypes = new byte[size];
+        this.lineNumbers = new int[LINE_NUMBER_COMPONENTS * size];
+        this.formulas = new Node[size];
+        this.labels = Cast.unchecked(new Label[size]);
+
+        final int times = Time.values().length;
+        this.parents = new int[times][size];
+        this.childOffsets = new int[times][size + 1];
+        this.children = new int[times][];
+
+        for (int i = 0; i < size; ++i) {
+            final DiffNode<L> node = nodes.get(i);
+            nodeTypes[i] = (byte) node.getNodeType().ordinal();
+            diffTypes[i] = (byte) node.getDiffType().ordinal();
+            setLineNumber(i, 0, node.getFromLine());
+            setLineNumber(i, 3, node.getToLine());
+            formulas[i] = node.getFormula();
+            labels[i] = node.getLabel();
+        }
+
+        for (final Time t : Time.values()) {
+            final int[] parents_t = parents[t.ordinal()];
+            final int[] childOffsets_t = childOffsets[t.ordinal()];
+            Arrays.fill(parents_t, NO_PARENT);
+
+            int edges = 0;
+            for (int i = 0; i < size; ++i) {
+                childOffsets_t[i] = edges;
+                edges += nodes.get(i).getChildOrder(t).size();
+            }
+            childOffsets_t[size] = edges;
+
+            final int[] children_t = new int[edges];
+            for (int i = 0; i < size; ++i) {
+                int next = childOffsets_t[i];
+                for (final DiffNode<L> child : nodes.get(i).getChildOrder(t)) {
+                    final int c = indices.get(child);
+                    children_t[next++] = c;
+                    parents_t[c] = i;
+                }
+            }
+            children[t.ordinal()] = children_t;
+        }
+    }
+
+    private void setLineNumber(final int node, final int offset, final DiffLineNumber lineNumber) {
+        final int base = LINE_NUMBER_COMPONENTS * node + offset;
+        lineNumbers[base] = lineNumber.inDiff();
+        lineNumbers[base + 1] = lineNumber.beforeEdit();
+        lineNumbers[base + 2] = lineNumber.afterEdit();
+    }
+
+    private DiffLineNumber getLineNumber(final int node, final int offset) {
+        final int base = LINE_NUMBER_COMPONENTS * node + offset;
+        return new DiffLineNumber(lineNumbers[base], lineNumbers[base + 1], lineNumbers[base + 2]);
+    }
+
+    /**
+     * Creates a frozen copy of the given variation diff.
+     * The given variation diff may be modified afterwards without affecting the frozen copy, as
+     * long as formulas and labels of its nodes are not modified in place.
+     */
+    public static <L extends Label> FrozenVariationDiff<L> of(final VariationDiff<L> d) {
+        return new FrozenVariationDiff<>(d);
+    }
+
+    /**
+     * Creates a mutable {@link VariationDiff} with the same structure and contents as this frozen
+     * variation diff. Labels are {@link Label#clone() cloned} but formulas are shared.
+     */
+    public VariationDiff<L> toVariationDiff() {
+        final DiffNode<L>[] nodes = Cast.unchecked(new DiffNode[size]);
+        for (int i = 0; i < size; ++i) {
+            nodes[i] = new DiffNode<>(
+                    getDiffType(i),
+                    getNodeType(i),
+                    getFromLine(i),
+                    getToLine(i),
+                    getFormula(i),
+                    Cast.unchecked(getLabel(i).clone())
+            );
+        }
+
+        for (final Time t : Time.values()) {
+            final int[] childOffsets_t = childOffsets[t.ordinal()];
+            final int[] children_t = children[t.ordinal()];
+            for (int i = 0; i < size; ++i) {
+                for (int c = childOffsets_t[i]; c < childOffsets_t[i + 1]; ++c) {
+                    nodes[i].addChild(nodes[children_t[c]], t);
+                }
+            }
+        }
+
+        return new VariationDiff<>(nodes[ROOT], source);
+    }
+
+    /**
+     * Returns the number of nodes in this variation diff.
+     */
+    public int size() {
+        return size;
+    }
+
+    public VariationDiffSource getSource() {
+        return source;
+    }
+
+    /**
+     * @see DiffNode#getNodeType()
+     */
+    public NodeType getNodeType(final int node) {
+        return NODE_TYPES[nodeTypes[node]];
+    }
+
+    /**
+     * @see DiffNode#getDiffType()
+     */
+    public DiffType getDiffType(final int node) {
+        return DIFF_TYPES[diffTypes[node]];
+    }
+
+    /**
+     * @see DiffNode#getFromLine()
+     */
+    public DiffLineNumber getFromLine(final int node) {
+        return getLineNumber(node, 0);
+    }
+
+    /**
+     * @see DiffNode#getToLine()
+     */
+    public DiffLineNumber getToLine(final int node) {
+        return getLineNumber(node, 3);
+    }
+
+    /**
+     * @see DiffNode#getLinesAtTime(Time)
+     */
+    public LineRange getLinesAtTime(final int node, final Time time) {
+        final int base = LINE_NUMBER_COMPONENTS * node + (time == Time.BEFORE ? 1 : 2);
+        return LineRange.FromInclToExcl(lineNumbers[base], lineNumbers[base + 3]);
+    }
+
+    /**
+     * @see DiffNode#getFormula()
+     */
+    public Node getFormula(final int node) {
+        return formulas[node];
+    }
+
+    /**
+     * @see DiffNode#getLabel()
+     */
+    public L getLabel(final int node) {
+        return labels[node];
+    }
+
+    /**
+     * Returns the index of the parent of {@code node} at the given time or {@link #NO_PARENT} if
+     * {@code node} has no parent at that time.
+     * @see DiffNode#getParent(Time)
+     */
+    public int getParent(final int node, final Time time) {
+        return parents[time.ordinal()][node];
+    }
+
+    /**
+     * Returns the number of children of {@code node} at the given time.
+     */
+    public int getChildCount(final int node, final Time time) {
+        final int[] childOffsets_t = childOffsets[time.ordinal()];
+        return childOffsets_t[node + 1] - childOffsets_t[node];
+    }
+
+    /**
+     * Returns the index of the {@code i}-th child of {@code node} at the given time.
+     * @see DiffNode#getChildOrder(Time)
+     */
+    public int getChild(final int node, final Time time, final int i) {
+        return children[time.ordinal()][childOffsets[time.ordinal()][node] + i];
+    }
+
+    /**
+     * Invokes {@code procedure} on all nodes in the same order as {@link VariationDiff#forAll}.
+     * Each node is visited after at least one of its parents.
+     */
+    public void forAllPreorder(final IntConsumer procedure) {
+        for (int node = 0; node < size; ++node) {
+            procedure.accept(node);
+        }
+    }
+
+    /**
+     * Invokes {@code procedure} on all nodes such that each node is visited after all of its
+     * children (before and after the edit). Uses an explicit stack instead of recursion, so the
+     * depth of this variation diff is irrelevant.
+     */
+    public void forAllPostorder(final IntConsumer procedure) {
+        final boolean[] visited = new boolean[size];
+        // The stack of nodes in progress and, for each, the position of the next child to visit.
+        final int[] stack = new int[size];
+        final int[] nextChild = new int[size];
+        final int before = Time.BEFORE.ordinal();
+        final int after = Time.AFTER.ordinal();
+
+        int top = 0;
+        stack[top] = ROOT;
+        nextChild[top] = 0;
+        visited[ROOT] = true;
+
+        while (top >= 0) {
+            final int node = stack[top];
+            final int beforeChildren = getChildCount(node, Time.BEFORE);
+            final int allChildren = beforeChildren + getChildCount(node, Time.AFTER);
+
+            int child = NO_PARENT;
+            while (nextChild[top] < allChildren && child == NO_PARENT) {
+                final int i = nextChild[top]++;
+                final int candidate = i < beforeChildren
+                        ? children[before][childOffsets[before][node] + i]
+                        : children[after][childOffsets[after][node] + i - beforeChildren];
+                if (!visited[candidate]) {
+                    child = candidate;
+                }
+            }
+
+            if (child == NO_PARENT) {
+                procedure.accept(node);
+                --top;
+            } else {
+                visited[child] = true;
+                ++top;
+                stack[top] = child;
+                nextChild[top] = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of nodes satisfying the given condition.
+     * @see VariationDiff#count
+     */
+    public int count(final IntPredicate nodesToCount) {
+        int count = 0;
+        for (int node = 0; node < size; ++node) {
+            if (nodesToCount.test(node)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+}
@@ -121,4 +121,15 @@ public class Projection<L extends Label> extends VariationNode<Projection<L>, L>
     public int getID() {
         return getBackingNode().getID();
     }
+
+    /**
+     * Drops the memoized formulas of this node.
+     * Only {@link DiffNode} is allowed to call this method when the backing node changes.
+     *
+     * @see VariationNode#forgetMemoizedFormulas
+     */
+    @Override
+    protected boolean forgetMemoizedFormulas() {
+        return super.forgetMemoizedFormulas();
+    }
 };
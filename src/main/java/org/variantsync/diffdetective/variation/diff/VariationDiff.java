@@ -223,7 +223,7 @@ public class VariationDiff<L extends Label> {
      * @return this
      */
     public VariationDiff<L> forAll(final Consumer<DiffNode<L>> procedure) {
-        VariationDiffTraversal.forAll(procedure).visit(this);
+        VariationDiffTraversal.preorder(getRoot(), procedure);
         return this;
     }
 
@@ -93,11 +93,11 @@ public class GumTreeDiff {
         }
 
         int[] currentID = new int[1];
-        VariationDiffTraversal.<L>forAll((node) -> {
+        VariationDiffTraversal.<L>preorder(before, (node) -> {
             node.setFromLine(node.getFromLine().withLineNumberInDiff(currentID[0]));
             node.setToLine(node.getToLine().withLineNumberInDiff(currentID[0]));
             ++currentID[0];
-        }).visit(before);
+        });
 
         return before;
     }
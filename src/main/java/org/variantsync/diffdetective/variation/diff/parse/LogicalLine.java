@@ -2,8 +2,6 @@ package org.variantsync.diffdetective.variation.diff.parse;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.variantsync.diffdetective.diff.text.DiffLineNumber;
 import org.variantsync.diffdetective.util.Assert;
@@ -20,21 +18,29 @@ import org.variantsync.diffdetective.variation.DiffLinesLabel;
  * @author Benjamin Moosherr
  */
 class LogicalLine {
+    private final char annotationMarker;
     private List<DiffLinesLabel.Line> lines;
     private boolean isContinued;
     private boolean inComment;
+    private boolean containsAnnotationMarker;
     private DiffLineNumber startLineNumber;
 
-    // C++-style comments that are not embedded in C-style comments
-    // The regex assumes that C-style comments may begin in a preceding line
-    // e.g., '// Some comment'
-    // , but not '/* outer comment // inner comment */' or '/* preceding line \n// inner comment */'
-    private final static Pattern LINE_COMMENT = Pattern.compile("[^(/*)]*?//[^(*/)]*?");
+    /**
+     * Constructs an empty logical line which doesn't track any {@link #mayBeAnnotation annotation
+     * marker}.
+     */
+    public LogicalLine() {
+        this('\0');
+    }
 
     /**
      * Constructs an empty logical line.
+     *
+     * @param annotationMarker a character contained in all annotations or {@code '\0'}
+     * @see org.variantsync.diffdetective.feature.AnnotationParser#getAnnotationMarker()
      */
-    public LogicalLine() {
+    public LogicalLine(char annotationMarker) {
+        this.annotationMarker = annotationMarker;
         reset();
     }
 
@@ -46,9 +52,14 @@ class LogicalLine {
         lines = new ArrayList<>();
         isContinued = false;
         inComment = false;
+        containsAnnotationMarker = annotationMarker == '\0';
         startLineNumber = DiffLineNumber.Invalid();
     }
 
+    private static boolean isLineCommentBoundary(char c) {
+        return c == '(' || c == ')' || c == '/' || c == '*';
+    }
+
     /**
      * Adds the physical line {@code line} with the line number {@code lineNumber} to this logical
      * line.
@@ -65,11 +76,41 @@ class LogicalLine {
         // Handle line continuations
         isContinued = line.endsWith("\\");
 
+        // Find the last C-style comment start and end and the first C++-style comment in a single
+        // pass over the line.
+        // C++-style comments are only considered if they are not embedded in C-style comments. We
+        // assume that C-style comments may begin in a preceding line, e.g., '// Some comment', but
+        // not '/* outer comment // inner comment */' or '/* preceding line \n// inner comment */'.
+        // Hence, a line comment starts directly after the last parenthesis, slash or star before
+        // the first '//'.
+        int commentStart = -1;
+        int commentEnd = -1;
+        int lineCommentStart = -1;
+        int lastBoundary = -1;
+        final int length = line.length();
+        for (int i = 0; i < length; ++i) {
+            final char c = line.charAt(i);
+            if (c == annotationMarker) {
+                containsAnnotationMarker = true;
+            }
+            if (!isLineCommentBoundary(c)) {
+                continue;
+            }
+
+            if (i + 1 < length) {
+                final char next = line.charAt(i + 1);
+                if (c == '/' && next == '*') {
+                    commentStart = i;
+                } else if (c == '*' && next == '/') {
+                    commentEnd = i;
+                } else if (c == '/' && next == '/' && lineCommentStart == -1) {
+                    lineCommentStart = lastBoundary + 1;
+                }
+            }
+            lastBoundary = i;
+        }
+
         // Handle multi-line inline macros
-        int commentStart = line.lastIndexOf("/*");
-        int commentEnd = line.lastIndexOf("*/");
-        Matcher lineCommentMatcher = LINE_COMMENT.matcher(line);
-        int lineCommentStart = lineCommentMatcher.find() ? lineCommentMatcher.start() : -1;
         if (commentStart != -1 || commentEnd != -1) {
             // Update 'inComment' if a C-style comment is opened and/or closed
             if (lineCommentStart != -1 && lineCommentStart < commentStart) {
@@ -86,6 +127,14 @@ class LogicalLine {
         lines.add(new DiffLinesLabel.Line(line, lineNumber));
     }
 
+    /**
+     * Returns {@code false} if this line can't be an annotation because none of its physical
+     * lines contains the annotation marker given to the {@link #LogicalLine(char) constructor}.
+     */
+    public boolean mayBeAnnotation() {
+        return containsAnnotationMarker;
+    }
+
     /**
      * Returns {@code true} iff at least one physical line was {@link consume}d.
      */
@@ -122,6 +171,11 @@ class LogicalLine {
      */
     @Override
     public String toString() {
+        if (lines.size() == 1 && !isContinued) {
+            // The common case of a logical line consisting of a single physical line.
+            return lines.get(0).content();
+        }
+
         var logicalLine = new StringBuilder();
         for (DiffLinesLabel.Line line : lines) {
             String physicalLine = line.content();
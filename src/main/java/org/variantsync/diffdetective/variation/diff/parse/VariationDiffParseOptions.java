@@ -2,6 +2,7 @@ package org.variantsync.diffdetective.variation.diff.parse;
 
 import org.variantsync.diffdetective.feature.AnnotationParser;
 import org.variantsync.diffdetective.feature.PreprocessorAnnotationParser;
+import org.variantsync.diffdetective.variation.CompactDiffLinesLabel;
 
 /**
  * Parse options that should be used when parsing {@link org.variantsync.diffdetective.variation.diff.VariationDiff}s.
@@ -12,13 +13,29 @@ import org.variantsync.diffdetective.feature.PreprocessorAnnotationParser;
  * @param ignoreEmptyLines          Whether to add {@code DiffNode}s for empty lines (regardless of their {@code DiffType}).
  *                                  If {@link #collapseMultipleCodeLines} is {@code true} empty lines are also not added to
  *                                  existing {@code DiffNode}s.
+ * @param compactLabels             Whether the labels of all parsed nodes should be
+ *                                  {@link CompactDiffLinesLabel}s sharing a single buffer per
+ *                                  parsed {@code VariationDiff}. This reduces the memory retained
+ *                                  by parsed {@code VariationDiff}s at the cost of creating the
+ *                                  {@code String}s of lines on each access.
  * @author Paul Bittner
  */
 public record VariationDiffParseOptions(
         AnnotationParser annotationParser,
         boolean collapseMultipleCodeLines,
-        boolean ignoreEmptyLines
+        boolean ignoreEmptyLines,
+        boolean compactLabels
 ) {
+    /**
+     * Creates VariationDiffParseOptions which don't use {@link #compactLabels compact labels}.
+     */
+    public VariationDiffParseOptions(
+            AnnotationParser annotationParser,
+            boolean collapseMultipleCodeLines,
+            boolean ignoreEmptyLines
+    ) {
+        this(annotationParser, collapseMultipleCodeLines, ignoreEmptyLines, false);
+    }
 
     /**
      * Creates VariationDiffParseOptions with the default parser as specified in {@link #Default}.
@@ -41,10 +58,41 @@ public record VariationDiffParseOptions(
         return new VariationDiffParseOptions(
                 annotationParser,
                 this.collapseMultipleCodeLines(),
-                this.ignoreEmptyLines()
+                this.ignoreEmptyLines(),
+                this.compactLabels()
+        );
+    }
+
+    /**
+     * Creates VariationDiffParseOptions which use {@link #compactLabels compact labels} iff
+     * {@code compactLabels} is {@code true}.
+     */
+    public VariationDiffParseOptions withCompactLabels(boolean compactLabels) {
+        return new VariationDiffParseOptions(
+                this.annotationParser(),
+                this.collapseMultipleCodeLines(),
+                this.ignoreEmptyLines(),
+                compactLabels
         );
     }
 
+    /**
+     * Returns a textual identification of these options.
+     * Parsing the same input with options of equal fingerprints yields the same
+     * {@link org.variantsync.diffdetective.variation.diff.VariationDiff}.
+     * {@link #compactLabels} is not part of the fingerprint because it only changes how labels
+     * are stored but not their contents. Hence, users of the fingerprint (e.g.,
+     * {@link org.variantsync.diffdetective.diff.git.VariationDiffCache#get(org.variantsync.diffdetective.diff.git.VariationDiffCache.Key, boolean)})
+     * have to create the requested labels themselves.
+     *
+     * @see AnnotationParser#getFingerprint
+     */
+    public String getFingerprint() {
+        return annotationParser.getFingerprint()
+                + ";collapseMultipleCodeLines=" + collapseMultipleCodeLines
+                + ";ignoreEmptyLines=" + ignoreEmptyLines;
+    }
+
     /**
      * Default value for VariationDiffParseOptions that does not remember parsed unix diffs
      * and uses the default value for the parsing annotations ({@link PreprocessorAnnotationParser#CPPAnnotationParser}).
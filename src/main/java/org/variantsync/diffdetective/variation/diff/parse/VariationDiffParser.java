@@ -6,6 +6,7 @@ import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.tinylog.Logger;
+import org.variantsync.diffdetective.analysis.monitoring.StageTimings;
 import org.variantsync.diffdetective.datasets.Repository;
 import org.variantsync.diffdetective.diff.git.CommitDiff;
 import org.variantsync.diffdetective.diff.git.GitDiffer;
@@ -16,6 +17,7 @@ import org.variantsync.diffdetective.diff.text.DiffLineNumber;
 import org.variantsync.diffdetective.error.UnparseableFormulaException;
 import org.variantsync.diffdetective.feature.AnnotationType;
 import org.variantsync.diffdetective.util.Assert;
+import org.variantsync.diffdetective.variation.CompactDiffLinesLabel;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
 import org.variantsync.diffdetective.variation.NodeType;
 import org.variantsync.diffdetective.variation.diff.DiffNode;
@@ -26,6 +28,7 @@ import org.variantsync.diffdetective.variation.diff.VariationDiff;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.List;
 import java.util.Stack;
 
 /**
@@ -105,6 +108,12 @@ public class VariationDiffParser {
      */
     private DiffNode<DiffLinesLabel> lastArtifact = null;
 
+    /**
+     * The buffer shared by all labels of the currently parsed {@link VariationDiff} if
+     * {@link VariationDiffParseOptions#compactLabels()} is set, {@code null} otherwise.
+     */
+    private CompactDiffLinesLabel.Buffer labelBuffer = null;
+
 
     /**
      * The same as {@link VariationDiffParser#createVariationDiff(BufferedReader, VariationDiffParseOptions)}
@@ -150,6 +159,24 @@ public class VariationDiffParser {
         });
     }
 
+    /**
+     * The same as {@link VariationDiffParser#createVariationDiff(BufferedReader, VariationDiffParseOptions)}
+     * but with the lines of the diff supplied one by one. This avoids creating the textual diff if
+     * the lines can be computed directly (e.g., by {@link org.variantsync.diffdetective.diff.git.FullDiffStream}).
+     *
+     * @param lines    supplies successive lines of the diff or {@code null} if there are no more lines
+     * @param options  {@link VariationDiffParseOptions} for the parsing process.
+     * @return A parsed {@link VariationDiff}.
+     * @throws IOException        iff {@code lines} throws an {@code IOException}
+     * @throws DiffParseException if an error in the diff or macro syntax is detected
+     */
+    public static VariationDiff<DiffLinesLabel> createVariationDiff(
+            FailableSupplier<DiffLine, IOException> lines,
+            final VariationDiffParseOptions options
+    ) throws IOException, DiffParseException {
+        return new VariationDiffParser(options).parse(lines);
+    }
+
     /**
      * Parses a variation tree from a source file.
      * This method is similar to {@link #createVariationDiff(BufferedReader, VariationDiffParseOptions)}
@@ -209,12 +236,31 @@ public class VariationDiffParser {
     private VariationDiff<DiffLinesLabel> parse(
             FailableSupplier<DiffLine, IOException> lines
     ) throws IOException, DiffParseException {
-        DiffNode<DiffLinesLabel> root = DiffNode.createRoot(new DiffLinesLabel());
+        final long start = StageTimings.start();
+        try {
+            return parseLines(lines);
+        } finally {
+            StageTimings.stop(StageTimings.VARIATION_DIFF_PARSING, start);
+        }
+    }
+
+    /**
+     * Implementation of {@link #parse} without timing.
+     */
+    private VariationDiff<DiffLinesLabel> parseLines(
+            FailableSupplier<DiffLine, IOException> lines
+    ) throws IOException, DiffParseException {
+        labelBuffer = options.compactLabels() ? new CompactDiffLinesLabel.Buffer() : null;
+
+        DiffNode<DiffLinesLabel> root = DiffNode.createRoot(
+                labelBuffer == null ? new DiffLinesLabel() : new CompactDiffLinesLabel(labelBuffer)
+        );
         beforeStack.push(root);
         afterStack.push(root);
 
-        final LogicalLine beforeLine = new LogicalLine();
-        final LogicalLine afterLine = new LogicalLine();
+        final char annotationMarker = options.annotationParser().getAnnotationMarker();
+        final LogicalLine beforeLine = new LogicalLine(annotationMarker);
+        final LogicalLine afterLine = new LogicalLine(annotationMarker);
         boolean isNon = false;
 
         DiffLineNumber lineNumber = new DiffLineNumber(0, 0, 0);
@@ -291,10 +337,24 @@ public class VariationDiffParser {
         beforeStack.clear();
         afterStack.clear();
         lastArtifact = null;
+        if (labelBuffer != null) {
+            labelBuffer.trimToSize();
+            labelBuffer = null;
+        }
 
         return new VariationDiff<>(root);
     }
 
+    /**
+     * Creates the label of a new node as requested by {@link VariationDiffParseOptions#compactLabels()}.
+     */
+    private DiffLinesLabel createLabel(final List<DiffLinesLabel.Line> lines) {
+        if (labelBuffer == null) {
+            return new DiffLinesLabel(lines);
+        }
+        return new CompactDiffLinesLabel(labelBuffer, lines);
+    }
+
     /**
      * Parses one logical line and most notably, handles conditional macros.
      *
@@ -313,7 +373,11 @@ public class VariationDiffParser {
 
         // Is this line a conditional macro?
         // Note: The following line doesn't handle comments and line continuations correctly.
-        var annotationType = options.annotationParser().determineAnnotationType(line.toString());
+        // Most lines don't contain the annotation marker and can be skipped without building the
+        // logical line.
+        var annotationType = line.mayBeAnnotation()
+                ? options.annotationParser().determineAnnotationType(line.toString())
+                : AnnotationType.None;
 
         if (annotationType == AnnotationType.Endif) {
             lastArtifact = null;
@@ -343,7 +407,7 @@ public class VariationDiffParser {
                         nodeType == NodeType.ARTIFACT || nodeType == NodeType.ELSE
                                 ? null
                                 : options.annotationParser().parseAnnotation(line.toString()),
-                        new DiffLinesLabel(line.getLines())
+                        createLabel(line.getLines())
                 );
 
                 addNode(newNode);
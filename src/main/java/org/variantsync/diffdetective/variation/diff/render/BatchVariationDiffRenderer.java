@@ -0,0 +1,257 @@
+package org.variantsync.diffdetective.variation.diff.render;
+
+import org.tinylog.Logger;
+import org.variantsync.diffdetective.shell.PythonCommand;
+import org.variantsync.diffdetective.variation.Label;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.serialize.LineGraphConstants;
+import org.variantsync.diffdetective.variation.diff.serialize.LineGraphExportOptions;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders many VariationDiffs using a fixed number of long-lived python render processes.
+ * <p>
+ * {@link VariationDiffRenderer#render(VariationDiff, String, Path, RenderOptions) Rendering} a
+ * single VariationDiff starts a new python interpreter which has to import all rendering libraries
+ * before rendering anything. This startup dominates the rendering time of small VariationDiffs.
+ * In contrast, each worker of this renderer starts the render script once in its server mode and
+ * then sends it the linegraph files to render, one after another, over its standard input.
+ * <p>
+ * VariationDiffs are exported to linegraph files on the thread invoking {@link #render} and are
+ * then queued for the workers. The queue is bounded, so {@link #render} blocks if the workers
+ * can't keep up. If a worker process dies, it is restarted for the next VariationDiff.
+ * <p>
+ * Obtain instances using {@link VariationDiffRenderer#batch}.
+ *
+ * @param <L> the type of labels of the VariationDiffs to render
+ */
+public class BatchVariationDiffRenderer<L extends Label> implements AutoCloseable {
+    /**
+     * The default number of VariationDiffs which may wait for each worker.
+     */
+    public static final int QUEUE_CAPACITY_PER_WORKER = 16;
+
+    private record Job(Path lineGraphFile, CompletableFuture<Boolean> result) {
+    }
+    /** Tells a worker to terminate its render process and stop. */
+    private static final Job STOP = new Job(null, null);
+
+    private final VariationDiffRenderer renderer;
+    private final RenderOptions<? super L> options;
+    private final LineGraphExportOptions<? super L> exportOptions;
+    private final int workers;
+    private final BlockingQueue<Job> queue;
+    private final ExecutorService executor;
+    private boolean closed = false;
+
+    /**
+     * Starts {@code workers} render workers. Their render processes are started lazily.
+     * @param renderer the renderer providing the python command and working directory
+     * @param options configuration options used for all rendered VariationDiffs
+     * @param workers the number of render processes running in parallel
+     * @param queueCapacity the number of VariationDiffs which may wait for a worker
+     */
+    BatchVariationDiffRenderer(final VariationDiffRenderer renderer, final RenderOptions<? super L> options, final int workers, final int queueCapacity) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is required but got " + workers);
+        }
+
+        this.renderer = renderer;
+        this.options = options;
+        this.exportOptions = options.toLineGraphOptions();
+        this.workers = workers;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.executor = Executors.newFixedThreadPool(workers);
+        for (int i = 0; i < workers; ++i) {
+            executor.submit(new Worker());
+        }
+    }
+
+    /**
+     * Queues the given VariationDiff for rendering to an image file in the given directory.
+     * Blocks while the queue is full.
+     * @param tree The tree to render.
+     * @param treeAndFileName A name for the written file as well as the tree (used as a caption in the produced image).
+     * @param directory The directory to which the rendered file should be written to.
+     * @return A future which is completed with true iff rendering was successful and with false iff an error occurred.
+     * @see VariationDiffRenderer#render(VariationDiff, String, Path, RenderOptions)
+     */
+    public CompletableFuture<Boolean> render(final VariationDiff<? extends L> tree, final String treeAndFileName, final Path directory) {
+        if (closed) {
+            throw new IllegalStateException("Cannot render with a closed renderer");
+        }
+
+        final Path lineGraphFile = VariationDiffRenderer.writeLineGraphFile(tree, treeAndFileName, directory, exportOptions,
+                (treeName, treeSource) -> LineGraphConstants.LG_TREE_HEADER + " " + treeAndFileName + LineGraphConstants.TREE_NAME_SEPARATOR + "0"
+        );
+        if (lineGraphFile == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        final Job job = new Job(lineGraphFile, new CompletableFuture<>());
+        try {
+            queue.put(job);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Logger.error(e, "Interrupted while queueing variation diff {}", treeAndFileName);
+            return CompletableFuture.completedFuture(false);
+        }
+        return job.result();
+    }
+
+    /**
+     * Waits until all queued VariationDiffs are rendered and stops all render processes.
+     * If the calling thread is interrupted, the workers are stopped and the VariationDiffs which
+     * are still queued are not rendered. Their futures are completed with false.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            for (int i = 0; i < workers; ++i) {
+                queue.put(STOP);
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        } finally {
+            // Workers which terminated early may have left jobs behind.
+            cancelQueuedJobs();
+        }
+    }
+
+    /**
+     * Removes all jobs from the queue and completes their futures with false.
+     */
+    private void cancelQueuedJobs() {
+        Job job;
+        while ((job = queue.poll()) != null) {
+            if (job != STOP) {
+                Logger.error("Could not render linegraph file {} because the renderer was closed", job.lineGraphFile());
+                job.result().complete(false);
+            }
+        }
+    }
+
+    /**
+     * Renders queued linegraph files until it receives {@link #STOP}.
+     * Each worker owns at most one render process at a time.
+     */
+    private class Worker implements Runnable {
+        private Process process;
+        private BufferedWriter requests;
+        private BufferedReader responses;
+
+        @Override
+        public void run() {
+            try {
+                Job job;
+                while ((job = queue.take()) != STOP) {
+                    boolean success = false;
+                    try {
+                        success = renderInProcess(job.lineGraphFile());
+                        if (success && options.cleanUpTemporaryFiles()) {
+                            VariationDiffRenderer.deleteTemporaryFile(job.lineGraphFile());
+                        }
+                    } catch (Exception e) {
+                        Logger.error(e, "Could not render linegraph file {} because", job.lineGraphFile());
+                        // The state of the process is unknown, so start a new one for the next file.
+                        stopProcess();
+                    } finally {
+                        job.result().complete(success);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                stopProcess();
+            }
+        }
+
+        private boolean renderInProcess(final Path lineGraphFile) {
+            try {
+                if (process == null) {
+                    startProcess();
+                }
+
+                requests.write(lineGraphFile.toString());
+                requests.newLine();
+                requests.flush();
+
+                final String response = responses.readLine();
+                if (response == null) {
+                    throw new IOException("The render process terminated unexpectedly");
+                }
+                if (!"OK".equals(response)) {
+                    Logger.error("Could not render linegraph file {} because: {}", lineGraphFile, response);
+                    return false;
+                }
+                return true;
+            } catch (IOException e) {
+                Logger.error(e, "Could not render linegraph file {} because", lineGraphFile);
+                // The state of the process is unknown, so start a new one for the next file.
+                stopProcess();
+                return false;
+            }
+        }
+
+        private void startProcess() throws IOException {
+            final PythonCommand cmd = renderer.createRenderCommand(options);
+            cmd.addArg("--server");
+
+            final ProcessBuilder builder = new ProcessBuilder(cmd.parts());
+            final Path workDir = renderer.getWorkDir();
+            if (workDir != null) {
+                builder.directory(workDir.toFile());
+            }
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+            Logger.debug("Starting render process {}{}", cmd, (workDir != null ? " in " + workDir : ""));
+            process = builder.start();
+            requests = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+            responses = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        }
+
+        private void stopProcess() {
+            if (process == null) {
+                return;
+            }
+
+            try {
+                // The render script terminates at the end of its input.
+                requests.close();
+                if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                    process.destroy();
+                }
+                responses.close();
+            } catch (IOException e) {
+                process.destroy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroy();
+            } finally {
+                process = null;
+                requests = null;
+                responses = null;
+            }
+        }
+    }
+}
@@ -194,26 +194,45 @@ public class VariationDiffRenderer {
      * @return True iff rendering was successful. False iff an error occurred.
      */
     private <L extends Label> boolean render(final VariationDiff<? extends L> tree, final String treeAndFileName, final Path directory, RenderOptions<? super L> options, LineGraphExportOptions<? super L> exportOptions, BiFunction<String, VariationDiffSource, String> treeHeader) {
-        final Path tempFile = directory.resolve(treeAndFileName + ".lg");
+        final Path tempFile = writeLineGraphFile(tree, treeAndFileName, directory, exportOptions, treeHeader);
+        if (tempFile == null) {
+            return false;
+        }
+
+        if (renderFile(tempFile, options) && options.cleanUpTemporaryFiles()) {
+            deleteTemporaryFile(tempFile);
+        }
+
+        return false;
+    }
+
+    /**
+     * Exports the given VariationDiff to the linegraph file {@code directory/treeAndFileName.lg}
+     * which can be rendered by the python render script.
+     * @return the path of the written file or {@code null} if an error occurred
+     * @see #render(VariationDiff, String, Path, RenderOptions, LineGraphExportOptions, BiFunction)
+     */
+    static <L extends Label> Path writeLineGraphFile(final VariationDiff<? extends L> tree, final String treeAndFileName, final Path directory, LineGraphExportOptions<? super L> exportOptions, BiFunction<String, VariationDiffSource, String> treeHeader) {
+        final Path lineGraphFile = directory.resolve(treeAndFileName + ".lg");
 
-        try (var destination = IO.newBufferedOutputStream(tempFile)) {
+        try (var destination = IO.newBufferedOutputStream(lineGraphFile)) {
             destination.write((treeHeader.apply(treeAndFileName, tree.getSource()) + StringUtils.LINEBREAK).getBytes());
             final VariationDiffSerializeDebugData result = LineGraphExport.toLineGraphFormat(tree, exportOptions, destination);
             Assert.assertNotNull(result);
         } catch (IOException e) {
             Logger.error(e, "Could not render variation diff {} because", treeAndFileName);
-            return false;
+            return null;
         }
 
-        if (renderFile(tempFile, options) && options.cleanUpTemporaryFiles()) {
-            try {
-                Files.delete(tempFile);
-            } catch (IOException e) {
-                Logger.error(e, "Could not remove generated temp file {} because", tempFile);
-            }
-        }
+        return lineGraphFile;
+    }
 
-        return false;
+    static void deleteTemporaryFile(final Path tempFile) {
+        try {
+            Files.delete(tempFile);
+        } catch (IOException e) {
+            Logger.error(e, "Could not remove generated temp file {} because", tempFile);
+        }
     }
 
     /**
@@ -230,19 +249,7 @@ public class VariationDiffRenderer {
      * @return True iff rendering was successful. False iff an error occurred.
      */
     public <L extends Label> boolean renderFile(final Path lineGraphFile, RenderOptions<? super L> options) {
-        final PythonCommand cmd = pythonCommandFactory.get();//apply(lineGraphFile);
-
-        cmd.addArg("--nodesize").addArg(options.nodesize());
-        cmd.addArg("--dpi").addArg(options.dpi());
-        cmd.addArg("--edgesize").addArg(options.edgesize());
-        cmd.addArg("--arrowsize").addArg(options.arrowsize());
-        cmd.addArg("--fontsize").addArg(options.fontsize());
-        if (!options.withlabels()) {
-            cmd.addArg("--nolabels");
-        }
-        for (final String arg : options.extraArguments()) {
-            cmd.addArg(arg);
-        }
+        final PythonCommand cmd = createRenderCommand(options);
         cmd.addArg(lineGraphFile.toString());
 
         final ShellExecutor runner = new ShellExecutor(
@@ -260,4 +267,42 @@ public class VariationDiffRenderer {
 
         return true;
     }
+
+    /**
+     * Creates a command running the python render script configured with the given options.
+     * The input of the script still has to be added.
+     */
+    PythonCommand createRenderCommand(RenderOptions<?> options) {
+        final PythonCommand cmd = pythonCommandFactory.get();
+
+        cmd.addArg("--nodesize").addArg(options.nodesize());
+        cmd.addArg("--dpi").addArg(options.dpi());
+        cmd.addArg("--edgesize").addArg(options.edgesize());
+        cmd.addArg("--arrowsize").addArg(options.arrowsize());
+        cmd.addArg("--fontsize").addArg(options.fontsize());
+        if (!options.withlabels()) {
+            cmd.addArg("--nolabels");
+        }
+        for (final String arg : options.extraArguments()) {
+            cmd.addArg(arg);
+        }
+        return cmd;
+    }
+
+    Path getWorkDir() {
+        return workDir;
+    }
+
+    /**
+     * Creates a renderer for many VariationDiffs which keeps {@code workers} python render
+     * processes running in parallel instead of starting a new process for each VariationDiff.
+     * The returned renderer has to be {@link BatchVariationDiffRenderer#close() closed} to stop
+     * the processes.
+     * @param options Configuration options for all VariationDiffs rendered by the returned renderer.
+     * @param workers The number of python processes rendering in parallel.
+     * @see BatchVariationDiffRenderer
+     */
+    public <L extends Label> BatchVariationDiffRenderer<L> batch(RenderOptions<? super L> options, int workers) {
+        return new BatchVariationDiffRenderer<>(this, options, workers, BatchVariationDiffRenderer.QUEUE_CAPACITY_PER_WORKER * workers);
+    }
 }
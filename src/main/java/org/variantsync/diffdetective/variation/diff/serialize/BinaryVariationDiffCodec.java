@@ -0,0 +1,365 @@
+package org.variantsync.diffdetective.variation.diff.serialize;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.prop4j.And;
+import org.prop4j.Equals;
+import org.prop4j.False;
+import org.prop4j.Implies;
+import org.prop4j.Literal;
+import org.prop4j.Node;
+import org.prop4j.Not;
+import org.prop4j.Or;
+import org.prop4j.True;
+import org.variantsync.diffdetective.diff.text.DiffLineNumber;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.NodeType;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.DiffType;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+
+/**
+ * Compact binary encoding of a single {@link VariationDiff} with {@link DiffLinesLabel}s.
+ *
+ * <p>In contrast to the line graph format, this encoding is lossless. It stores the node and diff
+ * types, all line numbers, formulas, the lines of each label including their line numbers and the
+ * order of the children before and after the edit. Decoding the result of {@link encode} yields a
+ * {@link VariationDiff} that is structurally equal to the encoded one.
+ *
+ * <p>Integers are stored as variable length integers (small values use less bytes) and each
+ * distinct string (label lines and variable names) is only stored once per encoded
+ * {@code VariationDiff}. Subsequent occurrences refer to the first one by index.
+ *
+ * <p>The encoding does not include any header or version information. Users persisting this
+ * encoding have to take care of versioning themselves, for example by including
+ * {@link #VERSION} in their file format.
+ */
+public final class BinaryVariationDiffCodec {
+    /**
+     * Version of this encoding. It is incremented whenever the encoding changes incompatibly.
+     */
+    public static final int VERSION = 1;
+
+    private static final int NO_FORMULA = 0;
+    private static final int LITERAL = 1;
+    private static final int TRUE = 2;
+    private static final int FALSE = 3;
+    private static final int NOT = 4;
+    private static final int AND = 5;
+    private static final int OR = 6;
+    private static final int IMPLIES = 7;
+    private static final int EQUALS = 8;
+
+    private static final Time[] TIMES = Time.values();
+    private static final NodeType[] NODE_TYPES = NodeType.values();
+    private static final DiffType[] DIFF_TYPES = DiffType.values();
+
+    private BinaryVariationDiffCodec() {
+    }
+
+    /**
+     * Writes the binary encoding of {@code variationDiff} to {@code output}.
+     * The source of {@code variationDiff} is not encoded.
+     *
+     * @param variationDiff the variation diff to encode
+     * @param output the destination of the encoding
+     * @throws IOException if writing to {@code output} fails
+     * @throws IllegalArgumentException if a formula can't be encoded
+     */
+    public static void encode(VariationDiff<? extends DiffLinesLabel> variationDiff, DataOutput output) throws IOException {
+        final List<DiffNode<? extends DiffLinesLabel>> nodes = new ArrayList<>();
+        final Map<DiffNode<?>, Integer> indices = new HashMap<>();
+        variationDiff.forAll(node -> {
+            indices.put(node, nodes.size());
+            nodes.add(node);
+        });
+
+        final Encoder encoder = new Encoder(output);
+        encoder.writeUnsigned(nodes.size());
+        for (final DiffNode<? extends DiffLinesLabel> node : nodes) {
+            encoder.writeUnsigned(node.getNodeType().ordinal());
+            encoder.writeUnsigned(node.getDiffType().ordinal());
+            encoder.writeLineNumber(node.getFromLine());
+            encoder.writeLineNumber(node.getToLine());
+            encoder.writeFormula(node.getFormula());
+
+            final List<DiffLinesLabel.Line> lines = node.getLabel().getDiffLines();
+            encoder.writeUnsigned(lines.size());
+            for (final DiffLinesLabel.Line line : lines) {
+                encoder.writeString(line.content());
+                encoder.writeLineNumber(line.lineNumber());
+            }
+        }
+
+        for (final DiffNode<? extends DiffLinesLabel> node : nodes) {
+            for (final Time time : TIMES) {
+                final List<? extends DiffNode<? extends DiffLinesLabel>> children = node.getChildOrder(time);
+                encoder.writeUnsigned(children.size());
+                for (final DiffNode<?> child : children) {
+                    encoder.writeUnsigned(indices.get(child));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a {@link VariationDiff} which was encoded by {@link encode} from {@code input}.
+     * The source of the returned {@code VariationDiff} is {@link
+     * org.variantsync.diffdetective.variation.diff.source.VariationDiffSource#Unknown unknown}.
+     *
+     * @param input the encoded variation diff
+     * @return the decoded variation diff
+     * @throws IOException if reading from {@code input} fails or the encoding is invalid
+     */
+    public static VariationDiff<DiffLinesLabel> decode(DataInput input) throws IOException {
+        return decode(input, DiffLinesLabel::new);
+    }
+
+    /**
+     * Same as {@link #decode(DataInput)} but creates the label of each node with
+     * {@code createLabel} (e.g., to create {@link org.variantsync.diffdetective.variation.CompactDiffLinesLabel}s).
+     *
+     * @param input the encoded variation diff
+     * @param createLabel creates the label of a node from its lines
+     * @return the decoded variation diff
+     * @throws IOException if reading from {@code input} fails or the encoding is invalid
+     */
+    public static VariationDiff<DiffLinesLabel> decode(
+            DataInput input,
+            Function<List<DiffLinesLabel.Line>, DiffLinesLabel> createLabel
+    ) throws IOException {
+        final Decoder decoder = new Decoder(input);
+
+        final int nodeCount = decoder.readUnsigned();
+        if (nodeCount < 1) {
+            throw new IOException("A variation diff needs at least a root node");
+        }
+
+        final List<DiffNode<DiffLinesLabel>> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; ++i) {
+            final NodeType nodeType = decoder.readEnum(NODE_TYPES);
+            final DiffType diffType = decoder.readEnum(DIFF_TYPES);
+            final DiffLineNumber from = decoder.readLineNumber();
+            final DiffLineNumber to = decoder.readLineNumber();
+            final Node formula = decoder.readFormula();
+
+            final int lineCount = decoder.readUnsigned();
+            final List<DiffLinesLabel.Line> lines = new ArrayList<>(lineCount);
+            for (int j = 0; j < lineCount; ++j) {
+                final String content = decoder.readString();
+                lines.add(new DiffLinesLabel.Line(content, decoder.readLineNumber()));
+            }
+
+            nodes.add(new DiffNode<>(diffType, nodeType, from, to, formula, createLabel.apply(lines)));
+        }
+
+        for (final DiffNode<DiffLinesLabel> node : nodes) {
+            for (final Time time : TIMES) {
+                final int childCount = decoder.readUnsigned();
+                for (int j = 0; j < childCount; ++j) {
+                    final int childIndex = decoder.readUnsigned();
+                    if (childIndex >= nodeCount) {
+                        throw new IOException("Invalid node index " + childIndex);
+                    }
+                    node.addChild(nodes.get(childIndex), time);
+                }
+            }
+        }
+
+        return new VariationDiff<>(nodes.get(0));
+    }
+
+    private static final class Encoder {
+        private final DataOutput output;
+        private final Map<String, Integer> stringTable = new HashMap<>();
+
+        private Encoder(DataOutput output) {
+            this.output = output;
+        }
+
+        void writeUnsigned(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                output.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            output.writeByte(value);
+        }
+
+        void writeSigned(int value) throws IOException {
+            // zig-zag encoding to keep small negative numbers (e.g., invalid line numbers) small
+            writeUnsigned((value << 1) ^ (value >> 31));
+        }
+
+        void writeLineNumber(DiffLineNumber lineNumber) throws IOException {
+            writeSigned(lineNumber.inDiff());
+            writeSigned(lineNumber.beforeEdit());
+            writeSigned(lineNumber.afterEdit());
+        }
+
+        /**
+         * Writes {@code 0} followed by {@code string} on its first occurrence and its index + 1 in
+         * the string table on any further occurrence.
+         */
+        void writeString(String string) throws IOException {
+            final Integer index = stringTable.get(string);
+            if (index == null) {
+                stringTable.put(string, stringTable.size());
+                writeUnsigned(0);
+                final byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+                writeUnsigned(utf8.length);
+                output.write(utf8);
+            } else {
+                writeUnsigned(index + 1);
+            }
+        }
+
+        void writeFormula(Node formula) throws IOException {
+            if (formula == null) {
+                writeUnsigned(NO_FORMULA);
+            } else if (formula instanceof Literal literal) {
+                if (literal instanceof True) {
+                    writeUnsigned(TRUE);
+                } else if (literal instanceof False) {
+                    writeUnsigned(FALSE);
+                } else if (literal.var instanceof String name) {
+                    writeUnsigned(LITERAL);
+                    writeString(name);
+                } else {
+                    throw new IllegalArgumentException("Cannot encode literal " + literal + " with a variable of type " + literal.var.getClass());
+                }
+                output.writeBoolean(literal.positive);
+            } else {
+                final int tag;
+                if (formula instanceof Not) {
+                    tag = NOT;
+                } else if (formula instanceof And) {
+                    tag = AND;
+                } else if (formula instanceof Or) {
+                    tag = OR;
+                } else if (formula instanceof Implies) {
+                    tag = IMPLIES;
+                } else if (formula instanceof Equals) {
+                    tag = EQUALS;
+                } else {
+                    throw new IllegalArgumentException("Cannot encode formula node of type " + formula.getClass());
+                }
+
+                writeUnsigned(tag);
+                final Node[] children = formula.getChildren();
+                writeUnsigned(children.length);
+                for (final Node child : children) {
+                    writeFormula(child);
+                }
+            }
+        }
+    }
+
+    private static final class Decoder {
+        private final DataInput input;
+        private final List<String> stringTable = new ArrayList<>();
+
+        private Decoder(DataInput input) {
+            this.input = input;
+        }
+
+        int readUnsigned() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                final byte b = input.readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable length integer");
+        }
+
+        int readSigned() throws IOException {
+            final int value = readUnsigned();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        <E extends Enum<E>> E readEnum(E[] values) throws IOException {
+            final int ordinal = readUnsigned();
+            if (ordinal >= values.length) {
+                throw new IOException("Invalid ordinal " + ordinal + " for " + values[0].getDeclaringClass().getSimpleName());
+            }
+            return values[ordinal];
+        }
+
+        DiffLineNumber readLineNumber() throws IOException {
+            final int inDiff = readSigned();
+            final int beforeEdit = readSigned();
+            final int afterEdit = readSigned();
+            return new DiffLineNumber(inDiff, beforeEdit, afterEdit);
+        }
+
+        String readString() throws IOException {
+            final int index = readUnsigned();
+            if (index == 0) {
+                final byte[] utf8 = new byte[readUnsigned()];
+                input.readFully(utf8);
+                final String string = new String(utf8, StandardCharsets.UTF_8);
+                stringTable.add(string);
+                return string;
+            }
+
+            if (index > stringTable.size()) {
+                throw new IOException("Invalid string table index " + index);
+            }
+            return stringTable.get(index - 1);
+        }
+
+        Node readFormula() throws IOException {
+            final int tag = readUnsigned();
+            switch (tag) {
+                case NO_FORMULA:
+                    return null;
+                case LITERAL:
+                case TRUE:
+                case FALSE: {
+                    final Literal literal = switch (tag) {
+                        case TRUE -> new True();
+                        case FALSE -> new False();
+                        default -> new Literal(readString());
+                    };
+                    literal.positive = input.readBoolean();
+                    return literal;
+                }
+                default: {
+                    final Node[] children = new Node[readUnsigned()];
+                    for (int i = 0; i < children.length; ++i) {
+                        children[i] = readFormula();
+                    }
+
+                    final int expectedArity = switch (tag) {
+                        case NOT -> 1;
+                        case IMPLIES, EQUALS -> 2;
+                        default -> children.length;
+                    };
+                    if (children.length != expectedArity) {
+                        throw new IOException("Invalid number of operands " + children.length + " for formula tag " + tag);
+                    }
+
+                    return switch (tag) {
+                        case NOT -> new Not(children[0]);
+                        case AND -> new And(children);
+                        case OR -> new Or(children);
+                        case IMPLIES -> new Implies(children[0], children[1]);
+                        case EQUALS -> new Equals(children[0], children[1]);
+                        default -> throw new IOException("Invalid formula tag " + tag);
+                    };
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.variantsync.diffdetective.variation.diff.serialize;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.serialize.treeformat.VariationDiffLabelFormat;
+import org.variantsync.diffdetective.variation.diff.source.VariationDiffSource;
+
+/**
+ * Exporter for a versioned binary file format storing many {@link VariationDiff}s.
+ * In contrast to the line graph format, this format is lossless and considerably smaller and
+ * faster to import (see {@link BinaryVariationDiffImport}).
+ *
+ * <p>A file consists of
+ * <ol>
+ * <li>the four bytes {@link #MAGIC},
+ * <li>one byte containing {@link #FORMAT_VERSION},
+ * <li>one byte containing {@link BinaryVariationDiffCodec#VERSION},
+ * <li>one byte of flags (currently only {@link #FLAG_COMPRESSED}),
+ * <li>and the body, which is compressed using {@link java.util.zip.Deflater} if
+ * {@link #FLAG_COMPRESSED} is set.
+ * </ol>
+ * The body is a sequence of records, each starting with the byte {@code 1}, followed by the
+ * source of the {@link VariationDiff} as a {@link java.io.DataOutput#writeUTF string} and the
+ * {@link BinaryVariationDiffCodec encoded VariationDiff}. The body ends with the byte {@code 0}.
+ *
+ * <p>Use {@link #exportAll} to write a complete file. As an {@link Exporter},
+ * {@link #exportVariationDiff} writes a complete file containing a single {@link VariationDiff}.
+ * {@link #writeRecord} only writes a single record and is intended for embedding records into a
+ * body written by a custom writer (e.g., after {@link #writeHeader}).
+ */
+public class BinaryVariationDiffExporter implements Exporter<DiffLinesLabel> {
+    /**
+     * The first bytes of each file in this format.
+     */
+    static final byte[] MAGIC = {'V', 'D', 'I', 'F'};
+    /**
+     * Version of the file layout. It is incremented whenever the layout changes incompatibly.
+     * Changes to the encoding of single variation diffs are tracked by
+     * {@link BinaryVariationDiffCodec#VERSION}.
+     */
+    public static final int FORMAT_VERSION = 1;
+    /**
+     * Flag indicating that the body of a file is compressed.
+     */
+    public static final int FLAG_COMPRESSED = 1;
+
+    static final int RECORD = 1;
+    static final int END = 0;
+
+    private final VariationDiffLabelFormat sourceFormat;
+    private final boolean compress;
+
+    /**
+     * Creates an exporter.
+     *
+     * @param sourceFormat the format used to store the {@link VariationDiffSource} of each exported
+     * {@link VariationDiff} or {@code null} if sources should not be stored
+     * @param compress whether files written by {@link #exportAll} should be compressed
+     */
+    public BinaryVariationDiffExporter(final VariationDiffLabelFormat sourceFormat, final boolean compress) {
+        this.sourceFormat = sourceFormat;
+        this.compress = compress;
+    }
+
+    /**
+     * Writes the header of a file to {@code destination}.
+     *
+     * @param destination the stream to write the header to
+     * @return the stream to write the body to, which has to be {@link DeflaterOutputStream#finish
+     * finished} or closed if it is not {@code destination}
+     */
+    public OutputStream writeHeader(final OutputStream destination) throws IOException {
+        destination.write(MAGIC);
+        destination.write(FORMAT_VERSION);
+        destination.write(BinaryVariationDiffCodec.VERSION);
+        destination.write(compress ? FLAG_COMPRESSED : 0);
+        return compress ? new DeflaterOutputStream(destination) : destination;
+    }
+
+    /**
+     * Writes a complete file containing all {@code variationDiffs} to {@code destination}.
+     * {@code destination} is not closed.
+     *
+     * @param variationDiffs the variation diffs to export
+     * @param destination where the file should be written to
+     * @return the number of exported variation diffs
+     */
+    public int exportAll(final Iterable<? extends VariationDiff<? extends DiffLinesLabel>> variationDiffs, final OutputStream destination) throws IOException {
+        final OutputStream body = writeHeader(destination);
+
+        int exported = 0;
+        for (final VariationDiff<? extends DiffLinesLabel> variationDiff : variationDiffs) {
+            writeRecord(variationDiff, body);
+            ++exported;
+        }
+        body.write(END);
+
+        if (body instanceof DeflaterOutputStream deflater) {
+            deflater.finish();
+        }
+        body.flush();
+
+        return exported;
+    }
+
+    /**
+     * Writes a complete file containing only {@code variationDiff} to {@code destination}.
+     * Same as {@link #exportAll} with a single {@link VariationDiff}.
+     *
+     * @param variationDiff to be exported
+     * @param destination where the file should be written
+     */
+    @Override
+    public <La extends DiffLinesLabel> void exportVariationDiff(final VariationDiff<La> variationDiff, final OutputStream destination) throws IOException {
+        exportAll(List.of(variationDiff), destination);
+    }
+
+    /**
+     * Writes a single record of the body of a file.
+     *
+     * @param variationDiff to be exported
+     * @param destination where the record should be written
+     */
+    public void writeRecord(final VariationDiff<? extends DiffLinesLabel> variationDiff, final OutputStream destination) throws IOException {
+        // DataOutputStream doesn't buffer, so it can be discarded without flushing.
+        final DataOutputStream output = new DataOutputStream(destination);
+        output.write(RECORD);
+        output.writeUTF(sourceFormat == null ? "" : sourceFormat.toLabel(variationDiff.getSource()));
+        BinaryVariationDiffCodec.encode(variationDiff, output);
+    }
+}
@@ -0,0 +1,178 @@
+package org.variantsync.diffdetective.variation.diff.serialize;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.InflaterInputStream;
+
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.serialize.treeformat.VariationDiffLabelFormat;
+import org.variantsync.diffdetective.variation.diff.source.VariationDiffSource;
+
+/**
+ * Import {@link VariationDiff}s from files written by {@link BinaryVariationDiffExporter}.
+ */
+public class BinaryVariationDiffImport {
+    private BinaryVariationDiffImport() {
+    }
+
+    /**
+     * Import all VariationDiffs from the given file.
+     *
+     * @param path a file written by {@link BinaryVariationDiffExporter#exportAll}
+     * @param sourceFormat the format used to read the {@link VariationDiffSource}s or {@code null}
+     * if all sources should be {@link VariationDiffSource#Unknown unknown}
+     * @return all VariationDiffs contained in the given file
+     * @throws IOException if the file can't be read or is not a valid file of this format
+     */
+    public static List<VariationDiff<DiffLinesLabel>> fromFile(final Path path, final VariationDiffLabelFormat sourceFormat) throws IOException {
+        try (Stream<VariationDiff<DiffLinesLabel>> variationDiffs = streamFile(path, sourceFormat)) {
+            return variationDiffs.collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Lazily imports all VariationDiffs from the given file.
+     * The returned stream has to be closed to close the file.
+     *
+     * @see #stream
+     */
+    public static Stream<VariationDiff<DiffLinesLabel>> streamFile(final Path path, final VariationDiffLabelFormat sourceFormat) throws IOException {
+        final InputStream input = new BufferedInputStream(Files.newInputStream(path));
+        final DataInputStream body;
+        try {
+            body = new DataInputStream(readHeader(input));
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+
+        // Closing the body also closes input and releases the native memory of a decompressor.
+        return stream(body, sourceFormat).onClose(() -> {
+            try {
+                body.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Lazily imports all VariationDiffs from {@code input}.
+     * The header is read immediately but each VariationDiff is only read when it is requested
+     * from the returned stream. The returned stream doesn't close {@code input}.
+     *
+     * @param input a file written by {@link BinaryVariationDiffExporter#exportAll}, should be buffered
+     * @param sourceFormat the format used to read the {@link VariationDiffSource}s or {@code null}
+     * if all sources should be {@link VariationDiffSource#Unknown unknown}
+     * @return a sequential stream of all VariationDiffs contained in {@code input}.
+     *         Reading errors are reported as {@link UncheckedIOException} by the stream operations.
+     * @throws IOException if the header can't be read or is not supported
+     */
+    public static Stream<VariationDiff<DiffLinesLabel>> stream(final InputStream input, final VariationDiffLabelFormat sourceFormat) throws IOException {
+        return stream(new DataInputStream(readHeader(input)), sourceFormat);
+    }
+
+    private static Stream<VariationDiff<DiffLinesLabel>> stream(final DataInputStream body, final VariationDiffLabelFormat sourceFormat) {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(
+                        new RecordIterator(body, sourceFormat),
+                        Spliterator.ORDERED | Spliterator.NONNULL
+                ),
+                false
+        );
+    }
+
+    /**
+     * Reads and validates the header of a file.
+     * @return the stream containing the (decompressed) body
+     */
+    private static InputStream readHeader(final InputStream input) throws IOException {
+        final byte[] magic = input.readNBytes(BinaryVariationDiffExporter.MAGIC.length);
+        if (!Arrays.equals(magic, BinaryVariationDiffExporter.MAGIC)) {
+            throw new IOException("Not a binary variation diff file");
+        }
+
+        final int formatVersion = input.read();
+        final int codecVersion = input.read();
+        final int flags = input.read();
+        if (flags < 0) {
+            throw new EOFException("Incomplete header");
+        }
+        if (formatVersion != BinaryVariationDiffExporter.FORMAT_VERSION || codecVersion != BinaryVariationDiffCodec.VERSION) {
+            throw new IOException("Unsupported version " + formatVersion + "." + codecVersion + " of binary variation diff file");
+        }
+        if ((flags & ~BinaryVariationDiffExporter.FLAG_COMPRESSED) != 0) {
+            throw new IOException("Unsupported flags " + flags);
+        }
+
+        return (flags & BinaryVariationDiffExporter.FLAG_COMPRESSED) != 0 ? new InflaterInputStream(input) : input;
+    }
+
+    private static class RecordIterator implements Iterator<VariationDiff<DiffLinesLabel>> {
+        private final DataInputStream body;
+        private final VariationDiffLabelFormat sourceFormat;
+        private boolean atRecord = false;
+        private boolean atEnd = false;
+
+        private RecordIterator(final DataInputStream body, final VariationDiffLabelFormat sourceFormat) {
+            this.body = body;
+            this.sourceFormat = sourceFormat;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!atRecord && !atEnd) {
+                try {
+                    final int marker = body.readUnsignedByte();
+                    if (marker == BinaryVariationDiffExporter.RECORD) {
+                        atRecord = true;
+                    } else if (marker == BinaryVariationDiffExporter.END) {
+                        atEnd = true;
+                    } else {
+                        throw new IOException("Invalid record marker " + marker);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return atRecord;
+        }
+
+        @Override
+        public VariationDiff<DiffLinesLabel> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            atRecord = false;
+
+            try {
+                final String source = body.readUTF();
+                final VariationDiff<DiffLinesLabel> variationDiff = BinaryVariationDiffCodec.decode(body);
+                if (sourceFormat != null) {
+                    variationDiff.setSource(sourceFormat.fromLabel(source));
+                }
+                return variationDiff;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
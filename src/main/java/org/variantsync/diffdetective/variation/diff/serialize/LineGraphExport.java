@@ -89,14 +89,17 @@ public final class LineGraphExport {
      */
     public static <L extends Label> Statistic toLineGraphFormat(final Iterable<VariationDiff<L>> trees, final LineGraphExportOptions<? super L> options, OutputStream destination) throws IOException {
         final var result = new Statistic();
+        // A single exporter reuses its buffers for all trees.
+        final var exporter = new LineGraphExporter<L>(options);
 
-        for (final VariationDiff<? extends L> t : trees) {
+        for (final VariationDiff<L> t : trees) {
             destination.write(lineGraphHeader(t.getSource(), options).getBytes());
-            result.debugData.append(toLineGraphFormat(t, options, destination));
+            exporter.exportVariationDiff(t, destination);
             destination.write(lineGraphFooter().getBytes());
             ++result.exportedTrees;
         }
 
+        result.debugData.append(exporter.getDebugData());
         result.exportedCommits = 1;
 
         return result;
@@ -111,16 +114,21 @@ public final class LineGraphExport {
      */
     public static Statistic toLineGraphFormat(final CommitDiff commitDiff, LineGraphExportOptions<? super DiffLinesLabel> options, OutputStream destination) throws IOException {
         final var result = new Statistic();
+        // A single exporter reuses its buffers for all patches.
+        final var exporter = new LineGraphExporter<DiffLinesLabel>(options);
 
         for (final PatchDiff patchDiff : commitDiff.getPatchDiffs()) {
             try {
-                result.append(toLineGraphFormat(patchDiff, options, destination));
+                if (toLineGraphFormat(patchDiff, options, exporter, destination)) {
+                    ++result.exportedTrees;
+                }
             } catch (Exception e) {
                 options.onError().accept(patchDiff, e);
                 break;
             }
         }
 
+        result.debugData.append(exporter.getDebugData());
         result.exportedCommits = 1;
 
         return result;
@@ -135,21 +143,30 @@ public final class LineGraphExport {
      */
     public static Statistic toLineGraphFormat(final PatchDiff patch, final LineGraphExportOptions<? super DiffLinesLabel> options, OutputStream destination) throws IOException {
         final var result = new Statistic();
+        final var exporter = new LineGraphExporter<DiffLinesLabel>(options);
 
-        if (patch.isValid()) {
-            //Logger.info("  Exporting VariationDiff #{}", treeCounter);
+        if (toLineGraphFormat(patch, options, exporter, destination)) {
+            ++result.exportedTrees;
+        }
+        result.debugData.append(exporter.getDebugData());
 
-            //Logger.info("  Exporting VariationDiff #{}", treeCounter);
-            destination.write(lineGraphHeader(patch, options).getBytes());
-            result.debugData.append(toLineGraphFormat(patch.getVariationDiff(), options, destination));
-            destination.write(lineGraphFooter().getBytes());
+        return result;
+    }
 
-            ++result.exportedTrees;
-        } else {
+    /**
+     * Writes the given patch in linegraph format using {@code exporter}.
+     * @return whether the patch was exported, which is not the case for invalid patches
+     */
+    private static boolean toLineGraphFormat(final PatchDiff patch, final LineGraphExportOptions<? super DiffLinesLabel> options, final LineGraphExporter<DiffLinesLabel> exporter, OutputStream destination) throws IOException {
+        if (!patch.isValid()) {
             Logger.debug("  Skipping invalid patch for file {} at commit {}", patch.getFileName(Time.AFTER), patch.getCommitHash());
+            return false;
         }
 
-        return result;
+        destination.write(lineGraphHeader(patch, options).getBytes());
+        exporter.exportVariationDiff(patch.getVariationDiff(), destination);
+        destination.write(lineGraphFooter().getBytes());
+        return true;
     }
 
     /**
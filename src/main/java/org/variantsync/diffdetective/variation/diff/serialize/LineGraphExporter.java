@@ -1,19 +1,42 @@
 package org.variantsync.diffdetective.variation.diff.serialize;
 
+import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 
 import org.variantsync.diffdetective.variation.Label;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
-import org.variantsync.functjonal.Functjonal;
 
 /**
  * Exporter that converts a single VariationDiff's nodes and edges to linegraph.
+ * <p>
+ * Lines are appended to a buffer which is reused for all exported VariationDiffs and encoded
+ * directly into {@code destination} without creating a {@link String} per line.
+ * Hence, instances of this class are not thread safe.
  */
 public class LineGraphExporter<L extends Label> implements Exporter<L> {
+    /**
+     * Number of buffered characters after which the buffer is written to the destination.
+     */
+    private static final int FLUSH_THRESHOLD = 1 << 16;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
     private final Format<? super L> format;
     private final VariationDiffSerializeDebugData debugData;
 
+    private final StringBuilder buffer = new StringBuilder();
+    // Same charset and error handling as a PrintStream.
+    private final CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer encoded = ByteBuffer.allocate(1 << 13);
+
     public LineGraphExporter(Format<? super L> format) {
         this.format = format;
         this.debugData = new VariationDiffSerializeDebugData();
@@ -30,24 +53,83 @@ public class LineGraphExporter<L extends Label> implements Exporter<L> {
      * @param destination where the result should be written
      */
     @Override
-    public <La extends L> void exportVariationDiff(VariationDiff<La> variationDiff, OutputStream destination) {
-        var output = new PrintStream(destination);
-        format.forEachNode(variationDiff, (node) -> {
-            switch (node.diffType) {
-                case ADD -> ++debugData.numExportedAddNodes;
-                case REM -> ++debugData.numExportedRemNodes;
-                case NON -> ++debugData.numExportedNonNodes;
+    public <La extends L> void exportVariationDiff(VariationDiff<La> variationDiff, OutputStream destination) throws IOException {
+        try {
+            format.forEachNode(variationDiff, (node) -> {
+                switch (node.diffType) {
+                    case ADD -> ++debugData.numExportedAddNodes;
+                    case REM -> ++debugData.numExportedRemNodes;
+                    case NON -> ++debugData.numExportedNonNodes;
+                }
+
+                buffer
+                    .append(LineGraphConstants.LG_NODE)
+                    .append(' ')
+                    .append(node.getID())
+                    .append(' ')
+                    .append(format.getNodeFormat().toLabel(node))
+                    .append(LINE_SEPARATOR);
+                flushIfFull(destination);
+            });
+
+            format.forEachEdge(variationDiff, edge -> {
+                buffer
+                    .append(LineGraphConstants.LG_EDGE)
+                    .append(' ')
+                    .append(edge.from().getID())
+                    .append(' ')
+                    .append(edge.to().getID())
+                    .append(' ')
+                    .append(edge.style().lineGraphType())
+                    .append(format.getEdgeFormat().labelOf(edge))
+                    .append(LINE_SEPARATOR);
+                flushIfFull(destination);
+            });
+
+            flush(destination);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            // Don't leak a partially exported graph into the next export if anything failed.
+            buffer.setLength(0);
+            encoded.clear();
+        }
+    }
+
+    private void flushIfFull(OutputStream destination) {
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            try {
+                flush(destination);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+        }
+    }
+
+    /**
+     * Encodes all buffered characters into {@code destination} and clears the buffer.
+     */
+    private void flush(OutputStream destination) throws IOException {
+        final CharBuffer chars = CharBuffer.wrap(buffer);
+        encoder.reset();
+
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, encoded, true);
+            writeEncoded(destination);
+        } while (result.isOverflow());
 
-            output.println(LineGraphConstants.LG_NODE + " " + node.getID() + " " + format.getNodeFormat().toLabel(node));
-        });
+        do {
+            result = encoder.flush(encoded);
+            writeEncoded(destination);
+        } while (result.isOverflow());
+
+        buffer.setLength(0);
+    }
 
-        format.forEachEdge(variationDiff, edge -> {
-            output.print(Functjonal.unwords(LineGraphConstants.LG_EDGE, edge.from().getID(), edge.to().getID(), ""));
-            output.print(edge.style().lineGraphType());
-            output.print(format.getEdgeFormat().labelOf(edge));
-            output.println();
-        });
+    private void writeEncoded(OutputStream destination) throws IOException {
+        destination.write(encoded.array(), 0, encoded.position());
+        encoded.clear();
     }
 
     /**
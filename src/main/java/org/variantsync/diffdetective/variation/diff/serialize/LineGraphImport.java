@@ -13,11 +13,19 @@ import org.variantsync.functjonal.Pair;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -41,7 +49,33 @@ public class LineGraphImport {
             return fromLineGraph(input, path, options);
         }
     }
-	
+
+	/**
+	 * Lazily imports all VariationDiffs from the given linegraph file.
+	 * In contrast to {@link #fromFile}, the file is read on demand while the returned stream is
+	 * consumed. Hence, only the VariationDiff which is currently parsed is held in memory, which
+	 * allows processing linegraph files larger than the available heap.
+	 * The returned stream has to be closed to close the file.
+	 *
+	 * @param path Path to a linegraph file in which only VariationDiffs are stored.
+	 * @param options Options for the import, such as hints for the used formats for node and edge labels.
+	 * @return A sequential stream of all {@link VariationDiff VariationDiffs} contained in the linegraph file.
+	 * @throws IOException when the file can't be opened.
+	 * @see #streamLineGraph
+	 */
+	public static Stream<VariationDiff<DiffLinesLabel>> streamFile(final Path path, final LineGraphImportOptions<DiffLinesLabel> options) throws IOException {
+		Assert.assertTrue(Files.isRegularFile(path));
+		Assert.assertTrue(FileUtils.isLineGraph(path));
+		final BufferedReader input = Files.newBufferedReader(path);
+		return streamLineGraph(input, path, options).onClose(() -> {
+			try {
+				input.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
 	/**
 	 * Import all VariationDiffs from the given linegraph file.
 	 *
@@ -51,68 +85,148 @@ public class LineGraphImport {
 	 * @return All {@link VariationDiff VariationDiffs} contained in the linegraph text.
 	 */
 	public static List<VariationDiff<DiffLinesLabel>> fromLineGraph(final BufferedReader lineGraph, final Path originalFile, final LineGraphImportOptions<DiffLinesLabel> options) throws IOException {
-		// All VariationDiffs read from the line graph
-		List<VariationDiff<DiffLinesLabel>> variationDiffList = new ArrayList<>();
+		try {
+			return streamLineGraph(lineGraph, originalFile, options).collect(Collectors.toList());
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Lazily imports all VariationDiffs from the given linegraph file.
+	 * Lines are only read from {@code lineGraph} when the next VariationDiff is requested from the
+	 * returned stream. The returned stream doesn't close {@code lineGraph}.
+	 *
+	 * @param lineGraph Reader that reads the linegraph file.
+	 * @param originalFile Path to the file from which the lineGraph reader is reading.
+	 * @param options Options for the import, such as hints for the used formats for node and edge labels.
+	 * @return A sequential stream of all {@link VariationDiff VariationDiffs} contained in the linegraph text.
+	 *         Reading errors are reported as {@link UncheckedIOException} by the stream operations.
+	 */
+	public static Stream<VariationDiff<DiffLinesLabel>> streamLineGraph(final BufferedReader lineGraph, final Path originalFile, final LineGraphImportOptions<DiffLinesLabel> options) {
+		return StreamSupport.stream(
+				Spliterators.spliteratorUnknownSize(
+						new VariationDiffIterator(lineGraph, originalFile, options),
+						Spliterator.ORDERED | Spliterator.NONNULL
+				),
+				false
+		);
+	}
+
+	/**
+	 * Parses the VariationDiffs of a linegraph file one after another.
+	 */
+	private static class VariationDiffIterator implements Iterator<VariationDiff<DiffLinesLabel>> {
+		private final BufferedReader lineGraph;
+		private final Path originalFile;
+		private final LineGraphImportOptions<DiffLinesLabel> options;
 
 		// All DiffNodes of one VariationDiff for determining the root node
-		List<DiffNode<DiffLinesLabel>> diffNodeList = new ArrayList<>();
+		private final List<DiffNode<DiffLinesLabel>> diffNodeList = new ArrayList<>();
 
 		// A hash map of DiffNodes
 		// <id of DiffNode, DiffNode>
-		HashMap<Integer, DiffNode<DiffLinesLabel>> diffNodes = new HashMap<>();
-
-		// The previously read VariationDiff
-		String previousVariationDiffLine = "";
-		
-		// Read the entire line graph 
-		String ln;
-		while ((ln = lineGraph.readLine()) != null) {
-			if (ln.startsWith(LineGraphConstants.LG_TREE_HEADER)) {
-				// the line represents a VariationDiff
-				
-				if (!diffNodeList.isEmpty()) {
-					VariationDiff<DiffLinesLabel> curVariationDiff = parseVariationDiff(previousVariationDiffLine, originalFile, diffNodeList, options); // parse to VariationDiff
-					variationDiffList.add(curVariationDiff); // add newly computed VariationDiff to the list of all VariationDiffs
-					
-					// Remove all DiffNodes from list
-					diffNodeList.clear();
-					diffNodes.clear();	
-				} 
-				previousVariationDiffLine = ln;
-			} else if (ln.startsWith(LineGraphConstants.LG_NODE)) {
-				// the line represents a DiffNode
-				
-				// parse node from input line
-				final Pair<Integer, DiffNode<DiffLinesLabel>> idAndNode = options.nodeFormat().fromLineGraphLine(ln);
-			
-				// add DiffNode to lists of current VariationDiff
-				diffNodeList.add(idAndNode.second());
-				diffNodes.put(idAndNode.first(), idAndNode.second());
-				
-			} else if (ln.startsWith(LineGraphConstants.LG_EDGE)) {
-				// the line represent a connection with two DiffNodes
-				options.edgeFormat().connect(ln, diffNodes);
-			} else if (!ln.isBlank()) {
-				// ignore blank lines and throw an exception otherwise
-				String errorMessage = String.format(
-						"Line graph syntax error. Expects: \"%s\" (VariationDiff), \"%s\" (DiffNode), \"%s\" (edge) or a blank space (delimiter). Faulty input: \"%s\".", 
-						LineGraphConstants.LG_TREE_HEADER,
-						LineGraphConstants.LG_NODE,
-						LineGraphConstants.LG_EDGE,
-						ln);
-				throw new IllegalArgumentException(errorMessage);
+		private final HashMap<Integer, DiffNode<DiffLinesLabel>> diffNodes = new HashMap<>();
+
+		// The header of the VariationDiff which is currently read
+		private String previousVariationDiffLine = "";
+
+		// The next VariationDiff to return or null if it has not been parsed yet
+		private VariationDiff<DiffLinesLabel> next = null;
+		private boolean endOfInput = false;
+
+		private VariationDiffIterator(final BufferedReader lineGraph, final Path originalFile, final LineGraphImportOptions<DiffLinesLabel> options) {
+			this.lineGraph = lineGraph;
+			this.originalFile = originalFile;
+			this.options = options;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (next == null && !endOfInput) {
+				try {
+					next = readNext();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			return next != null;
+		}
+
+		@Override
+		public VariationDiff<DiffLinesLabel> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			final VariationDiff<DiffLinesLabel> result = next;
+			next = null;
+			return result;
+		}
+
+		/**
+		 * Reads lines until a VariationDiff is complete.
+		 * @return the next VariationDiff or {@code null} if there are no more VariationDiffs.
+		 */
+		private VariationDiff<DiffLinesLabel> readNext() throws IOException {
+			String ln;
+			while ((ln = lineGraph.readLine()) != null) {
+				if (ln.startsWith(LineGraphConstants.LG_TREE_HEADER)) {
+					// the line represents a VariationDiff
+
+					final VariationDiff<DiffLinesLabel> completed = completeVariationDiff();
+					previousVariationDiffLine = ln;
+					if (completed != null) {
+						return completed;
+					}
+				} else if (ln.startsWith(LineGraphConstants.LG_NODE)) {
+					// the line represents a DiffNode
+
+					// parse node from input line
+					final Pair<Integer, DiffNode<DiffLinesLabel>> idAndNode = options.nodeFormat().fromLineGraphLine(ln);
+
+					// add DiffNode to lists of current VariationDiff
+					diffNodeList.add(idAndNode.second());
+					diffNodes.put(idAndNode.first(), idAndNode.second());
+
+				} else if (ln.startsWith(LineGraphConstants.LG_EDGE)) {
+					// the line represent a connection with two DiffNodes
+					options.edgeFormat().connect(ln, diffNodes);
+				} else if (!ln.isBlank()) {
+					// ignore blank lines and throw an exception otherwise
+					String errorMessage = String.format(
+							"Line graph syntax error. Expects: \"%s\" (VariationDiff), \"%s\" (DiffNode), \"%s\" (edge) or a blank space (delimiter). Faulty input: \"%s\".",
+							LineGraphConstants.LG_TREE_HEADER,
+							LineGraphConstants.LG_NODE,
+							LineGraphConstants.LG_EDGE,
+							ln);
+					throw new IllegalArgumentException(errorMessage);
+				}
 			}
+
+			endOfInput = true;
+			return completeVariationDiff();
 		}
 
-		if (!diffNodeList.isEmpty()) {
+		/**
+		 * Creates a VariationDiff from all nodes read since the last header.
+		 * @return the completed VariationDiff or {@code null} if no nodes were read.
+		 */
+		private VariationDiff<DiffLinesLabel> completeVariationDiff() {
+			if (diffNodeList.isEmpty()) {
+				return null;
+			}
+
 			VariationDiff<DiffLinesLabel> curVariationDiff = parseVariationDiff(previousVariationDiffLine, originalFile, diffNodeList, options); // parse to VariationDiff
-			variationDiffList.add(curVariationDiff); // add newly computed VariationDiff to the list of all VariationDiffs
+
+			// Remove all DiffNodes from list
+			diffNodeList.clear();
+			diffNodes.clear();
+
+			return curVariationDiff;
 		}
-		
-		// return all computed VariationDiffs.
-		return variationDiffList;
 	}
-	
+
 	/**
 	 * Generates a {@link VariationDiff} from the given, already parsed parameters.
 	 * 
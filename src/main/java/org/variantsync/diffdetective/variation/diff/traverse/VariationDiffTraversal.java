@@ -4,10 +4,16 @@ import org.variantsync.diffdetective.variation.Label;
 import org.variantsync.diffdetective.variation.diff.DiffNode;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
 
+import static org.variantsync.diffdetective.variation.diff.Time.AFTER;
+import static org.variantsync.diffdetective.variation.diff.Time.BEFORE;
+
 /**
  * Class for traversing VariationDiffs and accumulating results.
  * VariationDiffs are directed, acyclic graphs but not actually trees.
@@ -19,6 +25,13 @@ import java.util.function.Consumer;
  * is a depth-first search like approach.
  * The order in which nodes are visited is customizable with a {@link VariationDiffVisitor} that decides on each
  * visited node, how to proceed the traversal.
+ * For very deep VariationDiffs, {@link #preorder} and {@link #postorder} avoid the recursion of
+ * visitors by keeping the nodes to visit on an explicit stack.
+ *
+ * <p>{@link #preorder} and {@link #postorder} only remember the visited nodes which have two
+ * distinct parents because all other nodes are reached exactly once. No traversal modifies the
+ * traversed nodes, so a VariationDiff may be traversed by separate traversals on multiple threads
+ * concurrently.
  *
  * @author Paul Bittner
  */
@@ -44,6 +57,7 @@ public class VariationDiffTraversal<L extends Label> {
      * Creates a new traversal that will invoke the given callback once for each node in a visited VariationDiff.
      * @param procedure Callback that is invoked exactly once on each DiffNode in a VariationDiff.
      * @return The new traversal that will visit each node exactly once.
+     * @see #preorder
      */
     public static <L extends Label> VariationDiffTraversal<L> forAll(final Consumer<DiffNode<L>> procedure) {
         return with((traversal, subtree) -> {
@@ -52,6 +66,93 @@ public class VariationDiffTraversal<L extends Label> {
         });
     }
 
+    /**
+     * Invokes {@code procedure} exactly once on each node below and including {@code root}.
+     * Each node is visited before its children in the same order as {@link #forAll} but without
+     * recursion.
+     * @param root The node at which to start the traversal.
+     * @param procedure Callback that is invoked exactly once on each DiffNode.
+     */
+    public static <L extends Label> void preorder(final DiffNode<L> root, final Consumer<DiffNode<L>> procedure) {
+        final MultiParentNodes<L> visited = new MultiParentNodes<>();
+        final ArrayDeque<DiffNode<L>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            final DiffNode<L> node = stack.pop();
+            if (!visited.markAsVisited(node)) {
+                continue;
+            }
+
+            procedure.accept(node);
+
+            // Push the children in reverse order, so they are popped in the order of DiffNode.getAllChildren.
+            final List<DiffNode<L>> afterChildren = node.getChildOrder(AFTER);
+            for (int i = afterChildren.size() - 1; i >= 0; --i) {
+                final DiffNode<L> child = afterChildren.get(i);
+                if (child.getParent(BEFORE) != node) {
+                    stack.push(child);
+                }
+            }
+            final List<DiffNode<L>> beforeChildren = node.getChildOrder(BEFORE);
+            for (int i = beforeChildren.size() - 1; i >= 0; --i) {
+                stack.push(beforeChildren.get(i));
+            }
+        }
+    }
+
+    /**
+     * Invokes {@code procedure} exactly once on each node below and including {@code root}.
+     * Each node is visited after all of its children, without recursion.
+     * @param root The node at which to start the traversal.
+     * @param procedure Callback that is invoked exactly once on each DiffNode.
+     */
+    public static <L extends Label> void postorder(final DiffNode<L> root, final Consumer<DiffNode<L>> procedure) {
+        final MultiParentNodes<L> visited = new MultiParentNodes<>();
+        if (!visited.markAsVisited(root)) {
+            return;
+        }
+
+        // The nodes on the current path and the index of the next child to inspect for each node.
+        // Child indices count the before children first, followed by the after children.
+        final ArrayDeque<DiffNode<L>> path = new ArrayDeque<>();
+        int[] nextChild = new int[16];
+        path.push(root);
+        nextChild[0] = 0;
+
+        while (!path.isEmpty()) {
+            final int depth = path.size() - 1;
+            final DiffNode<L> node = path.peek();
+            final List<DiffNode<L>> beforeChildren = node.getChildOrder(BEFORE);
+            final List<DiffNode<L>> afterChildren = node.getChildOrder(AFTER);
+
+            DiffNode<L> unvisitedChild = null;
+            int i = nextChild[depth];
+            while (unvisitedChild == null && i < beforeChildren.size() + afterChildren.size()) {
+                final DiffNode<L> child = i < beforeChildren.size()
+                        ? beforeChildren.get(i)
+                        : afterChildren.get(i - beforeChildren.size());
+                ++i;
+
+                if ((i <= beforeChildren.size() || child.getParent(BEFORE) != node)
+                        && visited.markAsVisited(child)) {
+                    unvisitedChild = child;
+                }
+            }
+            nextChild[depth] = i;
+
+            if (unvisitedChild == null) {
+                path.pop();
+                procedure.accept(node);
+            } else {
+                if (depth + 1 == nextChild.length) {
+                    nextChild = Arrays.copyOf(nextChild, 2 * nextChild.length);
+                }
+                path.push(unvisitedChild);
+                nextChild[depth + 1] = 0;
+            }
+        }
+    }
+
     /**
      * Start the traversal of the given tree at its root.
      * @param tree The tree to traverse.
@@ -75,8 +176,17 @@ public class VariationDiffTraversal<L extends Label> {
      * @param subtree The node whose children to visit.
      */
     public void visitChildrenOf(final DiffNode<L> subtree) {
-        for (final DiffNode<L> child : subtree.getAllChildren()) {
-            visit(child);
+        // Same order as DiffNode.getAllChildren but without creating streams and iterators.
+        final List<DiffNode<L>> beforeChildren = subtree.getChildOrder(BEFORE);
+        for (int i = 0; i < beforeChildren.size(); ++i) {
+            visit(beforeChildren.get(i));
+        }
+        final List<DiffNode<L>> afterChildren = subtree.getChildOrder(AFTER);
+        for (int i = 0; i < afterChildren.size(); ++i) {
+            final DiffNode<L> child = afterChildren.get(i);
+            if (child.getParent(BEFORE) != subtree) {
+                visit(child);
+            }
         }
     }
 
@@ -89,4 +199,30 @@ public class VariationDiffTraversal<L extends Label> {
     private boolean markAsVisited(final DiffNode<L> node) {
         return visited.add(node);
     }
+
+    /**
+     * The visited nodes of {@link #preorder} and {@link #postorder}.
+     * Starting at a single node, each node with at most one distinct parent is reached exactly
+     * once via the before or after child list of its parent. Hence, only nodes with two distinct
+     * parents are stored, which is usually a small fraction of all nodes.
+     */
+    private static final class MultiParentNodes<L extends Label> {
+        private Set<DiffNode<L>> nodes;
+
+        /**
+         * Returns true iff {@code node} was reached for the first time.
+         */
+        boolean markAsVisited(final DiffNode<L> node) {
+            final DiffNode<L> beforeParent = node.getParent(BEFORE);
+            final DiffNode<L> afterParent = node.getParent(AFTER);
+            if (beforeParent == null || afterParent == null || beforeParent == afterParent) {
+                return true;
+            }
+
+            if (nodes == null) {
+                nodes = new HashSet<>();
+            }
+            return nodes.add(node);
+        }
+    }
 }
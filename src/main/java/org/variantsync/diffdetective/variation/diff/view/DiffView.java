@@ -48,6 +48,32 @@ public class DiffView {
 
         return (t, p) -> V.get(t).contains(p);
     }
+
+    /**
+     * Same as {@link #computeWhenNodesAreRelevant(VariationDiff, Relevance)} but lets the relevance
+     * predicate use an index of the variation diff (see
+     * {@link Relevance#computeViewNodes(VariationDiffIndex, Time, java.util.function.Consumer)}).
+     * Building the index once and reusing it for many relevance predicates makes answering
+     * {@link org.variantsync.diffdetective.variation.tree.view.relevance.Search Search} and
+     * {@link org.variantsync.diffdetective.variation.tree.view.relevance.Trace Trace} queries
+     * roughly linear in the size of the view instead of the size of the variation diff.
+     *
+     * @param index An index of the variation diff on which relevance of nodes should be determined.
+     * @param rho A relevance predicate for view generation.
+     * @return A binary predicate that determines whether a node in the indexed variation diff is relevant at a given time.
+     */
+    public static <L extends Label> BiPredicate<Time, Projection<L>> computeWhenNodesAreRelevant(final VariationDiffIndex<L> index, final Relevance rho) {
+        final Map<Time, Set<Projection<L>>> V = new HashMap<>();
+
+        for (final Time t : Time.values()) {
+            final Set<Projection<L>> relevantNodes_t = new HashSet<>();
+            relevantNodes_t.add(index.getVariationDiff().getRoot().projection(t));
+            rho.computeViewNodes(index, t, relevantNodes_t::add);
+            V.put(t, relevantNodes_t);
+        }
+
+        return (t, p) -> V.get(t).contains(p);
+    }
     
     /**
      * This method is not intended to be used directly and exists for optimization purposes only.
@@ -276,4 +302,150 @@ public class DiffView {
     public static <L extends Label> VariationDiff<L> optimized(final VariationDiff<L> d, final Relevance rho) {
         return optimized(d, rho, computeWhenNodesAreRelevant(d, rho));
     }
+
+    /**
+     * Generates the views of many relevance predicates on the same variation diff at once.
+     * Behaves as calling {@link #optimized(VariationDiff, Relevance)} for each query but traverses
+     * the given variation diff only once.
+     * <p>
+     * All nodes of the variation diff are numbered in a single traversal, which also records the
+     * parent and child index of each node at each time. The relevant nodes of each query are then
+     * stored in one bit set per time, computed with
+     * {@link Relevance#computeViewNodes(VariationDiffIndex, Time, java.util.function.Consumer)}.
+     * Finally, each view is built by visiting only the nodes relevant for its query, such that the
+     * cost of each additional query is proportional to the size of its view instead of the size of
+     * the variation diff.
+     * <p>
+     * The returned views do not share any nodes, so each of them may be modified independently.
+     *
+     * @param index An index of the variation diff to generate views on.
+     * @param queries Relevance predicates that determine which nodes should be contained in each view.
+     * @return One view for each relevance predicate, in the order of {@code queries}.
+     */
+    public static <L extends Label> List<VariationDiff<L>> optimized(final VariationDiffIndex<L> index, final List<? extends Relevance> queries) {
+        final VariationDiff<L> d = index.getVariationDiff();
+        final Time[] times = Time.values();
+
+        // Number all nodes in the order in which the single query algorithm visits them.
+        final List<DiffNode<L>> nodes = new ArrayList<>();
+        final Map<DiffNode<L>, Integer> ids = new HashMap<>();
+        d.forAll(node -> {
+            ids.put(node, nodes.size());
+            nodes.add(node);
+        });
+        final int n = nodes.size();
+
+        /*
+         * The id of the parent of each node at each time and the index of each node below that parent.
+         * A parent id of -1 indicates that a node has no parent at that time.
+         */
+        final int[][] parents = new int[times.length][n];
+        final int[][] indices = new int[times.length][n];
+        for (final Time t : times) {
+            final int[] parents_t = parents[t.ordinal()];
+            final int[] indices_t = indices[t.ordinal()];
+            Arrays.fill(parents_t, -1);
+
+            for (int parent = 0; parent < n; ++parent) {
+                final List<DiffNode<L>> children = nodes.get(parent).getChildOrder(t);
+                for (int i = 0; i < children.size(); ++i) {
+                    final int child = ids.get(children.get(i));
+                    parents_t[child] = parent;
+                    indices_t[child] = i;
+                }
+            }
+        }
+
+        final int rootId = ids.get(d.getRoot());
+        final List<VariationDiff<L>> views = new ArrayList<>(queries.size());
+        for (final Relevance rho : queries) {
+            // The ids of the nodes that are relevant at each time.
+            final BitSet[] relevant = new BitSet[times.length];
+            final BitSet relevantAtAnyTime = new BitSet(n);
+            for (final Time t : times) {
+                final BitSet relevant_t = new BitSet(n);
+                relevant_t.set(rootId);
+                rho.computeViewNodes(index, t, p -> relevant_t.set(ids.get(p.getBackingNode())));
+                relevant[t.ordinal()] = relevant_t;
+                relevantAtAnyTime.or(relevant_t);
+            }
+
+            views.add(optimized(d, rho, nodes, parents, indices, relevant, relevantAtAnyTime));
+        }
+
+        return views;
+    }
+
+    /**
+     * Builds a single view for {@link #optimized(VariationDiffIndex, List)}.
+     * Works as {@link #optimized(VariationDiff, Relevance, BiPredicate)} but only visits the nodes
+     * in {@code relevantAtAnyTime} and looks up parents and child indices in the given arrays.
+     */
+    private static <L extends Label> VariationDiff<L> optimized(
+            final VariationDiff<L> d,
+            final Relevance rho,
+            final List<DiffNode<L>> nodes,
+            final int[][] parents,
+            final int[][] indices,
+            final BitSet[] relevant,
+            final BitSet relevantAtAnyTime
+    ) {
+        // Copies of the nodes in d, indexed by the ids of the copied nodes.
+        final DiffNode<L>[] copies = Cast.unchecked(Array.newInstance(DiffNode.class, nodes.size()));
+
+        // An edge from a copied child to the id of its parent in d (see the single query algorithm).
+        record Edge<L extends Label>(DiffNode<L> childCopy, int parentInD, Time t, int index) {}
+        final List<Edge<L>> edges = new ArrayList<>();
+
+        DiffNode<L> rootCopy = null;
+        for (int id = relevantAtAnyTime.nextSetBit(0); id >= 0; id = relevantAtAnyTime.nextSetBit(id + 1)) {
+            final DiffNode<L> node = nodes.get(id);
+
+            final Set<Time> timesOfRelevancy = EnumSet.noneOf(Time.class);
+            for (final Time t : Time.values()) {
+                if (node.getDiffType().existsAtTime(t) && relevant[t.ordinal()].get(id)) {
+                    timesOfRelevancy.add(t);
+                }
+            }
+
+            final Optional<DiffType> dt = DiffType.thatExistsOnlyAtAll(timesOfRelevancy);
+            if (dt.isEmpty()) {
+                continue;
+            }
+
+            final DiffNode<L> copy = new DiffNode<>(
+                    dt.get(),
+                    node.getNodeType(),
+                    node.getFromLine(),
+                    node.getToLine(),
+                    node.getFormula(),
+                    node.getLabel()
+            );
+            copies[id] = copy;
+
+            boolean isRoot = true;
+            for (final Time t : timesOfRelevancy) {
+                final int parent = parents[t.ordinal()][id];
+                if (parent >= 0) {
+                    edges.add(new Edge<>(copy, parent, t, indices[t.ordinal()][id]));
+                    isRoot = false;
+                }
+            }
+
+            if (isRoot) {
+                Assert.assertNull(rootCopy);
+                rootCopy = copy;
+            }
+        }
+
+        edges.sort(Comparator.comparingInt(Edge::index));
+        for (final Edge<L> edge : edges) {
+            final DiffNode<L> parentInView = copies[edge.parentInD()];
+            Assert.assertTrue(parentInView != null, () -> "Node " + edge.childCopy() + " has no parent in view given by " + rho + " in " + d.getSource());
+            parentInView.addChild(edge.childCopy(), edge.t());
+        }
+
+        Assert.assertNotNull(rootCopy);
+        return new VariationDiff<>(rootCopy, new ViewSource<>(d, rho));
+    }
 }
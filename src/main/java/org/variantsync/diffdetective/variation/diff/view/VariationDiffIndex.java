@@ -0,0 +1,102 @@
+package org.variantsync.diffdetective.variation.diff.view;
+
+import org.variantsync.diffdetective.variation.Label;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.Projection;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Relevance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * An inverted index of a {@link VariationDiff} for answering many view queries on the same
+ * variation diff.
+ * <p>
+ * The index maps each line of an artifact to all artifact nodes containing that line and each
+ * feature name to all annotation nodes whose {@link DiffNode#getFormula() formula} mentions that
+ * feature. Relevance predicates may use it in
+ * {@link Relevance#computeViewNodes(VariationDiffIndex, Time, Consumer)} to find the relevant
+ * nodes without testing every node of the variation diff.
+ * <p>
+ * The index is built once when it is created. Hence, the indexed variation diff must not be
+ * modified while the index is in use.
+ *
+ * @param <L> The type of labels of the indexed variation diff.
+ * @see DiffView#computeWhenNodesAreRelevant(VariationDiffIndex, Relevance)
+ */
+public class VariationDiffIndex<L extends Label> {
+    private final VariationDiff<L> variationDiff;
+    private final Map<String, List<DiffNode<L>>> artifactsByLine = new HashMap<>();
+    private final Map<String, List<DiffNode<L>>> annotationsByFeature = new HashMap<>();
+
+    /**
+     * Indexes all nodes of the given variation diff.
+     * @param variationDiff The variation diff to index.
+     */
+    public VariationDiffIndex(final VariationDiff<L> variationDiff) {
+        this.variationDiff = variationDiff;
+
+        variationDiff.forAll(node -> {
+            if (node.isArtifact()) {
+                // A node is indexed only once per line, even if it contains the line multiple times.
+                for (final String line : new HashSet<>(node.getLabel().getLines())) {
+                    artifactsByLine.computeIfAbsent(line, l -> new ArrayList<>()).add(node);
+                }
+            } else if (node.getFormula() != null) {
+                for (final String feature : node.getFormula().getUniqueContainedFeatures()) {
+                    annotationsByFeature.computeIfAbsent(feature, f -> new ArrayList<>()).add(node);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the indexed variation diff.
+     */
+    public VariationDiff<L> getVariationDiff() {
+        return variationDiff;
+    }
+
+    /**
+     * Returns all artifact nodes which contain the given line in their label.
+     * @param line A line of an artifact, without a trailing line break.
+     */
+    public List<DiffNode<L>> getArtifactsContaining(final String line) {
+        return artifactsByLine.getOrDefault(line, List.of());
+    }
+
+    /**
+     * Returns all annotation nodes whose own formula mentions the given feature.
+     * Nodes without a formula (e.g., {@code #else}) are never returned.
+     * @param feature The name of a feature.
+     */
+    public List<DiffNode<L>> getAnnotationsMentioning(final String feature) {
+        return annotationsByFeature.getOrDefault(feature, List.of());
+    }
+
+    /**
+     * Invokes {@code markRelevant} on {@code p} and all its ancestors, stopping at the first
+     * projection which is already contained in {@code marked}. Hence, {@code marked} has to be
+     * closed under ancestors (i.e., the ancestors of each marked projection are marked too).
+     *
+     * @param marked The projections which were already marked. Newly marked projections are added.
+     */
+    public static <L extends Label> void markWithAncestors(
+            final Projection<L> p,
+            final Set<Projection<L>> marked,
+            final Consumer<Projection<L>> markRelevant
+    ) {
+        Projection<L> current = p;
+        while (current != null && marked.add(current)) {
+            markRelevant.accept(current);
+            current = current.getParent();
+        }
+    }
+}
@@ -38,6 +38,15 @@ import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
  * @author Benjamin Moosherr
  */
 public abstract class VariationNode<T extends VariationNode<T, L>, L extends Label> implements HasNodeType {
+    // Memoized formulas derived from the formulas of this node and its ancestors. They are null
+    // if they were not computed yet or were invalidated by forgetMemoizedFormulas. The clause
+    // lists represent conjunctions and are unmodifiable.
+    private List<Node> featureMappingClauses;
+    private List<Node> presenceConditionClauses;
+    private Node featureMapping;
+    private Node presenceCondition;
+    private List<Node> negatedAnnotationChain;
+
     /**
      * Returns this instance as the derived class type {@code T}.
      * The deriving class will only have to return {@code this} here but this can't be implemented
@@ -298,40 +307,6 @@ public abstract class VariationNode<T extends VariationNode<T, L>, L extends Lab
      */
     public abstract Node getFormula();
 
-    /**
-     * Same as {@link getFeatureMapping} but returns a list of formulas representing a conjunction.
-     */
-    private List<Node> getFeatureMappingClauses() {
-        final var parent = getParent();
-
-        if (isElse() || isElif()) {
-            List<Node> and = new ArrayList<>();
-
-            if (isElif()) {
-                and.add(getFormula());
-            }
-
-            // Negate all previous cases
-            var ancestor = parent;
-            while (!ancestor.isIf()) {
-                if (ancestor.isElif()) {
-                    and.add(negate(ancestor.getFormula()));
-                } else {
-                    throw new RuntimeException("Expected If or Elif above Else or Elif but got " + ancestor.getNodeType() + " from " + ancestor);
-                    // Assert.assertTrue(ancestor.isArtifact());
-                }
-                ancestor = ancestor.getParent();
-            }
-            and.add(negate(ancestor.getFormula()));
-
-            return and;
-        } else if (isArtifact()) {
-            return parent.downCast().getFeatureMappingClauses();
-        }
-
-        return List.of(getFormula());
-    }
-
     /**
      * Returns the full feature mapping formula of this node.
      *
@@ -343,28 +318,69 @@ public abstract class VariationNode<T extends VariationNode<T, L>, L extends Lab
      * <a href="https://github.com/SoftVarE-Group/Papers/raw/main/2022/2022-ESECFSE-Bittner.pdf">
      * our paper</a>.
      *
+     * <p>The feature mapping is memoized until the formula or the ancestors of this node change.
+     * Hence, the returned formula is shared and must not be modified.
+     *
      * @return the feature mapping of this node
      */
     public Node getFeatureMapping() {
-        final List<Node> fmClauses = getFeatureMappingClauses();
-        if (fmClauses.size() == 1) {
-            return fmClauses.get(0);
+        memoizeFormulas();
+        if (featureMapping == null) {
+            featureMapping = isArtifact()
+                ? getParent().getFeatureMapping()
+                : conjunction(featureMappingClauses);
         }
-        return new And(fmClauses);
+        return featureMapping;
     }
 
     /**
-     * Returns the presence condition clauses of this node.
+     * Returns the presence condition of this node.
+     * See Equation (2) in
+     * <a href="https://github.com/SoftVarE-Group/Papers/raw/main/2022/2022-ESECFSE-Bittner.pdf">
+     * our paper</a>.
      *
-     * @return a list representing a conjunction (i.e., all clauses should be combined with boolean
-     * AND)
-     * @see getPresenceCondition
+     * <p>The presence condition is memoized until the formula or the ancestors of this node
+     * change. Hence, the returned formula is shared and must not be modified.
+     */
+    public Node getPresenceCondition() {
+        memoizeFormulas();
+        if (presenceCondition == null) {
+            presenceCondition = isArtifact()
+                ? getParent().getPresenceCondition()
+                : conjunction(presenceConditionClauses);
+        }
+        return presenceCondition;
+    }
+
+    private static Node conjunction(final List<Node> clauses) {
+        if (clauses.size() == 1) {
+            return clauses.get(0);
+        }
+        return new And(clauses);
+    }
+
+    /**
+     * Computes the feature mapping and presence condition clauses of this node if they are not
+     * memoized yet. The clauses of all ancestors are memoized first, so they can be reused
+     * instead of walking all ancestors for each node.
      */
-    private List<Node> getPresenceConditionClauses() {
+    private void memoizeFormulas() {
+        if (presenceConditionClauses != null) {
+            return;
+        }
+
         final var parent = getParent();
+        if (parent != null) {
+            parent.downCast().memoizeFormulas();
+        }
 
         if (isElse() || isElif()) {
-            final List<Node> clauses = new ArrayList<>(getFeatureMappingClauses());
+            final List<Node> fmClauses = new ArrayList<>();
+            if (isElif()) {
+                fmClauses.add(getFormula());
+            }
+            // Negate all previous cases
+            fmClauses.addAll(parent.downCast().getNegatedAnnotationChain());
 
             // Find corresponding if
             var correspondingIf = parent;
@@ -373,39 +389,88 @@ public abstract class VariationNode<T extends VariationNode<T, L>, L extends Lab
             }
 
             // If this elif-else-chain was again nested in another annotation, add its pc.
+            final List<Node> pcClauses = new ArrayList<>(fmClauses);
             final var outerNesting = correspondingIf.getParent();
             if (outerNesting != null) {
-                clauses.addAll(outerNesting.downCast().getPresenceConditionClauses());
+                pcClauses.addAll(outerNesting.downCast().presenceConditionClauses);
             }
 
-            return clauses;
+            featureMappingClauses = Collections.unmodifiableList(fmClauses);
+            presenceConditionClauses = Collections.unmodifiableList(pcClauses);
         } else if (isArtifact()) {
-            return parent.downCast().getPresenceConditionClauses();
+            featureMappingClauses = parent.downCast().featureMappingClauses;
+            presenceConditionClauses = parent.downCast().presenceConditionClauses;
+        } else {
+            // this is mapping or root
+            featureMappingClauses = List.of(getFormula());
+            if (parent == null) {
+                presenceConditionClauses = featureMappingClauses;
+            } else {
+                final List<Node> pcClauses = new ArrayList<>(parent.downCast().presenceConditionClauses.size() + 1);
+                pcClauses.addAll(parent.downCast().presenceConditionClauses);
+                pcClauses.add(getFormula());
+                presenceConditionClauses = Collections.unmodifiableList(pcClauses);
+            }
         }
+    }
 
-        // this is mapping or root
-        final List<Node> clauses;
-        if (parent == null) {
-            clauses = new ArrayList<>(1);
-        } else {
-            clauses = parent.downCast().getPresenceConditionClauses();
+    /**
+     * Returns the negations of the formulas of this node and all previous cases in its
+     * if-elif-else chain, which are part of the feature mappings of the following
+     * {@link NodeType#ELIF} and {@link NodeType#ELSE} nodes.
+     * May only be called if the formulas of this node are memoized.
+     */
+    private List<Node> getNegatedAnnotationChain() {
+        if (negatedAnnotationChain == null) {
+            if (!isIf() && !isElif()) {
+                throw new RuntimeException("Expected If or Elif above Else or Elif but got " + getNodeType() + " from " + this);
+            }
+
+            final List<Node> negations = new ArrayList<>();
+            negations.add(negate(getFormula()));
+            if (isElif()) {
+                negations.addAll(getParent().downCast().getNegatedAnnotationChain());
+            }
+            negatedAnnotationChain = Collections.unmodifiableList(negations);
         }
-        clauses.add(getFormula());
-        return clauses;
+        return negatedAnnotationChain;
     }
 
     /**
-     * Returns the presence condition of this node.
-     * See Equation (2) in
-     * <a href="https://github.com/SoftVarE-Group/Papers/raw/main/2022/2022-ESECFSE-Bittner.pdf">
-     * our paper</a>.
+     * Drops the memoized formulas of this node, which are derived from the formulas of this node
+     * and its ancestors. Deriving classes have to call this method (usually using
+     * {@link forgetMemoizedFormulasOfSubtree}) whenever they change the formula or the parent
+     * of a node.
+     *
+     * <p>The formulas of a node are only memoized if the formulas of its parent are memoized.
+     * Hence, if this method returns {@code false}, no formulas of the whole subtree are memoized.
+     *
+     * @return {@code true} iff any formulas of this node were memoized
      */
-    public Node getPresenceCondition() {
-        final List<Node> pcClauses = getPresenceConditionClauses();
-        if (pcClauses.size() == 1) {
-            return pcClauses.get(0);
+    protected boolean forgetMemoizedFormulas() {
+        if (presenceConditionClauses == null) {
+            return false;
+        }
+
+        featureMappingClauses = null;
+        presenceConditionClauses = null;
+        featureMapping = null;
+        presenceCondition = null;
+        negatedAnnotationChain = null;
+        return true;
+    }
+
+    /**
+     * Drops the memoized formulas of all nodes in this subtree.
+     *
+     * @see forgetMemoizedFormulas
+     */
+    protected void forgetMemoizedFormulasOfSubtree() {
+        if (forgetMemoizedFormulas()) {
+            for (var child : getChildren()) {
+                child.downCast().forgetMemoizedFormulasOfSubtree();
+            }
         }
-        return new And(pcClauses);
     }
 
     /**
@@ -202,12 +202,14 @@ public class VariationTreeNode<L extends Label> extends VariationNode<VariationT
     public void addChild(final VariationTreeNode<L> child) {
         child.setParent(this);
         childOrder.add(child);
+        child.forgetMemoizedFormulasOfSubtree();
     }
 
     @Override
     public void insertChild(final VariationTreeNode<L> child, int index) {
         child.setParent(this);
         childOrder.add(index, child);
+        child.forgetMemoizedFormulasOfSubtree();
     }
 
     @Override
@@ -215,12 +217,14 @@ public class VariationTreeNode<L extends Label> extends VariationNode<VariationT
         Assert.assertTrue(isChild(child));
         child.parent = null;
         childOrder.remove(child);
+        child.forgetMemoizedFormulasOfSubtree();
     }
 
     @Override
     public void removeAllChildren() {
         for (var child : childOrder) {
             child.parent = null;
+            child.forgetMemoizedFormulasOfSubtree();
         }
 
         childOrder.clear();
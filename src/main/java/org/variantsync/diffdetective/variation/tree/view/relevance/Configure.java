@@ -2,10 +2,13 @@ package org.variantsync.diffdetective.variation.tree.view.relevance;
 
 import org.prop4j.Node;
 import org.prop4j.NodeWriter;
+import org.variantsync.diffdetective.analysis.logic.IncrementalSAT;
 import org.variantsync.diffdetective.analysis.logic.SAT;
 import org.variantsync.diffdetective.util.fide.FixTrueFalse;
 import org.variantsync.diffdetective.variation.tree.VariationNode;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Consumer;
 
 /**
@@ -45,15 +48,89 @@ public class Configure implements Relevance {
         );
     }
 
+    /**
+     * Marks all nodes below {@code v} (inclusive) which are present under this configuration.
+     * <p>
+     * Instead of checking the presence condition of each node from scratch, the configuration is
+     * loaded only once into an {@link IncrementalSAT incremental solver}. The feature mapping of
+     * each visited annotation is added to this solver only once, too. Each node is then checked by
+     * assuming the feature mappings along its path, such that the presence condition of a node is
+     * never constructed explicitly.
+     */
     @Override
     public <TreeNode extends VariationNode<TreeNode, ?>> void computeViewNodes(TreeNode v, Consumer<TreeNode> markRelevant) {
+        final IncrementalSAT solver = new IncrementalSAT(configuration.get());
+
+        Path scope = null;
+        Path chainScope = null;
+        if (v.getParent() != null) {
+            scope = new Path(solver.addActivatable(v.getPresenceCondition()), null);
+
+            if (v.isIf() || v.isElif()) {
+                // Find the corresponding if to determine the scope of the following else and elif branches.
+                TreeNode correspondingIf = v;
+                while (!correspondingIf.isIf()) {
+                    correspondingIf = correspondingIf.getParent();
+                }
+
+                final TreeNode outerNesting = correspondingIf.getParent();
+                if (outerNesting != null) {
+                    chainScope = new Path(solver.addActivatable(outerNesting.getPresenceCondition()), null);
+                }
+            }
+        }
+
+        computeViewNodes(solver, v, scope, chainScope, markRelevant);
+    }
+
+    /**
+     * Recursive implementation of {@link #computeViewNodes(VariationNode, Consumer)}.
+     *
+     * @param scope the activation variables whose conjunction is the presence condition of {@code v}
+     * @param chainScope the scope of the annotation surrounding the if-elif-else chain of {@code v}
+     */
+    private <TreeNode extends VariationNode<TreeNode, ?>> void computeViewNodes(
+            final IncrementalSAT solver,
+            final TreeNode v,
+            final Path scope,
+            final Path chainScope,
+            final Consumer<TreeNode> markRelevant
+    ) {
         markRelevant.accept(v);
 
         for (final TreeNode c : v.getChildren()) {
-            // If the child is an artifact it has the same presence condition as we do, so it is also included in the view.
-            if (c.isArtifact() || test(c)) {
-                computeViewNodes(c, markRelevant);
+            if (c.isArtifact()) {
+                // If the child is an artifact it has the same presence condition as we do, so it is also included in the view.
+                computeViewNodes(solver, c, scope, chainScope, markRelevant);
+                continue;
+            }
+
+            // The presence condition of else and elif branches does not depend on the previous branches in their chain.
+            final Path outerScope = c.isElse() || c.isElif() ? chainScope : scope;
+            final Object activation = solver.addActivatable(c.getFeatureMapping());
+            final Path childScope = new Path(activation, outerScope);
+
+            if (solver.isSatisfiableUnder(childScope.toAssumptions())) {
+                computeViewNodes(solver, c, childScope, outerScope, markRelevant);
+            }
+            solver.deactivate(activation);
+        }
+    }
+
+    /**
+     * A path of activation variables of an {@link IncrementalSAT} solver.
+     * The conjunction of the corresponding formulas is a presence condition.
+     *
+     * @param activation the activation variable of the innermost feature mapping
+     * @param outer the activation variables of the surrounding feature mappings, or {@code null}
+     */
+    private record Path(Object activation, Path outer) {
+        Map<Object, Boolean> toAssumptions() {
+            final Map<Object, Boolean> assumptions = new HashMap<>();
+            for (Path p = this; p != null; p = p.outer()) {
+                assumptions.put(p.activation(), true);
             }
+            return assumptions;
         }
     }
 
@@ -1,5 +1,9 @@
 package org.variantsync.diffdetective.variation.tree.view.relevance;
 
+import org.variantsync.diffdetective.variation.Label;
+import org.variantsync.diffdetective.variation.diff.Projection;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.view.VariationDiffIndex;
 import org.variantsync.diffdetective.variation.tree.VariationNode;
 
 import java.util.function.Consumer;
@@ -32,6 +36,24 @@ public interface Relevance extends Predicate<VariationNode<?, ?>> {
         computeViewNodesCheckAll(this, v, markRelevant);
     }
 
+    /**
+     * Marks all nodes that should be contained within a view on the variation tree at time
+     * {@code t} of the variation diff indexed by {@code index}.
+     * The marked nodes are the same as for {@link #computeViewNodes(VariationNode, Consumer)} on
+     * the {@link Projection projection} of the root at time {@code t}, except that the root
+     * itself may or may not be marked.
+     * Relevance predicates may override this method to answer queries using the index instead of
+     * testing all nodes. By default, the index is not used.
+     *
+     * @param index An index of the variation diff on which a view should be computed.
+     * @param t The time of the variation tree on which a view should be computed.
+     * @param markRelevant Callback that is invoked on each projection that is deemed relevant.
+     * @param <L> The type of labels of the indexed variation diff.
+     */
+    default <L extends Label> void computeViewNodes(final VariationDiffIndex<L> index, final Time t, final Consumer<Projection<L>> markRelevant) {
+        computeViewNodes(index.getVariationDiff().getRoot().projection(t), markRelevant);
+    }
+
     /**
      * Marks all nodes that should be contained within a view on the given tree.
      * In particular, this function checks each node in the given tree v on relevance.
@@ -1,7 +1,16 @@
 package org.variantsync.diffdetective.variation.tree.view.relevance;
 
+import org.variantsync.diffdetective.variation.Label;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.Projection;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.view.VariationDiffIndex;
 import org.variantsync.diffdetective.variation.tree.VariationNode;
 
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
 /**
  * Relevance predicate that searches for implementation artifacts in a variation tree.
  * This relevance predicate is the implementation of Equation 7 in our SPLC'23 paper.
@@ -16,6 +25,19 @@ public record Search(String artifact) implements Relevance {
         return false;
     }
 
+    /**
+     * Marks exactly the artifacts containing {@link #artifact()} as found in the index.
+     */
+    @Override
+    public <L extends Label> void computeViewNodes(VariationDiffIndex<L> index, Time t, Consumer<Projection<L>> markRelevant) {
+        final Set<Projection<L>> marked = new HashSet<>();
+        for (final DiffNode<L> node : index.getArtifactsContaining(artifact)) {
+            if (node.getDiffType().existsAtTime(t)) {
+                VariationDiffIndex.markWithAncestors(node.projection(t), marked, markRelevant);
+            }
+        }
+    }
+
     @Override
     public String parametersToString() {
         return artifact();
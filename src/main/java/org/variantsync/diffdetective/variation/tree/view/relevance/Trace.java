@@ -1,7 +1,16 @@
 package org.variantsync.diffdetective.variation.tree.view.relevance;
 
+import org.variantsync.diffdetective.variation.Label;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.Projection;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.view.VariationDiffIndex;
 import org.variantsync.diffdetective.variation.tree.VariationNode;
 
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
 /**
  * Relevance predicate that traces a certain feature syntactically within a variation tree.
  * This relevance predicate is the implementation of Equation 6 in our SPLC'23 paper.
@@ -14,6 +23,42 @@ public record Trace(String featureName) implements Relevance {
         );
     }
 
+    /**
+     * The presence condition of a node mentions a feature iff the formula of the node or of one
+     * of its ancestors mentions that feature. Hence, exactly the subtrees of the annotations
+     * found in the index are marked.
+     */
+    @Override
+    public <L extends Label> void computeViewNodes(VariationDiffIndex<L> index, Time t, Consumer<Projection<L>> markRelevant) {
+        final Set<Projection<L>> marked = new HashSet<>();
+        final Set<Projection<L>> markedSubtrees = new HashSet<>();
+        for (final DiffNode<L> annotation : index.getAnnotationsMentioning(featureName)) {
+            if (annotation.getDiffType().existsAtTime(t)) {
+                final Projection<L> p = annotation.projection(t);
+                markSubtree(p, marked, markedSubtrees, markRelevant);
+                VariationDiffIndex.markWithAncestors(p.getParent(), marked, markRelevant);
+            }
+        }
+    }
+
+    private static <L extends Label> void markSubtree(
+            final Projection<L> p,
+            final Set<Projection<L>> marked,
+            final Set<Projection<L>> markedSubtrees,
+            final Consumer<Projection<L>> markRelevant
+    ) {
+        if (!markedSubtrees.add(p)) {
+            return;
+        }
+
+        if (marked.add(p)) {
+            markRelevant.accept(p);
+        }
+        for (final Projection<L> child : p.getChildren()) {
+            markSubtree(child, marked, markedSubtrees, markRelevant);
+        }
+    }
+
     @Override
     public String parametersToString() {
         return featureName();
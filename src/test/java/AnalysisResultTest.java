@@ -0,0 +1,109 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.variantsync.diffdetective.analysis.Analysis;
+import org.variantsync.diffdetective.analysis.AnalysisResult;
+import org.variantsync.diffdetective.analysis.SimpleMetadata;
+import org.variantsync.diffdetective.analysis.StatisticsAnalysis;
+import org.variantsync.diffdetective.diff.result.DiffError;
+import org.variantsync.diffdetective.metadata.ExplainedFilterSummary;
+import org.variantsync.diffdetective.tablegen.MiningResultAccumulator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AnalysisResultTest {
+    private static AnalysisResult emptyResult() {
+        final var result = new AnalysisResult("repo");
+        result.append(StatisticsAnalysis.RESULT, new StatisticsAnalysis.Result("repo"));
+        result.append(ExplainedFilterSummary.KEY, new ExplainedFilterSummary());
+        return result;
+    }
+
+    private static AnalysisResult exampleResult(int seed) {
+        final var result = emptyResult();
+        result.taskName = "test";
+        result.get(Analysis.TotalNumberOfCommitsResult.KEY).value = 10 * seed;
+
+        final var statistics = result.get(StatisticsAnalysis.RESULT);
+        statistics.processedCommits = 3 * seed;
+        statistics.emptyCommits = seed;
+        statistics.totalPatches = 7 * seed;
+        statistics.processedPatches = 5 * seed;
+        statistics.runtimeInSeconds = 0.5 * seed;
+        statistics.min.set("abc" + seed, "repo", seed);
+        statistics.max.set("def" + seed, "repo", 100L * seed);
+
+        result.reportDiffErrors(List.of(DiffError.NOT_ALL_ANNOTATIONS_CLOSED, DiffError.values()[seed % DiffError.values().length]));
+        return result;
+    }
+
+    @Test
+    public void binaryRoundTrip(@TempDir Path dir) throws IOException {
+        final AnalysisResult expected = exampleResult(1);
+        final Path file = dir.resolve("result" + Analysis.BINARY_EXTENSION);
+        expected.exportBinaryTo(file);
+
+        final AnalysisResult actual = emptyResult();
+        actual.setFromBinary(file);
+        assertEquals(expected.snapshot(), actual.snapshot());
+    }
+
+    @Test
+    public void binaryMergeEqualsTextMerge(@TempDir Path dir) {
+        final List<Path> textFiles = new ArrayList<>();
+        final List<Path> binaryFiles = new ArrayList<>();
+        for (int i = 1; i <= 20; ++i) {
+            final AnalysisResult result = exampleResult(i);
+            final Path text = dir.resolve(i + Analysis.EXTENSION);
+            final Path binary = dir.resolve(i + Analysis.BINARY_EXTENSION);
+            result.exportTo(text);
+            result.exportBinaryTo(binary);
+            textFiles.add(text);
+            binaryFiles.add(binary);
+        }
+
+        assertEquals(
+                MiningResultAccumulator.merge(textFiles).snapshot(),
+                MiningResultAccumulator.merge(binaryFiles).snapshot());
+    }
+
+    private static final class StringResult extends SimpleMetadata<String, StringResult> {
+        StringResult(String value) {
+            super(value, "value", String::concat, s -> s);
+        }
+    }
+
+    @Test
+    public void binaryRoundTripOfLongStrings() throws IOException {
+        // DataOutput.writeUTF is limited to 64 KiB.
+        final var expected = new StringResult("\u00e4bc".repeat(100_000));
+        final var buffer = new ByteArrayOutputStream();
+        expected.writeBinary(new DataOutputStream(buffer));
+
+        final var actual = new StringResult("");
+        actual.readBinary(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())));
+        assertEquals(expected.value, actual.value);
+    }
+
+    @Test
+    public void binaryRoundTripOfOptionalAndLongNames() throws IOException {
+        final AnalysisResult expected = exampleResult(1);
+        expected.repoName = null;
+        expected.taskName = "t".repeat(100_000);
+        expected.get(StatisticsAnalysis.RESULT).min.set("c".repeat(100_000), "repo", 1);
+        final var buffer = new ByteArrayOutputStream();
+        expected.writeBinary(new DataOutputStream(buffer));
+
+        final AnalysisResult actual = emptyResult();
+        actual.readBinary(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())));
+        assertEquals(expected.snapshot(), actual.snapshot());
+    }
+}
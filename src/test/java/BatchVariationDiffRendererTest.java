@@ -0,0 +1,151 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.shell.PythonCommand;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.diff.render.BatchVariationDiffRenderer;
+import org.variantsync.diffdetective.variation.diff.render.RenderOptions;
+import org.variantsync.diffdetective.variation.diff.render.VariationDiffRenderer;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchVariationDiffRendererTest {
+    /**
+     * Stands in for the render script, which requires a python environment with graphviz.
+     * It implements the same protocol but only checks the given file instead of rendering it.
+     * Files whose name contains "crash" terminate the process.
+     */
+    private static final String FAKE_RENDER_SCRIPT = """
+            import os, sys
+            assert "--server" in sys.argv
+            for request in sys.stdin:
+                infile = request.strip()
+                if "crash" in infile:
+                    sys.exit(1)
+                with open(infile) as f:
+                    ok = f.readline().startswith("t # ")
+                sys.stdout.write("OK\\n" if ok and "fail" not in infile else "ERROR invalid file\\n")
+                sys.stdout.flush()
+            """;
+
+    @Test
+    public void rendersManyTreesWithFewProcesses(@TempDir Path dir) throws IOException, DiffParseException {
+        final Path script = dir.resolve("fakeRender.py");
+        Files.writeString(script, FAKE_RENDER_SCRIPT);
+        final VariationDiffRenderer renderer = VariationDiffRenderer.FromThirdPartyApplication(() -> PythonCommand.Python3(script), null);
+
+        final VariationDiff<DiffLinesLabel> tree = VariationDiff.fromFile(
+                Constants.RESOURCE_DIR.resolve("badvdiff").resolve("1.diff"),
+                VariationDiffParseOptions.Default);
+
+        final List<String> names = new ArrayList<>();
+        for (int i = 0; i < 20; ++i) {
+            names.add("tree" + i);
+        }
+        names.add("fail");
+        names.add("crash");
+        names.add("afterCrash");
+
+        final List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        // With a single worker, the queue fills up and the process has to be restarted after the crash.
+        try (BatchVariationDiffRenderer<DiffLinesLabel> batch = renderer.batch(RenderOptions.DEFAULT(), 1)) {
+            for (final String name : names) {
+                results.add(batch.render(tree, name, dir));
+            }
+        }
+
+        for (int i = 0; i < names.size(); ++i) {
+            final String name = names.get(i);
+            final boolean expectSuccess = !name.equals("fail") && !name.equals("crash");
+            assertTrue(results.get(i).isDone());
+            assertEquals(expectSuccess, results.get(i).join(), name);
+            // Temporary files are only removed on success.
+            assertEquals(!expectSuccess, Files.exists(dir.resolve(name + ".lg")), name);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> renderer.batch(RenderOptions.DEFAULT(), 0));
+    }
+
+    private static VariationDiff<DiffLinesLabel> testTree() throws IOException, DiffParseException {
+        return VariationDiff.fromFile(
+                Constants.RESOURCE_DIR.resolve("badvdiff").resolve("1.diff"),
+                VariationDiffParseOptions.Default);
+    }
+
+    @Test
+    public void survivesUnexpectedExceptions(@TempDir Path dir) throws IOException, DiffParseException {
+        final Path script = dir.resolve("fakeRender.py");
+        Files.writeString(script, FAKE_RENDER_SCRIPT);
+        final AtomicInteger commands = new AtomicInteger();
+        final VariationDiffRenderer renderer = VariationDiffRenderer.FromThirdPartyApplication(() -> {
+            if (commands.getAndIncrement() == 0) {
+                throw new IllegalStateException("no python available");
+            }
+            return PythonCommand.Python3(script);
+        }, null);
+
+        final VariationDiff<DiffLinesLabel> tree = testTree();
+        final CompletableFuture<Boolean> failed;
+        final CompletableFuture<Boolean> succeeded;
+        try (BatchVariationDiffRenderer<DiffLinesLabel> batch = renderer.batch(RenderOptions.DEFAULT(), 1)) {
+            failed = batch.render(tree, "first", dir);
+            succeeded = batch.render(tree, "second", dir);
+        }
+
+        assertFalse(failed.join());
+        assertTrue(succeeded.join());
+    }
+
+    @Test
+    public void completesQueuedJobsWhenInterrupted(@TempDir Path dir) throws IOException, DiffParseException, InterruptedException, ExecutionException, TimeoutException {
+        final Path script = dir.resolve("fakeRender.py");
+        Files.writeString(script, FAKE_RENDER_SCRIPT);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch never = new CountDownLatch(1);
+        final VariationDiffRenderer renderer = VariationDiffRenderer.FromThirdPartyApplication(() -> {
+            // Blocks the only worker until it is interrupted.
+            started.countDown();
+            try {
+                never.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return PythonCommand.Python3(script);
+        }, null);
+
+        final VariationDiff<DiffLinesLabel> tree = testTree();
+        final BatchVariationDiffRenderer<DiffLinesLabel> batch = renderer.batch(RenderOptions.DEFAULT(), 1);
+        final CompletableFuture<Boolean> running = batch.render(tree, "running", dir);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        final List<CompletableFuture<Boolean>> queued = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) {
+            queued.add(batch.render(tree, "queued" + i, dir));
+        }
+
+        Thread.currentThread().interrupt();
+        batch.close();
+        assertTrue(Thread.interrupted());
+
+        for (final CompletableFuture<Boolean> result : queued) {
+            assertTrue(result.isDone());
+            assertFalse(result.join());
+        }
+        assertFalse(running.get(10, TimeUnit.SECONDS));
+    }
+}
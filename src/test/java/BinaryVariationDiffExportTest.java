@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.diff.serialize.BinaryVariationDiffExporter;
+import org.variantsync.diffdetective.variation.diff.serialize.BinaryVariationDiffImport;
+import org.variantsync.diffdetective.variation.diff.serialize.Exporter;
+import org.variantsync.diffdetective.variation.diff.serialize.treeformat.CommitDiffVariationDiffLabelFormat;
+import org.variantsync.diffdetective.variation.diff.source.CommitDiffVariationDiffSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryVariationDiffExportTest {
+    private final static Path testDir = Constants.RESOURCE_DIR.resolve("diffs").resolve("parser");
+
+    private static List<VariationDiff<DiffLinesLabel>> variationDiffs() throws IOException, DiffParseException {
+        final List<VariationDiff<DiffLinesLabel>> variationDiffs = new ArrayList<>();
+        for (final Path testCase : VariationDiffParserTest.findTestCases(testDir).toList()) {
+            final VariationDiff<DiffLinesLabel> variationDiff = VariationDiff.fromFile(testCase, VariationDiffParseOptions.Default);
+            variationDiff.setSource(new CommitDiffVariationDiffSource(testDir.relativize(testCase), "0123456789abcdef"));
+            variationDiffs.add(variationDiff);
+        }
+        return variationDiffs;
+    }
+
+    private static void assertSameVariationDiffs(List<VariationDiff<DiffLinesLabel>> expected, List<VariationDiff<DiffLinesLabel>> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            actual.get(i).assertConsistency();
+            TestUtils.assertSameVariationDiff(expected.get(i), actual.get(i));
+
+            final var expectedSource = (CommitDiffVariationDiffSource) expected.get(i).getSource();
+            final var actualSource = (CommitDiffVariationDiffSource) actual.get(i).getSource();
+            assertEquals(expectedSource.getFileName(), actualSource.getFileName());
+            assertEquals(expectedSource.getCommitHash(), actualSource.getCommitHash());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void fileRoundTrip(boolean compress, @TempDir Path dir) throws IOException, DiffParseException {
+        final List<VariationDiff<DiffLinesLabel>> variationDiffs = variationDiffs();
+
+        final var format = new CommitDiffVariationDiffLabelFormat();
+        final Path file = dir.resolve("diffs.bin");
+        try (OutputStream output = Files.newOutputStream(file)) {
+            assertEquals(variationDiffs.size(), new BinaryVariationDiffExporter(format, compress).exportAll(variationDiffs, output));
+        }
+
+        assertSameVariationDiffs(variationDiffs, BinaryVariationDiffImport.fromFile(file, format));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void exporterWritesCompleteFiles(boolean compress) throws IOException, DiffParseException {
+        final var format = new CommitDiffVariationDiffLabelFormat();
+        final Exporter<DiffLinesLabel> exporter = new BinaryVariationDiffExporter(format, compress);
+
+        for (final VariationDiff<DiffLinesLabel> variationDiff : variationDiffs()) {
+            final var output = new ByteArrayOutputStream();
+            exporter.exportVariationDiff(variationDiff, output);
+
+            final List<VariationDiff<DiffLinesLabel>> imported;
+            try (var diffs = BinaryVariationDiffImport.stream(new ByteArrayInputStream(output.toByteArray()), format)) {
+                imported = diffs.toList();
+            }
+            assertSameVariationDiffs(List.of(variationDiff), imported);
+        }
+    }
+
+    @Test
+    public void rejectsUnknownFiles(@TempDir Path dir) throws IOException {
+        final Path file = dir.resolve("diffs.bin");
+        Files.writeString(file, "not a variation diff");
+        assertThrows(IOException.class, () -> BinaryVariationDiffImport.fromFile(file, null));
+    }
+}
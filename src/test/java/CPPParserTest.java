@@ -2,11 +2,17 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.variantsync.diffdetective.error.UnparseableFormulaException;
+import org.variantsync.diffdetective.feature.AnnotationType;
+import org.variantsync.diffdetective.feature.PreprocessorAnnotationParser;
+import org.variantsync.diffdetective.feature.PropositionalFormulaParser;
 import org.variantsync.diffdetective.feature.cpp.CPPDiffLineFormulaExtractor;
 
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class CPPParserTest {
@@ -163,4 +169,52 @@ public class CPPParserTest {
         );
     }
 
+    @ParameterizedTest
+    @MethodSource("testCases")
+    public void cachedTestCase(TestCase testCase) throws UnparseableFormulaException {
+        final var parser = PreprocessorAnnotationParser.CreateCppAnnotationParser(
+                PropositionalFormulaParser.Default,
+                new CPPDiffLineFormulaExtractor());
+
+        final var formula = parser.parseAnnotation("+" + testCase.formula());
+        assertEquals(
+                PropositionalFormulaParser.Default.parse(new CPPDiffLineFormulaExtractor().extractFormula(testCase.formula())),
+                formula);
+        // The diff symbol and leading whitespace must not prevent sharing the cached formula.
+        assertSame(formula, parser.parseAnnotation(" \t" + testCase.formula()));
+        assertSame(formula, parser.parseAnnotation("-" + testCase.formula()));
+
+        final var statistics = parser.getFormulaCacheStatistics();
+        assertEquals(2, statistics.hits);
+        assertEquals(1, statistics.misses);
+    }
+
+    private static List<String> annotationTypeTestCases() {
+        return List.of(
+                "", "#", "+", "-", "int x = 0;", "+int x = 0;", "  # include <stdio.h>",
+                "#if A", "#ifdef A", "#ifndef A", "#elif A", "#else", "#endif", "#elsewhere", "#endiff",
+                "+#if A", "-  #  elif A", " \t#\tendif", "+ # else // comment", "#e", "#en",
+                "//#if A", "// #ifdef A", "+//  #elif A", "-//#else", "//#endif", "/ /#if A", "//x#if A",
+                "#define A 1", "x #if A", "++#if A"
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("annotationTypeTestCases")
+    public void annotationTypeLexerMatchesPatterns(String line) {
+        final Pattern cpp = Pattern.compile("^[+-]?\\s*#\\s*(if|elif|else|endif)");
+        final Pattern jpp = Pattern.compile("^[+-]?\\s*//\\s*#\\s*(if|elif|else|endif)");
+
+        assertEquals(
+                expectedAnnotationType(cpp, line),
+                PreprocessorAnnotationParser.CPPAnnotationParser.determineAnnotationType(line));
+        assertEquals(
+                expectedAnnotationType(jpp, line),
+                PreprocessorAnnotationParser.JPPAnnotationParser.determineAnnotationType(line));
+    }
+
+    private static AnnotationType expectedAnnotationType(Pattern pattern, String line) {
+        final Matcher matcher = pattern.matcher(line);
+        return matcher.find() ? AnnotationType.fromName(matcher.group(1)) : AnnotationType.None;
+    }
 }
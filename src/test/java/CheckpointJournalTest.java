@@ -0,0 +1,182 @@
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.variantsync.diffdetective.analysis.Analysis;
+import org.variantsync.diffdetective.analysis.AnalysisResult;
+import org.variantsync.diffdetective.analysis.CheckpointJournal;
+import org.variantsync.diffdetective.analysis.monitoring.StageTimings;
+import org.variantsync.diffdetective.datasets.Repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CheckpointJournalTest {
+    private static List<RevCommit> commits(final Path dir, final int count) throws GitAPIException {
+        final List<RevCommit> commits = new ArrayList<>();
+        try (Git git = Git.init().setDirectory(dir.toFile()).call()) {
+            for (int i = 0; i < count; ++i) {
+                commits.add(git.commit()
+                        .setAllowEmpty(true)
+                        .setMessage("commit " + i)
+                        .setAuthor("test", "test@example.com")
+                        .setCommitter("test", "test@example.com")
+                        .call());
+            }
+        }
+        return commits;
+    }
+
+    private static List<RevCommit> toList(final Iterator<RevCommit> commits) {
+        final List<RevCommit> list = new ArrayList<>();
+        commits.forEachRemaining(list::add);
+        return list;
+    }
+
+    @Test
+    public void resume(@TempDir Path repoDir, @TempDir Path outputDir) throws GitAPIException, IOException {
+        final List<RevCommit> commits = commits(repoDir, 6);
+        final ObjectId head = commits.get(commits.size() - 1).getId();
+
+        final List<RevCommit> batch = commits.subList(1, 3);
+        final Path resultFile = outputDir.resolve(batch.get(0).getId().getName() + Analysis.BINARY_EXTENSION);
+        try (var journal = CheckpointJournal.open(outputDir, "task", head)) {
+            assertTrue(journal.getCompletedBatches().isEmpty());
+
+            final var result = new AnalysisResult("repo");
+            result.get(Analysis.TotalNumberOfCommitsResult.KEY).value = batch.size();
+            result.exportBinaryTo(resultFile);
+            journal.recordCompletedBatch(batch, resultFile);
+        }
+
+        try (var journal = CheckpointJournal.open(outputDir, "task", head)) {
+            assertEquals(1, journal.getCompletedBatches().size());
+
+            final var restored = new AnalysisResult("repo");
+            journal.restoreResults(restored, () -> new AnalysisResult("repo"));
+            assertEquals(batch.size(), restored.get(Analysis.TotalNumberOfCommitsResult.KEY).value);
+
+            final List<RevCommit> remaining = new ArrayList<>(commits);
+            remaining.removeAll(batch);
+            assertEquals(remaining, toList(journal.skipCompletedBatches(commits.iterator())));
+
+            // The recorded batch doesn't match a different order of commits.
+            final List<RevCommit> reordered = List.of(commits.get(1), commits.get(3), commits.get(2));
+            assertThrows(IllegalStateException.class, () -> toList(journal.skipCompletedBatches(reordered.iterator())));
+        }
+
+        // A journal of another task is discarded.
+        try (var journal = CheckpointJournal.open(outputDir, "other task", head)) {
+            assertTrue(journal.getCompletedBatches().isEmpty());
+        }
+    }
+
+    @Test
+    public void missingResultsAreProcessedAgain(@TempDir Path repoDir, @TempDir Path outputDir) throws GitAPIException, IOException {
+        final List<RevCommit> commits = commits(repoDir, 3);
+        final ObjectId head = commits.get(commits.size() - 1).getId();
+
+        try (var journal = CheckpointJournal.open(outputDir, "task", head)) {
+            journal.recordCompletedBatch(commits.subList(0, 2), outputDir.resolve("missing" + Analysis.BINARY_EXTENSION));
+        }
+        // Simulate a crash while writing an entry.
+        Files.writeString(outputDir.resolve(CheckpointJournal.FILE_NAME), "abc", StandardOpenOption.APPEND);
+
+        try (var journal = CheckpointJournal.open(outputDir, "task", head)) {
+            assertEquals(1, journal.getCompletedBatches().size());
+            journal.restoreResults(new AnalysisResult("repo"), () -> new AnalysisResult("repo"));
+            assertEquals(commits, toList(journal.skipCompletedBatches(commits.iterator())));
+        }
+    }
+
+    @Test
+    public void forEachCommitResumesFromJournal(
+            @TempDir Path repoDir,
+            @TempDir Path outputDir,
+            @TempDir Path interruptedOutputDir
+    ) throws GitAPIException, IOException {
+        final int numberOfCommits = 6;
+        try (Git git = Git.init().setDirectory(repoDir.toFile()).call()) {
+            for (int i = 0; i < numberOfCommits; ++i) {
+                Files.writeString(repoDir.resolve("main.c"), "#ifdef A\nint x = " + i + ";\n#endif\n");
+                git.add().addFilepattern(".").call();
+                git.commit()
+                        .setMessage("commit " + i)
+                        .setAuthor("test", "test@example.com")
+                        .setCommitter("test", "test@example.com")
+                        .call();
+            }
+        }
+        final Repository repository = Repository.fromDirectory(repoDir, "repo");
+
+        final boolean stageTimingsWereEnabled = StageTimings.isEnabled();
+        StageTimings.setEnabled(true);
+        try {
+            // Simulate an interruption by taking a snapshot of the output directory after two batches.
+            final AtomicInteger batches = new AtomicInteger();
+            final Analysis.Hooks snapshot = new Analysis.Hooks() {
+                @Override
+                public void beginBatch(Analysis analysis) throws IOException {
+                    if (batches.incrementAndGet() == 3) {
+                        try (Stream<Path> files = Files.list(analysis.getOutputDir())) {
+                            for (final Path file : files.toList()) {
+                                Files.copy(file, interruptedOutputDir.resolve(file.getFileName()));
+                            }
+                        }
+                    }
+                }
+            };
+            final AnalysisResult expected = Analysis.forEachCommit(
+                    () -> new Analysis("task", new ArrayList<>(List.of(snapshot)), repository, outputDir),
+                    1, 1, 1, 1
+            );
+            assertFalse(Files.exists(outputDir.resolve(CheckpointJournal.FILE_NAME)));
+            assertTrue(Files.exists(interruptedOutputDir.resolve(CheckpointJournal.FILE_NAME)));
+
+            final AtomicInteger processedCommits = new AtomicInteger();
+            final Analysis.Hooks counter = new Analysis.Hooks() {
+                @Override
+                public boolean beginCommit(Analysis analysis) {
+                    processedCommits.incrementAndGet();
+                    return true;
+                }
+            };
+            final AnalysisResult resumed = Analysis.forEachCommit(
+                    () -> new Analysis("task", new ArrayList<>(List.of(counter)), repository, interruptedOutputDir),
+                    1, 1, 1, 1
+            );
+
+            final int totalCommits = expected.get(Analysis.TotalNumberOfCommitsResult.KEY).value;
+            assertTrue(totalCommits > 2);
+            assertEquals(totalCommits - 2, processedCommits.get());
+            assertEquals(totalCommits, resumed.get(Analysis.TotalNumberOfCommitsResult.KEY).value);
+
+            // The stage timings of the restored batches are not lost.
+            final StageTimings expectedTimings = expected.get(StageTimings.KEY);
+            final StageTimings resumedTimings = resumed.get(StageTimings.KEY);
+            assertNotNull(expectedTimings);
+            assertNotNull(resumedTimings);
+            assertEquals(
+                    expectedTimings.getStages().get(StageTimings.COMMIT_DIFF).getCount(),
+                    resumedTimings.getStages().get(StageTimings.COMMIT_DIFF).getCount()
+            );
+        } finally {
+            StageTimings.setEnabled(stageTimingsWereEnabled);
+        }
+    }
+}
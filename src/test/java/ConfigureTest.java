@@ -0,0 +1,66 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.prop4j.Node;
+import org.variantsync.diffdetective.analysis.logic.UniqueViewsAlgorithm;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.Projection;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Configure;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ConfigureTest {
+    /**
+     * The view nodes of {@code v} as computed by checking the full presence condition of each node.
+     */
+    private static void computeViewNodesUsingPresenceConditions(
+            final Configure configure,
+            final Projection<DiffLinesLabel> v,
+            final List<Projection<DiffLinesLabel>> result
+    ) {
+        result.add(v);
+        for (final Projection<DiffLinesLabel> c : v.getChildren()) {
+            if (c.isArtifact() || configure.test(c)) {
+                computeViewNodesUsingPresenceConditions(configure, c, result);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "badvdiff/1.diff",
+            "badvdiff/2.diff",
+            "badvdiff/runningexampleInDomain.diff",
+            "diffs/collapse/elif.txt",
+            "diffs/linenumbers/elifchain.txt",
+            "pctest/else.diff"
+    })
+    public void incrementalViewEqualsPresenceConditionView(String filename) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> d = VariationDiff.fromFile(Constants.RESOURCE_DIR.resolve(Path.of(filename)), VariationDiffParseOptions.Default);
+
+        final List<Node> configurations = UniqueViewsAlgorithm.getUniquePartialConfigs(d, false);
+        for (final Node configuration : configurations) {
+            final Configure configure = new Configure(configuration);
+
+            d.forAll(node -> node.getDiffType().forAllTimesOfExistence(t -> {
+                final Projection<DiffLinesLabel> v = node.projection(t);
+
+                final List<Projection<DiffLinesLabel>> expected = new ArrayList<>();
+                computeViewNodesUsingPresenceConditions(configure, v, expected);
+
+                final List<Projection<DiffLinesLabel>> actual = new ArrayList<>();
+                configure.computeViewNodes(v, actual::add);
+
+                assertEquals(expected, actual, configure + " at " + v);
+            }));
+        }
+    }
+}
@@ -8,7 +8,11 @@ import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOpti
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
 
 public class EditClassesTest {
     private final static Path testDir = Constants.RESOURCE_DIR.resolve("patterns");
@@ -26,4 +30,28 @@ public class EditClassesTest {
             }
         });
     }
+
+    @Test
+    public void testMatchAll() throws IOException, DiffParseException {
+        final List<Path> diffs;
+        try (Stream<Path> files = Files.list(testDir)) {
+            diffs = files.filter(file -> file.toString().endsWith(".diff")).toList();
+        }
+
+        for (final Path path : diffs) {
+            final VariationDiff<DiffLinesLabel> t = VariationDiff.fromFile(path, new VariationDiffParseOptions(false, true));
+
+            final List<String> expected = new ArrayList<>();
+            t.forAll(node -> {
+                if (node.isArtifact()) {
+                    expected.add(node.getID() + " " + ProposedEditClasses.Instance.match(node).getName());
+                }
+            });
+
+            final List<String> actual = new ArrayList<>();
+            ProposedEditClasses.Instance.matchAll(t, (node, editClass) -> actual.add(node.getID() + " " + editClass.getName()));
+
+            assertEquals(expected, actual, path.toString());
+        }
+    }
 }
@@ -0,0 +1,124 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.NodeType;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.FrozenVariationDiff;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FrozenVariationDiffTest {
+    private static final Path resDir = Constants.RESOURCE_DIR.resolve("badvdiff");
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1",
+            "2",
+            "diamond",
+            "deep_insertion",
+            "emacsbug1",
+            "runningexampleInDomain"
+    })
+    public void freezeAndThaw(String filename) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> d = VariationDiff.fromFile(resDir.resolve(filename + ".diff"), VariationDiffParseOptions.Default);
+        final List<DiffNode<DiffLinesLabel>> nodes = d.computeAllNodes();
+        final FrozenVariationDiff<DiffLinesLabel> frozen = FrozenVariationDiff.of(d);
+
+        assertEquals(nodes.size(), frozen.size());
+        assertSame(d.getRoot(), nodes.get(FrozenVariationDiff.ROOT));
+        for (int i = 0; i < frozen.size(); ++i) {
+            final DiffNode<DiffLinesLabel> node = nodes.get(i);
+            assertEquals(node.getNodeType(), frozen.getNodeType(i));
+            assertEquals(node.getDiffType(), frozen.getDiffType(i));
+            assertEquals(node.getFromLine(), frozen.getFromLine(i));
+            assertEquals(node.getToLine(), frozen.getToLine(i));
+            assertSame(node.getLabel(), frozen.getLabel(i));
+
+            for (final Time t : Time.values()) {
+                assertEquals(node.getLinesAtTime(t), frozen.getLinesAtTime(i, t));
+
+                final DiffNode<DiffLinesLabel> parent = node.getParent(t);
+                assertEquals(parent == null ? FrozenVariationDiff.NO_PARENT : nodes.indexOf(parent), frozen.getParent(i, t));
+
+                final List<DiffNode<DiffLinesLabel>> children = node.getChildOrder(t);
+                assertEquals(children.size(), frozen.getChildCount(i, t));
+                for (int c = 0; c < children.size(); ++c) {
+                    assertSame(children.get(c), nodes.get(frozen.getChild(i, t, c)));
+                }
+            }
+        }
+
+        final VariationDiff<DiffLinesLabel> thawed = frozen.toVariationDiff();
+        thawed.assertConsistency();
+        // Labels are cloned and don't implement equals, so compare the frozen representations instead.
+        assertSameContents(frozen, FrozenVariationDiff.of(thawed));
+    }
+
+    private static void assertSameContents(final FrozenVariationDiff<DiffLinesLabel> expected, final FrozenVariationDiff<DiffLinesLabel> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.getNodeType(i), actual.getNodeType(i));
+            assertEquals(expected.getDiffType(i), actual.getDiffType(i));
+            assertEquals(expected.getFromLine(i), actual.getFromLine(i));
+            assertEquals(expected.getToLine(i), actual.getToLine(i));
+            assertEquals(expected.getFormula(i), actual.getFormula(i));
+            assertEquals(expected.getLabel(i).getLines(), actual.getLabel(i).getLines());
+
+            for (final Time t : Time.values()) {
+                assertEquals(expected.getParent(i, t), actual.getParent(i, t));
+                assertEquals(expected.getChildCount(i, t), actual.getChildCount(i, t));
+                for (int c = 0; c < expected.getChildCount(i, t); ++c) {
+                    assertEquals(expected.getChild(i, t, c), actual.getChild(i, t, c));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1",
+            "diamond",
+            "deep_insertion",
+            "runningexampleInDomain"
+    })
+    public void traversals(String filename) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> d = VariationDiff.fromFile(resDir.resolve(filename + ".diff"), VariationDiffParseOptions.Default);
+        final FrozenVariationDiff<DiffLinesLabel> frozen = FrozenVariationDiff.of(d);
+
+        final List<Integer> preorder = new ArrayList<>();
+        frozen.forAllPreorder(preorder::add);
+        assertEquals(frozen.size(), preorder.size());
+
+        final List<Integer> postorder = new ArrayList<>();
+        frozen.forAllPostorder(postorder::add);
+        assertEquals(frozen.size(), postorder.size());
+        assertEquals(FrozenVariationDiff.ROOT, postorder.get(postorder.size() - 1));
+
+        // Children are visited before their parents.
+        final int[] position = new int[frozen.size()];
+        for (int i = 0; i < postorder.size(); ++i) {
+            position[postorder.get(i)] = i;
+        }
+        for (int node = 0; node < frozen.size(); ++node) {
+            for (final Time t : Time.values()) {
+                final int parent = frozen.getParent(node, t);
+                if (parent != FrozenVariationDiff.NO_PARENT) {
+                    assertTrue(position[node] < position[parent]);
+                }
+            }
+        }
+
+        assertEquals(d.computeArtifactNodes().size(), frozen.count(node -> frozen.getNodeType(node) == NodeType.ARTIFACT));
+    }
+}
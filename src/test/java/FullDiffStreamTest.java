@@ -0,0 +1,134 @@
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.variantsync.diffdetective.datasets.PatchDiffParseOptions;
+import org.variantsync.diffdetective.datasets.PatchDiffParseOptions.DiffStoragePolicy;
+import org.variantsync.diffdetective.datasets.Repository;
+import org.variantsync.diffdetective.diff.git.CommitDiff;
+import org.variantsync.diffdetective.diff.git.DiffFilter;
+import org.variantsync.diffdetective.diff.git.GitDiffer;
+import org.variantsync.diffdetective.diff.result.CommitDiffResult;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that streamed full diffs are parsed to the same variation diffs as textual full diffs.
+ */
+public class FullDiffStreamTest {
+    private final static Path REPOS_DIR = Constants.RESOURCE_DIR.resolve("repos");
+
+    private static final PatchDiffParseOptions STREAMED = new PatchDiffParseOptions(
+            DiffStoragePolicy.DO_NOT_REMEMBER,
+            new VariationDiffParseOptions(false, false));
+    private static final PatchDiffParseOptions TEXTUAL = STREAMED.withDiffStoragePolicy(DiffStoragePolicy.REMEMBER_FULL_DIFF);
+
+    private static void assertSameCommitDiffs(final Git git, final RevCommit commit) {
+        final CommitDiffResult expected = GitDiffer.createCommitDiffFromFirstParent(git, DiffFilter.ALLOW_ALL, commit, TEXTUAL);
+        final CommitDiffResult actual = GitDiffer.createCommitDiffFromFirstParent(git, DiffFilter.ALLOW_ALL, commit, STREAMED);
+
+        assertEquals(expected.errors(), actual.errors());
+        assertEquals(expected.diff().isPresent(), actual.diff().isPresent());
+        if (expected.diff().isEmpty()) {
+            return;
+        }
+
+        final CommitDiff expectedDiff = expected.diff().get();
+        final CommitDiff actualDiff = actual.diff().get();
+        assertEquals(expectedDiff.getPatchAmount(), actualDiff.getPatchAmount());
+        for (int i = 0; i < expectedDiff.getPatchAmount(); ++i) {
+            TestUtils.assertSameVariationDiff(
+                    expectedDiff.getPatchDiffs().get(i).getVariationDiff(),
+                    actualDiff.getPatchDiffs().get(i).getVariationDiff());
+        }
+    }
+
+    /**
+     * Creates a map from file names to contents. A {@code null} content denotes a deleted file.
+     */
+    private static Map<String, String> files(final String... namesAndContents) {
+        final Map<String, String> files = new HashMap<>();
+        for (int i = 0; i < namesAndContents.length; i += 2) {
+            files.put(namesAndContents[i], namesAndContents[i + 1]);
+        }
+        return files;
+    }
+
+    private static RevCommit commit(final Git git, final Path dir, final Map<String, String> files) throws IOException, GitAPIException {
+        for (final var file : files.entrySet()) {
+            final Path path = dir.resolve(file.getKey());
+            if (file.getValue() == null) {
+                Files.delete(path);
+            } else {
+                Files.writeString(path, file.getValue(), StandardCharsets.UTF_8);
+            }
+        }
+
+        git.add().addFilepattern(".").call();
+        git.add().setUpdate(true).addFilepattern(".").call();
+        return git.commit().setMessage("test").setAuthor("test", "test@example.com").setCommitter("test", "test@example.com").call();
+    }
+
+    @Test
+    public void edgeCases(@TempDir Path dir) throws IOException, GitAPIException {
+        final String annotated = "a\n#if A\nb\n#endif\nc\nd\ne\nf\ng\nh\ni\n#ifdef B\nj\n#endif\nk\n";
+        try (Git git = Git.init().setDirectory(dir.toFile()).call()) {
+            final RevCommit[] commits = {
+                    commit(git, dir, files(
+                            "annotated.c", annotated,
+                            "noNewline.c", "a\n#if A\nb\n#endif",
+                            "empty.c", "",
+                            "toBeRenamed.c", "x\ny\nz\n",
+                            "toBeDeleted.c", "#if X\nlost\n#endif\n",
+                            "unicode.c", "äöü\n#if ß\n€\n#endif\n")),
+                    commit(git, dir, files(
+                            "annotated.c", annotated.replace("c\n", "c\n#if C\nnew\n#endif\n").replace("k\n", "l\n"),
+                            "noNewline.c", "a\n#if A\nb\n#endif\n",
+                            "empty.c", "now\nnot\nempty",
+                            "toBeDeleted.c", "#if X\nlost\n#endif")),
+                    commit(git, dir, files(
+                            "noNewline.c", "a\n#if A\nb\nc\n#endif",
+                            "empty.c", "",
+                            "toBeRenamed.c", null,
+                            "renamed.c", "x\ny\nz\nw\n",
+                            "toBeDeleted.c", null,
+                            "crlf.c", "a\r\n#if A\r\nb\r\n#endif\r\n",
+                            "binary.c", "\0\1\2")),
+                    commit(git, dir, files(
+                            "crlf.c", "a\r\n#if A\r\nc\r\n#endif\r\n",
+                            "unicode.c", "﻿äöü\n#if ß\n€\n#endif\n",
+                            "binary.c", "\0\1\2\3",
+                            "renamed.c", null,
+                            "renamedAgain.c", "x\ny\nz\nw\n")),
+            };
+
+            for (final RevCommit commit : commits) {
+                assertSameCommitDiffs(git, commit);
+            }
+        }
+    }
+
+    @Test
+    public void testRepository() {
+        final Repository repository = Repository.fromZip(REPOS_DIR.resolve("test-spl.zip"), "test-spl");
+        final Git git = repository.getGitRepo().run();
+        final var differ = new GitDiffer(repository.setDiffFilter(DiffFilter.ALLOW_ALL));
+
+        int commits = 0;
+        for (final RevCommit commit : differ.yieldRevCommits()) {
+            assertSameCommitDiffs(git, commit);
+            ++commits;
+        }
+        assertTrue(commits > 0);
+    }
+}
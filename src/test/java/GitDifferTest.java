@@ -1,15 +1,29 @@
 import org.apache.commons.io.IOUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.variantsync.diffdetective.analysis.Analysis;
+import org.variantsync.diffdetective.datasets.DatasetFactory;
 import org.variantsync.diffdetective.datasets.PatchDiffParseOptions;
 import org.variantsync.diffdetective.datasets.Repository;
 import org.variantsync.diffdetective.diff.git.CommitDiff;
 import org.variantsync.diffdetective.diff.git.DiffFilter;
+import org.variantsync.diffdetective.diff.git.GitDiffer;
 import org.variantsync.diffdetective.diff.git.PatchDiff;
+import org.variantsync.diffdetective.diff.result.CommitDiffResult;
 import org.variantsync.diffdetective.diff.result.DiffParseException;
 import org.variantsync.diffdetective.util.IO;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.Time;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
 import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
 import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParser;
@@ -21,7 +35,11 @@ import org.variantsync.diffdetective.variation.diff.serialize.nodeformat.FullNod
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.fail;
@@ -81,4 +99,221 @@ public class GitDifferTest {
                 )));
     }
 
+    @ParameterizedTest
+    @MethodSource("testCommits")
+    public void parallelParsing(String commitHash) throws IOException {
+        final var differ = new GitDiffer(repo());
+        final RevCommit commit = differ.getCommit(commitHash);
+
+        final CommitDiffResult expected = differ.createCommitDiff(commit);
+        final CommitDiffResult actual = differ.createCommitDiff(commit, 1);
+
+        Assertions.assertEquals(expected.errors(), actual.errors());
+        final CommitDiff expectedDiff = expected.diff().orElseThrow();
+        final CommitDiff actualDiff = actual.diff().orElseThrow();
+        Assertions.assertEquals(expectedDiff.getPatchAmount(), actualDiff.getPatchAmount());
+        for (int i = 0; i < expectedDiff.getPatchAmount(); ++i) {
+            final PatchDiff expectedPatch = expectedDiff.getPatchDiffs().get(i);
+            final PatchDiff actualPatch = actualDiff.getPatchDiffs().get(i);
+            Assertions.assertEquals(expectedPatch.getFileName(Time.AFTER), actualPatch.getFileName(Time.AFTER));
+            Assertions.assertEquals(expectedPatch.getDiff(), actualPatch.getDiff());
+            TestUtils.assertSameVariationDiff(expectedPatch.getVariationDiff(), actualPatch.getVariationDiff());
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCommits")
+    public void lazyParsing(String commitHash) throws IOException {
+        final var differ = new GitDiffer(repo());
+        final RevCommit commit = differ.getCommit(commitHash);
+
+        final CommitDiffResult expected = differ.createCommitDiff(commit);
+        final CommitDiffResult actual = differ.createLazyCommitDiff(commit);
+
+        Assertions.assertTrue(actual.errors().isEmpty());
+        final CommitDiff expectedDiff = expected.diff().orElseThrow();
+        final CommitDiff actualDiff = actual.diff().orElseThrow();
+        Assertions.assertEquals(expectedDiff.getPatchAmount(), actualDiff.getPatchAmount());
+        for (final PatchDiff patch : actualDiff.getPatchDiffs()) {
+            Assertions.assertTrue(patch.isLazy());
+            Assertions.assertFalse(patch.isParsed());
+        }
+
+        for (int i = 0; i < expectedDiff.getPatchAmount(); ++i) {
+            final PatchDiff expectedPatch = expectedDiff.getPatchDiffs().get(i);
+            final PatchDiff actualPatch = actualDiff.getPatchDiffs().get(i);
+            Assertions.assertEquals(expectedPatch.getFileName(Time.AFTER), actualPatch.getFileName(Time.AFTER));
+
+            Assertions.assertEquals(List.of(), actualPatch.parse());
+            Assertions.assertEquals(expectedPatch.getDiff(), actualPatch.getDiff());
+            TestUtils.assertSameVariationDiff(expectedPatch.getVariationDiff(), actualPatch.getVariationDiff());
+            Assertions.assertSame(actualPatch, actualPatch.getVariationDiff().getSource());
+
+            // Released patches are not parsed again.
+            actualPatch.release();
+            Assertions.assertFalse(actualPatch.isParsed());
+            Assertions.assertTrue(actualPatch.isReleased());
+            Assertions.assertThrows(IllegalStateException.class, actualPatch::getVariationDiff);
+            Assertions.assertThrows(IllegalStateException.class, actualPatch::getDiff);
+            Assertions.assertThrows(IllegalStateException.class, actualPatch::isValid);
+            Assertions.assertEquals(expectedPatch.getFileName(Time.AFTER), actualPatch.getFileName(Time.AFTER));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCommits")
+    public void forSinglePatchParsesOnlyTheRequestedPatch(String commitHash, @TempDir Path outputDir) throws IOException {
+        final Repository repo = repo();
+        final List<PatchDiff> patches = VariationDiffParser.parseCommit(repo, commitHash).getPatchDiffs();
+        final String fileName = patches.get(patches.size() - 1).getFileName(Time.AFTER);
+
+        final List<CommitDiff> commitDiffs = new ArrayList<>();
+        final var analysis = new Analysis("test", new ArrayList<>(List.of(new Analysis.Hooks() {
+            @Override
+            public void endCommit(Analysis analysis) {
+                commitDiffs.add(analysis.getCurrentCommitDiff());
+            }
+        })), repo, outputDir);
+
+        Analysis.forSinglePatch(commitHash, fileName, analysis);
+        Assertions.assertEquals(1, commitDiffs.size());
+        for (final PatchDiff patch : commitDiffs.get(0).getPatchDiffs()) {
+            Assertions.assertTrue(patch.isLazy());
+            // Only the requested patch was parsed and released after its patch phase.
+            Assertions.assertEquals(fileName.equals(patch.getFileName(Time.AFTER)), patch.isReleased());
+            Assertions.assertFalse(patch.isParsed());
+        }
+
+        // The previous setting is restored.
+        Analysis.forSingleCommit(commitHash, analysis);
+        Assertions.assertEquals(2, commitDiffs.size());
+        for (final PatchDiff patch : commitDiffs.get(1).getPatchDiffs()) {
+            Assertions.assertFalse(patch.isLazy());
+        }
+    }
+
+    @Test
+    public void treeFilterAgreesWithDiffEntryFilter(@TempDir Path repoDir) throws IOException, GitAPIException {
+        final List<String> modifiedFiles = List.of(
+                "Marlin/main.c", "Marlin/main.h", "Marlin/README.md", "Marlin/arduino/board.c",
+                "Marlin/src/deep/nested.c", "Other/main.c", "Other/deep/nested.c", "top.c", "top.txt"
+        );
+        // Renames from the first to the second path, including renames to blocked and non-allowed paths.
+        final List<List<String>> renamedFiles = List.of(
+                List.of("Marlin/renamed.c", "Marlin/renamed2.c"),
+                List.of("Marlin/blocked.c", "Marlin/arduino/blocked.c"),
+                List.of("Marlin/moved.c", "Other/moved.c"),
+                List.of("Other/included.c", "Marlin/included.c"),
+                List.of("Marlin/extension.c", "Marlin/extension.txt")
+        );
+        final List<String> addedFiles = List.of("Marlin/added.c", "Marlin/arduino/added.c", "Other/added.c");
+        final List<String> deletedFiles = List.of("Marlin/deleted.c", "Marlin/arduino/deleted.c", "Other/deleted.c");
+
+        final List<DiffFilter> filters = List.of(
+                DiffFilter.ALLOW_ALL,
+                DatasetFactory.DEFAULT_DIFF_FILTER,
+                new DiffFilter.Builder()
+                        .allowedPaths("Marlin.*")
+                        .blockedPaths(".*arduino.*")
+                        .allowedFileExtensions("c", "h")
+                        .allowedChangeTypes(DiffEntry.ChangeType.MODIFY)
+                        .build(),
+                new DiffFilter.Builder()
+                        .blockedFileExtensions("md", "txt")
+                        .allowedChangeTypes(DiffEntry.ChangeType.MODIFY)
+                        .build(),
+                // Filters allowing other changes than modifications can't be applied to the tree.
+                new DiffFilter.Builder()
+                        .allowedPaths("Marlin.*")
+                        .blockedPaths(".*arduino.*")
+                        .build(),
+                new DiffFilter.Builder()
+                        .allowedFileExtensions("c")
+                        .allowedChangeTypes(DiffEntry.ChangeType.MODIFY, DiffEntry.ChangeType.RENAME)
+                        .build(),
+                new DiffFilter.Builder()
+                        .blockedPaths(".*arduino.*")
+                        .allowedChangeTypes(DiffEntry.ChangeType.ADD, DiffEntry.ChangeType.DELETE)
+                        .build()
+        );
+
+        try (Git git = Git.init().setDirectory(repoDir.toFile()).call()) {
+            final List<RevCommit> commits = new ArrayList<>();
+
+            for (final String file : modifiedFiles) {
+                write(repoDir.resolve(file), "old " + file + "\n");
+            }
+            for (final List<String> rename : renamedFiles) {
+                write(repoDir.resolve(rename.get(0)), "unchanged content\nof " + rename.get(0) + "\n".repeat(3));
+            }
+            for (final String file : deletedFiles) {
+                write(repoDir.resolve(file), "deleted " + file + "\n");
+            }
+            git.add().addFilepattern(".").call();
+            commits.add(git.commit().setMessage("old").setAuthor("test", "test@example.com").call());
+
+            for (final String file : modifiedFiles) {
+                write(repoDir.resolve(file), "new " + file + "\n");
+            }
+            for (final List<String> rename : renamedFiles) {
+                Files.move(repoDir.resolve(rename.get(0)), repoDir.resolve(rename.get(1)));
+            }
+            for (final String file : addedFiles) {
+                write(repoDir.resolve(file), "added " + file + "\n");
+            }
+            for (final String file : deletedFiles) {
+                Files.delete(repoDir.resolve(file));
+            }
+            git.add().addFilepattern(".").call();
+            git.add().setUpdate(true).addFilepattern(".").call();
+            commits.add(git.commit().setMessage("new").setAuthor("test", "test@example.com").call());
+
+            final List<DiffEntry> allEntries = scan(git, commits, TreeFilter.ALL);
+            Assertions.assertEquals(
+                    renamedFiles.size(),
+                    allEntries.stream().filter(entry -> entry.getChangeType() == DiffEntry.ChangeType.RENAME).count()
+            );
+
+            for (final DiffFilter filter : filters) {
+                final Set<String> expected = new HashSet<>();
+                for (final DiffEntry entry : allEntries) {
+                    if (filter.filter(entry)) {
+                        expected.add(entry.toString());
+                    }
+                }
+
+                final List<DiffEntry> preFiltered = scan(git, commits, filter.getTreeFilter());
+                final Set<String> actual = new HashSet<>();
+                for (final DiffEntry entry : preFiltered) {
+                    if (filter.filter(entry)) {
+                        actual.add(entry.toString());
+                    }
+                }
+
+                Assertions.assertEquals(expected, actual, filter.toString());
+                if (filter.getTreeFilter() != TreeFilter.ALL) {
+                    Assertions.assertTrue(preFiltered.size() < allEntries.size());
+                }
+            }
+
+            Assertions.assertNotSame(TreeFilter.ALL, DatasetFactory.DEFAULT_DIFF_FILTER.getTreeFilter());
+            Assertions.assertSame(TreeFilter.ALL, filters.get(4).getTreeFilter());
+            Assertions.assertSame(TreeFilter.ALL, filters.get(5).getTreeFilter());
+            Assertions.assertSame(TreeFilter.ALL, filters.get(6).getTreeFilter());
+        }
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private static List<DiffEntry> scan(Git git, List<RevCommit> commits, TreeFilter pathFilter) throws IOException {
+        try (DiffFormatter formatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            formatter.setRepository(git.getRepository());
+            formatter.setDetectRenames(true);
+            formatter.setPathFilter(pathFilter);
+            return formatter.scan(commits.get(0).getTree(), commits.get(1).getTree());
+        }
+    }
 }
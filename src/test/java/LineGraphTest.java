@@ -9,9 +9,12 @@ import org.variantsync.diffdetective.variation.diff.serialize.nodeformat.LabelOn
 import org.variantsync.diffdetective.variation.diff.serialize.treeformat.CommitDiffVariationDiffLabelFormat;
 import org.variantsync.diffdetective.util.IO;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -67,6 +70,57 @@ public class LineGraphTest {
         }
     }
 
+    /**
+     * Test that streaming the import yields the same line graph as importing all variation diffs at once.
+     */
+    @ParameterizedTest
+    @MethodSource("testCases")
+    public void streamingImport(Path testFile) throws IOException {
+        final var expected = new ByteArrayOutputStream();
+        LineGraphExport.toLineGraphFormat(LineGraphImport.fromFile(testFile, IMPORT_OPTIONS), EXPORT_OPTIONS, expected);
+
+        final var actual = new ByteArrayOutputStream();
+        try (Stream<VariationDiff<DiffLinesLabel>> variationDiffs = LineGraphImport.streamFile(testFile, IMPORT_OPTIONS)) {
+            LineGraphExport.toLineGraphFormat(variationDiffs::iterator, EXPORT_OPTIONS, actual);
+        }
+
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    /**
+     * Test that a failed export doesn't leak a partial graph into the next export of the same exporter.
+     */
+    @ParameterizedTest
+    @MethodSource("testCases")
+    public void reuseExporterAfterFailure(Path testFile) throws IOException {
+        final VariationDiff<DiffLinesLabel> variationDiff = LineGraphImport.fromFile(testFile, IMPORT_OPTIONS).get(0);
+
+        final var labelOnly = new LabelOnlyDiffNodeFormat<DiffLinesLabel>();
+        final var fail = new boolean[]{false};
+        final var exporter = new LineGraphExporter<DiffLinesLabel>(new Format<>(
+                node -> {
+                    if (fail[0] && !node.isRoot()) {
+                        throw new IllegalStateException("broken label format");
+                    }
+                    return labelOnly.toLabel(node);
+                },
+                new DefaultEdgeLabelFormat<>()
+        ));
+
+        final var expected = new ByteArrayOutputStream();
+        new LineGraphExporter<DiffLinesLabel>(new Format<>(labelOnly, new DefaultEdgeLabelFormat<>()))
+                .exportVariationDiff(variationDiff, expected);
+
+        fail[0] = true;
+        assertThrows(IllegalStateException.class, () -> exporter.exportVariationDiff(variationDiff, new ByteArrayOutputStream()));
+
+        fail[0] = false;
+        final var actual = new ByteArrayOutputStream();
+        exporter.exportVariationDiff(variationDiff, actual);
+
+        assertEquals(expected.toString(), actual.toString());
+    }
+
 	/**
 	 * Check consistency of {@link VariationDiff VariationDiffs}.
 	 * 
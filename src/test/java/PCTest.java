@@ -1,3 +1,4 @@
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.prop4j.And;
@@ -5,16 +6,25 @@ import org.prop4j.Literal;
 import org.prop4j.Node;
 import org.tinylog.Logger;
 import org.variantsync.diffdetective.analysis.logic.SAT;
+import org.variantsync.diffdetective.util.LineRange;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.NodeType;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.Time;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
 import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.experiments.views.ViewAnalysis;
 import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.tree.VariationTreeNode;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.variantsync.diffdetective.variation.diff.Time.AFTER;
 import static org.variantsync.diffdetective.variation.diff.Time.BEFORE;
@@ -93,4 +103,69 @@ public class PCTest {
            }
         });
     }
+
+    private static void assertPC(final Node expected, final Node actual) {
+        assertTrue(SAT.equivalent(actual, expected), "PC is \"" + actual + "\" but expected \"" + expected + "\"!");
+    }
+
+    @Test
+    public void memoizedPCsFollowMutations() {
+        final var root = VariationTreeNode.createRoot(new DiffLinesLabel());
+        final var ifA = new VariationTreeNode<>(NodeType.IF, A, LineRange.Invalid(), new DiffLinesLabel());
+        final var ifB = new VariationTreeNode<>(NodeType.IF, B, LineRange.Invalid(), new DiffLinesLabel());
+        final var elifC = new VariationTreeNode<>(NodeType.ELIF, C, LineRange.Invalid(), new DiffLinesLabel());
+        final var artifact = VariationTreeNode.createArtifact(LineRange.Invalid(), new DiffLinesLabel());
+        root.addChild(ifA);
+        ifA.addChild(ifB);
+        ifB.addChild(elifC);
+        elifC.addChild(artifact);
+
+        assertPC(new And(A, C, negate(B)), artifact.getPresenceCondition());
+        assertSame(artifact.getPresenceCondition(), artifact.getPresenceCondition());
+
+        // Moving an ancestor has to invalidate the memoized presence conditions of its subtree.
+        ifB.drop();
+        root.addChild(ifB);
+        assertPC(new And(C, negate(B)), artifact.getPresenceCondition());
+        assertPC(new And(C, negate(B)), artifact.getFeatureMapping());
+
+        final var diffRoot = DiffNode.unchanged(root);
+        final var diffArtifact = diffRoot.getChildOrder(AFTER).get(1).getChildOrder(AFTER).get(0).getChildOrder(AFTER).get(0);
+        assertPC(new And(C, negate(B)), diffArtifact.getPresenceCondition(AFTER));
+
+        // Changing the formula of an ancestor has to invalidate the memoized presence conditions, too.
+        diffArtifact.getParent(AFTER).getParent(AFTER).setFormula(D);
+        assertPC(new And(C, negate(D)), diffArtifact.getPresenceCondition(AFTER));
+        assertPC(new And(C, negate(D)), diffArtifact.getPresenceCondition(BEFORE));
+
+        // Changes at one time don't affect the other time.
+        final var diffIfA = diffRoot.getChildOrder(BEFORE).get(0);
+        final var diffIfB = diffArtifact.getParent(BEFORE).getParent(BEFORE);
+        diffIfB.drop(BEFORE);
+        diffIfA.addChild(diffIfB, BEFORE);
+        assertPC(new And(A, C, negate(D)), diffArtifact.getPresenceCondition(BEFORE));
+        assertPC(new And(C, negate(D)), diffArtifact.getPresenceCondition(AFTER));
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCases")
+    public void viewGenerationDoesNotModifyPCs(final TestCase testCase) throws IOException, DiffParseException {
+        final Path path = testDir.resolve(testCase.file);
+        final VariationDiff<DiffLinesLabel> t = VariationDiff.fromFile(path, new VariationDiffParseOptions(false, true));
+
+        final Map<DiffNode<DiffLinesLabel>, Map<Time, Node>> expected = new HashMap<>();
+        t.forAll(node -> node.getDiffType().forAllTimesOfExistence(time ->
+                expected.computeIfAbsent(node, n -> new HashMap<>()).put(time, node.getPresenceCondition(time).clone())
+        ));
+
+        final var viewAnalysis = new ViewAnalysis();
+        viewAnalysis.initializeResults(null);
+        for (int i = 0; i < 20; ++i) {
+            viewAnalysis.generateRandomRelevances(t);
+        }
+
+        t.forAll(node -> node.getDiffType().forAllTimesOfExistence(time ->
+                assertEquals(expected.get(node).get(time), node.getPresenceCondition(time))
+        ));
+    }
 }
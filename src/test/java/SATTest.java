@@ -1,14 +1,23 @@
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.prop4j.*;
+import org.variantsync.diffdetective.analysis.logic.IncrementalSAT;
 import org.variantsync.diffdetective.analysis.logic.SAT;
 import org.variantsync.diffdetective.analysis.logic.Tseytin;
 import org.variantsync.diffdetective.util.fide.FixTrueFalse;
+import org.variantsync.diffdetective.util.fide.FormulaUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.variantsync.diffdetective.util.fide.FormulaUtils.negate;
 
@@ -102,4 +111,136 @@ public class SATTest {
         assertFalse(isSatisfiableNoTseytin(formula), formula.toString());
         assertFalse(isSatisfiableAlwaysTseytin(formula), formula.toString());
     }
+
+    @Test
+    public void testCanonicalKeys() {
+        assertEquals(
+                FormulaUtils.canonicalKey(new And(A, new Or(B, C), A)),
+                FormulaUtils.canonicalKey(new And(new Or(C, B), A)));
+        assertNotEquals(
+                FormulaUtils.canonicalKey(new Implies(A, B)),
+                FormulaUtils.canonicalKey(new Implies(B, A)));
+        assertTrue(FormulaUtils.canonicalKey(new AtMost(1, A, B)).isEmpty());
+    }
+
+    @Test
+    public void testCachedResults() {
+        final Node unsat = new And(A, negate(B), new Implies(A, B));
+        final Node sat = new And(A, negate(B), new Implies(B, A));
+
+        for (int i = 0; i < 2; ++i) {
+            assertFalse(SAT.isSatisfiable(unsat));
+            assertTrue(SAT.isSatisfiable(sat));
+        }
+
+        SAT.takeCurrentThreadsStatistics();
+        assertFalse(SAT.isSatisfiable(new And(new Implies(A, B), negate(B), A)));
+        final SAT.Statistics statistics = SAT.takeCurrentThreadsStatistics().orElseThrow();
+        assertEquals(1, statistics.cacheHits);
+        assertEquals(0, statistics.cacheMisses);
+        assertEquals(0, statistics.solverCalls);
+        assertTrue(SAT.takeCurrentThreadsStatistics().isEmpty());
+    }
+
+    @Test
+    public void testCardinalityConstraintsWithDifferentBounds() {
+        // Node.equals ignores the bounds of cardinality constraints.
+        final Node atMostTwo = new AtMost(2, A, B, C);
+        final Node atMostOne = new AtMost(1, A, B, C);
+
+        assertTrue(SAT.implies(atMostOne, atMostTwo));
+        assertFalse(SAT.implies(atMostTwo, atMostOne));
+        assertFalse(SAT.equivalent(atMostTwo, atMostOne));
+        assertTrue(SAT.equivalent(atMostTwo, new AtMost(2, A, B, C)));
+    }
+
+    @Test
+    public void testIncrementalSAT() {
+        final Node base = new Or(A, B);
+        final IncrementalSAT solver = new IncrementalSAT(base);
+
+        final List<Node> queries = new ArrayList<>(satisfiableTestCases());
+        queries.addAll(contradictoryTestCases());
+        queries.add(new And(negate(A), negate(B)));
+        // Repeat all queries to check that earlier queries don't influence later ones.
+        queries.addAll(List.copyOf(queries));
+
+        for (final Node query : queries) {
+            assertEquals(SAT.isSatisfiable(new And(base, query)), solver.isSatisfiableWith(query), query.toString());
+            assertEquals(SAT.implies(base, query), solver.implies(query), query.toString());
+        }
+
+        assertTrue(solver.isSatisfiable());
+        assertTrue(solver.isSatisfiableUnder(Map.of("A", false)));
+        assertFalse(solver.isSatisfiableUnder(Map.of("A", false, "B", false)));
+        assertTrue(solver.isSatisfiableUnder(Map.of("B", false)));
+    }
+
+    @Test
+    public void testIncrementalSATActivatableFormulas() {
+        final IncrementalSAT solver = new IncrementalSAT(new Or(A, B));
+
+        final Object notA = solver.addActivatable(negate(A));
+        final Object notB = solver.addActivatable(negate(B));
+        assertTrue(solver.isSatisfiableUnder(Map.of(notA, true)));
+        assertTrue(solver.isSatisfiableUnder(Map.of(notB, true)));
+        assertFalse(solver.isSatisfiableUnder(Map.of(notA, true, notB, true)));
+
+        solver.deactivate(notB);
+        assertTrue(solver.isSatisfiableUnder(Map.of(notA, true)));
+        assertFalse(solver.isSatisfiableUnder(Map.of(notB, true)));
+    }
+
+    /**
+     * The original quadratic implementation of {@link FormulaUtils#removeSemanticDuplicates}.
+     */
+    private static void removeSemanticDuplicatesPairwise(final List<Node> formulas) {
+        int len = formulas.size();
+        for (int i = 0; i < len; ++i) {
+            for (int j = i + 1; j < len; ++j) {
+                if (SAT.equivalent(formulas.get(j), formulas.get(i))) {
+                    Collections.swap(formulas, i, len - 1);
+                    --i;
+                    --len;
+                    break;
+                }
+            }
+        }
+        formulas.subList(len, formulas.size()).clear();
+    }
+
+    @Test
+    public void testRemoveSemanticDuplicates() {
+        final Literal[] variables = {A, B, C, D};
+        final Random random = new Random(42);
+
+        for (int round = 0; round < 20; ++round) {
+            final List<Node> formulas = new ArrayList<>();
+            for (int f = 0; f < 30; ++f) {
+                // Small random CNFs over few variables contain many equivalent formulas.
+                final List<Node> clauses = new ArrayList<>();
+                for (int c = random.nextInt(3) + 1; c > 0; --c) {
+                    final List<Node> clause = new ArrayList<>();
+                    for (int l = random.nextInt(2) + 1; l > 0; --l) {
+                        final Literal variable = variables[random.nextInt(2 + round % 3)];
+                        clause.add(random.nextBoolean() ? variable : negate(variable));
+                    }
+                    clauses.add(new Or(clause));
+                }
+                formulas.add(new And(clauses));
+            }
+            formulas.add(FixTrueFalse.True);
+            formulas.add(new Or(A, negate(A)));
+
+            final List<Node> expected = new ArrayList<>(formulas);
+            removeSemanticDuplicatesPairwise(expected);
+            final List<Node> actual = new ArrayList<>(formulas);
+            FormulaUtils.removeSemanticDuplicates(actual);
+
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); ++i) {
+                assertSame(expected.get(i), actual.get(i));
+            }
+        }
+    }
 }
@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.Test;
+import org.variantsync.diffdetective.analysis.monitoring.StageTimings;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StageTimingsTest {
+    private static StageTimings exampleTimings() {
+        final var timings = new StageTimings();
+        timings.record(StageTimings.TREE_DIFF, 0);
+        timings.record(StageTimings.TREE_DIFF, 1000);
+        timings.record(StageTimings.TREE_DIFF, 3000);
+        timings.record(StageTimings.FORMULA_PARSING, 70);
+        return timings;
+    }
+
+    @Test
+    public void recordingOnlyWhenEnabled() {
+        StageTimings.takeCurrentThreadsTimings();
+
+        StageTimings.setEnabled(false);
+        StageTimings.stop(StageTimings.COMMIT_DIFF, StageTimings.start());
+        assertTrue(StageTimings.takeCurrentThreadsTimings().isEmpty());
+
+        StageTimings.setEnabled(true);
+        try {
+            StageTimings.stop(StageTimings.COMMIT_DIFF, StageTimings.start());
+            StageTimings.stopHook(this, StageTimings.start());
+        } finally {
+            StageTimings.setEnabled(false);
+        }
+
+        final StageTimings timings = StageTimings.takeCurrentThreadsTimings().orElseThrow();
+        assertEquals(1, timings.getStages().get(StageTimings.COMMIT_DIFF).getCount());
+        assertEquals(1, timings.getStages().get("hook StageTimingsTest").getCount());
+        assertTrue(StageTimings.takeCurrentThreadsTimings().isEmpty());
+    }
+
+    @Test
+    public void restoreTakenTimings() {
+        StageTimings.takeCurrentThreadsTimings();
+        StageTimings.setEnabled(true);
+        try {
+            StageTimings.stop(StageTimings.COMMIT_DIFF, StageTimings.start());
+
+            // A nested task on the same thread only takes its own timings ...
+            final StageTimings enclosing = StageTimings.takeCurrentThreadsTimings().orElseThrow();
+            StageTimings.stop(StageTimings.TREE_DIFF, StageTimings.start());
+            final StageTimings nested = StageTimings.takeCurrentThreadsTimings().orElseThrow();
+            StageTimings.addToCurrentThreadsTimings(enclosing);
+            assertEquals(Set.of(StageTimings.TREE_DIFF), nested.getStages().keySet());
+
+            // ... and the timings of the enclosing task are kept.
+            StageTimings.stop(StageTimings.COMMIT_DIFF, StageTimings.start());
+        } finally {
+            StageTimings.setEnabled(false);
+        }
+
+        final StageTimings timings = StageTimings.takeCurrentThreadsTimings().orElseThrow();
+        assertEquals(Set.of(StageTimings.COMMIT_DIFF), timings.getStages().keySet());
+        assertEquals(2, timings.getStages().get(StageTimings.COMMIT_DIFF).getCount());
+    }
+
+    @Test
+    public void histogram() {
+        final var timings = exampleTimings();
+        timings.append(exampleTimings());
+
+        final StageTimings.Histogram treeDiff = timings.getStages().get(StageTimings.TREE_DIFF);
+        assertEquals(6, treeDiff.getCount());
+        assertEquals(8000, treeDiff.getTotalNanoseconds());
+        assertEquals(3000, treeDiff.getMaxNanoseconds());
+        assertEquals(0, treeDiff.percentile(10));
+        assertEquals(1023, treeDiff.percentile(50));
+        assertEquals(3000, treeDiff.percentile(100));
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        final var expected = exampleTimings();
+
+        final var snapshot = new LinkedHashMap<String, String>();
+        expected.snapshot().forEach((key, value) -> snapshot.put(key, value.toString()));
+        final var fromSnapshot = new StageTimings();
+        fromSnapshot.setFromSnapshot(snapshot);
+        assertEquals(expected.getStages(), fromSnapshot.getStages());
+
+        final var buffer = new ByteArrayOutputStream();
+        expected.writeBinary(new DataOutputStream(buffer));
+        final var fromBinary = new StageTimings();
+        fromBinary.readBinary(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())));
+        assertEquals(expected.getStages(), fromBinary.getStages());
+    }
+}
@@ -1,5 +1,10 @@
 import org.apache.commons.io.IOUtils;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.BufferedReader;
@@ -7,6 +12,8 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public final class TestUtils {
     /**
@@ -20,4 +27,36 @@ public final class TestUtils {
                     "expected content of " + filePath + " but was:<" + actual + ">");
         }
     }
+
+    /**
+     * Asserts that both variation diffs are structurally equal including their labels.
+     * In contrast to {@link VariationDiff#isSameAs}, labels are compared by their lines instead of
+     * their identity.
+     */
+    public static void assertSameVariationDiff(VariationDiff<DiffLinesLabel> expected, VariationDiff<DiffLinesLabel> actual) {
+        final List<DiffNode<DiffLinesLabel>> expectedNodes = new ArrayList<>();
+        final List<DiffNode<DiffLinesLabel>> actualNodes = new ArrayList<>();
+        expected.forAll(expectedNodes::add);
+        actual.forAll(actualNodes::add);
+
+        assertEquals(expectedNodes.size(), actualNodes.size());
+        for (int i = 0; i < expectedNodes.size(); ++i) {
+            final DiffNode<DiffLinesLabel> e = expectedNodes.get(i);
+            final DiffNode<DiffLinesLabel> a = actualNodes.get(i);
+            assertEquals(e.getDiffType(), a.getDiffType());
+            assertEquals(e.getNodeType(), a.getNodeType());
+            assertEquals(e.getFromLine(), a.getFromLine());
+            assertEquals(e.getToLine(), a.getToLine());
+            assertEquals(e.getFormula(), a.getFormula());
+            assertEquals(e.getLabel().getDiffLines(), a.getLabel().getDiffLines());
+            for (final Time time : Time.values()) {
+                assertEquals(e.getChildOrder(time).size(), a.getChildOrder(time).size());
+                for (int j = 0; j < e.getChildOrder(time).size(); ++j) {
+                    assertEquals(
+                            expectedNodes.indexOf(e.getChildOrder(time).get(j)),
+                            actualNodes.indexOf(a.getChildOrder(time).get(j)));
+                }
+            }
+        }
+    }
 }
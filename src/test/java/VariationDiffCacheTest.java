@@ -0,0 +1,107 @@
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.variantsync.diffdetective.diff.git.VariationDiffCache;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.variation.CompactDiffLinesLabel;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.diff.serialize.BinaryVariationDiffCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VariationDiffCacheTest {
+    private final static Path testDir = Constants.RESOURCE_DIR.resolve("diffs").resolve("parser");
+
+    public static Stream<Path> tests() throws IOException {
+        return VariationDiffParserTest.findTestCases(testDir);
+    }
+
+    private static VariationDiff<DiffLinesLabel> parse(Path testCase) throws IOException, DiffParseException {
+        return VariationDiff.fromFile(testCase, VariationDiffParseOptions.Default);
+    }
+
+    @ParameterizedTest
+    @MethodSource("tests")
+    public void codecRoundTrip(Path testCase) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> variationDiff = parse(testCase);
+
+        final var bytes = new ByteArrayOutputStream();
+        BinaryVariationDiffCodec.encode(variationDiff, new DataOutputStream(bytes));
+        final VariationDiff<DiffLinesLabel> decoded = BinaryVariationDiffCodec.decode(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        decoded.assertConsistency();
+        TestUtils.assertSameVariationDiff(variationDiff, decoded);
+    }
+
+    @ParameterizedTest
+    @MethodSource("tests")
+    public void cacheRoundTrip(Path testCase, @TempDir Path cacheDir) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> variationDiff = parse(testCase);
+        final var key = new VariationDiffCache.Key(
+                ObjectId.zeroId(),
+                ObjectId.fromString("0123456789abcdef0123456789abcdef01234567"),
+                VariationDiffParseOptions.Default);
+
+        final var cache = new VariationDiffCache(cacheDir);
+        assertTrue(cache.get(key).isEmpty());
+        cache.put(key, variationDiff);
+
+        // Entries have to survive reopening the cache.
+        final var reopenedCache = new VariationDiffCache(cacheDir);
+        final var cached = reopenedCache.get(key);
+        assertTrue(cached.isPresent());
+        TestUtils.assertSameVariationDiff(variationDiff, cached.get());
+        assertEquals(1, reopenedCache.getHits());
+        assertEquals(0, reopenedCache.getMisses());
+
+        // A different fingerprint must not hit the entry.
+        final var otherKey = new VariationDiffCache.Key(key.before(), key.after(), key.parseOptionsFingerprint() + "!");
+        assertTrue(reopenedCache.get(otherKey).isEmpty());
+    }
+
+    @ParameterizedTest
+    @MethodSource("tests")
+    public void eviction(Path testCase, @TempDir Path cacheDir) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> variationDiff = parse(testCase);
+        final var cache = new VariationDiffCache(cacheDir, 1);
+
+        final var key = new VariationDiffCache.Key(ObjectId.zeroId(), ObjectId.zeroId(), "");
+        cache.put(key, variationDiff);
+
+        assertEquals(0, cache.getSizeInBytes());
+        assertTrue(cache.get(key).isEmpty());
+    }
+
+    @ParameterizedTest
+    @MethodSource("tests")
+    public void compactLabelsOnCacheHit(Path testCase, @TempDir Path cacheDir) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> variationDiff = parse(testCase);
+        final var key = new VariationDiffCache.Key(ObjectId.zeroId(), ObjectId.zeroId(), VariationDiffParseOptions.Default);
+        final var cache = new VariationDiffCache(cacheDir);
+        cache.put(key, variationDiff);
+
+        // The fingerprint ignores compact labels, so they have to be restored when reading the entry.
+        assertEquals(
+                VariationDiffParseOptions.Default.getFingerprint(),
+                VariationDiffParseOptions.Default.withCompactLabels(true).getFingerprint());
+
+        final VariationDiff<DiffLinesLabel> compact = cache.get(key, true).orElseThrow();
+        compact.forAll(node -> assertInstanceOf(CompactDiffLinesLabel.class, node.getLabel()));
+        TestUtils.assertSameVariationDiff(variationDiff, compact);
+
+        final VariationDiff<DiffLinesLabel> plain = cache.get(key, false).orElseThrow();
+        plain.forAll(node -> assertFalse(node.getLabel() instanceof CompactDiffLinesLabel));
+    }
+}
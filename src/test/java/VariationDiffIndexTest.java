@@ -0,0 +1,100 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.Projection;
+import org.variantsync.diffdetective.variation.diff.Time;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.diff.view.DiffView;
+import org.variantsync.diffdetective.variation.diff.view.VariationDiffIndex;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Relevance;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Search;
+import org.variantsync.diffdetective.variation.tree.view.relevance.Trace;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VariationDiffIndexTest {
+    private static final Path resDir = Constants.RESOURCE_DIR.resolve("badvdiff");
+
+    private static List<Projection<DiffLinesLabel>> relevantNodes(
+            final VariationDiff<DiffLinesLabel> d,
+            final BiPredicate<Time, Projection<DiffLinesLabel>> inView
+    ) {
+        final List<Projection<DiffLinesLabel>> result = new ArrayList<>();
+        d.forAll(node -> node.getDiffType().forAllTimesOfExistence(t -> {
+            if (inView.test(t, node.projection(t))) {
+                result.add(node.projection(t));
+            }
+        }));
+        return result;
+    }
+
+    private static Set<Relevance> exampleQueries(final VariationDiff<DiffLinesLabel> d) {
+        final Set<Relevance> queries = new HashSet<>();
+        queries.add(new Search("not contained in any artifact"));
+        queries.add(new Trace("NOT_A_FEATURE"));
+        d.forAll(node -> {
+            if (node.isArtifact()) {
+                node.getLabel().getLines().forEach(line -> queries.add(new Search(line)));
+            } else if (node.getFormula() != null) {
+                node.getFormula().getUniqueContainedFeatures().forEach(feature -> queries.add(new Trace(feature)));
+            }
+        });
+        return queries;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1",
+            "2",
+            "diamond",
+            "deep_insertion",
+            "emacsbug1",
+            "runningexampleInDomain"
+    })
+    public void indexedQueriesEqualUnindexedQueries(String filename) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> d = VariationDiff.fromFile(resDir.resolve(filename + ".diff"), VariationDiffParseOptions.Default);
+        final VariationDiffIndex<DiffLinesLabel> index = new VariationDiffIndex<>(d);
+
+        for (final Relevance rho : exampleQueries(d)) {
+            assertEquals(
+                    relevantNodes(d, DiffView.computeWhenNodesAreRelevant(d, rho)),
+                    relevantNodes(d, DiffView.computeWhenNodesAreRelevant(index, rho)),
+                    rho.toString()
+            );
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1",
+            "2",
+            "diamond",
+            "deep_insertion",
+            "emacsbug1",
+            "runningexampleInDomain"
+    })
+    public void batchedViewsEqualSingleViews(String filename) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> d = VariationDiff.fromFile(resDir.resolve(filename + ".diff"), VariationDiffParseOptions.Default);
+
+        final List<Relevance> queries = new ArrayList<>(exampleQueries(d));
+        final List<VariationDiff<DiffLinesLabel>> views = DiffView.optimized(new VariationDiffIndex<>(d), queries);
+
+        assertEquals(queries.size(), views.size());
+        for (int i = 0; i < queries.size(); ++i) {
+            final VariationDiff<DiffLinesLabel> view = views.get(i);
+            view.assertConsistency();
+            assertTrue(DiffView.optimized(d, queries.get(i)).isSameAs(view), queries.get(i).toString());
+        }
+    }
+}
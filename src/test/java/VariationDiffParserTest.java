@@ -4,7 +4,9 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.variantsync.diffdetective.diff.result.DiffParseException;
 import org.variantsync.diffdetective.util.IO;
+import org.variantsync.diffdetective.variation.CompactDiffLinesLabel;
 import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
 import org.variantsync.diffdetective.variation.diff.VariationDiff;
 import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
 import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParser;
@@ -15,11 +17,14 @@ import org.variantsync.diffdetective.variation.diff.serialize.edgeformat.ChildOr
 import org.variantsync.diffdetective.variation.diff.serialize.edgeformat.DefaultEdgeLabelFormat;
 import org.variantsync.diffdetective.variation.diff.serialize.nodeformat.FullNodeFormat;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.stream.Stream;
 
 public class VariationDiffParserTest {
@@ -53,6 +58,32 @@ public class VariationDiffParserTest {
         testCase(testCase);
     }
 
+    @ParameterizedTest
+    @MethodSource("tests")
+    public void compactLabels(Path testCasePath) throws IOException, DiffParseException {
+        final var options = new VariationDiffParseOptions(true, false);
+        final VariationDiff<DiffLinesLabel> expected = VariationDiff.fromFile(testCasePath, options);
+        final VariationDiff<DiffLinesLabel> actual = VariationDiff.fromFile(testCasePath, options.withCompactLabels(true));
+
+        TestUtils.assertSameVariationDiff(expected, actual);
+        assertTrue(actual.allMatch(node -> node.getLabel() instanceof CompactDiffLinesLabel));
+
+        final List<DiffNode<DiffLinesLabel>> expectedNodes = expected.computeAllNodes();
+        final List<DiffNode<DiffLinesLabel>> actualNodes = actual.computeAllNodes();
+        for (int i = 0; i < expectedNodes.size(); ++i) {
+            final DiffLinesLabel expectedLabel = expectedNodes.get(i).getLabel();
+            final DiffLinesLabel actualLabel = actualNodes.get(i).getLabel();
+            assertEquals(expectedLabel.getLines(), actualLabel.getLines());
+            assertEquals(expectedLabel.toString(), actualLabel.toString());
+
+            // Clones share the buffer but not their lines.
+            final DiffLinesLabel clone = actualLabel.clone();
+            clone.addDiffLine(DiffLinesLabel.Line.withInvalidLineNumber("appended"));
+            assertEquals(expectedLabel.getDiffLines(), actualLabel.getDiffLines());
+            assertEquals("appended", clone.getLines().get(clone.getLines().size() - 1));
+        }
+    }
+
     public static void testCase(Path testCasePath) throws IOException, DiffParseException {
         String filename = testCasePath.getFileName().toString();
         String basename = filename.substring(0, filename.length() - testCaseSuffix.length());
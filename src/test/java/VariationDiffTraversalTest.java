@@ -0,0 +1,152 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.DiffNode;
+import org.variantsync.diffdetective.variation.diff.VariationDiff;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.diff.traverse.VariationDiffTraversal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+public class VariationDiffTraversalTest {
+    private static final Path testDir = Constants.RESOURCE_DIR.resolve("diffs").resolve("parser");
+
+    public static Stream<Path> testDiffs() throws IOException {
+        return Files.list(testDir)
+                .filter(path -> path.getFileName().toString().endsWith(".diff"))
+                .sorted();
+    }
+
+    private static VariationDiff<DiffLinesLabel> parse(Path diff) throws IOException, DiffParseException {
+        return VariationDiff.fromFile(diff, VariationDiffParseOptions.Default);
+    }
+
+    /**
+     * Recursive reference traversals using a set of visited nodes.
+     */
+    private static void preorder(DiffNode<DiffLinesLabel> node, Set<DiffNode<DiffLinesLabel>> visited, List<DiffNode<DiffLinesLabel>> result) {
+        if (visited.add(node)) {
+            result.add(node);
+            for (final DiffNode<DiffLinesLabel> child : node.getAllChildren()) {
+                preorder(child, visited, result);
+            }
+        }
+    }
+
+    private static void postorder(DiffNode<DiffLinesLabel> node, Set<DiffNode<DiffLinesLabel>> visited, List<DiffNode<DiffLinesLabel>> result) {
+        if (visited.add(node)) {
+            for (final DiffNode<DiffLinesLabel> child : node.getAllChildren()) {
+                postorder(child, visited, result);
+            }
+            result.add(node);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("testDiffs")
+    public void sameOrderAsRecursiveTraversal(Path diff) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> variationDiff = parse(diff);
+
+        final List<DiffNode<DiffLinesLabel>> expectedPreorder = new ArrayList<>();
+        preorder(variationDiff.getRoot(), new HashSet<>(), expectedPreorder);
+        final List<DiffNode<DiffLinesLabel>> expectedPostorder = new ArrayList<>();
+        postorder(variationDiff.getRoot(), new HashSet<>(), expectedPostorder);
+
+        final List<DiffNode<DiffLinesLabel>> forAll = new ArrayList<>();
+        VariationDiffTraversal.<DiffLinesLabel>forAll(forAll::add).visit(variationDiff);
+        Assertions.assertEquals(expectedPreorder, forAll);
+
+        final List<DiffNode<DiffLinesLabel>> preorder = new ArrayList<>();
+        VariationDiffTraversal.preorder(variationDiff.getRoot(), preorder::add);
+        Assertions.assertEquals(expectedPreorder, preorder);
+
+        final List<DiffNode<DiffLinesLabel>> postorder = new ArrayList<>();
+        VariationDiffTraversal.postorder(variationDiff.getRoot(), postorder::add);
+        Assertions.assertEquals(expectedPostorder, postorder);
+
+        // Traversing again visits all nodes again.
+        Assertions.assertEquals(expectedPreorder.size(), variationDiff.computeSize());
+    }
+
+    @ParameterizedTest
+    @MethodSource("testDiffs")
+    public void nestedTraversals(Path diff) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> variationDiff = parse(diff);
+        final int size = variationDiff.computeSize();
+
+        final List<DiffNode<DiffLinesLabel>> outer = new ArrayList<>();
+        VariationDiffTraversal.<DiffLinesLabel>forAll(node -> {
+            outer.add(node);
+            // Traverses the nodes which were already visited by the outer traversal.
+            Assertions.assertEquals(size, variationDiff.computeSize());
+        }).visit(variationDiff);
+
+        Assertions.assertEquals(size, outer.size());
+        Assertions.assertEquals(size, new HashSet<>(outer).size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("testDiffs")
+    public void reusedTraversal(Path diff) throws IOException, DiffParseException {
+        final VariationDiff<DiffLinesLabel> variationDiff = parse(diff);
+
+        final List<DiffNode<DiffLinesLabel>> visited = new ArrayList<>();
+        final VariationDiffTraversal<DiffLinesLabel> traversal = VariationDiffTraversal.forAll(visited::add);
+        traversal.visit(variationDiff);
+        Assertions.assertEquals(variationDiff.computeSize(), visited.size());
+
+        // Other traversals in between don't reset the nodes visited by a traversal.
+        VariationDiffTraversal.preorder(variationDiff.getRoot(), node -> {});
+        traversal.visit(variationDiff);
+        Assertions.assertEquals(variationDiff.computeSize(), visited.size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("testDiffs")
+    public void concurrentTraversals(Path diff) throws Exception {
+        final VariationDiff<DiffLinesLabel> variationDiff = parse(diff);
+        final List<DiffNode<DiffLinesLabel>> expectedPreorder = new ArrayList<>();
+        preorder(variationDiff.getRoot(), new HashSet<>(), expectedPreorder);
+        final List<DiffNode<DiffLinesLabel>> expectedPostorder = new ArrayList<>();
+        postorder(variationDiff.getRoot(), new HashSet<>(), expectedPostorder);
+
+        final ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < 4; ++i) {
+                tasks.add(threads.submit(() -> {
+                    for (int j = 0; j < 100; ++j) {
+                        final List<DiffNode<DiffLinesLabel>> preorder = new ArrayList<>();
+                        VariationDiffTraversal.preorder(variationDiff.getRoot(), preorder::add);
+                        Assertions.assertEquals(expectedPreorder, preorder);
+
+                        final List<DiffNode<DiffLinesLabel>> postorder = new ArrayList<>();
+                        VariationDiffTraversal.postorder(variationDiff.getRoot(), postorder::add);
+                        Assertions.assertEquals(expectedPostorder, postorder);
+
+                        final List<DiffNode<DiffLinesLabel>> forAll = new ArrayList<>();
+                        VariationDiffTraversal.<DiffLinesLabel>forAll(forAll::add).visit(variationDiff);
+                        Assertions.assertEquals(expectedPreorder, forAll);
+                    }
+                }));
+            }
+            for (final Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.variantsync.diffdetective.diff.git.VariationTreeCache;
+import org.variantsync.diffdetective.diff.result.DiffParseException;
+import org.variantsync.diffdetective.variation.DiffLinesLabel;
+import org.variantsync.diffdetective.variation.diff.parse.VariationDiffParseOptions;
+import org.variantsync.diffdetective.variation.tree.VariationTree;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.eclipse.jgit.lib.Constants.OBJ_BLOB;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+public class VariationTreeCacheTest {
+    private static final String FILE = """
+            #ifdef A
+            int a;
+            #endif
+            int b;
+            """;
+
+    @Test
+    public void lookups(@TempDir Path repoDir) throws GitAPIException, IOException, DiffParseException {
+        try (Git git = Git.init().setDirectory(repoDir.toFile()).call()) {
+            final ObjectId blob;
+            try (ObjectInserter inserter = git.getRepository().newObjectInserter()) {
+                blob = inserter.insert(OBJ_BLOB, FILE.getBytes(StandardCharsets.UTF_8));
+                inserter.flush();
+            }
+
+            final var cache = new VariationTreeCache(4);
+            final VariationTree<DiffLinesLabel> first = cache.get(git, blob, VariationDiffParseOptions.Default);
+            final VariationTree<DiffLinesLabel> second = cache.get(git, blob, VariationDiffParseOptions.Default);
+            assertEquals(1, cache.getMisses());
+            assertEquals(1, cache.getHits());
+
+            // Each lookup returns an independent copy.
+            assertNotSame(first.root(), second.root());
+            first.root().removeAllChildren();
+            assertEquals(4, second.computeSize());
+
+            // Other parse options are cached separately.
+            cache.get(git, blob, new VariationDiffParseOptions(true, false));
+            assertEquals(2, cache.getMisses());
+        }
+    }
+}